@@ -0,0 +1,220 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.benchmarks;
+
+import java.io.IOException;
+
+import java.text.ParseException;
+
+import java.util.Collections;
+import java.util.List;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.edugility.objexj.engine.Engine;
+import com.edugility.objexj.engine.MatchOptions;
+import com.edugility.objexj.engine.MatchResult;
+import com.edugility.objexj.engine.Program;
+
+import com.edugility.objexj.parser.Parser;
+
+/**
+ * Compares runs that evaluate their {@link
+ * com.edugility.objexj.engine.Filter}s as they reach them with runs
+ * that {@linkplain MatchOptions#withCompressedAlphabet(boolean)
+ * classify their input up front} or {@linkplain
+ * MatchOptions#withAtomBitmaps(boolean) evaluate it into bitmaps},
+ * sequentially or in parallel.
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class AlphabetBenchmark {
+
+  /**
+   * The number of items in the input.
+   */
+  @Param({ "1000", "100000" })
+  public int size;
+
+  /**
+   * The pattern to match.
+   */
+  @Param({
+      "^java.lang.Integer(intValue() >= 0)*/java.lang.String(length() == 3)$",
+      "^java.lang.Integer(intValue() >= 0)*/java.lang.Integer(intValue() % 2 == 0)*/java.lang.String$"
+    })
+  public String pattern;
+
+  /**
+   * How the input is classified.
+   */
+  @Param
+  public Classification classification;
+
+  /**
+   * The compiled {@linkplain #pattern pattern}.
+   */
+  private Program<Object> program;
+
+  /**
+   * The input.
+   */
+  private List<Object> input;
+
+  /**
+   * The {@link ExecutorService} behind {@link #engine}, if any.
+   */
+  private ExecutorService executorService;
+
+  /**
+   * The {@link Engine} that runs {@link #program}.
+   */
+  private Engine<Object> engine;
+
+  /**
+   * The {@link MatchOptions} {@link #program} is run with.
+   */
+  private MatchOptions options;
+
+  /**
+   * Creates a new {@link AlphabetBenchmark}.
+   */
+  public AlphabetBenchmark() {
+    super();
+  }
+
+  /**
+   * Compiles the {@linkplain #pattern pattern}, builds the input and
+   * sets up the {@link Engine}.
+   *
+   * @exception IOException if the pattern could not be compiled
+   *
+   * @exception ParseException if the pattern could not be parsed
+   */
+  @Setup
+  public void setUp() throws IOException, ParseException {
+    this.program = new Parser().parse(this.pattern);
+    this.input = MatchBenchmark.InputType.ARRAY_LIST.newInput(this.size);
+    if (this.classification == Classification.PARALLEL || this.classification == Classification.PARALLEL_BITMAPS) {
+      this.executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+    this.engine = new Engine<Object>(null, this.executorService);
+    this.options = MatchOptions.UNLIMITED
+      .withCompressedAlphabet(this.classification == Classification.SEQUENTIAL || this.classification == Classification.PARALLEL)
+      .withAtomBitmaps(this.classification == Classification.BITMAPS || this.classification == Classification.PARALLEL_BITMAPS);
+    if (this.run() == null) {
+      throw new IllegalStateException(this.pattern + " does not match its input");
+    }
+  }
+
+  /**
+   * Shuts down the {@link ExecutorService}, if any.
+   */
+  @TearDown
+  public void tearDown() {
+    if (this.executorService != null) {
+      this.executorService.shutdownNow();
+    }
+  }
+
+  /**
+   * Runs the {@linkplain #pattern pattern} against the input.
+   *
+   * @return the {@link MatchResult}
+   */
+  @Benchmark
+  public MatchResult<?> run() {
+    return this.engine.run(this.program, this.input, Collections.emptySet(), null, this.options);
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * The ways {@link AlphabetBenchmark} classifies its input.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  public enum Classification {
+
+    /**
+     * No classification; {@link com.edugility.objexj.engine.Filter}s
+     * are evaluated as they are reached.
+     */
+    NONE,
+
+    /**
+     * Classification by the calling {@link Thread}.
+     */
+    SEQUENTIAL,
+
+    /**
+     * Classification by a pool with one {@link Thread} per processor.
+     */
+    PARALLEL,
+
+    /**
+     * Evaluation into bitmaps by the calling {@link Thread}.
+     */
+    BITMAPS,
+
+    /**
+     * Evaluation into bitmaps by a pool with one {@link Thread} per
+     * processor.
+     */
+    PARALLEL_BITMAPS
+
+  }
+
+}
@@ -0,0 +1,267 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.StringReader;
+
+import java.text.ParseException;
+
+import java.util.Collections;
+import java.util.List;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.edugility.objexj.Pattern;
+
+import com.edugility.objexj.engine.Program;
+
+import com.edugility.objexj.parser.Node;
+import com.edugility.objexj.parser.Parser;
+import com.edugility.objexj.parser.PostfixTokenizer;
+
+/**
+ * Measures how long it takes to turn textual patterns into {@link
+ * Pattern}s, both as a whole and step by step, and how that compares
+ * with {@linkplain Pattern#read(java.io.DataInput) reading} them in
+ * their binary form.
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class CompileBenchmark {
+
+  /**
+   * The pattern to compile.
+   */
+  @Param
+  public Source source;
+
+  /**
+   * The {@link Parser} that is used by the benchmarks that measure a
+   * single step.
+   */
+  private Parser parser;
+
+  /**
+   * The {@linkplain #source pattern}, already {@linkplain
+   * Parser#parseTree(CharSequence) parsed}.
+   */
+  private Node tree;
+
+  /**
+   * The {@linkplain #source pattern}, already compiled and {@linkplain
+   * Pattern#write(java.util.Collection, java.io.DataOutput) written}
+   * in its binary form.
+   */
+  private byte[] bytes;
+
+  /**
+   * Creates a new {@link CompileBenchmark}.
+   */
+  public CompileBenchmark() {
+    super();
+  }
+
+  /**
+   * Parses and encodes the {@linkplain #source pattern} ahead of the
+   * benchmarks that need it in those forms.
+   *
+   * @exception IOException if the pattern could not be encoded
+   *
+   * @exception ParseException if the pattern could not be parsed
+   */
+  @Setup
+  public void setUp() throws IOException, ParseException {
+    this.parser = new Parser();
+    this.tree = this.parser.parseTree(this.source.text);
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final DataOutputStream out = new DataOutputStream(bytes);
+    Pattern.write(Collections.singleton(Pattern.compile(this.source.text)), out);
+    out.close();
+    this.bytes = bytes.toByteArray();
+  }
+
+  /**
+   * Measures {@link Pattern#compile(String)}.
+   *
+   * @return the compiled {@link Pattern}
+   *
+   * @exception IOException if the pattern could not be compiled
+   *
+   * @exception ParseException if the pattern could not be parsed
+   */
+  @Benchmark
+  public Pattern<Object> compile() throws IOException, ParseException {
+    return Pattern.compile(this.source.text);
+  }
+
+  /**
+   * Measures {@link Parser#parseTree(CharSequence)}.
+   *
+   * @return the parsed {@link Node}
+   *
+   * @exception ParseException if the pattern could not be parsed
+   */
+  @Benchmark
+  public Node parseTree() throws ParseException {
+    return this.parser.parseTree(this.source.text);
+  }
+
+  /**
+   * Measures {@link Parser#parseTree(PostfixTokenizer)}, for
+   * comparison with {@link #parseTree()}.
+   *
+   * @return the parsed {@link Node}
+   *
+   * @exception IOException if the pattern could not be read
+   *
+   * @exception ParseException if the pattern could not be parsed
+   */
+  @Benchmark
+  public Node parseTreeFromPostfixTokenizer() throws IOException, ParseException {
+    return this.parser.parseTree(new PostfixTokenizer(new PushbackReader(new StringReader(this.source.text))));
+  }
+
+  /**
+   * Measures {@link Parser#compile(Node)}.
+   *
+   * @return the compiled {@link Program}
+   */
+  @Benchmark
+  public Program<Object> compileTree() {
+    return this.parser.compile(this.tree);
+  }
+
+  /**
+   * Measures {@link Pattern#read(java.io.DataInput)}.  Note that
+   * {@link Pattern}s that are read defer loading classes and
+   * compiling MVEL expressions until they are first used.
+   *
+   * @return the {@link Pattern}s that were read
+   *
+   * @exception IOException if the {@link Pattern}s could not be read
+   */
+  @Benchmark
+  public List<Pattern<Object>> read() throws IOException {
+    return Pattern.read(new DataInputStream(new ByteArrayInputStream(this.bytes)));
+  }
+
+  /**
+   * Returns the supplied textual pattern catenated with itself the
+   * supplied number of times.
+   *
+   * @param pattern the pattern to repeat; must not be {@code null}
+   *
+   * @param count the number of times to repeat it; must be greater
+   * than {@code 0}
+   *
+   * @return a non-{@code null} textual pattern
+   */
+  private static final String repeat(final String pattern, final int count) {
+    final StringBuilder sb = new StringBuilder(pattern);
+    for (int i = 1; i < count; i++) {
+      sb.append('/').append(pattern);
+    }
+    return sb.toString();
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * The patterns {@link CompileBenchmark} compiles.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  public enum Source {
+
+    /**
+     * A single atom.
+     */
+    SIMPLE("java.lang.Integer"),
+
+    /**
+     * A single atom with an MVEL expression.
+     */
+    MVEL("java.lang.Integer(intValue() > 10)"),
+
+    /**
+     * A mix of groups, alternation and repetition.
+     */
+    GROUPS("^(?:(java.lang.Integer|java.lang.Long))+/(?:java.lang.String(length() > 0)/java.lang.Character?)*/(java.lang.Object{2,5})$"),
+
+    /**
+     * A catenation of one hundred atoms.
+     */
+    LONG(repeat("java.lang.Character(charValue() == 'a')", 100));
+
+    /**
+     * The text of the pattern.
+     */
+    private final String text;
+
+    /**
+     * Creates a new {@link Source}.
+     *
+     * @param text the text of the pattern; must not be {@code null}
+     */
+    private Source(final String text) {
+      this.text = text;
+    }
+
+  }
+
+}
@@ -0,0 +1,125 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.benchmarks;
+
+import java.io.IOException;
+
+import java.text.ParseException;
+
+import java.util.List;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.edugility.objexj.Matcher;
+import com.edugility.objexj.Pattern;
+
+/**
+ * Measures the throughput of many threads {@linkplain
+ * Matcher#matches() matching} with a single shared {@link Pattern},
+ * as a server would.  Compare its results with those of a run with
+ * {@code -t 1} to see how well matching scales.
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class ConcurrentMatchBenchmark {
+
+  /**
+   * The number of items in each input.
+   */
+  @Param({ "100", "10000" })
+  public int size;
+
+  /**
+   * The pattern to match.
+   */
+  @Param({ "PLAIN", "MVEL", "CAPTURES" })
+  public MatchBenchmark.PatternSource pattern;
+
+  /**
+   * The shared, compiled {@linkplain #pattern pattern}.
+   */
+  private Pattern<Object> compiledPattern;
+
+  /**
+   * The shared input.
+   */
+  private List<Object> input;
+
+  /**
+   * Creates a new {@link ConcurrentMatchBenchmark}.
+   */
+  public ConcurrentMatchBenchmark() {
+    super();
+  }
+
+  /**
+   * Compiles the {@linkplain #pattern pattern} and builds the input.
+   *
+   * @exception IOException if the pattern could not be compiled
+   *
+   * @exception ParseException if the pattern could not be parsed
+   */
+  @Setup
+  public void setUp() throws IOException, ParseException {
+    this.compiledPattern = Pattern.compile(this.pattern.text);
+    this.input = MatchBenchmark.InputType.ARRAY_LIST.newInput(this.size);
+  }
+
+  /**
+   * Measures {@link Matcher#matches()} with a {@link Pattern} shared
+   * by all threads.
+   *
+   * @return the result of {@link Matcher#matches()}
+   */
+  @Benchmark
+  public boolean matches() {
+    return this.compiledPattern.matcher(this.input).matches();
+  }
+
+}
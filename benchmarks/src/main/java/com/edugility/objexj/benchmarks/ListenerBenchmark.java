@@ -0,0 +1,191 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.benchmarks;
+
+import java.io.IOException;
+
+import java.text.ParseException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.TimeUnit;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.edugility.objexj.Matcher;
+import com.edugility.objexj.Pattern;
+import com.edugility.objexj.PatternOptions;
+
+import com.edugility.objexj.engine.LoggingMatchListener;
+import com.edugility.objexj.engine.MatchListener;
+
+/**
+ * Measures what it costs {@link Matcher#matches()} to have a {@link
+ * MatchListener} installed, whether it does nothing or logs to a
+ * {@link Logger} that is not {@linkplain Logger#isLoggable(Level)
+ * loggable} at its level.
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class ListenerBenchmark {
+
+  /**
+   * The number of items in the input.
+   */
+  @Param({ "100", "10000" })
+  public int size;
+
+  /**
+   * The pattern to match.
+   */
+  @Param
+  public MatchBenchmark.PatternSource pattern;
+
+  /**
+   * The {@link MatchListener} to install.
+   */
+  @Param
+  public Listener listener;
+
+  /**
+   * The compiled {@linkplain #pattern pattern}.
+   */
+  private Pattern<Object> compiledPattern;
+
+  /**
+   * The input.
+   */
+  private List<Object> input;
+
+  /**
+   * Creates a new {@link ListenerBenchmark}.
+   */
+  public ListenerBenchmark() {
+    super();
+  }
+
+  /**
+   * Compiles the {@linkplain #pattern pattern} with the {@linkplain
+   * #listener listener} and builds the input.
+   *
+   * @exception IOException if the pattern could not be compiled
+   *
+   * @exception ParseException if the pattern could not be parsed
+   */
+  @Setup
+  public void setUp() throws IOException, ParseException {
+    this.compiledPattern = Pattern.compile(this.pattern.text, new PatternOptions<Object>().withListener(this.listener.newListener()));
+    this.input = MatchBenchmark.InputType.ARRAY_LIST.newInput(this.size);
+    if (!this.compiledPattern.matcher(this.input).matches()) {
+      throw new IllegalStateException(this.pattern + " does not match its input");
+    }
+  }
+
+  /**
+   * Measures {@link Matcher#matches()}.
+   *
+   * @return the result of {@link Matcher#matches()}
+   */
+  @Benchmark
+  public boolean matches() {
+    return this.compiledPattern.matcher(this.input).matches();
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * The {@link MatchListener}s {@link ListenerBenchmark} installs.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  public enum Listener {
+
+    /**
+     * No {@link MatchListener} at all.
+     */
+    NONE,
+
+    /**
+     * A {@link MatchListener} that does nothing.
+     */
+    NO_OP,
+
+    /**
+     * A {@link LoggingMatchListener} whose {@link Logger} is not
+     * loggable at {@link Level#FINER}.
+     */
+    LOGGING_DISABLED;
+
+    /**
+     * Returns a new {@link MatchListener} of this kind, or {@code
+     * null} if this is {@link #NONE}.
+     *
+     * @return a new {@link MatchListener}, or {@code null}
+     */
+    final MatchListener<Object> newListener() {
+      switch (this) {
+      case NO_OP:
+        return new MatchListener<Object>() {};
+      case LOGGING_DISABLED:
+        final Logger logger = Logger.getLogger(ListenerBenchmark.class.getName());
+        logger.setLevel(Level.INFO);
+        return new LoggingMatchListener<Object>(logger, Level.FINER);
+      default:
+        return null;
+      }
+    }
+
+  }
+
+}
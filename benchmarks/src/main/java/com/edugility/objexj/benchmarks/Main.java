@@ -0,0 +1,87 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.benchmarks;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.profile.GCProfiler;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the objexj benchmarks, accepting the same command line
+ * arguments as {@link org.openjdk.jmh.Main}, but with the {@linkplain
+ * GCProfiler GC profiler} enabled unless other profilers are
+ * requested, so that allocation per operation is always reported.
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+public final class Main {
+
+  /**
+   * Creates a new {@link Main}.
+   */
+  private Main() {
+    super();
+  }
+
+  /**
+   * Runs the benchmarks selected by the supplied command line
+   * arguments.
+   *
+   * @param args the command line arguments; must not be {@code null}
+   *
+   * @exception CommandLineOptionException if the arguments could not
+   * be parsed
+   *
+   * @exception IOException if help or a listing was requested and
+   * could not be printed
+   *
+   * @exception RunnerException if the benchmarks could not be run
+   */
+  public static final void main(final String[] args) throws CommandLineOptionException, IOException, RunnerException {
+    final CommandLineOptions commandLine = new CommandLineOptions(args);
+    if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListProfilers()) {
+      org.openjdk.jmh.Main.main(args);
+      return;
+    }
+    final ChainedOptionsBuilder builder = new OptionsBuilder().parent(commandLine);
+    if (commandLine.getProfilers().isEmpty()) {
+      builder.addProfiler(GCProfiler.class);
+    }
+    new Runner(builder.build()).run();
+  }
+
+}
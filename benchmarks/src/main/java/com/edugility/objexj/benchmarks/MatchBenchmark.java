@@ -0,0 +1,241 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.benchmarks;
+
+import java.io.IOException;
+
+import java.text.ParseException;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.edugility.objexj.Matcher;
+import com.edugility.objexj.Pattern;
+
+/**
+ * Measures {@link Matcher#matches()} and {@link Matcher#lookingAt()}
+ * over inputs of growing size, for patterns with and without MVEL
+ * expressions and with and without capture groups, and for inputs
+ * that are and are not {@link java.util.RandomAccess random
+ * access}.
+ *
+ * <p>Every input consists of {@code size - 1} {@link Integer}s
+ * followed by a single {@link String}, which every {@linkplain
+ * PatternSource pattern} matches in its entirety.  The time per
+ * operation should therefore grow linearly with {@link #size}.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class MatchBenchmark {
+
+  /**
+   * The number of items in the input.
+   */
+  @Param({ "10", "100", "1000", "10000", "100000", "1000000" })
+  public int size;
+
+  /**
+   * The pattern to match.
+   */
+  @Param
+  public PatternSource pattern;
+
+  /**
+   * The kind of {@link List} the input is.
+   */
+  @Param
+  public InputType inputType;
+
+  /**
+   * The compiled {@linkplain #pattern pattern}.
+   */
+  private Pattern<Object> compiledPattern;
+
+  /**
+   * The input.
+   */
+  private List<Object> input;
+
+  /**
+   * Creates a new {@link MatchBenchmark}.
+   */
+  public MatchBenchmark() {
+    super();
+  }
+
+  /**
+   * Compiles the {@linkplain #pattern pattern} and builds the input.
+   *
+   * @exception IOException if the pattern could not be compiled
+   *
+   * @exception ParseException if the pattern could not be parsed
+   */
+  @Setup
+  public void setUp() throws IOException, ParseException {
+    this.compiledPattern = Pattern.compile(this.pattern.text);
+    this.input = this.inputType.newInput(this.size);
+    if (!this.compiledPattern.matcher(this.input).matches()) {
+      throw new IllegalStateException(this.pattern + " does not match its input");
+    }
+  }
+
+  /**
+   * Measures {@link Matcher#matches()}.
+   *
+   * @return the result of {@link Matcher#matches()}
+   */
+  @Benchmark
+  public boolean matches() {
+    return this.compiledPattern.matcher(this.input).matches();
+  }
+
+  /**
+   * Measures {@link Matcher#lookingAt()}.
+   *
+   * @return the result of {@link Matcher#lookingAt()}
+   */
+  @Benchmark
+  public boolean lookingAt() {
+    return this.compiledPattern.matcher(this.input).lookingAt();
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * The patterns {@link MatchBenchmark} matches.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  public enum PatternSource {
+
+    /**
+     * A pattern without MVEL expressions or capture groups.
+     */
+    PLAIN("^java.lang.Integer*/java.lang.String$"),
+
+    /**
+     * A pattern whose every atom has an MVEL expression.
+     */
+    MVEL("^java.lang.Integer(intValue() >= 0)*/java.lang.String(length() == 3)$"),
+
+    /**
+     * A pattern with a capture group that is saved once per item.
+     */
+    CAPTURES("^((?:(java.lang.Integer))*)/(java.lang.String)$"),
+
+    /**
+     * An unanchored pattern, which has to be tried at every position
+     * of the input.
+     */
+    UNANCHORED("java.lang.String$");
+
+    /**
+     * The text of the pattern.
+     */
+    final String text;
+
+    /**
+     * Creates a new {@link PatternSource}.
+     *
+     * @param text the text of the pattern; must not be {@code null}
+     */
+    private PatternSource(final String text) {
+      this.text = text;
+    }
+
+  }
+
+  /**
+   * The kinds of {@link List} {@link MatchBenchmark} uses as input.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  public enum InputType {
+
+    /**
+     * An {@link ArrayList}.
+     */
+    ARRAY_LIST,
+
+    /**
+     * A {@link LinkedList}, which is copied before it is matched.
+     */
+    LINKED_LIST;
+
+    /**
+     * Returns a new input of the supplied size: {@code size - 1}
+     * {@link Integer}s followed by a {@link String}.
+     *
+     * @param size the size of the input; must be greater than {@code
+     * 0}
+     *
+     * @return a new, non-{@code null} {@link List}
+     */
+    final List<Object> newInput(final int size) {
+      final List<Object> input = new ArrayList<Object>(size);
+      for (int i = 0; i < size - 1; i++) {
+        input.add(Integer.valueOf(i));
+      }
+      input.add("end");
+      if (this == LINKED_LIST) {
+        return new LinkedList<Object>(input);
+      }
+      return input;
+    }
+
+  }
+
+}
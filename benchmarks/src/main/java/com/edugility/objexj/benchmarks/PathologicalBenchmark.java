@@ -0,0 +1,337 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.benchmarks;
+
+import java.io.IOException;
+
+import java.text.ParseException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.edugility.objexj.Matcher;
+import com.edugility.objexj.Pattern;
+
+/**
+ * Measures {@link Matcher#matches()} for families of patterns that
+ * are known to be hard on backtracking matchers, at growing sizes.
+ *
+ * <p>Each {@link Family} grows at its own rate, so rather than a
+ * size this benchmark is parameterized by a {@link #step} that each
+ * {@link Family} turns into a size of its own: sizes double from one
+ * step to the next for families that should grow polynomially, and
+ * increase by two for families that are known to grow
+ * exponentially.  The unit test named {@code
+ * TestCasePathologicalPatterns} asserts on the number of threads
+ * the same families need; this benchmark shows what that costs in
+ * time.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class PathologicalBenchmark {
+
+  /**
+   * Which of its sizes the {@link #family} is run at.
+   */
+  @Param({ "0", "1", "2", "3", "4" })
+  public int step;
+
+  /**
+   * The family of patterns to match.
+   */
+  @Param
+  public Family family;
+
+  /**
+   * The compiled pattern.
+   */
+  private Pattern<Object> pattern;
+
+  /**
+   * The input.
+   */
+  private List<Object> input;
+
+  /**
+   * Creates a new {@link PathologicalBenchmark}.
+   */
+  public PathologicalBenchmark() {
+    super();
+  }
+
+  /**
+   * Compiles the {@link #family}'s pattern and builds its input at
+   * the size that corresponds to the current {@link #step}.
+   *
+   * @exception IOException if the pattern could not be compiled
+   *
+   * @exception ParseException if the pattern could not be parsed
+   */
+  @Setup
+  public void setUp() throws IOException, ParseException {
+    final int size = this.family.size(this.step);
+    this.pattern = Pattern.compile(this.family.pattern(size));
+    this.input = this.family.input(size);
+  }
+
+  /**
+   * Measures {@link Matcher#matches()}.
+   *
+   * @return the result of {@link Matcher#matches()}
+   */
+  @Benchmark
+  public boolean matches() {
+    return this.pattern.matcher(this.input).matches();
+  }
+
+  /**
+   * Returns the supplied textual pattern catenated with itself the
+   * supplied number of times.
+   *
+   * @param pattern the pattern to repeat; must not be {@code null}
+   *
+   * @param count the number of times to repeat it; must be greater
+   * than {@code 0}
+   *
+   * @return a non-{@code null} textual pattern
+   */
+  private static final String repeat(final String pattern, final int count) {
+    final StringBuilder sb = new StringBuilder(pattern);
+    for (int i = 1; i < count; i++) {
+      sb.append('/').append(pattern);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Returns a new {@link List} of the supplied number of {@link
+   * Integer}s, followed by the supplied {@code last} item if it is
+   * not {@code null}.
+   *
+   * @param count the number of {@link Integer}s; must not be
+   * negative
+   *
+   * @param last the item to add at the end; may be {@code null}
+   *
+   * @return a new, non-{@code null} {@link List}
+   */
+  private static final List<Object> integers(final int count, final Object last) {
+    final List<Object> input = new ArrayList<Object>(Collections.nCopies(count, (Object)Integer.valueOf(1)));
+    if (last != null) {
+      input.add(last);
+    }
+    return input;
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * The families of patterns {@link PathologicalBenchmark} matches.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  public enum Family {
+
+    /**
+     * {@code (java.lang.Object?)}<sup>n</sup>{@code
+     * /java.lang.Object}<sup>n</sup> against n items.
+     */
+    OPTIONAL_PREFIX(false) {
+      @Override
+      final String pattern(final int size) {
+        return "^" + repeat("java.lang.Object?", size) + "/" + repeat("java.lang.Object", size) + "$";
+      }
+
+      @Override
+      final List<Object> input(final int size) {
+        return integers(size, null);
+      }
+    },
+
+    /**
+     * A star inside a star, against input that ends in something
+     * neither accepts.
+     */
+    NESTED_STARS(false) {
+      @Override
+      final String pattern(final int size) {
+        return "^(?:java.lang.Integer*)*$";
+      }
+    },
+
+    /**
+     * {@link #NESTED_STARS} with the inner star possessive.
+     */
+    POSSESSIVE_NESTED_STARS(true) {
+      @Override
+      final String pattern(final int size) {
+        return "^(?:java.lang.Integer*+)*$";
+      }
+    },
+
+    /**
+     * A starred alternation whose alternatives both accept every
+     * item, against input that ends in something neither accepts.
+     */
+    OVERLAPPING_ALTERNATION(false) {
+      @Override
+      final String pattern(final int size) {
+        return "^(?:java.lang.Integer|java.lang.Number)*$";
+      }
+    },
+
+    /**
+     * A starred alternation of many alternatives only the last of
+     * which accepts anything.
+     */
+    LONG_ALTERNATION(true) {
+      @Override
+      final String pattern(final int size) {
+        return "^(?:java.lang.String|java.lang.Long|java.lang.Double|java.lang.Short|java.lang.Byte|java.lang.Character|java.lang.Integer)*$";
+      }
+
+      @Override
+      final List<Object> input(final int size) {
+        return integers(size, null);
+      }
+    },
+
+    /**
+     * Two stars over the same items followed by an atom that is
+     * missing.
+     */
+    ADJACENT_STARS(true) {
+      @Override
+      final String pattern(final int size) {
+        return "^java.lang.Integer*/java.lang.Integer*/java.lang.String$";
+      }
+
+      @Override
+      final List<Object> input(final int size) {
+        return integers(size, null);
+      }
+    },
+
+    /**
+     * An unanchored star followed by an atom that is missing.
+     */
+    UNANCHORED_STAR(true) {
+      @Override
+      final String pattern(final int size) {
+        return "java.lang.Integer*/java.lang.String";
+      }
+
+      @Override
+      final List<Object> input(final int size) {
+        return integers(size, null);
+      }
+    };
+
+    /**
+     * Whether this {@link Family} should grow no faster than a
+     * polynomial in the size of its input.
+     */
+    private final boolean polynomial;
+
+    /**
+     * Creates a new {@link Family}.
+     *
+     * @param polynomial whether this {@link Family} should grow no
+     * faster than a polynomial in the size of its input
+     */
+    private Family(final boolean polynomial) {
+      this.polynomial = polynomial;
+    }
+
+    /**
+     * Returns the size of the input at the supplied step.
+     *
+     * @param step the step; must not be negative
+     *
+     * @return the size of the input
+     */
+    final int size(final int step) {
+      if (this.polynomial) {
+        return 64 << step;
+      }
+      return 4 + 2 * step;
+    }
+
+    /**
+     * Returns the text of this {@link Family}'s pattern at the
+     * supplied size.
+     *
+     * @param size the size; must be greater than {@code 0}
+     *
+     * @return the non-{@code null} text of a pattern
+     */
+    abstract String pattern(final int size);
+
+    /**
+     * Returns a new input for this {@link Family}'s pattern at the
+     * supplied size.  By default this is {@code size} {@link
+     * Integer}s followed by a {@link String}.
+     *
+     * @param size the size; must be greater than {@code 0}
+     *
+     * @return a new, non-{@code null} {@link List}
+     */
+    List<Object> input(final int size) {
+      return integers(size, "x");
+    }
+
+  }
+
+}
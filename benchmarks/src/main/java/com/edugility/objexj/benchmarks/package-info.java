@@ -0,0 +1,47 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+
+/**
+ * Contains <a href="http://openjdk.java.net/projects/code-tools/jmh/"
+ * target="_parent">JMH</a> benchmarks for the objexj toolkit.
+ *
+ * <p>Build and run them from the {@code benchmarks} directory, after
+ * installing objexj itself:</p>
+ *
+ * <pre>mvn package
+ *java -jar target/benchmarks.jar [JMH options] [benchmark regex]</pre>
+ *
+ * <p>Allocation per operation is reported by the {@linkplain
+ * org.openjdk.jmh.profile.GCProfiler GC profiler}, which {@link
+ * com.edugility.objexj.benchmarks.Main} enables by default.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson" target="_parent">Laird Nelson</a>
+ *
+ * @see com.edugility.objexj.benchmarks.Main
+ */
+package com.edugility.objexj.benchmarks;
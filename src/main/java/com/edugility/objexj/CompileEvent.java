@@ -0,0 +1,125 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A JDK Flight Recorder {@link Event} recording the {@linkplain
+ * Pattern#compile(String) compilation} of a {@link Pattern}.
+ *
+ * <p>This class is built for Java 8 and must only be loaded by way
+ * of {@link FlightRecorderSupport}, which makes sure that the JDK
+ * Flight Recorder is present first.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see FlightRecorderSupport
+ */
+@Name(CompileEvent.NAME)
+@Label("Pattern Compilation")
+@Category("objexj")
+@Description("The compilation of an objexj Pattern")
+@StackTrace(false)
+@Threshold("0 ms")
+final class CompileEvent extends Event {
+
+  /**
+   * The name of this kind of {@link Event}.
+   */
+  static final String NAME = "com.edugility.objexj.Compile";
+
+  /**
+   * The source code of the {@link Pattern} that was compiled.
+   */
+  @Label("Source")
+  String source;
+
+  /**
+   * The number of instructions in the compiled {@link Pattern}, or
+   * {@code -1} if the source code could not be compiled.
+   */
+  @Label("Instruction Count")
+  int instructionCount;
+
+  /**
+   * Creates a new {@link CompileEvent}.
+   */
+  CompileEvent() {
+    super();
+  }
+
+  /**
+   * Creates and {@linkplain #begin() begins} a new {@link
+   * CompileEvent} if {@link CompileEvent}s are currently being
+   * recorded.
+   *
+   * @return a new {@link CompileEvent}, or {@code null} if {@link
+   * CompileEvent}s are not being recorded
+   */
+  static final Object start() {
+    final CompileEvent event = new CompileEvent();
+    if (!event.isEnabled()) {
+      return null;
+    }
+    event.begin();
+    return event;
+  }
+
+  /**
+   * {@linkplain #end() Ends} the supplied {@link CompileEvent} and
+   * {@linkplain #commit() commits} it if it {@linkplain
+   * #shouldCommit() should be}.
+   *
+   * @param event a {@link CompileEvent} returned by the {@link
+   * #start()} method; must not be {@code null}
+   *
+   * @param source the source code of the {@link Pattern} that was
+   * compiled; may be {@code null}
+   *
+   * @param instructionCount the number of instructions in the
+   * compiled {@link Pattern}, or {@code -1} if compilation failed
+   */
+  static final void finish(final Object event, final String source, final int instructionCount) {
+    final CompileEvent compileEvent = (CompileEvent)event;
+    compileEvent.end();
+    if (compileEvent.shouldCommit()) {
+      compileEvent.source = source;
+      compileEvent.instructionCount = instructionCount;
+      compileEvent.commit();
+    }
+  }
+
+}
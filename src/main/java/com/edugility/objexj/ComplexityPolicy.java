@@ -0,0 +1,103 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj;
+
+import com.edugility.objexj.engine.Complexity;
+import com.edugility.objexj.engine.MatchOptions;
+import com.edugility.objexj.engine.ProgramAnalysis;
+
+/**
+ * What {@link Pattern#compile(String, PatternOptions)} and {@link
+ * Pattern#read(java.io.DataInput, PatternOptions)} do with a {@link
+ * Pattern} whose {@linkplain ProgramAnalysis#getComplexity()
+ * analysis} says it could take {@linkplain Complexity#EXPONENTIAL
+ * exponential time} to match.
+ *
+ * <p>Such patterns nest loops over items both could read, as
+ * {@code ^(?:java.lang.Integer*)*$} does, or repeat alternatives that
+ * can read the same item, as {@code
+ * ^(?:java.lang.Integer|java.lang.Number)*$} does.  Input that almost
+ * matches them can keep a {@link Matcher} busy for longer than any
+ * caller is willing to wait.</p>
+ *
+ * <p>{@link Pattern}s that are not exponential are compiled as usual
+ * whatever the policy.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see PatternOptions#withComplexityPolicy(ComplexityPolicy)
+ */
+public enum ComplexityPolicy {
+
+  /**
+   * The {@link Pattern} is compiled as usual.
+   */
+  IGNORE,
+
+  /**
+   * The {@link Pattern} is compiled as usual, but a warning is
+   * logged to the {@link java.util.logging.Logger} named after the
+   * {@link Pattern} class.
+   */
+  WARN,
+
+  /**
+   * The {@link Pattern} is not compiled; a {@link
+   * PatternTooComplexException} is thrown instead.
+   */
+  REJECT,
+
+  /**
+   * The {@link Pattern} is compiled {@linkplain Pattern#isRouted()
+   * routed}, so that its {@link Matcher}s take time bounded by the
+   * sizes of the {@link Pattern} and its input.
+   *
+   * <p>Its {@link Matcher}s rule out input that cannot match in time
+   * linear in its size.  Most such {@link Pattern}s are then run so
+   * that no thread repeats the work of another, and so answer in
+   * time proportional to those sizes with the same match they would
+   * otherwise report.  Those containing bounded repetitions, atomic
+   * groups, possessive repetitions or conditions that assign
+   * variables cannot be, and their {@link Matcher}s instead
+   * <strong>give up with a
+   * {@link com.edugility.objexj.engine.MatchLimitExceededException}
+   * rather than backtrack for longer than a limit linear in those
+   * sizes</strong>, even on input that could match.</p>
+   *
+   * @see Pattern#isRouted()
+   *
+   * @see ProgramAnalysis#isMemoizable()
+   *
+   * @see MatchOptions#withMemoizedStates(boolean)
+   *
+   * @see Pattern#ROUTED_STEPS_PER_INSTRUCTION
+   */
+  ROUTE;
+
+}
@@ -0,0 +1,181 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj;
+
+import java.io.IOException;
+
+import java.nio.DoubleBuffer;
+
+import java.text.ParseException;
+
+import com.edugility.objexj.engine.NumberList;
+import com.edugility.objexj.engine.NumberRangeFilter;
+
+/**
+ * A compiled pattern that matches sequences of {@code double}s
+ * without boxing them.
+ *
+ * <p>The syntax is that of {@link Pattern}, except that every atom
+ * is written as {@code double}, optionally followed by a predicate in
+ * parentheses: a comparison such as {@code double(> 0.5)} or {@code
+ * double(!= 0.5)}, or an inclusive range such as {@code
+ * double(0.5..1.5)}.  For example:</p>
+ *
+ * <blockquote><pre>final {@link DoublePattern} p = {@link DoublePattern}.{@link #compile(String) compile}("double(< 0.5)+/double(>= 0.5)");
+ * final {@link Matcher}&lt;{@link Double}&gt; m = p.{@link #matcher(double[]) matcher}(readings);</pre></blockquote>
+ *
+ * <p>Atoms test values as primitives and never evaluate <a
+ * href="http://mvel.codehaus.org/">MVEL</a>, so matching does no
+ * boxing and no reflection.  Boxing happens only when the returned
+ * {@link Matcher}'s {@link Matcher#group(int)} method is called; its
+ * {@link Matcher#start(int)} and {@link Matcher#end(int)} methods
+ * avoid even that.</p>
+ *
+ * <p>{@link DoublePattern}s are not safe for use by multiple Java
+ * {@linkplain java.lang.Thread threads}.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see Pattern
+ *
+ * @see NumberRangeFilter
+ */
+public final class DoublePattern {
+
+  /**
+   * The {@link NumberPattern} to which this {@link DoublePattern}
+   * delegates.  This field is never {@code null}.
+   */
+  private final NumberPattern<Double> pattern;
+
+  /**
+   * Creates a new {@link DoublePattern}.
+   *
+   * @param pattern the {@link NumberPattern} to which this {@link
+   * DoublePattern} will delegate; must not be {@code null}
+   */
+  private DoublePattern(final NumberPattern<Double> pattern) {
+    super();
+    assert pattern != null;
+    this.pattern = pattern;
+  }
+
+  /**
+   * Returns a {@link Matcher} initialized to match the supplied array
+   * of {@code double}s.  This method never returns {@code null}.
+   *
+   * <p>The array is not copied, so it must not be modified while the
+   * returned {@link Matcher} is in use.</p>
+   *
+   * @param items the input; may be {@code null}
+   *
+   * @return a new {@link Matcher}; never {@code null}
+   */
+  public final Matcher<Double> matcher(final double[] items) {
+    return this.pattern.matcher(items == null ? null : NumberList.valueOf(items), null);
+  }
+
+  /**
+   * Returns a {@link Matcher} initialized to match the supplied array
+   * of {@code double}s that will capture only the groups identified
+   * by the supplied indices.  This method never returns {@code null}.
+   *
+   * @param items the input; may be {@code null}
+   *
+   * @param groupsOfInterest the zero-based indices of the groups to
+   * capture; if {@code null}, every group will be captured; if
+   * empty, no group will be captured
+   *
+   * @return a new {@link Matcher}; never {@code null}
+   *
+   * @see Pattern#matcher(java.util.List, int[])
+   */
+  public final Matcher<Double> matcher(final double[] items, final int... groupsOfInterest) {
+    return this.pattern.matcher(items == null ? null : NumberList.valueOf(items), groupsOfInterest);
+  }
+
+  /**
+   * Returns a {@link Matcher} initialized to match the {@linkplain
+   * DoubleBuffer#remaining() remaining} {@code double}s in the supplied
+   * {@link DoubleBuffer}.  This method never returns {@code null}.
+   *
+   * <p>The buffer is not copied and its position is not changed.  Its
+   * contents must not be modified while the returned {@link Matcher}
+   * is in use.</p>
+   *
+   * @param items the input; may be {@code null}
+   *
+   * @return a new {@link Matcher}; never {@code null}
+   */
+  public final Matcher<Double> matcher(final DoubleBuffer items) {
+    return this.pattern.matcher(items == null ? null : NumberList.valueOf(items), null);
+  }
+
+  /**
+   * Returns the source code this {@link DoublePattern} was compiled from.
+   *
+   * @return the source code of this {@link DoublePattern}
+   */
+  @Override
+  public String toString() {
+    return this.pattern.toString();
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Compiles a new {@link DoublePattern} from the supplied source code.
+   *
+   * @param source the source code for the {@link DoublePattern}; must not
+   * be {@code null}
+   *
+   * @return a new, non-{@code null} {@link DoublePattern}
+   *
+   * @exception IllegalArgumentException if {@code source} is {@code
+   * null}
+   *
+   * @exception IOException if the source code could not be physically
+   * read for some reason
+   *
+   * @exception ParseException if the source code could be read but
+   * was syntactically invalid, or if it contains an atom that is not
+   * a valid {@code double} atom
+   *
+   * @see <a href="../../../../syntax.html" target="_parent">Syntax
+   * Guide</a>
+   */
+  public static final DoublePattern compile(final String source) throws IOException, ParseException {
+    return new DoublePattern(NumberPattern.<Double>compile(source, NumberRangeFilter.Kind.DOUBLE));
+  }
+
+}
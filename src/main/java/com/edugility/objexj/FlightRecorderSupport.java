@@ -0,0 +1,229 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj;
+
+/**
+ * Emits JDK Flight Recorder events for the compilation and matching
+ * of {@link Pattern}s when the JDK Flight Recorder is present, and
+ * does nothing otherwise.
+ *
+ * <p>This class does not refer to any JDK Flight Recorder classes
+ * itself, so it may be loaded on any Java virtual machine.  Its
+ * {@code JdkFlightRecorder} subclass, which does, is built for Java 8
+ * separately from the rest of this library and is loaded
+ * reflectively, only once the JDK Flight Recorder is known to be
+ * present.  When no recording is under way, each method costs little
+ * more than a check of whether the relevant event is enabled.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+abstract class FlightRecorderSupport {
+
+  /**
+   * The name of the subclass of {@link FlightRecorderSupport} that
+   * records events with the JDK Flight Recorder.
+   */
+  private static final String IMPLEMENTATION_CLASS_NAME = "com.edugility.objexj.JdkFlightRecorder";
+
+  /**
+   * The {@link FlightRecorderSupport} that does the recording, or
+   * {@code null} if the JDK Flight Recorder is not present.
+   */
+  private static final FlightRecorderSupport INSTANCE = newInstance();
+
+  /**
+   * Creates a new {@link FlightRecorderSupport}.
+   */
+  FlightRecorderSupport() {
+    super();
+  }
+
+  /**
+   * Begins recording the compilation of a {@link Pattern} if
+   * compilations are being recorded.
+   *
+   * @return an opaque {@link Object}, or {@code null} if
+   * compilations are not being recorded
+   *
+   * @see #beginCompile()
+   */
+  abstract Object startCompile();
+
+  /**
+   * Finishes recording the compilation of a {@link Pattern}.
+   *
+   * @param event a non-{@code null} {@link Object} returned by the
+   * {@link #startCompile()} method
+   *
+   * @param source the source code of the {@link Pattern} that was
+   * compiled; may be {@code null}
+   *
+   * @param instructionCount the number of instructions in the
+   * compiled {@link Pattern}, or {@code -1} if compilation failed
+   *
+   * @see #endCompile(Object, String, int)
+   */
+  abstract void finishCompile(final Object event, final String source, final int instructionCount);
+
+  /**
+   * Begins recording an attempt to match a {@link Pattern} if match
+   * attempts are being recorded.
+   *
+   * @return an opaque {@link Object}, or {@code null} if match
+   * attempts are not being recorded
+   *
+   * @see #beginMatch()
+   */
+  abstract Object startMatch();
+
+  /**
+   * Finishes recording an attempt to match a {@link Pattern}.
+   *
+   * @param event a non-{@code null} {@link Object} returned by the
+   * {@link #startMatch()} method
+   *
+   * @param pattern the {@link Pattern} that was matched; must not be
+   * {@code null}
+   *
+   * @param inputSize the number of items in the input, or {@code -1}
+   * if there was no input
+   *
+   * @param matched whether a match was found
+   *
+   * @param threadsForked the number of threads forked while matching
+   *
+   * @see #endMatch(Object, Pattern, int, boolean, long)
+   */
+  abstract void finishMatch(final Object event, final Pattern<?> pattern, final int inputSize, final boolean matched, final long threadsForked);
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Begins recording the compilation of a {@link Pattern}, if
+   * compilations are being recorded, and returns an opaque {@link
+   * Object} to pass to the {@link #endCompile(Object, String, int)}
+   * method when it is done.
+   *
+   * @return an opaque {@link Object}, or {@code null} if
+   * compilations are not being recorded
+   */
+  static final Object beginCompile() {
+    if (INSTANCE == null) {
+      return null;
+    }
+    return INSTANCE.startCompile();
+  }
+
+  /**
+   * Finishes recording the compilation of a {@link Pattern}.
+   *
+   * @param event the {@link Object} returned by the {@link
+   * #beginCompile()} method; may be {@code null} in which case
+   * nothing happens
+   *
+   * @param source the source code of the {@link Pattern} that was
+   * compiled; may be {@code null}
+   *
+   * @param instructionCount the number of instructions in the
+   * compiled {@link Pattern}, or {@code -1} if compilation failed
+   */
+  static final void endCompile(final Object event, final String source, final int instructionCount) {
+    if (event != null) {
+      INSTANCE.finishCompile(event, source, instructionCount);
+    }
+  }
+
+  /**
+   * Begins recording an attempt to match a {@link Pattern}, if match
+   * attempts are being recorded, and returns an opaque {@link
+   * Object} to pass to the {@link #endMatch(Object, Pattern, int,
+   * boolean, long)} method when it is done.
+   *
+   * @return an opaque {@link Object}, or {@code null} if match
+   * attempts are not being recorded
+   */
+  static final Object beginMatch() {
+    if (INSTANCE == null) {
+      return null;
+    }
+    return INSTANCE.startMatch();
+  }
+
+  /**
+   * Finishes recording an attempt to match a {@link Pattern}.
+   *
+   * @param event the {@link Object} returned by the {@link
+   * #beginMatch()} method; may be {@code null} in which case nothing
+   * happens
+   *
+   * @param pattern the {@link Pattern} that was matched; must not be
+   * {@code null}
+   *
+   * @param inputSize the number of items in the input, or {@code -1}
+   * if there was no input
+   *
+   * @param matched whether a match was found
+   *
+   * @param threadsForked the number of threads forked while matching
+   */
+  static final void endMatch(final Object event, final Pattern<?> pattern, final int inputSize, final boolean matched, final long threadsForked) {
+    if (event != null) {
+      INSTANCE.finishMatch(event, pattern, inputSize, matched, threadsForked);
+    }
+  }
+
+  /**
+   * Returns a new instance of the {@link FlightRecorderSupport}
+   * subclass that records events with the JDK Flight Recorder, or
+   * {@code null} if the JDK Flight Recorder, or that subclass, is not
+   * present.
+   *
+   * @return a new {@link FlightRecorderSupport}, or {@code null}
+   */
+  private static final FlightRecorderSupport newInstance() {
+    final ClassLoader loader = FlightRecorderSupport.class.getClassLoader();
+    try {
+      Class.forName("jdk.jfr.Event", false, loader);
+      return Class.forName(IMPLEMENTATION_CLASS_NAME, true, loader).asSubclass(FlightRecorderSupport.class).newInstance();
+    } catch (final ClassNotFoundException notPresent) {
+      return null;
+    } catch (final InstantiationException notUsable) {
+      return null;
+    } catch (final IllegalAccessException notUsable) {
+      return null;
+    } catch (final LinkageError notUsable) {
+      return null;
+    }
+  }
+
+}
@@ -0,0 +1,111 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj;
+
+/**
+ * A {@link FlightRecorderSupport} that records {@link CompileEvent}s
+ * and {@link MatchEvent}s with the JDK Flight Recorder.
+ *
+ * <p>This class, like the events it records, is built for Java 8 and
+ * must only be loaded by way of {@link FlightRecorderSupport}, which
+ * makes sure that the JDK Flight Recorder is present first.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see CompileEvent
+ *
+ * @see MatchEvent
+ */
+final class JdkFlightRecorder extends FlightRecorderSupport {
+
+  /**
+   * Creates a new {@link JdkFlightRecorder}.
+   */
+  JdkFlightRecorder() {
+    super();
+  }
+
+  /**
+   * Calls {@link CompileEvent#start()} and returns its result.
+   *
+   * @return a {@link CompileEvent}, or {@code null}
+   */
+  @Override
+  final Object startCompile() {
+    return CompileEvent.start();
+  }
+
+  /**
+   * Calls {@link CompileEvent#finish(Object, String, int)}.
+   *
+   * @param event a {@link CompileEvent}; must not be {@code null}
+   *
+   * @param source the source code of the {@link Pattern} that was
+   * compiled; may be {@code null}
+   *
+   * @param instructionCount the number of instructions in the
+   * compiled {@link Pattern}, or {@code -1} if compilation failed
+   */
+  @Override
+  final void finishCompile(final Object event, final String source, final int instructionCount) {
+    CompileEvent.finish(event, source, instructionCount);
+  }
+
+  /**
+   * Calls {@link MatchEvent#start()} and returns its result.
+   *
+   * @return a {@link MatchEvent}, or {@code null}
+   */
+  @Override
+  final Object startMatch() {
+    return MatchEvent.start();
+  }
+
+  /**
+   * Calls {@link MatchEvent#finish(Object, Pattern, int, boolean,
+   * long)}.
+   *
+   * @param event a {@link MatchEvent}; must not be {@code null}
+   *
+   * @param pattern the {@link Pattern} that was matched; must not be
+   * {@code null}
+   *
+   * @param inputSize the number of items in the input, or {@code -1}
+   * if there was no input
+   *
+   * @param matched whether a match was found
+   *
+   * @param threadsForked the number of threads forked while matching
+   */
+  @Override
+  final void finishMatch(final Object event, final Pattern<?> pattern, final int inputSize, final boolean matched, final long threadsForked) {
+    MatchEvent.finish(event, pattern, inputSize, matched, threadsForked);
+  }
+
+}
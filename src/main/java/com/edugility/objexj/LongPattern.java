@@ -0,0 +1,181 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj;
+
+import java.io.IOException;
+
+import java.nio.LongBuffer;
+
+import java.text.ParseException;
+
+import com.edugility.objexj.engine.NumberList;
+import com.edugility.objexj.engine.NumberRangeFilter;
+
+/**
+ * A compiled pattern that matches sequences of {@code long}s
+ * without boxing them.
+ *
+ * <p>The syntax is that of {@link Pattern}, except that every atom
+ * is written as {@code long}, optionally followed by a predicate in
+ * parentheses: a comparison such as {@code long(> 500)} or {@code
+ * long(!= 500)}, or an inclusive range such as {@code
+ * long(500..599)}.  For example:</p>
+ *
+ * <blockquote><pre>final {@link LongPattern} p = {@link LongPattern}.{@link #compile(String) compile}("long(< 500)+/long(>= 500)");
+ * final {@link Matcher}&lt;{@link Long}&gt; m = p.{@link #matcher(long[]) matcher}(readings);</pre></blockquote>
+ *
+ * <p>Atoms test values as primitives and never evaluate <a
+ * href="http://mvel.codehaus.org/">MVEL</a>, so matching does no
+ * boxing and no reflection.  Boxing happens only when the returned
+ * {@link Matcher}'s {@link Matcher#group(int)} method is called; its
+ * {@link Matcher#start(int)} and {@link Matcher#end(int)} methods
+ * avoid even that.</p>
+ *
+ * <p>{@link LongPattern}s are not safe for use by multiple Java
+ * {@linkplain java.lang.Thread threads}.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see Pattern
+ *
+ * @see NumberRangeFilter
+ */
+public final class LongPattern {
+
+  /**
+   * The {@link NumberPattern} to which this {@link LongPattern}
+   * delegates.  This field is never {@code null}.
+   */
+  private final NumberPattern<Long> pattern;
+
+  /**
+   * Creates a new {@link LongPattern}.
+   *
+   * @param pattern the {@link NumberPattern} to which this {@link
+   * LongPattern} will delegate; must not be {@code null}
+   */
+  private LongPattern(final NumberPattern<Long> pattern) {
+    super();
+    assert pattern != null;
+    this.pattern = pattern;
+  }
+
+  /**
+   * Returns a {@link Matcher} initialized to match the supplied array
+   * of {@code long}s.  This method never returns {@code null}.
+   *
+   * <p>The array is not copied, so it must not be modified while the
+   * returned {@link Matcher} is in use.</p>
+   *
+   * @param items the input; may be {@code null}
+   *
+   * @return a new {@link Matcher}; never {@code null}
+   */
+  public final Matcher<Long> matcher(final long[] items) {
+    return this.pattern.matcher(items == null ? null : NumberList.valueOf(items), null);
+  }
+
+  /**
+   * Returns a {@link Matcher} initialized to match the supplied array
+   * of {@code long}s that will capture only the groups identified
+   * by the supplied indices.  This method never returns {@code null}.
+   *
+   * @param items the input; may be {@code null}
+   *
+   * @param groupsOfInterest the zero-based indices of the groups to
+   * capture; if {@code null}, every group will be captured; if
+   * empty, no group will be captured
+   *
+   * @return a new {@link Matcher}; never {@code null}
+   *
+   * @see Pattern#matcher(java.util.List, int[])
+   */
+  public final Matcher<Long> matcher(final long[] items, final int... groupsOfInterest) {
+    return this.pattern.matcher(items == null ? null : NumberList.valueOf(items), groupsOfInterest);
+  }
+
+  /**
+   * Returns a {@link Matcher} initialized to match the {@linkplain
+   * LongBuffer#remaining() remaining} {@code long}s in the supplied
+   * {@link LongBuffer}.  This method never returns {@code null}.
+   *
+   * <p>The buffer is not copied and its position is not changed.  Its
+   * contents must not be modified while the returned {@link Matcher}
+   * is in use.</p>
+   *
+   * @param items the input; may be {@code null}
+   *
+   * @return a new {@link Matcher}; never {@code null}
+   */
+  public final Matcher<Long> matcher(final LongBuffer items) {
+    return this.pattern.matcher(items == null ? null : NumberList.valueOf(items), null);
+  }
+
+  /**
+   * Returns the source code this {@link LongPattern} was compiled from.
+   *
+   * @return the source code of this {@link LongPattern}
+   */
+  @Override
+  public String toString() {
+    return this.pattern.toString();
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Compiles a new {@link LongPattern} from the supplied source code.
+   *
+   * @param source the source code for the {@link LongPattern}; must not
+   * be {@code null}
+   *
+   * @return a new, non-{@code null} {@link LongPattern}
+   *
+   * @exception IllegalArgumentException if {@code source} is {@code
+   * null}
+   *
+   * @exception IOException if the source code could not be physically
+   * read for some reason
+   *
+   * @exception ParseException if the source code could be read but
+   * was syntactically invalid, or if it contains an atom that is not
+   * a valid {@code long} atom
+   *
+   * @see <a href="../../../../syntax.html" target="_parent">Syntax
+   * Guide</a>
+   */
+  public static final LongPattern compile(final String source) throws IOException, ParseException {
+    return new LongPattern(NumberPattern.<Long>compile(source, NumberRangeFilter.Kind.LONG));
+  }
+
+}
@@ -0,0 +1,154 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A JDK Flight Recorder {@link Event} recording a {@link Matcher}'s
+ * attempt to match its input.
+ *
+ * <p>By default only match attempts that take at least ten
+ * milliseconds are recorded.  The threshold may be changed like that
+ * of any other {@link Event}.</p>
+ *
+ * <p>This class is built for Java 8 and must only be loaded by way
+ * of {@link FlightRecorderSupport}, which makes sure that the JDK
+ * Flight Recorder is present first.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see FlightRecorderSupport
+ */
+@Name(MatchEvent.NAME)
+@Label("Pattern Match")
+@Category("objexj")
+@Description("An attempt to match an objexj Pattern against its input")
+@Threshold("10 ms")
+final class MatchEvent extends Event {
+
+  /**
+   * The name of this kind of {@link Event}.
+   */
+  static final String NAME = "com.edugility.objexj.Match";
+
+  /**
+   * The source code of the {@link Pattern} that was matched.
+   */
+  @Label("Pattern")
+  String pattern;
+
+  /**
+   * The {@linkplain System#identityHashCode(Object) identity hash
+   * code} of the {@link Pattern} that was matched, which tells apart
+   * {@link Pattern}s compiled from the same source code.
+   */
+  @Label("Pattern Identity")
+  int patternIdentity;
+
+  /**
+   * The number of items in the input, or {@code -1} if there was no
+   * input.
+   */
+  @Label("Input Size")
+  int inputSize;
+
+  /**
+   * Whether a match was found.
+   */
+  @Label("Matched")
+  boolean matched;
+
+  /**
+   * The number of threads forked while matching.
+   */
+  @Label("Threads Forked")
+  long threadsForked;
+
+  /**
+   * Creates a new {@link MatchEvent}.
+   */
+  MatchEvent() {
+    super();
+  }
+
+  /**
+   * Creates and {@linkplain #begin() begins} a new {@link
+   * MatchEvent} if {@link MatchEvent}s are currently being recorded.
+   *
+   * @return a new {@link MatchEvent}, or {@code null} if {@link
+   * MatchEvent}s are not being recorded
+   */
+  static final Object start() {
+    final MatchEvent event = new MatchEvent();
+    if (!event.isEnabled()) {
+      return null;
+    }
+    event.begin();
+    return event;
+  }
+
+  /**
+   * {@linkplain #end() Ends} the supplied {@link MatchEvent} and
+   * {@linkplain #commit() commits} it if it {@linkplain
+   * #shouldCommit() should be}.
+   *
+   * @param event a {@link MatchEvent} returned by the {@link
+   * #start()} method; must not be {@code null}
+   *
+   * @param pattern the {@link Pattern} that was matched; must not be
+   * {@code null}
+   *
+   * @param inputSize the number of items in the input, or {@code -1}
+   * if there was no input
+   *
+   * @param matched whether a match was found
+   *
+   * @param threadsForked the number of threads forked while matching
+   */
+  static final void finish(final Object event, final Pattern<?> pattern, final int inputSize, final boolean matched, final long threadsForked) {
+    final MatchEvent matchEvent = (MatchEvent)event;
+    matchEvent.end();
+    if (matchEvent.shouldCommit()) {
+      matchEvent.pattern = pattern.toString();
+      matchEvent.patternIdentity = System.identityHashCode(pattern);
+      matchEvent.inputSize = inputSize;
+      matchEvent.matched = matched;
+      matchEvent.threadsForked = threadsForked;
+      matchEvent.commit();
+    }
+  }
+
+}
@@ -30,10 +30,15 @@ package com.edugility.objexj;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import com.edugility.objexj.engine.Engine;
+import com.edugility.objexj.engine.MatchLimitExceededException;
+import com.edugility.objexj.engine.MatchOptions;
 import com.edugility.objexj.engine.MatchResult;
+import com.edugility.objexj.engine.MatchStats;
 import com.edugility.objexj.engine.Program;
+import com.edugility.objexj.engine.Strategy;
 
 /**
  * An object that matches a {@link Pattern} against a {@link List} of
@@ -44,6 +49,14 @@ import com.edugility.objexj.engine.Program;
  * produced it stores results about any match that might have
  * occurred.</p>
  *
+ * <p>The match is attempted the first time any method that reports
+ * on it is called.  If the {@link Matcher} was produced with {@link
+ * MatchOptions}, or its {@link Pattern} {@linkplain
+ * Pattern#getMatchOptions() has some}, and the match exceeds any of
+ * the limits they impose, that method throws a {@link
+ * MatchLimitExceededException} and so will the next one, which
+ * attempts the match again.</p>
+ *
  * <p>{@link Matcher}s are not safe for use by multiple Java
  * {@linkplain java.lang.Thread threads}.</p>
  *
@@ -65,6 +78,12 @@ import com.edugility.objexj.engine.Program;
  */
 public class Matcher<T> {
 
+  /**
+   * The {@code int} array {@linkplain #offsets() returned} when there
+   * is no match.  Being empty, it can be shared safely.
+   */
+  private static final int[] NO_OFFSETS = new int[0];
+
   /**
    * The {@link Pattern} that this {@link Matcher} is going to apply.
    * This field is never {@code null}.
@@ -85,12 +104,52 @@ public class Matcher<T> {
    */
   private List<? extends T> input;
 
+  /**
+   * The keys of the capture groups this {@link Matcher} will
+   * capture.  This field may be {@code null}, in which case all
+   * capture groups will be captured.
+   *
+   * @see Pattern#matcher(List, int[])
+   */
+  private final Set<?> groupsOfInterest;
+
+  /**
+   * The {@link MatchOptions} imposing limits on the match.  This
+   * field may be {@code null}, in which case the {@linkplain
+   * Pattern#getMatchOptions() <tt>Pattern</tt>'s
+   * <tt>MatchOptions</tt>} are used.
+   *
+   * @see Pattern#matcher(List, MatchOptions)
+   */
+  private final MatchOptions options;
+
   /**
    * A {@link MatchResult} that contains the state of the last match
    * attempt.  This field may be {@code null}.
    */
   private transient MatchResult<? extends T> matchResult;
 
+  /**
+   * Whether the match has been attempted, successfully or not.
+   */
+  private transient boolean attempted;
+
+  /**
+   * The {@link MatchStats} recorded during the match attempt.  This
+   * field may be {@code null}.
+   *
+   * @see #getStats()
+   */
+  private transient MatchStats stats;
+
+  /**
+   * The {@link Strategy} used for the match attempt.  This field may
+   * be {@code null}.
+   *
+   * @see #getStrategy()
+   */
+  private transient Strategy strategy;
+
   /**
    * Creates a {@link Matcher} with the supplied {@link Pattern} and
    * input.
@@ -105,12 +164,64 @@ public class Matcher<T> {
    * null}
    */
   Matcher(final Pattern<T> pattern, final List<? extends T> input) {
+    this(pattern, input, null);
+  }
+
+  /**
+   * Creates a {@link Matcher} with the supplied {@link Pattern} and
+   * input that will capture only the capture groups identified by
+   * the supplied keys.
+   *
+   * @param pattern the {@link Pattern} to apply; must not be {@code
+   * null}
+   *
+   * @param input a possibly {@code null} {@link List} of items to
+   * match the supplied {@link Pattern} against
+   *
+   * @param groupsOfInterest the keys of the capture groups to
+   * capture; may be {@code null} in which case all capture groups
+   * will be captured
+   * 
+   * @exception IllegalArgumentException if {@code pattern} is {@code
+   * null}
+   */
+  Matcher(final Pattern<T> pattern, final List<? extends T> input, final Set<?> groupsOfInterest) {
+    this(pattern, input, groupsOfInterest, null);
+  }
+
+  /**
+   * Creates a {@link Matcher} with the supplied {@link Pattern} and
+   * input that will capture only the capture groups identified by
+   * the supplied keys and will match within the limits imposed by
+   * the supplied {@link MatchOptions}.
+   *
+   * @param pattern the {@link Pattern} to apply; must not be {@code
+   * null}
+   *
+   * @param input a possibly {@code null} {@link List} of items to
+   * match the supplied {@link Pattern} against
+   *
+   * @param groupsOfInterest the keys of the capture groups to
+   * capture; may be {@code null} in which case all capture groups
+   * will be captured
+   *
+   * @param options the {@link MatchOptions} to match within; may be
+   * {@code null} in which case the {@linkplain
+   * Pattern#getMatchOptions() <tt>Pattern</tt>'s
+   * <tt>MatchOptions</tt>} are used
+   * 
+   * @exception IllegalArgumentException if {@code pattern} is {@code
+   * null}
+   */
+  Matcher(final Pattern<T> pattern, final List<? extends T> input, final Set<?> groupsOfInterest, final MatchOptions options) {
     super();
     if (pattern == null) {
       throw new IllegalArgumentException("pattern", new NullPointerException("pattern"));
     }
     this.pattern = pattern;
     this.input = input;
+    this.groupsOfInterest = groupsOfInterest;
+    this.options = options;
   }
 
   /**
@@ -125,6 +236,9 @@ public class Matcher<T> {
    * <em>entire</em> input against its {@linkplain #getPattern()
    * affiliated <tt>Pattern</tt>}; {@code false} otherwise
    *
+   * @exception MatchLimitExceededException if the match exceeded a
+   * limit imposed by this {@link Matcher}'s {@link MatchOptions}
+   *
    * @see #lookingAt()
    */
   public final boolean matches() {
@@ -145,6 +259,9 @@ public class Matcher<T> {
    * Matcher}'s {@linkplain #getPattern() affiliated
    * <tt>Pattern</tt>}; {@code false} otherwise
    *
+   * @exception MatchLimitExceededException if the match exceeded a
+   * limit imposed by this {@link Matcher}'s {@link MatchOptions}
+   *
    * @see #matches()
    */
   public final boolean lookingAt() {
@@ -156,7 +273,10 @@ public class Matcher<T> {
    * Returns the total number of <em>capture groups</em> matched by
    * this {@link Matcher}.  Any successful match will cause this
    * method to return an {@code int} greater than or equal to {@code
-   * 1}.  Group indices are numbered starting with {@code 0}.
+   * 1}, unless this {@link Matcher} was {@linkplain
+   * Pattern#matcher(List, int[]) told to capture only certain
+   * groups}, in which case only those groups are counted.  Group
+   * indices are numbered starting with {@code 0}.
    *
    * @return the total number of capture groups matched by this {@link
    * Matcher}; never less than {@code 0}
@@ -185,7 +305,8 @@ public class Matcher<T> {
    *
    * @return a {@link List} of items (a subset of the {@linkplain
    * #getInput() input}), or {@code null} if no such capture group was
-   * ever identified
+   * ever identified or if this {@link Matcher} was {@linkplain
+   * Pattern#matcher(List, int[]) told not to capture it}
    *
    * @see <a href="../../../../syntax.html" target="_parent">Syntax
    * Guide</a>
@@ -201,6 +322,164 @@ public class Matcher<T> {
     return result;
   }
 
+  /**
+   * Returns the zero-based index within the {@linkplain #getInput()
+   * input} of the first item of the <em>capture group</em> matched by
+   * the last match indexed under the supplied zero-based index, or
+   * {@code -1} if no such capture group was matched.
+   *
+   * <p>Unlike the {@link #group(int)} method, this method does not
+   * create a {@link List} to return.</p>
+   *
+   * @param index a zero-based number identifying a capture group; may
+   * be any number
+   *
+   * @return the inclusive start index of the capture group, or
+   * {@code -1}
+   *
+   * @see #end(int)
+   *
+   * @see #group(int)
+   */
+  public final int start(final int index) {
+    final MatchResult<?> matchResult = this.getMatchResult();
+    final int result;
+    if (matchResult == null) {
+      result = -1;
+    } else {
+      result = matchResult.start(index);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the zero-based index within the {@linkplain #getInput()
+   * input} of the first item of the last match, or {@code -1} if
+   * there was no match or if this {@link Matcher} was {@linkplain
+   * Pattern#matcher(List, int[]) told not to capture group {@code
+   * 0}}.
+   *
+   * @return the inclusive start index of the match, or {@code -1}
+   *
+   * @see #start(int)
+   */
+  public final int start() {
+    return this.start(0);
+  }
+
+  /**
+   * Returns the zero-based index within the {@linkplain #getInput()
+   * input} following the last item of the <em>capture group</em>
+   * matched by the last match indexed under the supplied zero-based
+   * index, or {@code -1} if no such capture group was matched.
+   *
+   * <p>Unlike the {@link #group(int)} method, this method does not
+   * create a {@link List} to return.</p>
+   *
+   * @param index a zero-based number identifying a capture group; may
+   * be any number
+   *
+   * @return the exclusive end index of the capture group, or {@code
+   * -1}
+   *
+   * @see #start(int)
+   *
+   * @see #group(int)
+   */
+  public final int end(final int index) {
+    final MatchResult<?> matchResult = this.getMatchResult();
+    final int result;
+    if (matchResult == null) {
+      result = -1;
+    } else {
+      result = matchResult.end(index);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the zero-based index within the {@linkplain #getInput()
+   * input} following the last item of the last match, or {@code -1}
+   * if there was no match or if this {@link Matcher} was {@linkplain
+   * Pattern#matcher(List, int[]) told not to capture group {@code
+   * 0}}.
+   *
+   * @return the exclusive end index of the match, or {@code -1}
+   *
+   * @see #end(int)
+   */
+  public final int end() {
+    return this.end(0);
+  }
+
+  /**
+   * Returns an {@code int} array holding the {@linkplain #start(int)
+   * start} and {@linkplain #end(int) end} indices of every capture
+   * group matched by the last match.  The indices of group {@code n}
+   * are found at positions {@code 2 * n} and {@code 2 * n + 1}
+   * respectively, and are both {@code -1} if that group was not
+   * captured.  If there was no match, an empty array is returned.
+   *
+   * <p>This method never returns {@code null}.  A new array is
+   * returned each time this method is called; modifying it has no
+   * effect on this {@link Matcher}.</p>
+   *
+   * @return a new, non-{@code null} {@code int} array of offsets
+   *
+   * @see #offsets(int[])
+   */
+  public final int[] offsets() {
+    final MatchResult<?> matchResult = this.getMatchResult();
+    final int[] result;
+    if (matchResult == null) {
+      result = NO_OFFSETS;
+    } else {
+      result = matchResult.offsets();
+    }
+    return result;
+  }
+
+  /**
+   * Copies the offsets {@linkplain #offsets() described} in the
+   * documentation for the {@link #offsets()} method into the supplied
+   * {@code int} array, starting at its index {@code 0}, and returns
+   * how many there are.
+   *
+   * <p>If {@code target} is too short to hold every offset, as many
+   * as fit are copied; the return value lets the caller tell.  Unlike
+   * the {@link #offsets()} method, this method does not create an
+   * array, so a caller matching many inputs can reuse one.</p>
+   *
+   * @param target the {@code int} array to fill; must not be {@code
+   * null}
+   *
+   * @return the number of offsets the last match holds, which may be
+   * greater than the number copied, or {@code 0} if there was no
+   * match
+   *
+   * @exception IllegalArgumentException if {@code target} is {@code
+   * null}
+   *
+   * @see #offsets()
+   *
+   * @see #start(int)
+   *
+   * @see #end(int)
+   */
+  public final int offsets(final int[] target) {
+    if (target == null) {
+      throw new IllegalArgumentException("target", new NullPointerException("target"));
+    }
+    final MatchResult<?> matchResult = this.getMatchResult();
+    final int result;
+    if (matchResult == null) {
+      result = 0;
+    } else {
+      result = matchResult.offsets(target);
+    }
+    return result;
+  }
+
   /**
    * Returns a non-{@code null}, {@linkplain
    * Collections#unmodifiableMap(Map) unmodifiable} {@link Map}
@@ -258,6 +537,38 @@ public class Matcher<T> {
     return result;
   }
 
+  /**
+   * Returns the {@link MatchStats} recorded while this {@link
+   * Matcher} attempted its match, or {@code null} if its {@linkplain
+   * #getPattern() affiliated <tt>Pattern</tt>} was not {@linkplain
+   * PatternOptions#withStatsEnabled(boolean) recording
+   * <tt>MatchStats</tt>}.  The match is attempted if that has not
+   * already happened.
+   *
+   * @return a {@link MatchStats}, or {@code null}
+   *
+   * @see PatternOptions#withStatsEnabled(boolean)
+   */
+  public final MatchStats getStats() {
+    this.getMatchResult();
+    return this.stats;
+  }
+
+  /**
+   * Returns the {@link Strategy} used for this {@link Matcher}'s
+   * match attempt.  The match is attempted if that has not already
+   * happened.  This method never returns {@code null}.
+   *
+   * @return a non-{@code null} {@link Strategy}
+   *
+   * @see PatternOptions#withStrategy(Strategy)
+   */
+  public final Strategy getStrategy() {
+    this.getMatchResult();
+    assert this.strategy != null;
+    return this.strategy;
+  }
+
   /**
    * Returns the {@link Pattern} with which this {@link Matcher} is
    * currently affiliated.  This method never returns {@code null}.
@@ -286,14 +597,40 @@ public class Matcher<T> {
    * match
    */
   private final MatchResult<? extends T> getMatchResult() {
-    if (this.matchResult == null) {
+    if (!this.attempted) {
       final Pattern<T> pattern = this.getPattern();
       assert pattern != null;
       final Program<T> program = pattern.getProgram();
       assert program != null;
       final Engine<T> engine = pattern.getEngine();
       assert engine != null;
-      this.matchResult = engine.run(program, this.input);
+      final boolean statsEnabled = pattern.isStatsEnabled();
+      final Object event = FlightRecorderSupport.beginMatch();
+      final MatchStats stats;
+      if (statsEnabled || event != null) {
+        stats = new MatchStats();
+      } else {
+        stats = null;
+      }
+      final int inputSize = this.input == null ? 0 : this.input.size();
+      MatchOptions options = this.options == null ? pattern.getMatchOptions() : this.options;
+      this.strategy = pattern.selectStrategy(inputSize, this.groupsOfInterest, options);
+      if (this.strategy != Strategy.LAZY) {
+        options = this.strategy.applyTo(options);
+      }
+      options = pattern.bound(options, inputSize);
+      try {
+        this.matchResult = engine.run(program, this.input, this.groupsOfInterest, stats, options);
+        this.attempted = true;
+      } finally {
+        if (event != null) {
+          FlightRecorderSupport.endMatch(event, pattern, this.input == null ? -1 : this.input.size(), this.matchResult != null, stats.getThreadsForked());
+        }
+      }
+      if (statsEnabled) {
+        this.stats = stats;
+        pattern.addStats(stats);
+      }
     }
     return this.matchResult;
   }
@@ -0,0 +1,111 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj;
+
+import com.edugility.objexj.engine.Filter;
+import com.edugility.objexj.engine.NumberRangeFilter;
+
+import com.edugility.objexj.parser.Parser;
+
+/**
+ * A {@link Parser} whose atoms are {@link NumberRangeFilter}s of a
+ * single {@link NumberRangeFilter.Kind Kind}.
+ *
+ * <p>An atom is written as the {@linkplain
+ * NumberRangeFilter.Kind#getKeyword() keyword} of the {@link
+ * NumberRangeFilter.Kind Kind}, optionally followed by a predicate in
+ * parentheses: {@code int}, {@code int(> 500)} or {@code
+ * int(500..599)}, for example.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see NumberPattern
+ *
+ * @see IntPattern
+ *
+ * @see LongPattern
+ *
+ * @see DoublePattern
+ */
+final class NumberParser extends Parser {
+
+  /**
+   * The {@link NumberRangeFilter.Kind Kind} of every atom.  This
+   * field is never {@code null}.
+   */
+  private final NumberRangeFilter.Kind kind;
+
+  /**
+   * Creates a new {@link NumberParser}.
+   *
+   * @param kind the {@link NumberRangeFilter.Kind Kind} of every
+   * atom; must not be {@code null}
+   *
+   * @exception IllegalArgumentException if {@code kind} is {@code
+   * null}
+   */
+  NumberParser(final NumberRangeFilter.Kind kind) {
+    super();
+    if (kind == null) {
+      throw new IllegalArgumentException("kind", new NullPointerException("kind"));
+    }
+    this.kind = kind;
+  }
+
+  /**
+   * Returns a new {@link NumberRangeFilter} for the supplied filter
+   * type and expression.
+   *
+   * @param filterType the filter type; must be this {@link
+   * NumberParser}'s {@linkplain NumberRangeFilter.Kind#getKeyword()
+   * keyword}, or {@code java.lang.Object} for the implicit atom that
+   * makes a pattern match anywhere in its input
+   *
+   * @param expression the predicate; may be {@code null}
+   *
+   * @return a new {@link NumberRangeFilter}; never {@code null}
+   *
+   * @exception IllegalArgumentException if {@code filterType} is not
+   * acceptable or {@code expression} is not a valid predicate
+   */
+  @Override
+  protected final <T> Filter<T> newFilter(final String filterType, final String expression) {
+    final String keyword = this.kind.getKeyword();
+    if (keyword.equals(filterType)) {
+      if (expression == null) {
+        return new NumberRangeFilter<T>(keyword);
+      }
+      return new NumberRangeFilter<T>(keyword + " " + expression);
+    } else if ("java.lang.Object".equals(filterType) && expression == null) {
+      return new NumberRangeFilter<T>(keyword);
+    }
+    throw new IllegalArgumentException("Expected " + keyword + "; got " + filterType);
+  }
+
+}
@@ -0,0 +1,151 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj;
+
+import java.io.IOException;
+
+import java.text.ParseException;
+
+import com.edugility.objexj.engine.NumberList;
+import com.edugility.objexj.engine.NumberRangeFilter;
+
+/**
+ * The machinery shared by {@link IntPattern}, {@link LongPattern}
+ * and {@link DoublePattern}: a {@link Pattern} whose atoms are all
+ * {@link NumberRangeFilter}s of a single {@link
+ * NumberRangeFilter.Kind Kind}.
+ *
+ * @param <N> the kind of {@link Number} matched
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see NumberParser
+ */
+final class NumberPattern<N extends Number> {
+
+  /**
+   * The {@link Pattern} to which this {@link NumberPattern}
+   * delegates.  This field is never {@code null}.
+   */
+  private final Pattern<N> pattern;
+
+  /**
+   * Creates a new {@link NumberPattern}.
+   *
+   * @param pattern the {@link Pattern} to which this {@link
+   * NumberPattern} will delegate; must not be {@code null}
+   */
+  private NumberPattern(final Pattern<N> pattern) {
+    super();
+    assert pattern != null;
+    this.pattern = pattern;
+  }
+
+  /**
+   * Returns a {@link Matcher} initialized to match the supplied
+   * {@link NumberList} that will capture only the groups identified
+   * by the supplied indices.  This method never returns {@code
+   * null}.
+   *
+   * @param items the input; may be {@code null}
+   *
+   * @param groupsOfInterest the zero-based indices of the groups to
+   * capture; if {@code null}, every group will be captured; if
+   * empty, no group will be captured
+   *
+   * @return a new {@link Matcher}; never {@code null}
+   *
+   * @see Pattern#matcher(java.util.List, int[])
+   */
+  final Matcher<N> matcher(final NumberList<N> items, final int[] groupsOfInterest) {
+    if (groupsOfInterest == null) {
+      return this.pattern.matcher(items);
+    }
+    return this.pattern.matcher(items, groupsOfInterest);
+  }
+
+  /**
+   * Returns the source code this {@link NumberPattern} was compiled
+   * from.
+   *
+   * @return the source code of this {@link NumberPattern}
+   */
+  @Override
+  public final String toString() {
+    return this.pattern.toString();
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Compiles a new {@link NumberPattern} from the supplied source
+   * code, every atom of which must be of the supplied {@link
+   * NumberRangeFilter.Kind Kind}.
+   *
+   * @param <N> the kind of {@link Number} matched; must agree with
+   * {@code kind}
+   *
+   * @param source the source code; must not be {@code null}
+   *
+   * @param kind the {@link NumberRangeFilter.Kind Kind} of every
+   * atom; must not be {@code null}
+   *
+   * @return a new, non-{@code null} {@link NumberPattern}
+   *
+   * @exception IllegalArgumentException if {@code source} or {@code
+   * kind} is {@code null}
+   *
+   * @exception IOException if the source code could not be physically
+   * read for some reason
+   *
+   * @exception ParseException if the source code could be read but
+   * was syntactically invalid, or if it contains an atom that is not
+   * a valid atom of the supplied {@link NumberRangeFilter.Kind Kind}
+   */
+  static final <N extends Number> NumberPattern<N> compile(final String source, final NumberRangeFilter.Kind kind) throws IOException, ParseException {
+    if (source == null) {
+      throw new IllegalArgumentException("source", new NullPointerException("source"));
+    }
+    final NumberParser parser = new NumberParser(kind);
+    final Pattern<N> pattern;
+    try {
+      pattern = Pattern.compile(source, parser, null);
+    } catch (final IllegalArgumentException badAtom) {
+      // NumberParser#newFilter(String, String) cannot throw a
+      // ParseException itself.
+      throw (ParseException)new ParseException(badAtom.getMessage(), 0).initCause(badAtom);
+    }
+    return new NumberPattern<N>(pattern);
+  }
+
+}
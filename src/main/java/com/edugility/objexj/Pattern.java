@@ -27,14 +27,31 @@
  */
 package com.edugility.objexj;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 
 import java.text.ParseException;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.edugility.objexj.engine.Complexity;
 import com.edugility.objexj.engine.Engine;
+import com.edugility.objexj.engine.MatchLimitExceededException;
+import com.edugility.objexj.engine.MatchOptions;
+import com.edugility.objexj.engine.MatchStats;
 import com.edugility.objexj.engine.Program;
+import com.edugility.objexj.engine.ProgramAnalysis;
+import com.edugility.objexj.engine.ProgramCodec;
+import com.edugility.objexj.engine.Strategy;
 
 import com.edugility.objexj.parser.Parser;
 
@@ -59,8 +76,35 @@ import com.edugility.objexj.parser.Parser;
  * assert matcher != null;
  * // Call matcher.{@link Matcher#lookingAt() lookingAt()} or....</pre></blockquote>
  *
- * <p>{@link Pattern}s are not safe for use by multiple Java
- * {@linkplain java.lang.Thread threads}.</p>
+ * <p>When the input can be matched in more than one way, the match
+ * reported is the one a backtracking regular expression engine such
+ * as {@link java.util.regex.Pattern} would report: alternatives are
+ * tried from left to right, greedy repetitions take as many items as
+ * they can and give them back one at a time, reluctant and the
+ * implicit leading wildcard of an unanchored pattern take as few as
+ * they can, and the first way found is the one reported.</p>
+ *
+ * <p><strong>This is a change from earlier versions of this
+ * library</strong>, which ran each thread of a match to completion in
+ * the order the threads were created and reported whichever of them
+ * matched first.  Patterns whose alternatives or repetitions overlap
+ * may now report a different match, or different capture groups.
+ * For example, {@code ^(java.lang.Integer*)/(java.lang.Integer*)}
+ * matched against {@code [1, 2, "s"]} used to match no items and
+ * capture nothing in either group; it now captures {@code [1, 2]} in
+ * group {@code 1}.  {@code java.lang.String|java.lang.Integer}
+ * matched against the same input used to match {@code [1]} with its
+ * second alternative; its first alternative is now preferred, and,
+ * because the implicit leading wildcard is part of group {@code 0},
+ * the match is {@code [1, 2, "s"]}.</p>
+ *
+ * <p>A {@link Pattern} cannot be reconfigured once it has been
+ * compiled; choices about how it matches are made up front with
+ * {@link PatternOptions}.  A {@link Pattern} may therefore be shared
+ * by multiple Java {@linkplain java.lang.Thread threads}, provided
+ * that its {@linkplain PatternOptions#getListener()
+ * <tt>MatchListener</tt>}, if any, may be too.  The {@link Matcher}s
+ * it produces may not.</p>
  *
  * @param <T> the type of {@link Object} a {@link Pattern} can match
  *
@@ -69,6 +113,8 @@ import com.edugility.objexj.parser.Parser;
  *
  * @see #compile(String)
  *
+ * @see #compile(String, PatternOptions)
+ *
  * @see #matcher(List)
  *
  * @see Matcher
@@ -78,6 +124,18 @@ import com.edugility.objexj.parser.Parser;
  */
 public class Pattern<T> {
 
+  /**
+   * How many instructions a {@link Matcher} produced by a {@linkplain
+   * #isRouted() routed} {@link Pattern} whose {@link Program} is not
+   * {@linkplain ProgramAnalysis#isMemoizable() memoizable} may execute
+   * for each instruction in that {@link Program} and each item of its
+   * input, plus one, before it gives up with a {@link
+   * MatchLimitExceededException}.
+   *
+   * @see #isRouted()
+   */
+  public static final long ROUTED_STEPS_PER_INSTRUCTION = 64L;
+
   /**
    * The {@link Engine} to use to {@linkplain Engine#run(Program,
    * List) run <tt>Program</tt>s}.  This field is never {@code null}.
@@ -92,9 +150,42 @@ public class Pattern<T> {
   private final Program<T> program;
 
   /**
-   * Creates a new {@link Pattern} with the supplied {@link Program}.
-   * A new {@link Engine} will be used to {@linkplain
-   * Engine#run(Program, List) run} the supplied {@link Program}.
+   * The {@link ProgramAnalysis} of {@link #program}.  This field is
+   * never {@code null}.
+   *
+   * @see #getAnalysis()
+   */
+  private final ProgramAnalysis analysis;
+
+  /**
+   * The {@link PatternOptions} this {@link Pattern} was compiled
+   * with.  This field is never {@code null}.
+   *
+   * @see #getOptions()
+   */
+  private final PatternOptions<T> options;
+
+  /**
+   * Whether {@link Matcher}s produced by this {@link Pattern} are
+   * bounded as described in the documentation for the {@link
+   * #isRouted()} method.
+   *
+   * @see #isRouted()
+   */
+  private final boolean routed;
+
+  /**
+   * The totals of all {@link MatchStats} recorded by {@link
+   * Matcher}s produced by this {@link Pattern}.  This field is never
+   * {@code null} and is used as its own lock.
+   *
+   * @see #getStats()
+   */
+  private final MatchStats stats;
+
+  /**
+   * Creates a new {@link Pattern} with the supplied {@link Program}
+   * and default {@link PatternOptions}.
    *
    * @param program the {@link Program} to {@linkplain
    * Engine#run(Program, List) run}; must not be {@code null}
@@ -102,41 +193,55 @@ public class Pattern<T> {
    * @exception IllegalArgumentException if {@code program} is {@code
    * null}
    *
-   * @see #Pattern(Engine, Program)
+   * @see #Pattern(Program, ProgramAnalysis, PatternOptions,
+   * boolean)
    *
    * @see #compile(String)
    */
   private Pattern(final Program<T> program) {
-    this(null, program);
+    this(program, null, new PatternOptions<T>(), false);
   }
 
   /**
-   * Creates a new {@link Pattern} with the supplied {@link Engine}
-   * and {@link Program}.
-   *
-   * @param engine the {@link Engine} that will be used to {@linkplain
-   * Engine#run(Program, List) run} the supplied {@link Program}; if
-   * {@code null} a new {@link Engine} will be used instead
+   * Creates a new {@link Pattern} with the supplied {@link Program}
+   * and {@link PatternOptions}.  A new {@link Engine} bound to the
+   * {@linkplain PatternOptions#getListener() <tt>MatchListener</tt>}
+   * and {@linkplain PatternOptions#getExecutor() <tt>Executor</tt>}
+   * the {@link PatternOptions} name will be used to {@linkplain
+   * Engine#run(Program, List) run} the supplied {@link Program}.
    *
    * @param program the {@link Program} to {@linkplain
    * Engine#run(Program, List) run}; must not be {@code null}
    *
-   * @exception IllegalArgumentException if {@code program} is {@code
-   * null}
+   * @param analysis the {@link ProgramAnalysis} of {@code program};
+   * may be {@code null} in which case one will be made
    *
-   * @see #compile(String)
+   * @param options the {@link PatternOptions} to use; must not be
+   * {@code null}
+   *
+   * @param routed whether {@link Matcher}s produced by this {@link
+   * Pattern} are bounded as described in the documentation for the
+   * {@link #isRouted()} method
+   *
+   * @exception IllegalArgumentException if {@code program} or {@code
+   * options} is {@code null}
+   *
+   * @see #compile(String, PatternOptions)
    */
-  private Pattern(final Engine<T> engine, final Program<T> program) {
+  private Pattern(final Program<T> program, final ProgramAnalysis analysis, final PatternOptions<T> options, final boolean routed) {
     super();
     if (program == null) {
       throw new IllegalArgumentException("program", new NullPointerException("program"));
     }
-    this.program = program;
-    if (engine == null) {
-      this.engine = new Engine<T>();
-    } else {
-      this.engine = engine;
+    if (options == null) {
+      throw new IllegalArgumentException("options", new NullPointerException("options"));
     }
+    this.program = program;
+    this.options = options;
+    this.routed = routed;
+    this.analysis = analysis == null ? ProgramAnalysis.of(program) : analysis;
+    this.stats = new MatchStats();
+    this.engine = new Engine<T>(options.getListener(), options.getExecutor());
   }
 
   /**
@@ -151,6 +256,346 @@ public class Pattern<T> {
     return new Matcher<T>(this, items);
   }
 
+  /**
+   * Returns a {@link Matcher} initialized to match the supplied
+   * {@link List} of items that will capture only the groups
+   * identified by the supplied indices.  This method never returns
+   * {@code null}.
+   *
+   * <p>Capturing groups costs time and memory during matching, so
+   * callers who will read only some groups&mdash;or none at all, if
+   * all they need is the answer from {@link Matcher#matches()} or
+   * {@link Matcher#lookingAt()}&mdash;should use this method.  The
+   * returned {@link Matcher}'s {@link Matcher#group(int)} method will
+   * return {@code null} for any group that was not requested,
+   * including group {@code 0}.</p>
+   *
+   * @param items the input; may be {@code null}
+   *
+   * @param groupsOfInterest the zero-based indices of the groups to
+   * capture; if {@code null}, every group will be captured, exactly
+   * as though {@link #matcher(List)} had been called instead; if
+   * empty, no group will be captured
+   *
+   * @return a new {@link Matcher}; never {@code null}
+   *
+   * @see #matcher(List)
+   */
+  public final Matcher<T> matcher(final List<? extends T> items, final int... groupsOfInterest) {
+    final Set<Integer> groups;
+    if (groupsOfInterest == null) {
+      groups = null;
+    } else {
+      groups = new HashSet<Integer>();
+      for (final int group : groupsOfInterest) {
+        groups.add(Integer.valueOf(group));
+      }
+    }
+    return new Matcher<T>(this, items, groups);
+  }
+
+  /**
+   * Returns a {@link Matcher} initialized to match the supplied
+   * {@link List} of items within the limits imposed by the supplied
+   * {@link MatchOptions}.  This method never returns {@code null}.
+   *
+   * <p>If the returned {@link Matcher} exceeds any of those limits
+   * while matching, its methods throw a {@link
+   * com.edugility.objexj.engine.MatchLimitExceededException}.</p>
+   *
+   * @param items the input; may be {@code null}
+   *
+   * @param options the {@link MatchOptions} to match within; may be
+   * {@code null} in which case {@linkplain #getMatchOptions() this
+   * <tt>Pattern</tt>'s <tt>MatchOptions</tt>} are used
+   *
+   * @return a new {@link Matcher}; never {@code null}
+   *
+   * @see MatchOptions
+   */
+  public final Matcher<T> matcher(final List<? extends T> items, final MatchOptions options) {
+    return new Matcher<T>(this, items, null, options);
+  }
+
+  /**
+   * Returns a {@link Matcher} initialized to match the supplied array
+   * of items.  This method never returns {@code null}.
+   *
+   * <p>The array is not copied, so it must not be modified while the
+   * returned {@link Matcher} is in use.</p>
+   *
+   * @param items the input; may be {@code null}
+   *
+   * @return a new {@link Matcher}; never {@code null}
+   *
+   * @see #matcher(List)
+   */
+  public final Matcher<T> matcher(final T[] items) {
+    final List<T> list;
+    if (items == null) {
+      list = null;
+    } else {
+      list = Arrays.asList(items);
+    }
+    return this.matcher(list);
+  }
+
+  /**
+   * Returns a {@link Matcher} initialized to match the items supplied
+   * by the supplied {@link Iterable}.  This method never returns
+   * {@code null}.
+   *
+   * <p>Unless the supplied {@link Iterable} is a {@link List} that
+   * implements {@link java.util.RandomAccess}, its items are copied
+   * into a new {@link List} exactly once, and that {@link List}
+   * becomes the returned {@link Matcher}'s {@linkplain
+   * Matcher#getInput() input}.</p>
+   *
+   * @param items the input; may be {@code null}
+   *
+   * @return a new {@link Matcher}; never {@code null}
+   *
+   * @see #matcher(List)
+   *
+   * @see Engine#toRandomAccessList(Iterable)
+   */
+  public final Matcher<T> matcher(final Iterable<? extends T> items) {
+    return this.matcher(Engine.toRandomAccessList(items));
+  }
+
+
+  /**
+   * Returns the {@link PatternOptions} this {@link Pattern} was
+   * compiled with.  This method never returns {@code null}.
+   *
+   * @return a non-{@code null} {@link PatternOptions}
+   *
+   * @see #compile(String, PatternOptions)
+   */
+  public final PatternOptions<T> getOptions() {
+    assert this.options != null;
+    return this.options;
+  }
+
+  /**
+   * Returns {@code true} if {@link Matcher}s produced by this {@link
+   * Pattern} record {@link MatchStats}.
+   *
+   * @return {@code true} if {@link MatchStats} are being recorded;
+   * {@code false} otherwise
+   *
+   * @see PatternOptions#withStatsEnabled(boolean)
+   */
+  public final boolean isStatsEnabled() {
+    return this.getOptions().isStatsEnabled();
+  }
+
+  /**
+   * Returns the {@link MatchOptions} imposing limits on {@link
+   * Matcher}s produced by this {@link Pattern} that were not given
+   * their own, or {@code null} if there are none.
+   *
+   * @return a {@link MatchOptions}, or {@code null}
+   *
+   * @see PatternOptions#withMatchOptions(MatchOptions)
+   */
+  public final MatchOptions getMatchOptions() {
+    return this.getOptions().getMatchOptions();
+  }
+
+  /**
+   * Returns the {@link ProgramAnalysis} of this {@link Pattern}'s
+   * compiled form.  This method never returns {@code null}.
+   *
+   * @return a non-{@code null} {@link ProgramAnalysis}
+   */
+  public final ProgramAnalysis getAnalysis() {
+    assert this.analysis != null;
+    return this.analysis;
+  }
+
+  /**
+   * Returns the {@link Strategy} {@link Matcher}s produced by this
+   * {@link Pattern} use, or {@code null} if each {@link Matcher}
+   * selects its own.
+   *
+   * @return a {@link Strategy}, or {@code null}
+   *
+   * @see PatternOptions#withStrategy(Strategy)
+   */
+  public final Strategy getStrategy() {
+    return this.getOptions().getStrategy();
+  }
+
+  /**
+   * Returns {@code true} if {@link Matcher}s produced by this {@link
+   * Pattern} are bounded whatever {@link MatchOptions} they are given.
+   *
+   * <p>Such {@link Matcher}s first rule out, in time linear in its
+   * size, input that cannot match, as described in the documentation
+   * for the {@link MatchOptions#withLockstepCheck(boolean)} method.</p>
+   *
+   * <p>Then, if this {@link Pattern}'s {@link Program} is {@linkplain
+   * ProgramAnalysis#isMemoizable() memoizable}, as it is unless it
+   * contains bounded repetitions, atomic groups, possessive
+   * repetitions or conditions that assign variables, they {@linkplain
+   * MatchOptions#withMemoizedStates(boolean) memoize the states} their
+   * threads reach.  No state is explored twice, so they take time at
+   * most proportional to the size of the {@link Program} times the
+   * size of their input, and report the same matches they would
+   * otherwise have reported.</p>
+   *
+   * <p>Otherwise they execute at most {@link #ROUTED_STEPS_PER_INSTRUCTION}
+   * instructions for each instruction in this {@link Pattern}'s
+   * {@link Program} and each item of their input, plus one, and
+   * <strong>throw a {@link MatchLimitExceededException} if that is
+   * not enough</strong>, even if the input could have matched.  A
+   * {@link MatchOptions} with a {@linkplain MatchOptions#getMaxSteps()
+   * lower step limit} is honored; a higher one is not.</p>
+   *
+   * <p>Patterns compiled or {@linkplain #read(DataInput,
+   * PatternOptions) read} with {@link ComplexityPolicy#ROUTE} that
+   * could take {@linkplain Complexity#EXPONENTIAL exponential time}
+   * to match are routed.</p>
+   *
+   * @return whether {@link Matcher}s produced by this {@link Pattern}
+   * are bounded
+   *
+   * @see #bound(MatchOptions, int)
+   *
+   * @see ProgramAnalysis#getComplexity()
+   */
+  public final boolean isRouted() {
+    return this.routed;
+  }
+
+  /**
+   * Returns the {@link MatchOptions} a {@link Matcher} produced by
+   * this {@link Pattern} should run with in place of the supplied
+   * {@link MatchOptions} to match input of the supplied size.
+   *
+   * <p>If this {@link Pattern} is not {@linkplain #isRouted()
+   * routed}, {@code options} is returned unchanged.  Otherwise a
+   * {@link MatchOptions} is returned that {@linkplain
+   * MatchOptions#isLockstepCheck() checks input in lockstep} and,
+   * if its {@link Program} is {@linkplain
+   * ProgramAnalysis#isMemoizable() memoizable}, {@linkplain
+   * MatchOptions#isMemoizedStates() memoizes states}, or, if it is
+   * not, whose {@linkplain MatchOptions#getMaxSteps() step limit} is
+   * the lower of the limit {@code options} names and the one
+   * described in the documentation for the {@link #isRouted()}
+   * method.</p>
+   *
+   * @param options the {@link MatchOptions} the {@link Matcher} would
+   * otherwise use; may be {@code null}
+   *
+   * @param inputSize the size of the input; must not be negative
+   *
+   * @return a {@link MatchOptions}, or {@code null} if {@code options}
+   * is {@code null} and this {@link Pattern} is not routed
+   *
+   * @see #isRouted()
+   */
+  final MatchOptions bound(MatchOptions options, final int inputSize) {
+    if (this.routed) {
+      if (options == null) {
+        options = MatchOptions.UNLIMITED;
+      }
+      if (!options.isLockstepCheck()) {
+        options = options.withLockstepCheck(true);
+      }
+      if (this.getAnalysis().isMemoizable()) {
+        return options.isMemoizedStates() ? options : options.withMemoizedStates(true);
+      }
+      final long perItem = ROUTED_STEPS_PER_INSTRUCTION * this.getProgram().size();
+      final long items = inputSize + 1L;
+      final long maxSteps = perItem > Long.MAX_VALUE / items ? Long.MAX_VALUE : perItem * items;
+      if (maxSteps < options.getMaxSteps()) {
+        options = options.withMaxSteps(maxSteps);
+      }
+    }
+    return options;
+  }
+
+  /**
+   * Returns the {@link Strategy} a {@link Matcher} produced by this
+   * {@link Pattern} should use to match input of the supplied size
+   * within the supplied {@link MatchOptions}.  This method never
+   * returns {@code null}.
+   *
+   * @param inputSize the number of items in the input
+   *
+   * @param groupsOfInterest the keys of the capture groups to
+   * capture; may be {@code null} in which case all capture groups
+   * will be captured
+   *
+   * @param options the {@link MatchOptions} to match within; may be
+   * {@code null}
+   *
+   * @return a non-{@code null} {@link Strategy}
+   *
+   * @see PatternOptions#withStrategy(Strategy)
+   */
+  final Strategy selectStrategy(final int inputSize, final Set<?> groupsOfInterest, final MatchOptions options) {
+    Strategy strategy = Strategy.of(options);
+    if (strategy == null) {
+      strategy = this.getStrategy();
+      if (strategy == null) {
+        strategy = this.getAnalysis().selectStrategy(inputSize, groupsOfInterest, this.getEngine().getExecutor() != null);
+      }
+    }
+    assert strategy != null;
+    return strategy;
+  }
+
+  /**
+   * Returns a {@link Plan} describing how this {@link Pattern} will
+   * be matched: its compiled
+   * instructions, the {@link Strategy} its {@link Matcher}s will use,
+   * and estimates of its cost.  This method never returns {@code
+   * null}.
+   *
+   * <p>Use this method to check that a pattern is cheap before it is
+   * put to use.</p>
+   *
+   * @return a new, non-{@code null} {@link Plan}
+   */
+  public final Plan explain() {
+    return new Plan(this);
+  }
+
+  /**
+   * Returns a new {@link MatchStats} holding the totals of all the
+   * {@link MatchStats} recorded by {@link Matcher}s produced by this
+   * {@link Pattern} so far.  This method never returns {@code null}.
+   *
+   * @return a new, non-{@code null} {@link MatchStats}
+   *
+   * @see PatternOptions#withStatsEnabled(boolean)
+   */
+  public final MatchStats getStats() {
+    synchronized (this.stats) {
+      return new MatchStats(this.stats);
+    }
+  }
+
+  /**
+   * Adds the supplied {@link MatchStats}, recorded by a {@link
+   * Matcher} produced by this {@link Pattern}, to this {@link
+   * Pattern}'s {@linkplain #getStats() totals}.
+   *
+   * @param stats the {@link MatchStats} to add; must not be {@code
+   * null}
+   *
+   * @exception IllegalArgumentException if {@code stats} is {@code
+   * null}
+   */
+  final void addStats(final MatchStats stats) {
+    synchronized (this.stats) {
+      this.stats.add(stats);
+    }
+  }
+
   /**
    * Returns the {@link Engine} that will be used to {@linkplain
    * Engine#run(Program, List) run} this {@link Pattern}'s {@linkplain
@@ -236,12 +681,307 @@ public class Pattern<T> {
    * Guide</a>
    */
   public static final <T> Pattern<T> compile(final String source) throws IOException, ParseException {
+    return compile(source, new Parser(), null);
+  }
+
+  /**
+   * Compiles a new {@link Pattern} from the supplied source code
+   * with the supplied {@link PatternOptions}.
+   *
+   * <p>If the {@link PatternOptions} {@linkplain
+   * PatternOptions#getComplexityPolicy() apply a
+   * <tt>ComplexityPolicy</tt>} other than {@link
+   * ComplexityPolicy#IGNORE} and the {@link Pattern} could take
+   * {@linkplain Complexity#EXPONENTIAL exponential time} to match,
+   * that policy is applied.</p>
+   *
+   * @param <T> the type of {@link Object} the resulting {@link
+   * Pattern} will be capable of {@linkplain Pattern#matcher(List)
+   * producing} {@link Matcher}s for
+   *
+   * @param source the source code for the {@link Pattern}; must not
+   * be {@code null}
+   *
+   * @param options the {@link PatternOptions} to use; may be {@code
+   * null} in which case the {@link Pattern} will behave exactly like
+   * one returned by the {@link #compile(String)} method
+   *
+   * @return a new, non-{@code null} {@link Pattern}
+   * 
+   * @exception IllegalArgumentException if {@code source} is {@code
+   * null}
+   *
+   * @exception IOException if the source code could not be compiled
+   * because the source code could not be physically read for some
+   * reason
+   *
+   * @exception PatternTooComplexException if the {@link
+   * PatternOptions} apply {@link ComplexityPolicy#REJECT} and the
+   * {@link Pattern} could take exponential time to match
+   *
+   * @exception ParseException if the source code could be read but
+   * was syntactically invalid
+   *
+   * @see PatternOptions
+   *
+   * @see ProgramAnalysis#getComplexity()
+   */
+  public static final <T> Pattern<T> compile(final String source, final PatternOptions<T> options) throws IOException, ParseException {
+    return compile(source, new Parser(), options);
+  }
+
+  /**
+   * Compiles a new {@link Pattern} from the supplied source code
+   * using the supplied {@link Parser} and {@link PatternOptions}.
+   *
+   * @param <T> the type of {@link Object} the resulting {@link
+   * Pattern} will be capable of {@linkplain Pattern#matcher(List)
+   * producing} {@link Matcher}s for
+   *
+   * @param source the source code for the {@link Pattern}; must not
+   * be {@code null}
+   *
+   * @param parser the {@link Parser} to use; must not be {@code null}
+   *
+   * @param options the {@link PatternOptions} to use; may be {@code
+   * null} in which case defaults are used
+   *
+   * @return a new, non-{@code null} {@link Pattern}
+   * 
+   * @exception IllegalArgumentException if {@code source} or {@code
+   * parser} is {@code null}
+   *
+   * @exception IOException if the source code could not be compiled
+   * because the source code could not be physically read for some
+   * reason
+   *
+   * @exception PatternTooComplexException if the {@link
+   * PatternOptions} apply {@link ComplexityPolicy#REJECT} and the
+   * {@link Pattern} could take exponential time to match
+   *
+   * @exception ParseException if the source code could be read but
+   * was syntactically invalid
+   *
+   * @see #compile(String, PatternOptions)
+   */
+  static final <T> Pattern<T> compile(final String source, final Parser parser, PatternOptions<T> options) throws IOException, ParseException {
     if (source == null) {
       throw new IllegalArgumentException("source", new NullPointerException("source"));
     }
-    final Program<T> p = new Parser().parse(source);
-    assert p != null;
-    return new Pattern<T>(p);
+    if (parser == null) {
+      throw new IllegalArgumentException("parser", new NullPointerException("parser"));
+    }
+    if (options == null) {
+      options = new PatternOptions<T>();
+    }
+    final Object event = FlightRecorderSupport.beginCompile();
+    Program<T> p = null;
+    try {
+      p = parser.parse(source);
+      assert p != null;
+    } finally {
+      FlightRecorderSupport.endCompile(event, source, p == null ? -1 : p.size());
+    }
+    return newPattern(p, source, options);
+  }
+
+  /**
+   * Creates a new {@link Pattern} from the supplied {@link Program},
+   * applying the {@link ComplexityPolicy} the supplied {@link
+   * PatternOptions} name.
+   *
+   * @param <T> the type of {@link Object} the resulting {@link
+   * Pattern} will be capable of {@linkplain Pattern#matcher(List)
+   * producing} {@link Matcher}s for
+   *
+   * @param program the {@link Program}; must not be {@code null}
+   *
+   * @param source the source code {@code program} was compiled from,
+   * for use in messages; may be {@code null}
+   *
+   * @param options the {@link PatternOptions} to use; must not be
+   * {@code null}
+   *
+   * @return a new, non-{@code null} {@link Pattern}
+   *
+   * @exception PatternTooComplexException if {@code options} apply
+   * {@link ComplexityPolicy#REJECT} and the {@link Pattern} could
+   * take exponential time to match
+   *
+   * @see #compile(String, Parser, PatternOptions)
+   *
+   * @see #read(DataInput, PatternOptions)
+   */
+  private static final <T> Pattern<T> newPattern(final Program<T> program, final String source, final PatternOptions<T> options) throws PatternTooComplexException {
+    assert program != null;
+    assert options != null;
+    final ComplexityPolicy policy = options.getComplexityPolicy();
+    assert policy != null;
+    ProgramAnalysis analysis = null;
+    boolean routed = false;
+    if (policy != ComplexityPolicy.IGNORE) {
+      analysis = ProgramAnalysis.of(program);
+      if (analysis.getComplexity() == Complexity.EXPONENTIAL) {
+        switch (policy) {
+        case WARN:
+          final Logger logger = Logger.getLogger(Pattern.class.getName());
+          if (logger.isLoggable(Level.WARNING)) {
+            logger.logp(Level.WARNING, Pattern.class.getName(), "newPattern", "Pattern {0} may take time exponential in the size of its input to match: {1}", new Object[] { source, analysis });
+          }
+          break;
+        case REJECT:
+          throw new PatternTooComplexException(source, analysis.getComplexity());
+        case ROUTE:
+          routed = true;
+          break;
+        default:
+          break;
+        }
+      }
+    }
+    return new Pattern<T>(program, analysis, options, routed);
+  }
+
+  /**
+   * Writes the compiled forms of the supplied {@link Pattern}s to the
+   * supplied {@link DataOutput} so that they may later be {@linkplain
+   * #read(DataInput) read back} without being compiled again.
+   *
+   * @param patterns the {@link Pattern}s to write; must not be {@code
+   * null} and must not contain {@code null} elements
+   *
+   * @param out the {@link DataOutput} to write to; must not be {@code
+   * null}
+   *
+   * @exception IllegalArgumentException if either parameter is {@code
+   * null} or if {@code patterns} contains a {@code null} element
+   *
+   * @exception IOException if an error occurs while writing
+   *
+   * @see ProgramCodec#write(Collection, DataOutput)
+   */
+  public static final void write(final Collection<? extends Pattern<?>> patterns, final DataOutput out) throws IOException {
+    if (patterns == null) {
+      throw new IllegalArgumentException("patterns", new NullPointerException("patterns"));
+    }
+    final List<Program<?>> programs = new ArrayList<Program<?>>(patterns.size());
+    for (final Pattern<?> pattern : patterns) {
+      if (pattern == null) {
+        throw new IllegalArgumentException("patterns", new NullPointerException("pattern"));
+      }
+      programs.add(pattern.getProgram());
+    }
+    ProgramCodec.write(programs, out);
+  }
+
+  /**
+   * Reads {@link Pattern}s from the supplied {@link DataInput} that
+   * were previously {@linkplain #write(Collection, DataOutput)
+   * written}.
+   *
+   * <p>Class names and <a href="http://mvel.codehaus.org/">MVEL</a>
+   * expressions in the returned {@link Pattern}s are not resolved
+   * until they are first needed during a match.</p>
+   *
+   * <p>The returned {@link Pattern}s behave like those returned by
+   * the {@link #compile(String)} method: no {@link ComplexityPolicy}
+   * is applied to them, even if the {@link Pattern}s that were
+   * written had one.  Use the {@link #read(DataInput,
+   * PatternOptions)} method to apply one.</p>
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param <T> the type of {@link Object} the returned {@link
+   * Pattern}s will be capable of matching
+   *
+   * @param in the {@link DataInput} to read from; must not be {@code
+   * null}
+   *
+   * @return a non-{@code null} {@link List} of {@link Pattern}s in the
+   * order in which they were written
+   *
+   * @exception IllegalArgumentException if {@code in} is {@code null}
+   *
+   * @exception IOException if an error occurs while reading or if the
+   * data is not in a supported format
+   *
+   * @see #read(DataInput, PatternOptions)
+   *
+   * @see ProgramCodec#read(DataInput)
+   */
+  public static final <T> List<Pattern<T>> read(final DataInput in) throws IOException {
+    final List<Program<T>> programs = ProgramCodec.read(in);
+    assert programs != null;
+    final List<Pattern<T>> patterns = new ArrayList<Pattern<T>>(programs.size());
+    for (final Program<T> program : programs) {
+      patterns.add(new Pattern<T>(program));
+    }
+    return patterns;
+  }
+
+  /**
+   * Reads {@link Pattern}s from the supplied {@link DataInput} that
+   * were previously {@linkplain #write(Collection, DataOutput)
+   * written}, giving each of them the supplied {@link
+   * PatternOptions}.
+   *
+   * <p>Each {@link Pattern} is treated exactly as the {@link
+   * #compile(String, PatternOptions)} method would treat it: if the
+   * {@link PatternOptions} {@linkplain
+   * PatternOptions#getComplexityPolicy() apply a
+   * <tt>ComplexityPolicy</tt>} other than {@link
+   * ComplexityPolicy#IGNORE}, each {@link Pattern} is analyzed as it
+   * is read, and that policy is applied to any that could take
+   * {@linkplain Complexity#EXPONENTIAL exponential time} to match.
+   * Only the compiled forms of {@link Pattern}s are written, so
+   * whether a {@link Pattern} that was written was {@linkplain
+   * #isRouted() routed} is decided again here, by the supplied
+   * {@link PatternOptions}.</p>
+   *
+   * <p>Class names and <a href="http://mvel.codehaus.org/">MVEL</a>
+   * expressions in the returned {@link Pattern}s are not resolved
+   * until they are first needed during a match.</p>
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param <T> the type of {@link Object} the returned {@link
+   * Pattern}s will be capable of matching
+   *
+   * @param in the {@link DataInput} to read from; must not be {@code
+   * null}
+   *
+   * @param options the {@link PatternOptions} to use; may be {@code
+   * null} in which case this method behaves exactly like the {@link
+   * #read(DataInput)} method
+   *
+   * @return a non-{@code null} {@link List} of {@link Pattern}s in the
+   * order in which they were written
+   *
+   * @exception IllegalArgumentException if {@code in} is {@code null}
+   *
+   * @exception IOException if an error occurs while reading or if the
+   * data is not in a supported format
+   *
+   * @exception PatternTooComplexException if {@code options} apply
+   * {@link ComplexityPolicy#REJECT} and any of the {@link Pattern}s
+   * could take exponential time to match
+   *
+   * @see #read(DataInput)
+   *
+   * @see #compile(String, PatternOptions)
+   */
+  public static final <T> List<Pattern<T>> read(final DataInput in, PatternOptions<T> options) throws IOException, PatternTooComplexException {
+    if (options == null) {
+      options = new PatternOptions<T>();
+    }
+    final List<Program<T>> programs = ProgramCodec.read(in);
+    assert programs != null;
+    final List<Pattern<T>> patterns = new ArrayList<Pattern<T>>(programs.size());
+    for (final Program<T> program : programs) {
+      final Object source = program.getSource();
+      patterns.add(newPattern(program, source == null ? null : source.toString(), options));
+    }
+    return patterns;
   }
 
 }
@@ -0,0 +1,356 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj;
+
+import java.util.List; // for javadoc only
+import java.util.Set; // for javadoc only
+
+import java.util.concurrent.Executor;
+
+import com.edugility.objexj.engine.Complexity;
+import com.edugility.objexj.engine.MatchListener;
+import com.edugility.objexj.engine.MatchOptions;
+import com.edugility.objexj.engine.MatchStats;
+import com.edugility.objexj.engine.ProgramAnalysis;
+import com.edugility.objexj.engine.Strategy;
+
+/**
+ * An immutable set of choices about how a {@link Pattern} is
+ * {@linkplain Pattern#compile(String, PatternOptions) compiled} and
+ * how the {@link Matcher}s it produces behave.
+ *
+ * <p>Start with a new {@link PatternOptions} and make choices with
+ * the {@code with} methods, each of which returns a new {@link
+ * PatternOptions}:</p>
+ *
+ * <blockquote><pre>PatternOptions&lt;Object&gt; options = new PatternOptions&lt;Object&gt;()
+ *   .withExecutor(executor)
+ *   .withStatsEnabled(true)
+ *   .withMatchOptions(MatchOptions.UNLIMITED.withMaxSteps(1000000L));
+ * Pattern&lt;Object&gt; pattern = Pattern.compile(source, options);</pre></blockquote>
+ *
+ * <p>A {@link Pattern} keeps the {@link PatternOptions} it was
+ * compiled with and cannot be reconfigured afterwards.</p>
+ *
+ * @param <T> the type of {@link Object} a {@link Pattern} compiled
+ * with these options can match
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see Pattern#compile(String, PatternOptions)
+ */
+public final class PatternOptions<T> {
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The {@link MatchListener} notified of what the {@link
+   * com.edugility.objexj.engine.Engine} does whenever a {@link
+   * Matcher} attempts a match.  This field may be {@code null}.
+   */
+  private final MatchListener<? super T> listener;
+
+  /**
+   * The {@link Executor} {@link Matcher}s use to evaluate the atoms
+   * of large input in parallel.  This field may be {@code null}.
+   */
+  private final Executor executor;
+
+  /**
+   * The {@link ComplexityPolicy} applied when a {@link Pattern} is
+   * compiled or read.  This field is never {@code null}.
+   */
+  private final ComplexityPolicy complexityPolicy;
+
+  /**
+   * The {@link Strategy} {@link Matcher}s use.  This field may be
+   * {@code null}, in which case each {@link Matcher} selects its
+   * own.
+   */
+  private final Strategy strategy;
+
+  /**
+   * Whether {@link Matcher}s record {@link MatchStats}.
+   */
+  private final boolean statsEnabled;
+
+  /**
+   * The {@link MatchOptions} imposing limits on {@link Matcher}s that
+   * were not given their own.  This field may be {@code null}.
+   */
+  private final MatchOptions matchOptions;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link PatternOptions} that binds no {@link
+   * MatchListener} or {@link Executor}, applies {@link
+   * ComplexityPolicy#IGNORE}, lets each {@link Matcher} select its
+   * own {@link Strategy}, does not record {@link MatchStats} and
+   * imposes no limits.
+   */
+  public PatternOptions() {
+    this(null, null, ComplexityPolicy.IGNORE, null, false, null);
+  }
+
+  /**
+   * Creates a new {@link PatternOptions}.
+   *
+   * @param listener the {@link MatchListener} to bind; may be {@code
+   * null}
+   *
+   * @param executor the {@link Executor} to bind; may be {@code null}
+   *
+   * @param complexityPolicy the {@link ComplexityPolicy} to apply;
+   * must not be {@code null}
+   *
+   * @param strategy the {@link Strategy} {@link Matcher}s use; may be
+   * {@code null}
+   *
+   * @param statsEnabled whether {@link Matcher}s record {@link
+   * MatchStats}
+   *
+   * @param matchOptions the {@link MatchOptions} imposing limits on
+   * {@link Matcher}s that were not given their own; may be {@code
+   * null}
+   */
+  private PatternOptions(final MatchListener<? super T> listener, final Executor executor, final ComplexityPolicy complexityPolicy, final Strategy strategy, final boolean statsEnabled, final MatchOptions matchOptions) {
+    super();
+    assert complexityPolicy != null;
+    this.listener = listener;
+    this.executor = executor;
+    this.complexityPolicy = complexityPolicy;
+    this.strategy = strategy;
+    this.statsEnabled = statsEnabled;
+    this.matchOptions = matchOptions;
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns the {@link MatchListener} that will be notified of what
+   * the {@link com.edugility.objexj.engine.Engine} does whenever a
+   * {@link Matcher} attempts a match, or {@code null} if there is
+   * none.
+   *
+   * @return a {@link MatchListener}, or {@code null}
+   */
+  public final MatchListener<? super T> getListener() {
+    return this.listener;
+  }
+
+  /**
+   * Returns a new {@link PatternOptions} just like this one except
+   * that it binds the supplied {@link MatchListener}.
+   *
+   * @param listener the {@link MatchListener} to bind; may be {@code
+   * null}
+   *
+   * @return a new {@link PatternOptions}; never {@code null}
+   *
+   * @see com.edugility.objexj.engine.LoggingMatchListener
+   */
+  public final PatternOptions<T> withListener(final MatchListener<? super T> listener) {
+    return new PatternOptions<T>(listener, this.executor, this.complexityPolicy, this.strategy, this.statsEnabled, this.matchOptions);
+  }
+
+  /**
+   * Returns the {@link Executor} {@link Matcher}s will use to
+   * evaluate the atoms of large input in parallel, or {@code null}
+   * if there is none.
+   *
+   * @return an {@link Executor}, or {@code null}
+   */
+  public final Executor getExecutor() {
+    return this.executor;
+  }
+
+  /**
+   * Returns a new {@link PatternOptions} just like this one except
+   * that it binds the supplied {@link Executor}.  {@link Matcher}s
+   * use it to evaluate the atoms of large input in parallel when
+   * their {@link Strategy} calls for it.
+   *
+   * @param executor the {@link Executor} to bind; may be {@code null}
+   *
+   * @return a new {@link PatternOptions}; never {@code null}
+   */
+  public final PatternOptions<T> withExecutor(final Executor executor) {
+    return new PatternOptions<T>(this.listener, executor, this.complexityPolicy, this.strategy, this.statsEnabled, this.matchOptions);
+  }
+
+  /**
+   * Returns the {@link ComplexityPolicy} applied to a {@link Pattern}
+   * that could take {@linkplain Complexity#EXPONENTIAL exponential
+   * time} to match.  This method never returns {@code null}.
+   *
+   * @return a non-{@code null} {@link ComplexityPolicy}
+   */
+  public final ComplexityPolicy getComplexityPolicy() {
+    return this.complexityPolicy;
+  }
+
+  /**
+   * Returns a new {@link PatternOptions} just like this one except
+   * that it applies the supplied {@link ComplexityPolicy}.
+   *
+   * @param complexityPolicy the {@link ComplexityPolicy} to apply;
+   * may be {@code null} in which case {@link
+   * ComplexityPolicy#IGNORE} is used
+   *
+   * @return a new {@link PatternOptions}; never {@code null}
+   *
+   * @see ProgramAnalysis#getComplexity()
+   */
+  public final PatternOptions<T> withComplexityPolicy(final ComplexityPolicy complexityPolicy) {
+    return new PatternOptions<T>(this.listener, this.executor, complexityPolicy == null ? ComplexityPolicy.IGNORE : complexityPolicy, this.strategy, this.statsEnabled, this.matchOptions);
+  }
+
+  /**
+   * Returns the {@link Strategy} {@link Matcher}s will use, or {@code
+   * null} if each {@link Matcher} selects its own.
+   *
+   * @return a {@link Strategy}, or {@code null}
+   */
+  public final Strategy getStrategy() {
+    return this.strategy;
+  }
+
+  /**
+   * Returns a new {@link PatternOptions} just like this one except
+   * that {@link Matcher}s use the supplied {@link Strategy}.
+   *
+   * <p>By default each {@link Matcher} {@linkplain
+   * ProgramAnalysis#selectStrategy(int, Set, boolean) selects} a
+   * {@link Strategy} from its {@link Pattern}'s {@linkplain
+   * Pattern#getAnalysis() analysis}, the size of its input and the
+   * groups it captures.  A {@link Strategy} asked for by the {@link
+   * MatchOptions} a {@link Matcher} is given, or by the {@linkplain
+   * #withMatchOptions(MatchOptions) <tt>MatchOptions</tt>} chosen
+   * here, takes precedence over the one supplied.</p>
+   *
+   * @param strategy the {@link Strategy} to use; may be {@code null}
+   * in which case each {@link Matcher} selects its own
+   *
+   * @return a new {@link PatternOptions}; never {@code null}
+   *
+   * @see Matcher#getStrategy()
+   */
+  public final PatternOptions<T> withStrategy(final Strategy strategy) {
+    return new PatternOptions<T>(this.listener, this.executor, this.complexityPolicy, strategy, this.statsEnabled, this.matchOptions);
+  }
+
+  /**
+   * Returns {@code true} if {@link Matcher}s will record {@link
+   * MatchStats}.
+   *
+   * @return whether {@link MatchStats} will be recorded
+   */
+  public final boolean isStatsEnabled() {
+    return this.statsEnabled;
+  }
+
+  /**
+   * Returns a new {@link PatternOptions} just like this one except
+   * that it sets whether {@link Matcher}s record {@link MatchStats}.
+   * When they do, each {@link Matcher} makes the {@link MatchStats}
+   * for its own match attempt available from its {@link
+   * Matcher#getStats()} method, and its {@link Pattern} keeps their
+   * {@linkplain Pattern#getStats() totals}.
+   *
+   * @param statsEnabled whether {@link MatchStats} should be
+   * recorded
+   *
+   * @return a new {@link PatternOptions}; never {@code null}
+   */
+  public final PatternOptions<T> withStatsEnabled(final boolean statsEnabled) {
+    return new PatternOptions<T>(this.listener, this.executor, this.complexityPolicy, this.strategy, statsEnabled, this.matchOptions);
+  }
+
+  /**
+   * Returns the {@link MatchOptions} imposing limits on {@link
+   * Matcher}s that were not given their own, or {@code null} if
+   * there are none.
+   *
+   * @return a {@link MatchOptions}, or {@code null}
+   */
+  public final MatchOptions getMatchOptions() {
+    return this.matchOptions;
+  }
+
+  /**
+   * Returns a new {@link PatternOptions} just like this one except
+   * that {@link Matcher}s that were not given their own {@link
+   * MatchOptions} by the {@link Pattern#matcher(List, MatchOptions)}
+   * method use the supplied ones.
+   *
+   * <p>Use this method to bound the work done by every match of a
+   * {@link Pattern} that was compiled from untrusted input.</p>
+   *
+   * @param matchOptions the {@link MatchOptions} to use; may be
+   * {@code null} in which case no limits are imposed
+   *
+   * @return a new {@link PatternOptions}; never {@code null}
+   */
+  public final PatternOptions<T> withMatchOptions(final MatchOptions matchOptions) {
+    return new PatternOptions<T>(this.listener, this.executor, this.complexityPolicy, this.strategy, this.statsEnabled, matchOptions);
+  }
+
+  /**
+   * Returns a non-{@code null} {@link String} representation of this
+   * {@link PatternOptions}.
+   *
+   * @return a non-{@code null} {@link String}
+   */
+  @Override
+  public final String toString() {
+    final StringBuilder sb = new StringBuilder("PatternOptions[");
+    sb.append("listener=").append(this.listener);
+    sb.append(", executor=").append(this.executor);
+    sb.append(", complexityPolicy=").append(this.complexityPolicy);
+    sb.append(", strategy=").append(this.strategy);
+    sb.append(", statsEnabled=").append(this.statsEnabled);
+    sb.append(", matchOptions=").append(this.matchOptions);
+    sb.append("]");
+    return sb.toString();
+  }
+
+}
@@ -0,0 +1,105 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj;
+
+import java.io.Serializable; // for javadoc only
+
+import java.text.ParseException;
+
+import com.edugility.objexj.engine.Complexity;
+
+/**
+ * A {@link ParseException} indicating that a {@link Pattern} was
+ * syntactically valid but was rejected because it could take too
+ * long to match.
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see ComplexityPolicy#REJECT
+ */
+public class PatternTooComplexException extends ParseException {
+
+  /**
+   * The version of this class for {@linkplain Serializable
+   * serialization purposes}.
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The source code of the rejected {@link Pattern}.  This field may
+   * be {@code null}.
+   */
+  private final String source;
+
+  /**
+   * The {@link Complexity} of the rejected {@link Pattern}.  This
+   * field is never {@code null}.
+   */
+  private final Complexity complexity;
+
+  /**
+   * Creates a new {@link PatternTooComplexException}.
+   *
+   * @param source the source code of the rejected {@link Pattern};
+   * may be {@code null}
+   *
+   * @param complexity the {@link Complexity} of the rejected {@link
+   * Pattern}; must not be {@code null}
+   *
+   * @exception IllegalArgumentException if {@code complexity} is
+   * {@code null}
+   */
+  public PatternTooComplexException(final String source, final Complexity complexity) {
+    super(String.format("%s may take %s time to match", source, complexity == null ? null : complexity.name().toLowerCase()), 0);
+    if (complexity == null) {
+      throw new IllegalArgumentException("complexity", new NullPointerException("complexity"));
+    }
+    this.source = source;
+    this.complexity = complexity;
+  }
+
+  /**
+   * Returns the source code of the rejected {@link Pattern}.
+   *
+   * @return the source code, or {@code null}
+   */
+  public final String getSource() {
+    return this.source;
+  }
+
+  /**
+   * Returns the {@link Complexity} of the rejected {@link Pattern}.
+   *
+   * @return a non-{@code null} {@link Complexity}
+   */
+  public final Complexity getComplexity() {
+    return this.complexity;
+  }
+
+}
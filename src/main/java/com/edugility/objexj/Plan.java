@@ -0,0 +1,343 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj;
+
+import java.util.List;
+
+import com.edugility.objexj.engine.Complexity;
+import com.edugility.objexj.engine.Filter;
+import com.edugility.objexj.engine.ProgramAnalysis;
+import com.edugility.objexj.engine.Strategy;
+
+/**
+ * A description of how a {@link Pattern} will be matched, in the
+ * manner of a database's {@code EXPLAIN}: its compiled instructions,
+ * the {@link Strategy} its {@link Matcher}s will use, and what its
+ * {@linkplain ProgramAnalysis analysis} says about its cost.
+ *
+ * <p>{@link Plan}s are immutable and so are safe for use by multiple
+ * Java {@linkplain java.lang.Thread threads}.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see Pattern#explain()
+ */
+public final class Plan {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * The line separator.  This field is never {@code null}.
+   */
+  private static final String LS = System.getProperty("line.separator", "\n");
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The source code of the {@link Pattern}.  This field may be
+   * {@code null}.
+   */
+  private final String source;
+
+  /**
+   * The listing of the {@link Pattern}'s compiled instructions.  This
+   * field is never {@code null}.
+   */
+  private final String listing;
+
+  /**
+   * The {@link ProgramAnalysis} of the {@link Pattern}.  This field is
+   * never {@code null}.
+   */
+  private final ProgramAnalysis analysis;
+
+  /**
+   * The {@link Strategy} used for input smaller than {@link
+   * #threshold}.  This field is never {@code null}.
+   */
+  private final Strategy smallInputStrategy;
+
+  /**
+   * The {@link Strategy} used for input no smaller than {@link
+   * #threshold}.  This field is never {@code null}.
+   */
+  private final Strategy largeInputStrategy;
+
+  /**
+   * The smallest input size for which {@link #largeInputStrategy} is
+   * used.
+   */
+  private final int threshold;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link Plan} describing the supplied {@link
+   * Pattern}.
+   *
+   * @param pattern the {@link Pattern} to describe; must not be
+   * {@code null}
+   *
+   * @exception IllegalArgumentException if {@code pattern} is {@code
+   * null}
+   */
+  Plan(final Pattern<?> pattern) {
+    super();
+    if (pattern == null) {
+      throw new IllegalArgumentException("pattern", new NullPointerException("pattern"));
+    }
+    final Object source = pattern.getProgram().getSource();
+    this.source = source == null ? null : source.toString();
+    this.listing = pattern.getProgram().toString();
+    this.analysis = pattern.getAnalysis();
+    this.smallInputStrategy = pattern.selectStrategy(0, null, pattern.getMatchOptions());
+    this.largeInputStrategy = pattern.selectStrategy(Integer.MAX_VALUE, null, pattern.getMatchOptions());
+    if (this.smallInputStrategy == this.largeInputStrategy) {
+      this.threshold = 0;
+    } else {
+      // Find the smallest size at which the selection changes.
+      int low = 0;
+      int high = Integer.MAX_VALUE;
+      while (high - low > 1) {
+        final int middle = low + (high - low) / 2;
+        if (pattern.selectStrategy(middle, null, pattern.getMatchOptions()) == this.smallInputStrategy) {
+          low = middle;
+        } else {
+          high = middle;
+        }
+      }
+      this.threshold = high;
+    }
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns the source code of the described {@link Pattern}, or
+   * {@code null} if it is not known.
+   *
+   * @return the source code, or {@code null}
+   */
+  public final String getSource() {
+    return this.source;
+  }
+
+  /**
+   * Returns a listing of the described {@link Pattern}'s compiled
+   * instructions, one per line, each preceded by its position.  This
+   * method never returns {@code null}.
+   *
+   * @return a non-{@code null} listing
+   */
+  public final String getListing() {
+    return this.listing;
+  }
+
+  /**
+   * Returns the {@link ProgramAnalysis} of the described {@link
+   * Pattern}.  This method never returns {@code null}.
+   *
+   * @return a non-{@code null} {@link ProgramAnalysis}
+   */
+  public final ProgramAnalysis getAnalysis() {
+    return this.analysis;
+  }
+
+  /**
+   * Returns the {@link Strategy} a {@link Matcher} produced by the
+   * described {@link Pattern} without {@link
+   * com.edugility.objexj.engine.MatchOptions} of its own will use to
+   * capture every group in input of the supplied size.  This method
+   * never returns {@code null}.
+   *
+   * @param inputSize the number of items in the input
+   *
+   * @return a non-{@code null} {@link Strategy}
+   *
+   * @see Matcher#getStrategy()
+   */
+  public final Strategy getStrategy(final int inputSize) {
+    return inputSize < this.threshold ? this.smallInputStrategy : this.largeInputStrategy;
+  }
+
+  /**
+   * Returns the smallest input size for which {@link
+   * #getStrategy(int)} returns a different {@link Strategy} than it
+   * does for empty input, or {@code 0} if it always returns the same
+   * one.
+   *
+   * @return the input size at which the {@link Strategy} changes, or
+   * {@code 0}
+   */
+  public final int getStrategyThreshold() {
+    return this.threshold;
+  }
+
+  /**
+   * Returns {@code true} if matches of the described {@link Pattern}
+   * must begin at the start of the input.
+   *
+   * @return {@code true} if the {@link Pattern} is anchored at the
+   * start of its input; {@code false} otherwise
+   *
+   * @see ProgramAnalysis#isAnchoredAtStart()
+   */
+  public final boolean isAnchoredAtStart() {
+    return this.analysis.isAnchoredAtStart();
+  }
+
+  /**
+   * Returns {@code true} if matches of the described {@link Pattern}
+   * must end at the end of the input.
+   *
+   * @return {@code true} if the {@link Pattern} is anchored at the
+   * end of its input; {@code false} otherwise
+   *
+   * @see ProgramAnalysis#isAnchoredAtEnd()
+   */
+  public final boolean isAnchoredAtEnd() {
+    return this.analysis.isAnchoredAtEnd();
+  }
+
+  /**
+   * Returns the atoms every match of the described {@link Pattern}
+   * must pass through, and which therefore make a prefilter for its
+   * input.  This method never returns {@code null}.
+   *
+   * @return a non-{@code null}, unmodifiable {@link List} of {@link
+   * Filter}s
+   *
+   * @see ProgramAnalysis#getRequiredAtoms()
+   */
+  public final List<Filter<?>> getRequiredAtoms() {
+    return this.analysis.getRequiredAtoms();
+  }
+
+  /**
+   * Returns the largest number of threads a single thread of the
+   * described {@link Pattern} can become between one item and the
+   * next.
+   *
+   * @return the largest fan-out; never negative
+   *
+   * @see ProgramAnalysis#getMaximumFanOut()
+   */
+  public final int getMaximumFanOut() {
+    return this.analysis.getMaximumFanOut();
+  }
+
+  /**
+   * Returns {@code true} if matching the described {@link Pattern}
+   * may take time that grows faster than its input does.
+   *
+   * @return {@code true} if matching may take superlinear time;
+   * {@code false} if it will not
+   *
+   * @see ProgramAnalysis#risksSuperlinearTime()
+   */
+  public final boolean risksSuperlinearTime() {
+    return this.analysis.risksSuperlinearTime();
+  }
+
+  /**
+   * Returns how the time taken to match the described {@link
+   * Pattern} may grow with the size of its input.
+   *
+   * @return a non-{@code null} {@link Complexity}
+   *
+   * @see ProgramAnalysis#getComplexity()
+   */
+  public final Complexity getComplexity() {
+    return this.analysis.getComplexity();
+  }
+
+  /**
+   * Returns {@code true} if the described {@link Pattern} has a loop
+   * whose body may match nothing.
+   *
+   * @return {@code true} if the {@link Pattern} has an empty loop;
+   * {@code false} otherwise
+   *
+   * @see ProgramAnalysis#hasEmptyLoop()
+   */
+  public final boolean hasEmptyLoop() {
+    return this.analysis.hasEmptyLoop();
+  }
+
+  /**
+   * Returns a non-{@code null}, multi-line, human-readable
+   * representation of this {@link Plan}.
+   *
+   * @return a non-{@code null} {@link String}
+   */
+  @Override
+  public final String toString() {
+    final StringBuilder sb = new StringBuilder();
+    if (this.source != null) {
+      sb.append("pattern:           ").append(this.source).append(LS);
+    }
+    sb.append("strategy:          ").append(this.smallInputStrategy);
+    if (this.threshold > 0) {
+      sb.append(" below ").append(this.threshold).append(" items, ").append(this.largeInputStrategy).append(" otherwise");
+    }
+    sb.append(LS);
+    sb.append("anchored:          ");
+    if (this.isAnchoredAtStart()) {
+      sb.append(this.isAnchoredAtEnd() ? "at start and end" : "at start");
+    } else {
+      sb.append(this.isAnchoredAtEnd() ? "at end" : "no");
+    }
+    sb.append(LS);
+    sb.append("required atoms:    ").append(this.getRequiredAtoms()).append(LS);
+    sb.append("maximum fan-out:   ").append(this.getMaximumFanOut()).append(LS);
+    sb.append("superlinear risk:  ").append(this.risksSuperlinearTime() ? "yes" : "no").append(LS);
+    sb.append("complexity:        ").append(this.getComplexity()).append(LS);
+    sb.append("empty loop:        ").append(this.hasEmptyLoop() ? "yes" : "no").append(LS);
+    sb.append("instructions:").append(LS);
+    sb.append(this.listing);
+    return sb.toString();
+  }
+
+}
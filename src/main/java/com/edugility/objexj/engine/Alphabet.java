@@ -0,0 +1,949 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The distinct <em>atoms</em> of a {@link Program}: the {@link
+ * Filter}s whose results depend on nothing but the item they are
+ * evaluated against, with equal {@link Filter}s counted once.
+ *
+ * <p>An {@link Alphabet} evaluates every atom against every item of
+ * some input once, up front, and records the results either by
+ * {@linkplain #classify(List, Executor, MatchStats, MatchBudget) classifying}
+ * each item as a symbol standing for exactly the set of atoms that
+ * accept it, or {@linkplain #evaluate(List, Executor, MatchStats, MatchBudget)
+ * column by column} as one bitmap per atom.  The {@link Thread}s of a
+ * run then look up the results of atoms instead of evaluating them,
+ * so the work done by {@link Filter}s grows with the size of the
+ * input and the number of distinct atoms, not with the number of
+ * {@link Thread}s that happen to be alive at each position.</p>
+ *
+ * <p>Classification evaluates every atom against every item, even
+ * those a lazy run would never have reached, so it pays off when
+ * many {@link Thread}s read the same items.  Whether an {@link
+ * InstanceOfMVELFilter}'s item is of the right {@link Class} is
+ * worked out once per {@link Class}, not once per item.  Large
+ * input may be evaluated in chunks of {@link #CHUNK_SIZE} items in
+ * parallel.</p>
+ *
+ * @param <T> the type of {@link Object} the {@link Program} matches
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see MatchOptions#withCompressedAlphabet(boolean)
+ *
+ * @see MatchOptions#withAtomBitmaps(boolean)
+ *
+ * @see ClassifiedInput
+ *
+ * @see AtomBitmaps
+ */
+final class Alphabet<T> {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * The number of items evaluated by each task when input is
+   * evaluated in parallel.  This is a multiple of 64, so that no two
+   * tasks ever write to the same {@code long} of an {@link
+   * AtomBitmaps} bitmap.
+   */
+  static final int CHUNK_SIZE = 1024;
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The {@link Program} whose atoms this {@link Alphabet} holds.
+   * This field is never {@code null}.
+   */
+  private final Program<T> program;
+
+  /**
+   * The index of the atom evaluated by the {@link Instruction} at
+   * each position in {@link #program}, or {@code -1}.  This field is
+   * never {@code null}.
+   */
+  private final int[] atomIndices;
+
+  /**
+   * The distinct atoms, in the order in which they first appear in
+   * {@link #program}.  This field is never {@code null}.
+   */
+  private final List<Filter<T>> atoms;
+
+  /**
+   * The number of {@code long}s needed to hold one bit per atom.
+   */
+  private final int words;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link Alphabet}.
+   *
+   * @param program the {@link Program} whose atoms the new {@link
+   * Alphabet} holds; must not be {@code null}
+   *
+   * @param atomIndices the index of the atom evaluated by the {@link
+   * Instruction} at each position in {@code program}, or {@code -1};
+   * must not be {@code null}; not copied
+   *
+   * @param atoms the distinct atoms; must not be {@code null} or
+   * empty; not copied
+   */
+  private Alphabet(final Program<T> program, final int[] atomIndices, final List<Filter<T>> atoms) {
+    super();
+    assert program != null;
+    assert atomIndices != null;
+    assert atoms != null;
+    assert !atoms.isEmpty();
+    this.program = program;
+    this.atomIndices = atomIndices;
+    this.atoms = atoms;
+    this.words = (atoms.size() + 63) >>> 6;
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns the number of distinct atoms in this {@link Alphabet}.
+   *
+   * @return the number of distinct atoms; always positive
+   */
+  final int getAtomCount() {
+    return this.atoms.size();
+  }
+
+  /**
+   * Classifies the supplied input, evaluating every atom against
+   * every item, and returns the result.
+   *
+   * <p>Input is evaluated as described in the documentation for the
+   * {@link #evaluate(List, Executor, MatchStats, MatchBudget)} method, and then
+   * each item is reduced to a symbol.</p>
+   *
+   * @param items the input; must be cheap to read by index; may be
+   * {@code null}
+   *
+   * @param executor the {@link Executor} to classify chunks of the
+   * input with; may be {@code null} in which case the calling {@link
+   * java.lang.Thread} classifies all of it
+   *
+   * @param stats the {@link MatchStats} to record the evaluations
+   * done in; may be {@code null}
+   *
+   * @param budget the {@link MatchBudget} whose timeout and interrupt
+   * status are checked before each item is evaluated; may be {@code
+   * null}
+   *
+   * @return a new {@link ClassifiedInput}, or {@code null} if an atom
+   * threw an exception or the calling {@link java.lang.Thread} was
+   * interrupted
+   *
+   * @exception Error if an atom threw an {@link Error}
+   *
+   * @exception MatchLimitExceededException if {@code budget} is
+   * non-{@code null} and its timeout passed, or the {@link
+   * java.lang.Thread} that created it was interrupted, before every
+   * item was evaluated
+   *
+   * @see #evaluate(List, Executor, MatchStats, MatchBudget)
+   */
+  final ClassifiedInput classify(final List<? extends T> items, final Executor executor, final MatchStats stats, final MatchBudget budget) {
+    final int size = items == null ? 0 : items.size();
+    final long[] bits = new long[size * this.words];
+    final int chunkSize = chunkSize(executor, size);
+    final List<Classifier> classifiers = new ArrayList<Classifier>();
+    for (int from = 0; from < size; from += chunkSize) {
+      classifiers.add(new RowClassifier(items, from, Math.min(size, from + chunkSize), budget, bits));
+    }
+    if (!this.run(classifiers, executor, stats)) {
+      return null;
+    }
+    return this.intern(bits, size);
+  }
+
+  /**
+   * Evaluates every atom against every item of the supplied input
+   * and returns the results as one bitmap per atom.
+   *
+   * <p>If an {@link Executor} is supplied and there are more than
+   * {@link #CHUNK_SIZE} items, all but the first {@link #CHUNK_SIZE}
+   * items are evaluated by tasks handed to the {@link Executor},
+   * while the calling {@link java.lang.Thread} evaluates the first
+   * ones.  Atoms must therefore be safe to evaluate concurrently.</p>
+   *
+   * <p>If any atom throws an exception, or the calling {@link
+   * java.lang.Thread} is interrupted while it waits, {@code null} is
+   * returned, and the run should evaluate its {@link Filter}s as
+   * usual.  That way an atom that throws only for items a run never
+   * reaches does not make the run fail.</p>
+   *
+   * @param items the input; must be cheap to read by index; may be
+   * {@code null}
+   *
+   * @param executor the {@link Executor} to evaluate chunks of the
+   * input with; may be {@code null} in which case the calling {@link
+   * java.lang.Thread} evaluates all of it
+   *
+   * @param stats the {@link MatchStats} to record the evaluations
+   * done in; may be {@code null}
+   *
+   * @param budget the {@link MatchBudget} whose timeout and interrupt
+   * status are checked before each item is evaluated; may be {@code
+   * null}
+   *
+   * @return a new {@link AtomBitmaps}, or {@code null} if an atom
+   * threw an exception or the calling {@link java.lang.Thread} was
+   * interrupted
+   *
+   * @exception Error if an atom threw an {@link Error}
+   *
+   * @exception MatchLimitExceededException if {@code budget} is
+   * non-{@code null} and its timeout passed, or the {@link
+   * java.lang.Thread} that created it was interrupted, before every
+   * item was evaluated
+   */
+  final AtomBitmaps evaluate(final List<? extends T> items, final Executor executor, final MatchStats stats, final MatchBudget budget) {
+    final int size = items == null ? 0 : items.size();
+    final long[][] bitmaps = new long[this.atoms.size()][(size + 63) >>> 6];
+    final int chunkSize = chunkSize(executor, size);
+    final List<Classifier> classifiers = new ArrayList<Classifier>();
+    for (int from = 0; from < size; from += chunkSize) {
+      classifiers.add(new ColumnClassifier(items, from, Math.min(size, from + chunkSize), budget, bitmaps));
+    }
+    if (!this.run(classifiers, executor, stats)) {
+      return null;
+    }
+    return new AtomBitmaps(this.atomIndices, bitmaps, size);
+  }
+
+  /**
+   * Reduces the supplied rows of atom results, one per item, to
+   * symbols and returns the resulting {@link ClassifiedInput}.
+   *
+   * @param bits {@code size} rows of {@link #words} {@code long}s;
+   * must not be {@code null}
+   *
+   * @param size the number of items
+   *
+   * @return a new {@link ClassifiedInput}; never {@code null}
+   */
+  private final ClassifiedInput intern(final long[] bits, final int size) {
+    assert bits != null;
+    final int[] symbols = new int[size];
+    final Map<Row, Integer> symbolsByRow = new HashMap<Row, Integer>();
+    final List<Row> rows = new ArrayList<Row>();
+    for (int i = 0; i < size; i++) {
+      final Row row = new Row(bits, i * this.words, this.words);
+      Integer symbol = symbolsByRow.get(row);
+      if (symbol == null) {
+        symbol = Integer.valueOf(rows.size());
+        symbolsByRow.put(row, symbol);
+        rows.add(row);
+      }
+      symbols[i] = symbol.intValue();
+    }
+    final long[] table = new long[rows.size() * this.words];
+    int offset = 0;
+    for (final Row row : rows) {
+      System.arraycopy(bits, row.offset, table, offset, this.words);
+      offset += this.words;
+    }
+    return new ClassifiedInput(this.atomIndices, symbols, this.words, table);
+  }
+
+  /**
+   * Runs the supplied {@link Classifier}s, the first in the calling
+   * {@link java.lang.Thread} and the rest, if an {@link Executor} is
+   * supplied, by handing them to it, and records the evaluations they
+   * did in the supplied {@link MatchStats}.
+   *
+   * @param classifiers the {@link Classifier}s to run; must not be
+   * {@code null}
+   *
+   * @param executor the {@link Executor} to run all but the first
+   * {@link Classifier} with; may be {@code null} in which case the
+   * calling {@link java.lang.Thread} runs them all
+   *
+   * @param stats the {@link MatchStats} to record the evaluations
+   * done in; may be {@code null}
+   *
+   * @return {@code true} if every {@link Classifier} finished; {@code
+   * false} if an atom threw an exception or the calling {@link
+   * java.lang.Thread} was interrupted
+   *
+   * @exception Error if an atom threw an {@link Error}
+   *
+   * @exception MatchLimitExceededException if a {@link Classifier}
+   * found that its {@link MatchBudget} was exhausted
+   */
+  private final boolean run(final List<Classifier> classifiers, final Executor executor, final MatchStats stats) {
+    assert classifiers != null;
+    final List<MatchStats> workerStats = new ArrayList<MatchStats>();
+    if (executor == null) {
+      try {
+        for (final Classifier classifier : classifiers) {
+          workerStats.add(classifier.call());
+        }
+      } catch (final MatchLimitExceededException exceeded) {
+        throw exceeded;
+      } catch (final RuntimeException atomFailed) {
+        return false;
+      }
+    } else if (!classifiers.isEmpty()) {
+      final List<FutureTask<MatchStats>> tasks = new ArrayList<FutureTask<MatchStats>>();
+      for (final Classifier classifier : classifiers.subList(1, classifiers.size())) {
+        final FutureTask<MatchStats> task = new FutureTask<MatchStats>(classifier);
+        tasks.add(task);
+        try {
+          executor.execute(task);
+        } catch (final RejectedExecutionException rejected) {
+          task.run();
+        }
+      }
+      try {
+        workerStats.add(classifiers.get(0).call());
+        for (final FutureTask<MatchStats> task : tasks) {
+          workerStats.add(task.get());
+        }
+      } catch (final MatchLimitExceededException exceeded) {
+        cancel(tasks);
+        throw exceeded;
+      } catch (final RuntimeException atomFailed) {
+        cancel(tasks);
+        return false;
+      } catch (final InterruptedException interrupted) {
+        cancel(tasks);
+        java.lang.Thread.currentThread().interrupt();
+        return false;
+      } catch (final ExecutionException atomFailed) {
+        cancel(tasks);
+        final Throwable cause = atomFailed.getCause();
+        if (cause instanceof Error) {
+          throw (Error)cause;
+        } else if (cause instanceof MatchLimitExceededException) {
+          throw (MatchLimitExceededException)cause;
+        }
+        return false;
+      }
+    }
+    if (stats != null) {
+      for (final MatchStats s : workerStats) {
+        stats.add(s);
+      }
+    }
+    return true;
+  }
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns a new {@link Alphabet} holding the atoms of the supplied
+   * {@link Program}, or {@code null} if it has none.
+   *
+   * @param <T> the type of {@link Object} the {@link Program} matches
+   *
+   * @param program the {@link Program} in question; must not be
+   * {@code null}
+   *
+   * @return a new {@link Alphabet}, or {@code null}
+   *
+   * @see #isAtom(Instruction, ConditionEffect)
+   */
+  static final <T> Alphabet<T> of(final Program<T> program) {
+    assert program != null;
+    final ConditionEffect programEffect = program.getConditionEffect();
+    final Map<Instruction<T>, Integer> indices = new HashMap<Instruction<T>, Integer>();
+    final List<Filter<T>> atoms = new ArrayList<Filter<T>>();
+    int[] atomIndices = null;
+    int i = 0;
+    for (final Instruction<T> instruction : program) {
+      if (isAtom(instruction, programEffect)) {
+        if (atomIndices == null) {
+          atomIndices = new int[program.size()];
+          Arrays.fill(atomIndices, -1);
+        }
+        Integer index = indices.get(instruction);
+        if (index == null) {
+          index = Integer.valueOf(atoms.size());
+          indices.put(instruction, index);
+          atoms.add((Filter<T>)instruction);
+        }
+        atomIndices[i] = index.intValue();
+      }
+      i++;
+    }
+    if (atomIndices == null) {
+      return null;
+    }
+    return new Alphabet<T>(program, atomIndices, atoms);
+  }
+
+  /**
+   * Returns {@code true} if the supplied {@link Instruction} is an
+   * atom in a {@link Program} whose {@linkplain
+   * Program#getConditionEffect() strongest
+   * <code>ConditionEffect</code>} is the supplied one.
+   *
+   * <p>Atoms are plain {@link Filter}s, {@link NumberRangeFilter}s,
+   * and {@link MVELFilter}s and {@link InstanceOfMVELFilter}s that
+   * either have no MVEL expression or are {@linkplain
+   * FilterMemo#isMemoizable(Instruction, ConditionEffect)
+   * memoizable}.  Subclasses of these are not atoms, since they may
+   * look at more than the item.</p>
+   *
+   * @param instruction the {@link Instruction} in question; may be
+   * {@code null}
+   *
+   * @param programEffect the strongest {@link ConditionEffect} of the
+   * {@link Program} containing {@code instruction}; must not be
+   * {@code null}
+   *
+   * @return {@code true} if {@code instruction} is an atom; {@code
+   * false} otherwise
+   */
+  static final boolean isAtom(final Instruction<?> instruction, final ConditionEffect programEffect) {
+    if (instruction == null) {
+      return false;
+    }
+    final Class<?> c = instruction.getClass();
+    if (c.equals(Filter.class) || c.equals(NumberRangeFilter.class)) {
+      return true;
+    } else if (c.equals(MVELFilter.class) || c.equals(InstanceOfMVELFilter.class)) {
+      return !((MVELFilter<?>)instruction).hasMVELExpression() || FilterMemo.isMemoizable(instruction, programEffect);
+    } else {
+      return false;
+    }
+  }
+
+  /**
+   * Returns the number of items each {@link Classifier} should
+   * evaluate.
+   *
+   * @param executor the {@link Executor} that will run all but the
+   * first {@link Classifier}; may be {@code null}
+   *
+   * @param size the number of items
+   *
+   * @return {@link #CHUNK_SIZE} if there is an {@link Executor};
+   * otherwise a number no smaller than {@code size}, so that a
+   * single {@link Classifier} evaluates everything
+   */
+  private static final int chunkSize(final Executor executor, final int size) {
+    return executor == null ? Math.max(1, size) : CHUNK_SIZE;
+  }
+
+  /**
+   * Cancels the supplied tasks.
+   *
+   * @param tasks the tasks to cancel; must not be {@code null}
+   */
+  private static final void cancel(final List<? extends FutureTask<?>> tasks) {
+    assert tasks != null;
+    for (final FutureTask<?> task : tasks) {
+      task.cancel(true);
+    }
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * Evaluates every atom against a range of items, {@linkplain
+   * #record(int, int) recording} the acceptances in storage shared
+   * with the {@link Classifier}s of other ranges.
+   *
+   * <p>Each {@link Classifier} writes only the storage belonging to
+   * its own range, and returns a {@link MatchStats} recording the
+   * evaluations it did.</p>
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  private abstract class Classifier implements Callable<MatchStats> {
+
+    /**
+     * The input.  This field may be {@code null}.
+     */
+    private final List<? extends T> items;
+
+    /**
+     * The position of the first item to classify.
+     */
+    private final int from;
+
+    /**
+     * The position after the last item to classify.
+     */
+    private final int to;
+
+    /**
+     * The {@link MatchBudget} checked before each item is classified.
+     * This field may be {@code null}.
+     */
+    private final MatchBudget budget;
+
+    /**
+     * Creates a new {@link Classifier}.
+     *
+     * @param items the input; may be {@code null} only if {@code from}
+     * equals {@code to}
+     *
+     * @param from the position of the first item to classify
+     *
+     * @param to the position after the last item to classify
+     *
+     * @param budget the {@link MatchBudget} to check before each item
+     * is classified; may be {@code null}
+     */
+    private Classifier(final List<? extends T> items, final int from, final int to, final MatchBudget budget) {
+      super();
+      assert from <= to;
+      this.items = items;
+      this.from = from;
+      this.to = to;
+      this.budget = budget;
+    }
+
+    /**
+     * Classifies the items in this {@link Classifier}'s range.
+     *
+     * @return a {@link MatchStats} recording the evaluations done;
+     * never {@code null}
+     *
+     * @exception MatchLimitExceededException if this {@link
+     * Classifier}'s {@link MatchBudget} is exhausted
+     *
+     * @exception RuntimeException if an atom threw one
+     */
+    @Override
+    public final MatchStats call() {
+      final MatchStats stats = new MatchStats();
+      final List<Filter<T>> atoms = Alphabet.this.atoms;
+      final int atomCount = atoms.size();
+      final ProgramCounter<T> programCounter = new ProgramCounter<T>(Alphabet.this.program);
+      final ThreadScheduler<T> scheduler = new NoThreadScheduler<T>();
+      // Atoms change no variables, so one Map serves every item.
+      final Map<Object, Object> variables = new HashMap<Object, Object>();
+      final Map<Class<?>, long[]> classTests = new HashMap<Class<?>, long[]>();
+      for (int i = this.from; i < this.to; i++) {
+        if (this.budget != null) {
+          this.budget.check();
+        }
+        final T item = this.items.get(i);
+        long[] classTest = null;
+        if (item != null) {
+          final Class<?> itemClass = item.getClass();
+          classTest = classTests.get(itemClass);
+          if (classTest == null) {
+            classTest = this.testClass(itemClass);
+            classTests.put(itemClass, classTest);
+          }
+        }
+        final InstructionContext<T> context = new InstructionContext<T>(new Thread<T>(null, programCounter, this.items, i, null, variables, scheduler));
+        for (int atom = 0; atom < atomCount; atom++) {
+          final Filter<T> filter = atoms.get(atom);
+          final boolean accepted;
+          if (filter instanceof InstanceOfMVELFilter) {
+            if (classTest == null || (classTest[atom >>> 6] & (1L << atom)) == 0L) {
+              accepted = false;
+            } else if (filter.hasMVELExpression()) {
+              accepted = evaluate(filter, context, stats);
+            } else {
+              accepted = true;
+            }
+          } else {
+            accepted = evaluate(filter, context, stats);
+          }
+          if (accepted) {
+            this.record(i, atom);
+          }
+        }
+      }
+      return stats;
+    }
+
+    /**
+     * Records that the supplied atom accepts the item at the supplied
+     * position.
+     *
+     * @param item the position of the item; within this {@link
+     * Classifier}'s range
+     *
+     * @param atom the index of the atom
+     */
+    abstract void record(final int item, final int atom);
+
+    /**
+     * Returns a row with a bit set for each {@link
+     * InstanceOfMVELFilter} atom whose {@link Class} test items of
+     * the supplied {@link Class} pass.
+     *
+     * @param itemClass the {@link Class} of an item; must not be
+     * {@code null}
+     *
+     * @return a new row; never {@code null}
+     */
+    private final long[] testClass(final Class<?> itemClass) {
+      assert itemClass != null;
+      final List<Filter<T>> atoms = Alphabet.this.atoms;
+      final long[] row = new long[Alphabet.this.words];
+      for (int atom = 0; atom < atoms.size(); atom++) {
+        final Filter<T> filter = atoms.get(atom);
+        if (filter instanceof InstanceOfMVELFilter) {
+          final InstanceOfMVELFilter<T> instanceOf = (InstanceOfMVELFilter<T>)filter;
+          final Class<?> targetClass = instanceOf.getTargetClass();
+          if (instanceOf.isExact() ? itemClass.equals(targetClass) : targetClass.isAssignableFrom(itemClass)) {
+            row[atom >>> 6] |= 1L << atom;
+          }
+        }
+      }
+      return row;
+    }
+
+    /**
+     * Evaluates the supplied atom in the supplied {@link
+     * InstructionContext}, recording the evaluation in the supplied
+     * {@link MatchStats}.
+     *
+     * @param filter the atom; must not be {@code null}
+     *
+     * @param context the {@link InstructionContext}; must not be
+     * {@code null}
+     *
+     * @param stats the {@link MatchStats}; must not be {@code null}
+     *
+     * @return {@code true} if the atom accepted the item
+     */
+    private final boolean evaluate(final Filter<T> filter, final InstructionContext<T> context, final MatchStats stats) {
+      final boolean accepted;
+      if (filter.hasMVELExpression()) {
+        final long start = System.nanoTime();
+        accepted = filter.accept(context);
+        stats.mvelFilterEvaluated(System.nanoTime() - start);
+      } else {
+        accepted = filter.accept(context);
+        stats.classFilterEvaluated();
+      }
+      return accepted;
+    }
+
+  }
+
+  /**
+   * A {@link Classifier} that records acceptances in rows, one row of
+   * {@link Alphabet#words} {@code long}s per item, with bit <i>a</i>
+   * of each row standing for atom <i>a</i>.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   *
+   * @see Alphabet#classify(List, Executor, MatchStats, MatchBudget)
+   */
+  private final class RowClassifier extends Classifier {
+
+    /**
+     * The rows.  This field is never {@code null}.
+     */
+    private final long[] bits;
+
+    /**
+     * Creates a new {@link RowClassifier}.
+     *
+     * @param items the input; may be {@code null} only if {@code from}
+     * equals {@code to}
+     *
+     * @param from the position of the first item to classify
+     *
+     * @param to the position after the last item to classify
+     *
+     * @param budget the {@link MatchBudget} to check before each item
+     * is classified; may be {@code null}
+     *
+     * @param bits the rows; must not be {@code null}
+     */
+    private RowClassifier(final List<? extends T> items, final int from, final int to, final MatchBudget budget, final long[] bits) {
+      super(items, from, to, budget);
+      assert bits != null;
+      this.bits = bits;
+    }
+
+    /**
+     * Sets the bit for the supplied atom in the row of the supplied
+     * item.
+     *
+     * @param item the position of the item
+     *
+     * @param atom the index of the atom
+     */
+    @Override
+    final void record(final int item, final int atom) {
+      this.bits[item * Alphabet.this.words + (atom >>> 6)] |= 1L << atom;
+    }
+
+  }
+
+  /**
+   * A {@link Classifier} that records acceptances in columns, one
+   * bitmap per atom, with bit <i>i</i> of each bitmap standing for
+   * the item at position <i>i</i>.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   *
+   * @see Alphabet#evaluate(List, Executor, MatchStats, MatchBudget)
+   */
+  private final class ColumnClassifier extends Classifier {
+
+    /**
+     * The bitmaps, indexed by atom.  This field is never {@code
+     * null}.
+     */
+    private final long[][] bitmaps;
+
+    /**
+     * Creates a new {@link ColumnClassifier}.
+     *
+     * @param items the input; may be {@code null} only if {@code from}
+     * equals {@code to}
+     *
+     * @param from the position of the first item to evaluate; must be
+     * a multiple of 64
+     *
+     * @param to the position after the last item to evaluate
+     *
+     * @param budget the {@link MatchBudget} to check before each item
+     * is evaluated; may be {@code null}
+     *
+     * @param bitmaps the bitmaps, indexed by atom; must not be {@code
+     * null}
+     */
+    private ColumnClassifier(final List<? extends T> items, final int from, final int to, final MatchBudget budget, final long[][] bitmaps) {
+      super(items, from, to, budget);
+      assert (from & 63) == 0;
+      assert bitmaps != null;
+      this.bitmaps = bitmaps;
+    }
+
+    /**
+     * Sets the bit for the supplied item in the bitmap of the
+     * supplied atom.
+     *
+     * @param item the position of the item
+     *
+     * @param atom the index of the atom
+     */
+    @Override
+    final void record(final int item, final int atom) {
+      this.bitmaps[atom][item >>> 6] |= 1L << item;
+    }
+
+  }
+
+  /**
+   * A key identifying one row of atom results by its contents.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  private static final class Row {
+
+    /**
+     * The array holding the row.  This field is never {@code null}.
+     */
+    private final long[] bits;
+
+    /**
+     * The position of the row in {@link #bits}.
+     */
+    private final int offset;
+
+    /**
+     * The length of the row.
+     */
+    private final int words;
+
+    /**
+     * Creates a new {@link Row}.
+     *
+     * @param bits the array holding the row; must not be {@code
+     * null}
+     *
+     * @param offset the position of the row in {@code bits}
+     *
+     * @param words the length of the row
+     */
+    private Row(final long[] bits, final int offset, final int words) {
+      super();
+      this.bits = bits;
+      this.offset = offset;
+      this.words = words;
+    }
+
+    /**
+     * Returns a hashcode for this {@link Row}.
+     *
+     * @return a hashcode for this {@link Row}
+     */
+    @Override
+    public final int hashCode() {
+      int result = 17;
+      for (int i = 0; i < this.words; i++) {
+        final long word = this.bits[this.offset + i];
+        result = 37 * result + (int)(word ^ (word >>> 32));
+      }
+      return result;
+    }
+
+    /**
+     * Returns {@code true} if the supplied {@link Object} is a {@link
+     * Row} with the same contents as this one.
+     *
+     * @param other the {@link Object} to test; may be {@code null}
+     *
+     * @return {@code true} if {@code other} is a {@link Row} with the
+     * same contents; {@code false} otherwise
+     */
+    @Override
+    public final boolean equals(final Object other) {
+      if (other == this) {
+        return true;
+      } else if (other instanceof Row) {
+        final Row him = (Row)other;
+        if (this.words != him.words) {
+          return false;
+        }
+        for (int i = 0; i < this.words; i++) {
+          if (this.bits[this.offset + i] != him.bits[him.offset + i]) {
+            return false;
+          }
+        }
+        return true;
+      } else {
+        return false;
+      }
+    }
+
+  }
+
+  /**
+   * A {@link ThreadScheduler} for the {@link Thread}s that give atoms
+   * an {@link InstructionContext} to read from.  Atoms never fork, so
+   * it refuses to create or schedule anything.
+   *
+   * @param <T> the type of {@link Object} the {@link Program} matches
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  private static final class NoThreadScheduler<T> implements ThreadScheduler<T> {
+
+    /**
+     * Creates a new {@link NoThreadScheduler}.
+     */
+    private NoThreadScheduler() {
+      super();
+    }
+
+    /**
+     * Throws an {@link UnsupportedOperationException}.
+     *
+     * @param id ignored
+     *
+     * @param programCounter ignored
+     *
+     * @param items ignored
+     *
+     * @param itemPointer ignored
+     *
+     * @param captureGroups ignored
+     *
+     * @param variables ignored
+     *
+     * @return nothing
+     *
+     * @exception UnsupportedOperationException when invoked
+     */
+    @Override
+    public final Thread<T> newThread(final Object id, final ProgramCounter<T> programCounter, final List<? extends T> items, final int itemPointer, final Map<Object, CaptureGroup<T>> captureGroups, final Map<Object, Object> variables) {
+      throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Throws an {@link UnsupportedOperationException}.
+     *
+     * @param thread ignored
+     *
+     * @return nothing
+     *
+     * @exception UnsupportedOperationException when invoked
+     */
+    @Override
+    public final boolean schedule(final Thread<T> thread) {
+      throw new UnsupportedOperationException();
+    }
+
+  }
+
+}
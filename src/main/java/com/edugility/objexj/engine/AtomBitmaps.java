@@ -0,0 +1,165 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+/**
+ * The results of the atoms of an {@link Alphabet}, evaluated up front
+ * against every item of some input and stored column by column: one
+ * bitmap per atom, with one bit per item.
+ *
+ * <p>Unlike a {@link ClassifiedInput}, an {@link AtomBitmaps} needs no
+ * pass over its rows to find the distinct ones once evaluation is
+ * done, and so suits large input whose items are diverse, or large
+ * input evaluated in parallel, where that pass would be the only part
+ * done by a single {@link java.lang.Thread}.</p>
+ *
+ * <p>An {@link AtomBitmaps} is never modified once it has been
+ * created, so it is safe for use by multiple Java {@linkplain
+ * java.lang.Thread threads}.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see Alphabet#evaluate(java.util.List, java.util.concurrent.Executor, MatchStats)
+ */
+final class AtomBitmaps implements AtomResults {
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The index of the atom evaluated by the {@link Instruction} at
+   * each position in the {@link Program}, or {@code -1} if that
+   * {@link Instruction} is not an atom.  This field is never {@code
+   * null}.
+   */
+  private final int[] atoms;
+
+  /**
+   * One bitmap per atom, in which bit <i>i</i> is set if the atom
+   * accepts the item at position <i>i</i>.  This field is never
+   * {@code null}.
+   */
+  private final long[][] bitmaps;
+
+  /**
+   * The number of items that were evaluated.
+   */
+  private final int size;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link AtomBitmaps}.
+   *
+   * @param atoms the index of the atom evaluated by the {@link
+   * Instruction} at each position in the {@link Program}, or {@code
+   * -1}; must not be {@code null}; not copied
+   *
+   * @param bitmaps one bitmap per atom; must not be {@code null}; not
+   * copied
+   *
+   * @param size the number of items that were evaluated; must not be
+   * negative
+   */
+  AtomBitmaps(final int[] atoms, final long[][] bitmaps, final int size) {
+    super();
+    assert atoms != null;
+    assert bitmaps != null;
+    assert size >= 0;
+    this.atoms = atoms;
+    this.bitmaps = bitmaps;
+    this.size = size;
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns the number of items that were evaluated.
+   *
+   * @return the number of items that were evaluated; never negative
+   */
+  final int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns the number of items the supplied atom accepts.
+   *
+   * @param atom the index of the atom
+   *
+   * @return the number of items the atom accepts; never negative
+   *
+   * @exception ArrayIndexOutOfBoundsException if {@code atom} is out
+   * of range
+   */
+  final int cardinality(final int atom) {
+    int cardinality = 0;
+    for (final long word : this.bitmaps[atom]) {
+      cardinality += Long.bitCount(word);
+    }
+    return cardinality;
+  }
+
+  /**
+   * Returns the result of the atom at the supplied program position
+   * for the item at the supplied position.
+   *
+   * @param programPosition the position of the {@link Filter} in its
+   * {@link Program}
+   *
+   * @param itemPointer the position of the item in the input
+   *
+   * @return {@link FilterMemo#ACCEPTED}, {@link FilterMemo#REJECTED},
+   * or {@link FilterMemo#UNKNOWN} if the {@link Filter} is not an
+   * atom or either position is out of range
+   */
+  @Override
+  public final int recall(final int programPosition, final int itemPointer) {
+    if (programPosition < 0 || programPosition >= this.atoms.length || itemPointer < 0 || itemPointer >= this.size) {
+      return FilterMemo.UNKNOWN;
+    }
+    final int atom = this.atoms[programPosition];
+    if (atom < 0) {
+      return FilterMemo.UNKNOWN;
+    }
+    return (this.bitmaps[atom][itemPointer >>> 6] & (1L << itemPointer)) != 0L ? FilterMemo.ACCEPTED : FilterMemo.REJECTED;
+  }
+
+}
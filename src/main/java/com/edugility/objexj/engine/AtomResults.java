@@ -0,0 +1,64 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+/**
+ * The results of the atoms of an {@link Alphabet}, evaluated up front
+ * against every item of some input, in a form {@link Thread}s can
+ * look up instead of evaluating {@link Filter}s.
+ *
+ * <p>Implementations are shared by every {@link Thread} of a run,
+ * and must not change once they have been created.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see ClassifiedInput
+ *
+ * @see AtomBitmaps
+ *
+ * @see Thread#setAtomResults(AtomResults)
+ */
+interface AtomResults {
+
+  /**
+   * Returns the result of the atom at the supplied program position
+   * for the item at the supplied position.
+   *
+   * @param programPosition the position of the {@link Filter} in its
+   * {@link Program}
+   *
+   * @param itemPointer the position of the item in the input
+   *
+   * @return {@link FilterMemo#ACCEPTED}, {@link FilterMemo#REJECTED},
+   * or {@link FilterMemo#UNKNOWN} if the {@link Filter} is not an
+   * atom or either position is out of range
+   */
+  public int recall(final int programPosition, final int itemPointer);
+
+}
@@ -29,7 +29,6 @@ package com.edugility.objexj.engine;
 
 import java.io.Serializable;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -54,8 +53,11 @@ public final class CaptureGroup<T> implements Cloneable, Serializable {
   /**
    * The inclusive zero-based index at which this {@link CaptureGroup}
    * starts.  This field will always be greater than or equal to
-   * {@code 0} and less than the {@linkplain List#size() size} of the
-   * {@linkplain #getItems() <code>List</code> of items}.
+   * {@code 0} and less than or equal to the {@linkplain List#size()
+   * size} of the {@linkplain #getItems() <code>List</code> of items}.
+   * It will be equal to that size only when a capture begins after
+   * the last item has been read, in which case the capture will be
+   * empty.
    *
    * @see #items
    */
@@ -77,7 +79,7 @@ public final class CaptureGroup<T> implements Cloneable, Serializable {
    * will capture a sub-{@link List}.  This field is never {@code
    * null}.
    */
-  private List<? extends T> items;
+  private final List<? extends T> items;
 
   /**
    * Creates a new {@link CaptureGroup}.
@@ -88,12 +90,12 @@ public final class CaptureGroup<T> implements Cloneable, Serializable {
    *
    * @param startIndex the zero-based index at which capturing will
    * start; must be greater than or equal to {@code 0} and less than
-   * {@link List#size() items.size()}
+   * or equal to {@link List#size() items.size()}
    *
    * @exception IllegalArgumentException if {@code items} is {@code
    * null} or {@code items} {@linkplain List#isEmpty() is empty} or
    * {@code startIndex} is less than {@code 0} or {@code startIndex}
-   * is greater than or equal to {@link List#size() items.size()}
+   * is greater than {@link List#size() items.size()}
    */ 
   public CaptureGroup(final List<? extends T> items, final int startIndex) {
     super();
@@ -106,8 +108,8 @@ public final class CaptureGroup<T> implements Cloneable, Serializable {
     if (startIndex < 0) {
       throw new IllegalArgumentException("startIndex < 0: " + startIndex);
     }
-    if (startIndex >= items.size()) {
-      throw new IllegalArgumentException("startIndex >= items.size(): " + startIndex + " >= " + items.size());
+    if (startIndex > items.size()) {
+      throw new IllegalArgumentException("startIndex > items.size(): " + startIndex + " > " + items.size());
     }
 
     this.items = items;
@@ -135,19 +137,31 @@ public final class CaptureGroup<T> implements Cloneable, Serializable {
   }
 
   /**
-   * Sets the {@link List} of items this {@link CaptureGroup} will
-   * capture from.
+   * Returns the inclusive zero-based index at which this {@link
+   * CaptureGroup} starts.
    *
-   * @param items the {@link List} of items; must not be {@code null}
+   * @return the inclusive zero-based start index; always greater
+   * than or equal to {@code 0}
+   */
+  public final int getStartIndex() {
+    return this.startIndex;
+  }
+
+  /**
+   * Returns the exclusive zero-based index at which this {@link
+   * CaptureGroup} ends.  If no {@linkplain #setEndIndex(int) end index
+   * has been set}, the {@linkplain List#size() size} of the {@link
+   * List} of items is returned instead, as the {@link #getItems()}
+   * method would use it.
    *
-   * @exception IllegalArgumentException if {@code items} is {@code
-   * null}
+   * @return the exclusive zero-based end index; always greater than
+   * or equal to the {@linkplain #getStartIndex() start index}
    */
-  private final void setItemList(final List<? extends T> items) {
-    if (items == null) {
-      throw new IllegalArgumentException("items", new NullPointerException("items == null"));
+  public final int getEndIndex() {
+    if (this.endIndex < 0) {
+      return this.items == null ? this.startIndex : this.items.size();
     }
-    this.items = items;
+    return this.endIndex;
   }
 
   /**
@@ -176,7 +190,8 @@ public final class CaptureGroup<T> implements Cloneable, Serializable {
 
   /**
    * Returns a non-{@code null} {@linkplain Object#clone() clone} of
-   * this {@link CaptureGroup}.
+   * this {@link CaptureGroup}.  The clone shares this {@link
+   * CaptureGroup}'s {@link List} of items.
    *
    * @return a non-{@code null} {@linkplain Object#clone() clone} of
    * this {@link CaptureGroup}
@@ -192,9 +207,9 @@ public final class CaptureGroup<T> implements Cloneable, Serializable {
       throw (InternalError)new InternalError().initCause(severeError);
     }
     assert clone != null;
-    if (this.items != null) {
-      clone.setItemList(new ArrayList<T>(this.items));
-    }
+    // The input is never modified during a match, so the clone can
+    // share it; copying it here would cost time proportional to the
+    // size of the input every time a Thread forks.
     return clone;
   }
 
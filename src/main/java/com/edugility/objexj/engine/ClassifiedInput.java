@@ -0,0 +1,186 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+/**
+ * Input that has been reduced by an {@link Alphabet} to one small
+ * integer <em>symbol</em> per item, together with a table saying
+ * which of the {@link Alphabet}'s atoms accept the items of each
+ * symbol.
+ *
+ * <p>Two items share a symbol if and only if exactly the same atoms
+ * accept them, so there are never more symbols than items, and
+ * usually there are very few.  Once input has been classified, the
+ * result of any atom at any position is a pair of array reads.</p>
+ *
+ * <p>A {@link ClassifiedInput} is shared by every {@link Thread} of a
+ * run, in the same way a {@link FilterMemo} is.  It is never
+ * modified once it has been created, so it is safe for use by
+ * multiple Java {@linkplain java.lang.Thread threads}.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see Alphabet#classify(java.util.List, java.util.concurrent.Executor, MatchStats)
+ *
+ * @see AtomBitmaps
+ */
+final class ClassifiedInput implements AtomResults {
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The index of the atom evaluated by the {@link Instruction} at
+   * each position in the {@link Program}, or {@code -1} if that
+   * {@link Instruction} is not an atom.  This field is never {@code
+   * null}.
+   */
+  private final int[] atoms;
+
+  /**
+   * The symbol of each item.  This field is never {@code null}.
+   */
+  private final int[] symbols;
+
+  /**
+   * The number of {@code long}s in each row of {@link #table}.
+   */
+  private final int words;
+
+  /**
+   * One row of {@link #words} {@code long}s per symbol, in which bit
+   * <i>a</i> is set if atom <i>a</i> accepts the items of that
+   * symbol.  This field is never {@code null}.
+   */
+  private final long[] table;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link ClassifiedInput}.
+   *
+   * @param atoms the index of the atom evaluated by the {@link
+   * Instruction} at each position in the {@link Program}, or {@code
+   * -1}; must not be {@code null}; not copied
+   *
+   * @param symbols the symbol of each item; must not be {@code null};
+   * not copied
+   *
+   * @param words the number of {@code long}s in each row of {@code
+   * table}; must be positive
+   *
+   * @param table one row of {@code words} {@code long}s per symbol;
+   * must not be {@code null}; not copied
+   */
+  ClassifiedInput(final int[] atoms, final int[] symbols, final int words, final long[] table) {
+    super();
+    assert atoms != null;
+    assert symbols != null;
+    assert words > 0;
+    assert table != null;
+    this.atoms = atoms;
+    this.symbols = symbols;
+    this.words = words;
+    this.table = table;
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns the number of items that were classified.
+   *
+   * @return the number of items that were classified; never negative
+   */
+  final int size() {
+    return this.symbols.length;
+  }
+
+  /**
+   * Returns the number of distinct symbols the items were reduced
+   * to.
+   *
+   * @return the number of distinct symbols; never negative
+   */
+  final int getSymbolCount() {
+    return this.table.length / this.words;
+  }
+
+  /**
+   * Returns the symbol of the item at the supplied position.
+   *
+   * @param itemPointer the position of the item; must be greater
+   * than or equal to {@code 0} and less than {@link #size()}
+   *
+   * @return the symbol of the item
+   *
+   * @exception ArrayIndexOutOfBoundsException if {@code itemPointer}
+   * is out of range
+   */
+  final int getSymbol(final int itemPointer) {
+    return this.symbols[itemPointer];
+  }
+
+  /**
+   * Returns the result of the atom at the supplied program position
+   * for the item at the supplied position.
+   *
+   * @param programPosition the position of the {@link Filter} in its
+   * {@link Program}
+   *
+   * @param itemPointer the position of the item in the input
+   *
+   * @return {@link FilterMemo#ACCEPTED}, {@link FilterMemo#REJECTED},
+   * or {@link FilterMemo#UNKNOWN} if the {@link Filter} is not an
+   * atom or either position is out of range
+   */
+  @Override
+  public final int recall(final int programPosition, final int itemPointer) {
+    if (programPosition < 0 || programPosition >= this.atoms.length || itemPointer < 0 || itemPointer >= this.symbols.length) {
+      return FilterMemo.UNKNOWN;
+    }
+    final int atom = this.atoms[programPosition];
+    if (atom < 0) {
+      return FilterMemo.UNKNOWN;
+    }
+    final long word = this.table[this.symbols[itemPointer] * this.words + (atom >>> 6)];
+    return (word & (1L << atom)) != 0L ? FilterMemo.ACCEPTED : FilterMemo.REJECTED;
+  }
+
+}
@@ -0,0 +1,67 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+/**
+ * How the time a backtracking run of a {@link Program} may take can
+ * grow with the size of its input, in the worst case.
+ *
+ * <p>A backtracking run tries one way of reading the input after
+ * another.  If there is only ever one way, its time grows with the
+ * input; if several {@link Thread}s can read the same items, it may
+ * have to try many.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see ProgramAnalysis#getComplexity()
+ */
+public enum Complexity {
+
+  /**
+   * No two {@link Thread}s can read the same items for long, so time
+   * grows in proportion to the input.
+   */
+  LINEAR,
+
+  /**
+   * Different {@link Thread}s can read the same items, as with
+   * <code>A*A*</code>, but no single {@link Thread} can read them
+   * in more than one way, so time grows as a power of the size of
+   * the input.
+   */
+  POLYNOMIAL,
+
+  /**
+   * A single {@link Thread} can read the same items in more than one
+   * way, as with <code>(A*)*</code> or <code>(A|A)*</code>, so time
+   * can double with every item.
+   */
+  EXPONENTIAL;
+
+}
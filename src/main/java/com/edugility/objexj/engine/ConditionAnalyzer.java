@@ -0,0 +1,278 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.util.Map;
+
+import org.mvel2.MVEL;
+import org.mvel2.ParserContext;
+
+import org.mvel2.ast.ASTNode;
+import org.mvel2.ast.Assignment;
+import org.mvel2.ast.BinaryOperation;
+import org.mvel2.ast.BooleanNode;
+import org.mvel2.ast.Contains;
+import org.mvel2.ast.EndOfStatement;
+import org.mvel2.ast.IfNode;
+import org.mvel2.ast.Instance;
+import org.mvel2.ast.LiteralNode;
+import org.mvel2.ast.Negation;
+import org.mvel2.ast.OperativeAssign;
+import org.mvel2.ast.OperatorNode;
+import org.mvel2.ast.PostFixDecNode;
+import org.mvel2.ast.PostFixIncNode;
+import org.mvel2.ast.PreFixDecNode;
+import org.mvel2.ast.PreFixIncNode;
+import org.mvel2.ast.Substatement;
+import org.mvel2.ast.TypeCast;
+
+import org.mvel2.compiler.CompiledExpression;
+import org.mvel2.compiler.ExecutableAccessor;
+import org.mvel2.compiler.ExecutableStatement;
+
+/**
+ * Works out the {@link ConditionEffect} of an MVEL condition at
+ * compile time.
+ *
+ * <p>The condition is compiled with a {@link ParserContext}, which
+ * records the variables it assigns and the <em>inputs</em>&mdash;names
+ * that are not declared in the condition itself&mdash;it reads.  Its
+ * compiled syntax tree is then searched for assignments that the
+ * {@link ParserContext} does not record, such as {@code x += 1},
+ * {@code x++} or {@code foo.bar = 2}.  Some kinds of node do not
+ * expose the nodes nested inside them; if the search meets one, the
+ * source of the condition is scanned for assignment operators
+ * instead, and if it contains any the condition is assumed to write
+ * variables.</p>
+ *
+ * <p>Method calls are assumed not to change anything.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see ConditionEffect
+ */
+final class ConditionAnalyzer {
+
+  /**
+   * The result of searching a syntax tree in which no assignment was
+   * found and every node was seen.
+   */
+  private static final int NOTHING_FOUND = 0;
+
+  /**
+   * The result of searching a syntax tree in which no assignment was
+   * found but some nodes could not be seen into.
+   */
+  private static final int OPAQUE = 1;
+
+  /**
+   * The result of searching a syntax tree in which an assignment was
+   * found.
+   */
+  private static final int ASSIGNMENT_FOUND = 2;
+
+  /**
+   * Creates a new {@link ConditionAnalyzer}.
+   */
+  private ConditionAnalyzer() {
+    super();
+  }
+
+  /**
+   * Returns the {@link ConditionEffect} of the supplied MVEL
+   * condition.
+   *
+   * @param mvel the MVEL condition to analyze; may be {@code null} in
+   * which case {@link ConditionEffect#PURE} is returned
+   *
+   * @return a {@link ConditionEffect}; never {@code null}; {@link
+   * ConditionEffect#WRITES_VARIABLES} if the condition could not be
+   * compiled
+   */
+  static final ConditionEffect analyze(final String mvel) {
+    if (mvel == null) {
+      return ConditionEffect.PURE;
+    }
+    final ParserContext parserContext = new ParserContext();
+    final Object compiled;
+    try {
+      compiled = MVEL.compileExpression(mvel, parserContext);
+    } catch (final RuntimeException cannotAnalyze) {
+      return ConditionEffect.WRITES_VARIABLES;
+    }
+    final Map<?, ?> variables = parserContext.getVariables();
+    if (variables != null && !variables.isEmpty()) {
+      return ConditionEffect.WRITES_VARIABLES;
+    }
+    final int search = search(compiled);
+    if (search == ASSIGNMENT_FOUND || (search == OPAQUE && hasAssignmentOperator(mvel))) {
+      return ConditionEffect.WRITES_VARIABLES;
+    }
+    final Map<?, ?> inputs = parserContext.getInputs();
+    if (inputs != null) {
+      for (final Object input : inputs.keySet()) {
+        if (!"this".equals(input)) {
+          return ConditionEffect.READS_VARIABLES;
+        }
+      }
+    }
+    return ConditionEffect.PURE;
+  }
+
+  /**
+   * Searches the supplied compiled MVEL statement for assignments.
+   *
+   * @param statement the statement to search; may be {@code null}
+   *
+   * @return {@link #NOTHING_FOUND}, {@link #OPAQUE} or {@link
+   * #ASSIGNMENT_FOUND}
+   */
+  private static final int search(final Object statement) {
+    if (statement instanceof CompiledExpression) {
+      return searchChain(((CompiledExpression)statement).getFirstNode());
+    } else if (statement instanceof ExecutableAccessor) {
+      return searchChain(((ExecutableAccessor)statement).getNode());
+    } else if (statement == null || statement instanceof ExecutableStatement && ((ExecutableStatement)statement).isLiteralOnly()) {
+      return NOTHING_FOUND;
+    } else {
+      return OPAQUE;
+    }
+  }
+
+  /**
+   * Searches the supplied {@link ASTNode}, and every node that
+   * follows it, for assignments.
+   *
+   * @param node the first node to search; may be {@code null}
+   *
+   * @return {@link #NOTHING_FOUND}, {@link #OPAQUE} or {@link
+   * #ASSIGNMENT_FOUND}
+   */
+  private static final int searchChain(ASTNode node) {
+    int result = NOTHING_FOUND;
+    while (node != null && result != ASSIGNMENT_FOUND) {
+      result = Math.max(result, searchNode(node));
+      node = node.nextASTNode;
+    }
+    return result;
+  }
+
+  /**
+   * Searches the supplied {@link ASTNode}, and the nodes nested
+   * inside it, but not the nodes that follow it, for assignments.
+   *
+   * @param node the node to search; must not be {@code null}
+   *
+   * @return {@link #NOTHING_FOUND}, {@link #OPAQUE} or {@link
+   * #ASSIGNMENT_FOUND}
+   */
+  private static final int searchNode(final ASTNode node) {
+    assert node != null;
+    if (node instanceof Assignment ||
+        node instanceof OperativeAssign ||
+        node instanceof PreFixIncNode ||
+        node instanceof PreFixDecNode ||
+        node instanceof PostFixIncNode ||
+        node instanceof PostFixDecNode) {
+      return ASSIGNMENT_FOUND;
+    } else if (node instanceof BinaryOperation) {
+      final BinaryOperation operation = (BinaryOperation)node;
+      return Math.max(searchChain(operation.getLeft()), searchChain(operation.getRight()));
+    } else if (node instanceof BooleanNode) {
+      final BooleanNode operation = (BooleanNode)node;
+      return Math.max(searchChain(operation.getLeft()), searchChain(operation.getRight()));
+    } else if (node instanceof Contains) {
+      final Contains contains = (Contains)node;
+      return Math.max(searchChain(contains.getFirstStatement()), searchChain(contains.getSecondStatement()));
+    } else if (node instanceof Instance) {
+      final Instance instance = (Instance)node;
+      return Math.max(searchChain(instance.getStatement()), searchChain(instance.getClassStatement()));
+    } else if (node instanceof Substatement) {
+      return search(((Substatement)node).getStatement());
+    } else if (node instanceof Negation) {
+      return search(((Negation)node).getStatement());
+    } else if (node instanceof TypeCast) {
+      return search(((TypeCast)node).getStatement());
+    } else if (node instanceof IfNode) {
+      final IfNode ifNode = (IfNode)node;
+      return Math.max(Math.max(search(ifNode.getCompiledBlock()), search(ifNode.getNestedStatement())), search(ifNode.getElseBlock()));
+    } else if (node.getClass().equals(ASTNode.class) ||
+               node instanceof LiteralNode ||
+               node instanceof OperatorNode ||
+               node instanceof EndOfStatement) {
+      // Identifiers, property and method chains, literals and
+      // operators; anything nested in them was compiled with the
+      // same ParserContext.
+      return NOTHING_FOUND;
+    } else {
+      return OPAQUE;
+    }
+  }
+
+  /**
+   * Returns {@code true} if the supplied MVEL source contains, outside
+   * of any string or character literal, an assignment operator such
+   * as {@code =} or {@code +=}, or an increment or decrement
+   * operator.
+   *
+   * @param mvel the MVEL source to scan; must not be {@code null}
+   *
+   * @return {@code true} if the supplied MVEL source contains an
+   * assignment, increment or decrement operator
+   */
+  static final boolean hasAssignmentOperator(final CharSequence mvel) {
+    assert mvel != null;
+    final int length = mvel.length();
+    char quote = 0;
+    for (int i = 0; i < length; i++) {
+      final char c = mvel.charAt(i);
+      if (quote != 0) {
+        if (c == '\\') {
+          i++;
+        } else if (c == quote) {
+          quote = 0;
+        }
+      } else if (c == '"' || c == '\'') {
+        quote = c;
+      } else if (c == '=') {
+        final char previous = i > 0 ? mvel.charAt(i - 1) : 0;
+        final char next = i + 1 < length ? mvel.charAt(i + 1) : 0;
+        if (next == '=') {
+          i++; // ==
+        } else if (previous != '=' && previous != '!' && previous != '<' && previous != '>' && previous != '~') {
+          return true;
+        }
+      } else if ((c == '+' || c == '-') && i + 1 < length && mvel.charAt(i + 1) == c) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+}
@@ -0,0 +1,84 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+/**
+ * What evaluating the MVEL condition of an {@link MVELFilter} may do
+ * besides looking at the item it is evaluated against.
+ *
+ * <p>Constants are declared in order of increasing effect, so the
+ * {@linkplain #max(ConditionEffect) larger} of two {@link
+ * ConditionEffect}s describes a {@link Program} containing both.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see MVELFilter#getConditionEffect()
+ *
+ * @see Program#getConditionEffect()
+ */
+public enum ConditionEffect {
+
+  /**
+   * The condition depends on nothing but the item, and changes
+   * nothing; for example, {@code charValue() == 'a'}.
+   */
+  PURE,
+
+  /**
+   * The condition reads names that are not known to belong to the
+   * item, and so may be variables, but changes nothing; for example,
+   * {@code intValue() > x} or {@code message == "third"}.
+   */
+  READS_VARIABLES,
+
+  /**
+   * The condition assigns variables, or may otherwise change state;
+   * for example, {@code fred = "bozo"; return charValue() == 'b'}.
+   * This is also the effect of any condition that could not be
+   * analyzed.
+   */
+  WRITES_VARIABLES;
+
+  /**
+   * Returns the larger of this {@link ConditionEffect} and the
+   * supplied one.
+   *
+   * @param other the other {@link ConditionEffect}; may be {@code
+   * null} in which case this {@link ConditionEffect} is returned
+   *
+   * @return the larger {@link ConditionEffect}; never {@code null}
+   */
+  public final ConditionEffect max(final ConditionEffect other) {
+    if (other == null || other.compareTo(this) <= 0) {
+      return this;
+    }
+    return other;
+  }
+
+}
@@ -0,0 +1,1297 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The paths {@link Thread}s may take through a {@link Program}, as
+ * far as they can be known without running it.
+ *
+ * <p>Only {@link Filter}s read items.  Everything a {@link Thread}
+ * does between reading one item and the next is described by the
+ * <em>closure</em> of the position it reads from: the number of
+ * ways in which it, and the {@link Thread}s it forks, can reach each
+ * {@link Filter}, {@link EndInput} and {@link Match} without reading
+ * anything.</p>
+ *
+ * <p>Analysis is conservative: conditions of {@link CountedSplit}s
+ * are ignored, and any two {@link Filter}s not known to reject each
+ * other's items are assumed to accept some item in common.</p>
+ *
+ * <p>Closures are computed the first time they are needed, and the
+ * searches behind {@link #isAmbiguous()} and {@link #getComplexity()}
+ * only when those methods are called, so creating a {@link
+ * ControlFlow} is cheap.  {@link ControlFlow}s are not safe for use
+ * by multiple Java {@linkplain java.lang.Thread threads}.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see ProgramAnalysis
+ */
+final class ControlFlow {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * The largest number of steps&mdash;edges between pairs of {@link
+   * Thread}s followed&mdash;that each of the searches behind {@link
+   * #isAmbiguous()} and {@link #getComplexity()} may take before it
+   * gives up and assumes the worst.
+   */
+  static final int MAX_AMBIGUITY_STEPS = 1 << 20;
+
+  /**
+   * The number at which path counts stop growing.
+   */
+  static final int MAX_PATHS = 1 << 20;
+
+  /**
+   * The closure of a position from which nothing can be reached.
+   */
+  private static final int[] NONE = new int[0];
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The {@link Instruction}s of the {@link Program}, by position.
+   * This field is never {@code null}.
+   */
+  private final Instruction<?>[] instructions;
+
+  /**
+   * The closure of the start of the {@link Program}, or {@code null}
+   * if closures have not yet been needed.  This field may be {@link
+   * #NONE}.
+   *
+   * @see #computeClosures()
+   */
+  private int[] startClosure;
+
+  /**
+   * The closure of the position after each {@link Filter}, by the
+   * {@link Filter}'s position, or {@code null} at positions that do
+   * not hold a {@link Filter}.  This field is {@code null} if
+   * closures have not yet been needed.
+   *
+   * @see #computeClosures()
+   */
+  private int[][] closures;
+
+  /**
+   * The closure of the position after each {@link EndInput}, by the
+   * {@link EndInput}'s position, or {@code null} at positions that do
+   * not hold an {@link EndInput}.  This field is {@code null} if
+   * closures have not yet been needed.
+   *
+   * @see #computeClosures()
+   */
+  private int[][] endClosures;
+
+  /**
+   * Whether some {@link Thread} could loop forever without reading
+   * anything.
+   */
+  private boolean epsilonCycle;
+
+  /**
+   * Whether some {@link Thread} could repeat a loop without reading
+   * anything, only to be stopped by a {@link RequireProgress}.
+   */
+  private boolean emptyLoop;
+
+  /**
+   * The {@link Filter}s of the {@link Program} and the ways between
+   * them, or {@code null} if they have not yet been needed.
+   *
+   * @see #getFilterGraph()
+   */
+  private FilterGraph filterGraph;
+
+  /**
+   * Whether the {@link Program} is {@linkplain #isAmbiguous()
+   * ambiguous}, or {@code null} if that has not yet been needed.
+   */
+  private Boolean ambiguous;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link ControlFlow} for the supplied {@link
+   * Program}.
+   *
+   * @param program the {@link Program} to analyze; must not be {@code
+   * null}
+   */
+  ControlFlow(final Program<?> program) {
+    super();
+    assert program != null;
+    this.instructions = program.toArray(new Instruction<?>[program.size()]);
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Computes the closures of the start of the {@link Program} and of
+   * the positions after each {@link Filter} and {@link EndInput}, if
+   * that has not already been done.
+   */
+  private final void computeClosures() {
+    if (this.closures != null) {
+      return;
+    }
+    final Map<State, int[]> memo = new HashMap<State, int[]>();
+    final Set<State> onPath = new HashSet<State>();
+    this.startClosure = this.closure(0, 0L, true, new HashMap<State, int[]>(), onPath);
+    final int[][] closures = new int[this.instructions.length][];
+    for (int pc = 0; pc < this.instructions.length; pc++) {
+      if (isConsuming(this.instructions[pc])) {
+        closures[pc] = this.closure(pc + 1, 0L, false, memo, onPath);
+      }
+    }
+    this.closures = closures;
+    // Nothing follows an EndInput but more of the end of the input,
+    // so what follows it is allowed to expect the start, too.
+    final Map<State, int[]> endMemo = new HashMap<State, int[]>();
+    this.endClosures = new int[this.instructions.length][];
+    for (int pc = 0; pc < this.instructions.length; pc++) {
+      if (this.instructions[pc] instanceof EndInput) {
+        this.endClosures[pc] = this.closure(pc + 1, 0L, true, endMemo, onPath);
+      }
+    }
+  }
+
+
+  /**
+   * Returns the number of {@link Instruction}s in the {@link
+   * Program}.
+   *
+   * @return the size of the {@link Program}
+   */
+  final int size() {
+    return this.instructions.length;
+  }
+
+  /**
+   * Returns the {@link Instruction} at the supplied position.
+   *
+   * @param pc the position; must be valid
+   *
+   * @return the {@link Instruction}; never {@code null}
+   */
+  final Instruction<?> get(final int pc) {
+    return this.instructions[pc];
+  }
+
+  /**
+   * Returns the number of ways in which each position can be reached
+   * from the start of the {@link Program} without reading anything.
+   *
+   * @return an array that is either empty or indexed by position;
+   * never {@code null}; must not be modified
+   */
+  final int[] getStartClosure() {
+    this.computeClosures();
+    return this.startClosure;
+  }
+
+  /**
+   * Returns the number of ways in which each position can be reached
+   * after the {@link Filter} at the supplied position reads an item,
+   * without reading another.
+   *
+   * @param pc the position of a {@link Filter}
+   *
+   * @return an array that is either empty or indexed by position;
+   * never {@code null}; must not be modified
+   */
+  final int[] getClosureAfter(final int pc) {
+    this.computeClosures();
+    final int[] closure = this.closures[pc];
+    assert closure != null;
+    return closure;
+  }
+
+  /**
+   * Returns {@code true} if some {@link Thread} could loop forever
+   * without reading anything.
+   *
+   * @return {@code true} if the {@link Program} has a loop that reads
+   * nothing and is not guarded by a {@link RequireProgress}
+   */
+  final boolean hasEpsilonCycle() {
+    this.computeClosures();
+    return this.epsilonCycle;
+  }
+
+  /**
+   * Returns {@code true} if some {@link Thread} could repeat a loop
+   * without reading anything, as the body of <code>(A*)*</code> can,
+   * or could loop forever without reading anything.
+   *
+   * @return {@code true} if the {@link Program} has a loop whose body
+   * may read nothing
+   */
+  final boolean hasEmptyLoop() {
+    this.computeClosures();
+    return this.emptyLoop || this.epsilonCycle;
+  }
+
+  /**
+   * Returns the largest number of {@link Thread}s that can be waiting
+   * to read the next item, or to finish, after a single {@link
+   * Thread} starts or reads an item.
+   *
+   * @return the largest fan-out; never negative, and no greater than
+   * {@link #MAX_PATHS}
+   */
+  final int getMaximumFanOut() {
+    this.computeClosures();
+    int max = sum(this.startClosure);
+    for (final int[] closure : this.closures) {
+      if (closure != null) {
+        max = Math.max(max, sum(closure));
+      }
+    }
+    return max;
+  }
+
+  /**
+   * Returns {@code true} if the {@link Match} at the end of the
+   * {@link Program} can be reached from its start without passing
+   * through any of the supplied positions.
+   *
+   * @param barriers the positions that may not be passed through,
+   * indexed by position; must not be {@code null}
+   *
+   * @return {@code true} if a {@link Match} can be reached; {@code
+   * false} otherwise
+   */
+  final boolean isMatchReachable(final boolean[] barriers) {
+    assert barriers != null;
+    final int size = this.instructions.length;
+    final boolean[] seen = new boolean[size];
+    final int[] stack = new int[2 * size + 1];
+    int top = 0;
+    stack[top++] = 0;
+    while (top > 0) {
+      final int pc = stack[--top];
+      if (pc < 0 || pc >= size || seen[pc] || barriers[pc]) {
+        continue;
+      }
+      seen[pc] = true;
+      if (this.instructions[pc] instanceof Match) {
+        return true;
+      }
+      for (final int successor : this.successors(pc)) {
+        stack[top++] = successor;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns {@code true} if two different {@link Thread}s can read
+   * the same items, one after another, for as long as the input
+   * lasts.
+   *
+   * <p>A backtracking matcher running such a {@link Program} against
+   * input it does not match tries the rest of the {@link Program}
+   * once for every way of dividing a run of items among those {@link
+   * Thread}s, and so may take time that grows faster than the input
+   * does.</p>
+   *
+   * <p>This method checks the pairs of positions at which two {@link
+   * Thread}s could be waiting to read the same item, and returns
+   * {@code true} if some pair of different {@link Thread}s can return
+   * to a pair of positions it has been at before.  A search that
+   * would take more than {@link #MAX_AMBIGUITY_STEPS} steps is
+   * abandoned, and the {@link Program} is then assumed to be
+   * ambiguous.  The result is remembered.</p>
+   *
+   * @return {@code true} if the {@link Program} is ambiguous; {@code
+   * false} otherwise
+   */
+  final boolean isAmbiguous() {
+    if (this.ambiguous == null) {
+      this.ambiguous = Boolean.valueOf(this.searchForAmbiguity());
+    }
+    return this.ambiguous.booleanValue();
+  }
+
+  /**
+   * Searches the pairs of positions at which two {@link Thread}s
+   * could be waiting to read the same item for a cycle through a
+   * pair of different {@link Thread}s, as described in the
+   * documentation for the {@link #isAmbiguous()} method.
+   *
+   * @return {@code true} if such a cycle was found, or if the search
+   * took too many steps; {@code false} otherwise
+   */
+  private final boolean searchForAmbiguity() {
+    final FilterGraph graph = this.getFilterGraph();
+    final int filterCount = graph.filterCount;
+    if (filterCount <= 0) {
+      return false;
+    }
+    final boolean[][] overlaps = graph.overlaps;
+    final int[][] next = graph.next;
+    final int[][] ways = graph.ways;
+    final long width = filterCount + 1L;
+    // Depth-first search over pairs of Threads (p, q, distinct)
+    // waiting to read the same item.  Once two Threads are distinct
+    // they stay so, so a cycle through a distinct pair is found as
+    // an edge back to a distinct pair still on the stack.  Only the
+    // pairs actually reached are stored.
+    final VisitOrder visits = new VisitOrder();
+    byte[] colors = new byte[64];
+    long[] stack = new long[64];
+    int[] edges = new int[64];
+    final long root = encode(filterCount, filterCount, false, filterCount);
+    colors[visits.visit(root)] = 1;
+    int top = 0;
+    stack[top] = root;
+    edges[top] = 0;
+    top++;
+    int steps = 0;
+    while (top > 0) {
+      final long state = stack[top - 1];
+      final int edge = edges[top - 1];
+      final boolean distinct = (state & 1L) != 0L;
+      final int p = (int)((state >>> 1) / width);
+      final int q = (int)((state >>> 1) % width);
+      final int nq = next[q].length;
+      final long edgeCount = 2L * next[p].length * nq;
+      if (edge >= edgeCount) {
+        colors[visits.get(state)] = 2;
+        top--;
+        continue;
+      }
+      if (++steps > MAX_AMBIGUITY_STEPS) {
+        return true;
+      }
+      edges[top - 1] = edge + 1;
+      final int i = edge / (nq * 2);
+      final int j = (edge / 2) % nq;
+      final boolean diverge = (edge & 1) != 0;
+      final int p2 = next[p][i];
+      final int q2 = next[q][j];
+      if (!overlaps[p2][q2]) {
+        continue;
+      }
+      final boolean distinct2;
+      if (distinct || p2 != q2) {
+        if (diverge) {
+          continue;
+        }
+        distinct2 = true;
+      } else if (diverge) {
+        // The same Thread, if it can reach the same Filter in more
+        // than one way, becomes two.
+        if (p != q || i != j || ways[p][i] < 2) {
+          continue;
+        }
+        distinct2 = true;
+      } else {
+        if (p != q || i != j) {
+          continue;
+        }
+        distinct2 = false;
+      }
+      final long successor = encode(p2, q2, distinct2, filterCount);
+      final int visit = visits.get(successor);
+      if (visit >= 0) {
+        if (colors[visit] == 1 && distinct2) {
+          return true;
+        }
+      } else {
+        final int newVisit = visits.visit(successor);
+        if (newVisit >= colors.length) {
+          colors = Arrays.copyOf(colors, 2 * colors.length);
+        }
+        colors[newVisit] = 1;
+        if (top >= stack.length) {
+          stack = Arrays.copyOf(stack, 2 * stack.length);
+          edges = Arrays.copyOf(edges, 2 * edges.length);
+        }
+        stack[top] = successor;
+        edges[top] = 0;
+        top++;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns how the time a backtracking matcher may take to match
+   * the {@link Program} can grow with the size of its input.
+   *
+   * <p>A {@link Program} that is not {@linkplain #isAmbiguous()
+   * ambiguous} is {@link Complexity#LINEAR}.  An ambiguous {@link
+   * Program} is {@link Complexity#EXPONENTIAL} if a single {@link
+   * Thread} can read the same run of items and come back to where
+   * it started in two different ways: by taking different paths, as
+   * with <code>(A|A)*</code>, or by becoming two {@link Thread}s that
+   * later meet again, as with <code>(A*)*</code>.  Each repetition of
+   * the run then doubles the number of ways of reading the input.
+   * Other ambiguous {@link Program}s, such as those for
+   * <code>A*A*</code>, are {@link Complexity#POLYNOMIAL}.</p>
+   *
+   * <p>{@link Program}s that could loop forever without reading
+   * anything, and those for which either search would take more than
+   * {@link #MAX_AMBIGUITY_STEPS} steps, are assumed to be {@link
+   * Complexity#EXPONENTIAL}.</p>
+   *
+   * @return the {@link Complexity}; never {@code null}
+   */
+  final Complexity getComplexity() {
+    if (!this.isAmbiguous()) {
+      return Complexity.LINEAR;
+    }
+    if (this.hasEpsilonCycle()) {
+      return Complexity.EXPONENTIAL;
+    }
+    final FilterGraph graph = this.getFilterGraph();
+    final int filterCount = graph.filterCount;
+    final boolean[][] overlaps = graph.overlaps;
+    final int[][] next = graph.next;
+    final int[][] ways = graph.ways;
+    // Find the strongly connected components of the graph of ordered
+    // pairs of Threads waiting to read the same item, using Tarjan's
+    // algorithm without recursion.  A pair (p, q) is the node p * (n
+    // + 1) + q, where n, the number of Filters, stands for the start.
+    // Only the nodes actually reached are stored, each under the
+    // order in which it was reached, which is also its Tarjan index.
+    final long width = filterCount + 1L;
+    final VisitOrder visits = new VisitOrder();
+    long[] nodes = new long[64];
+    int[] low = new int[64];
+    int[] component = new int[64];
+    int[] sccStack = new int[64];
+    int[] callStack = new int[64];
+    int[] edges = new int[64];
+    int sccTop = 0;
+    int callTop = 0;
+    int components = 0;
+    int steps = 0;
+    final long root = filterCount * width + filterCount;
+    final int rootIndex = visits.visit(root);
+    nodes[rootIndex] = root;
+    low[rootIndex] = rootIndex;
+    component[rootIndex] = -1;
+    sccStack[sccTop++] = rootIndex;
+    callStack[callTop] = rootIndex;
+    edges[callTop] = 0;
+    callTop++;
+    while (callTop > 0) {
+      final int index = callStack[callTop - 1];
+      final long node = nodes[index];
+      final int p = (int)(node / width);
+      final int q = (int)(node % width);
+      final int nq = next[q].length;
+      final int edge = edges[callTop - 1];
+      if (edge < (long)next[p].length * nq) {
+        if (++steps > MAX_AMBIGUITY_STEPS) {
+          return Complexity.EXPONENTIAL;
+        }
+        edges[callTop - 1] = edge + 1;
+        final int p2 = next[p][edge / nq];
+        final int q2 = next[q][edge % nq];
+        if (!overlaps[p2][q2]) {
+          continue;
+        }
+        final long successor = p2 * width + q2;
+        final int successorIndex = visits.get(successor);
+        if (successorIndex < 0) {
+          final int newIndex = visits.visit(successor);
+          if (newIndex >= nodes.length) {
+            final int length = 2 * nodes.length;
+            nodes = Arrays.copyOf(nodes, length);
+            low = Arrays.copyOf(low, length);
+            component = Arrays.copyOf(component, length);
+            sccStack = Arrays.copyOf(sccStack, length);
+            callStack = Arrays.copyOf(callStack, length);
+            edges = Arrays.copyOf(edges, length);
+          }
+          nodes[newIndex] = successor;
+          low[newIndex] = newIndex;
+          component[newIndex] = -1;
+          sccStack[sccTop++] = newIndex;
+          callStack[callTop] = newIndex;
+          edges[callTop] = 0;
+          callTop++;
+        } else if (component[successorIndex] < 0) {
+          low[index] = Math.min(low[index], successorIndex);
+        }
+        continue;
+      }
+      callTop--;
+      if (callTop > 0) {
+        final int parent = callStack[callTop - 1];
+        low[parent] = Math.min(low[parent], low[index]);
+      }
+      if (low[index] == index) {
+        int member;
+        do {
+          member = sccStack[--sccTop];
+          component[member] = components;
+        } while (member != index);
+        components++;
+      }
+    }
+    // A component holding a pair of the same Thread and a pair of
+    // different Threads lets one Thread split and meet itself again.
+    final int visited = visits.size();
+    final boolean[] hasSame = new boolean[components];
+    final boolean[] hasDifferent = new boolean[components];
+    for (int index = 0; index < visited; index++) {
+      final int c = component[index];
+      if (nodes[index] / width == nodes[index] % width) {
+        hasSame[c] = true;
+      } else {
+        hasDifferent[c] = true;
+      }
+    }
+    for (int c = 0; c < components; c++) {
+      if (hasSame[c] && hasDifferent[c]) {
+        return Complexity.EXPONENTIAL;
+      }
+    }
+    // So does one Thread reaching a Filter in its own component in
+    // more than one way.
+    for (int index = 0; index < visited; index++) {
+      final int p = (int)(nodes[index] / width);
+      if (p < filterCount && p == nodes[index] % width) {
+        final int c = component[index];
+        for (int i = 0; i < next[p].length; i++) {
+          final int p2 = next[p][i];
+          if (ways[p][i] >= 2) {
+            final int index2 = visits.get(p2 * width + p2);
+            if (index2 >= 0 && component[index2] == c) {
+              return Complexity.EXPONENTIAL;
+            }
+          }
+        }
+      }
+    }
+    return Complexity.POLYNOMIAL;
+  }
+
+  /**
+   * Returns {@code false} if no {@link Thread} can match input of
+   * the supplied size whose atoms have the supplied results.
+   *
+   * <p>This method follows every {@link Thread} at once, item by
+   * item, keeping only the set of {@link Filter}s waiting for the
+   * next item, and so takes time proportional to the size of the
+   * input times the size of the {@link Program}.  Atoms that
+   * {@code results} says reject an item reject it; every other
+   * {@link Filter} is assumed to accept every item, so a return
+   * value of {@code true} means only that a match is possible.</p>
+   *
+   * @param size the size of the input; must not be negative
+   *
+   * @param results the results of the {@link Program}'s atoms
+   * against the input; may be {@code null} in which case every
+   * {@link Filter} is assumed to accept every item
+   *
+   * @param budget the {@link MatchBudget} whose timeout and interrupt
+   * status are checked before each item; may be {@code null}
+   *
+   * @return {@code false} if no match is possible; {@code true}
+   * otherwise
+   *
+   * @exception MatchLimitExceededException if {@code budget} is
+   * non-{@code null} and was exhausted before the check finished
+   *
+   * @see AtomResults
+   */
+  final boolean mayMatch(final int size, final AtomResults results, final MatchBudget budget) {
+    assert size >= 0;
+    this.computeClosures();
+    final int length = this.instructions.length;
+    boolean[] waiting = new boolean[length];
+    if (this.spread(this.startClosure, waiting, size == 0, new boolean[length])) {
+      return true;
+    }
+    for (int itemPointer = 0; itemPointer < size; itemPointer++) {
+      if (budget != null) {
+        budget.check();
+      }
+      final boolean atEnd = itemPointer + 1 == size;
+      final boolean[] nextWaiting = new boolean[length];
+      final boolean[] endsSeen = new boolean[length];
+      boolean alive = false;
+      for (int pc = 0; pc < length; pc++) {
+        if (waiting[pc] && (results == null || results.recall(pc, itemPointer) != FilterMemo.REJECTED)) {
+          alive = true;
+          if (this.spread(this.closures[pc], nextWaiting, atEnd, endsSeen)) {
+            return true;
+          }
+        }
+      }
+      if (!alive) {
+        return false;
+      }
+      waiting = nextWaiting;
+    }
+    return false;
+  }
+
+  /**
+   * Marks the {@link Filter}s in the supplied closure as waiting for
+   * the next item, and returns {@code true} if the closure reaches a
+   * {@link Match}.
+   *
+   * @param closure the closure; must not be {@code null}
+   *
+   * @param waiting the {@link Filter}s waiting for the next item,
+   * indexed by position; must not be {@code null}; updated by this
+   * method
+   *
+   * @param atEnd whether all of the input has been read
+   *
+   * @param endsSeen the {@link EndInput}s already passed at this
+   * point in the input, indexed by position; must not be {@code
+   * null}; updated by this method
+   *
+   * @return {@code true} if a {@link Match} can be reached
+   */
+  private final boolean spread(final int[] closure, final boolean[] waiting, final boolean atEnd, final boolean[] endsSeen) {
+    for (int pc = 0; pc < closure.length; pc++) {
+      if (closure[pc] <= 0) {
+        continue;
+      }
+      final Instruction<?> instruction = this.instructions[pc];
+      if (instruction instanceof Match) {
+        return true;
+      } else if (instruction instanceof EndInput) {
+        if (atEnd && !endsSeen[pc]) {
+          endsSeen[pc] = true;
+          if (this.spread(this.endClosures[pc], waiting, atEnd, endsSeen)) {
+            return true;
+          }
+        }
+      } else {
+        waiting[pc] = true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the {@link FilterGraph} of the {@link Program}, building
+   * it the first time it is needed.
+   *
+   * @return the {@link FilterGraph}; never {@code null}
+   */
+  private final FilterGraph getFilterGraph() {
+    if (this.filterGraph == null) {
+      final int size = this.instructions.length;
+      final int[] filterIndices = new int[size];
+      Arrays.fill(filterIndices, -1);
+      final List<Integer> filterPositions = new ArrayList<Integer>();
+      for (int pc = 0; pc < size; pc++) {
+        if (isConsuming(this.instructions[pc])) {
+          filterIndices[pc] = filterPositions.size();
+          filterPositions.add(Integer.valueOf(pc));
+        }
+      }
+      final int filterCount = filterPositions.size();
+      final boolean[][] overlaps = new boolean[filterCount][filterCount];
+      for (int p = 0; p < filterCount; p++) {
+        for (int q = p; q < filterCount; q++) {
+          final boolean overlap = mayAcceptSameItem(this.instructions[filterPositions.get(p).intValue()], this.instructions[filterPositions.get(q).intValue()]);
+          overlaps[p][q] = overlap;
+          overlaps[q][p] = overlap;
+        }
+      }
+      // For each filter, and for the start, the filters that can be
+      // reached next and in how many ways.
+      final int[][] next = new int[filterCount + 1][];
+      final int[][] ways = new int[filterCount + 1][];
+      for (int p = 0; p <= filterCount; p++) {
+        final int[] closure = p == filterCount ? this.startClosure : this.getClosureAfter(filterPositions.get(p).intValue());
+        int n = 0;
+        for (int pc = 0; pc < closure.length; pc++) {
+          if (closure[pc] > 0 && filterIndices[pc] >= 0) {
+            n++;
+          }
+        }
+        next[p] = new int[n];
+        ways[p] = new int[n];
+        n = 0;
+        for (int pc = 0; pc < closure.length; pc++) {
+          if (closure[pc] > 0 && filterIndices[pc] >= 0) {
+            next[p][n] = filterIndices[pc];
+            ways[p][n] = closure[pc];
+            n++;
+          }
+        }
+      }
+      this.filterGraph = new FilterGraph(filterCount, overlaps, next, ways);
+    }
+    return this.filterGraph;
+  }
+
+  /**
+   * Returns the positions that may follow the supplied position,
+   * regardless of whether they can be reached without reading.
+   *
+   * @param pc the position; must be valid
+   *
+   * @return a non-{@code null} array of positions, some of which may
+   * be invalid
+   */
+  private final int[] successors(final int pc) {
+    final Instruction<?> instruction = this.instructions[pc];
+    if (instruction instanceof Match) {
+      return NONE;
+    } else if (instruction instanceof Split) {
+      final Split<?> split = (Split<?>)instruction;
+      return new int[] { split.relative ? pc + split.programLocation : split.programLocation,
+                         split.relative ? pc + split.newThreadProgramLocation : split.newThreadProgramLocation };
+    } else if (instruction instanceof Jump) {
+      final Jump<?> jump = (Jump<?>)instruction;
+      return new int[] { jump.relative ? pc + jump.programLocation : jump.programLocation };
+    } else if (instruction instanceof CountedSplit) {
+      return new int[] { pc + 1, pc + ((CountedSplit<?>)instruction).exitLocation };
+    } else {
+      return new int[] { pc + 1 };
+    }
+  }
+
+  /**
+   * Returns the number of ways in which each position can be reached
+   * from the supplied one without reading anything.
+   *
+   * @param pc the position to start from
+   *
+   * @param marks the registers {@linkplain MarkPosition marked}
+   * since the last item was read, as a bit set
+   *
+   * @param atStart whether nothing has been read yet
+   *
+   * @param memo closures already computed; must not be {@code null}
+   *
+   * @param onPath the states being computed; must not be {@code
+   * null}
+   *
+   * @return an array that is either empty or indexed by position;
+   * never {@code null}
+   */
+  private final int[] closure(final int pc, final long marks, final boolean atStart, final Map<State, int[]> memo, final Set<State> onPath) {
+    if (pc < 0 || pc >= this.instructions.length) {
+      return NONE;
+    }
+    final Instruction<?> instruction = this.instructions[pc];
+    if (isConsuming(instruction) || instruction instanceof EndInput || instruction instanceof Match) {
+      final int[] leaf = new int[this.instructions.length];
+      leaf[pc] = 1;
+      return leaf;
+    }
+    if (instruction instanceof BeginInput && !atStart) {
+      return NONE;
+    }
+    long newMarks = marks;
+    if (instruction instanceof MarkPosition) {
+      final int register = ((MarkPosition<?>)instruction).register;
+      if (register >= 0 && register < 64) {
+        newMarks |= 1L << register;
+      }
+    } else if (instruction instanceof RequireProgress) {
+      final int register = ((RequireProgress<?>)instruction).register;
+      if (register >= 0 && register < 64 && (marks & (1L << register)) != 0L) {
+        this.emptyLoop = true;
+        return NONE;
+      }
+    }
+    final State state = new State(pc, newMarks);
+    final int[] cached = memo.get(state);
+    if (cached != null) {
+      return cached;
+    }
+    if (!onPath.add(state)) {
+      this.epsilonCycle = true;
+      return NONE;
+    }
+    int[] result = NONE;
+    for (final int successor : this.successors(pc)) {
+      result = add(result, this.closure(successor, newMarks, atStart, memo, onPath));
+    }
+    onPath.remove(state);
+    memo.put(state, result);
+    return result;
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns {@code true} if the supplied {@link Instruction} reads
+   * items.
+   *
+   * @param instruction the {@link Instruction} in question; may be
+   * {@code null}
+   *
+   * @return {@code true} if {@code instruction} is a {@link Filter};
+   * {@code false} otherwise
+   */
+  static final boolean isConsuming(final Instruction<?> instruction) {
+    return instruction instanceof Filter;
+  }
+
+  /**
+   * Returns {@code true} if the supplied {@link Instruction} accepts
+   * every item that is not {@code null}.
+   *
+   * @param instruction the {@link Instruction} in question; may be
+   * {@code null}
+   *
+   * @return {@code true} if {@code instruction} is a plain {@link
+   * Filter}, or an {@link InstanceOfMVELFilter} for {@link Object}
+   * with no MVEL expression; {@code false} otherwise
+   */
+  static final boolean isWildcard(final Instruction<?> instruction) {
+    if (instruction == null) {
+      return false;
+    }
+    final Class<?> c = instruction.getClass();
+    if (c.equals(Filter.class)) {
+      return true;
+    } else if (c.equals(InstanceOfMVELFilter.class)) {
+      final InstanceOfMVELFilter<?> filter = (InstanceOfMVELFilter<?>)instruction;
+      if (filter.hasMVELExpression() || filter.isExact()) {
+        return false;
+      }
+      try {
+        return Object.class.equals(filter.getTargetClass());
+      } catch (final RuntimeException unresolvable) {
+        return false;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns {@code true} unless the supplied {@link Instruction}s are
+   * known never to accept the same item.
+   *
+   * <p>Only {@link InstanceOfMVELFilter}s for unrelated classes are
+   * known to do so; their MVEL expressions, if any, are
+   * ignored.</p>
+   *
+   * @param a an {@link Instruction}; may be {@code null}
+   *
+   * @param b another {@link Instruction}; may be {@code null}
+   *
+   * @return {@code true} if {@code a} and {@code b} may accept the
+   * same item; {@code false} otherwise
+   */
+  static final boolean mayAcceptSameItem(final Instruction<?> a, final Instruction<?> b) {
+    if (!(a instanceof InstanceOfMVELFilter) || !(b instanceof InstanceOfMVELFilter)) {
+      return true;
+    }
+    final InstanceOfMVELFilter<?> fa = (InstanceOfMVELFilter<?>)a;
+    final InstanceOfMVELFilter<?> fb = (InstanceOfMVELFilter<?>)b;
+    final Class<?> ca;
+    final Class<?> cb;
+    try {
+      ca = fa.getTargetClass();
+      cb = fb.getTargetClass();
+    } catch (final RuntimeException unresolvable) {
+      return true;
+    }
+    if (fa.isExact() && fb.isExact()) {
+      return ca.equals(cb);
+    } else if (fa.isExact()) {
+      return cb.isAssignableFrom(ca);
+    } else if (fb.isExact()) {
+      return ca.isAssignableFrom(cb);
+    } else if (ca.isAssignableFrom(cb) || cb.isAssignableFrom(ca)) {
+      return true;
+    } else if (ca.isInterface()) {
+      return cb.isInterface() || !java.lang.reflect.Modifier.isFinal(cb.getModifiers());
+    } else if (cb.isInterface()) {
+      return !java.lang.reflect.Modifier.isFinal(ca.getModifiers());
+    }
+    return false;
+  }
+
+  /**
+   * Returns the sum of the supplied path counts.
+   *
+   * @param counts the path counts; must not be {@code null}
+   *
+   * @return the sum, no greater than {@link #MAX_PATHS}
+   */
+  private static final int sum(final int[] counts) {
+    long sum = 0L;
+    for (final int count : counts) {
+      sum += count;
+    }
+    return (int)Math.min(sum, (long)MAX_PATHS);
+  }
+
+  /**
+   * Returns the element-wise sum of the supplied closures.
+   *
+   * @param a a closure; must not be {@code null}
+   *
+   * @param b another closure; must not be {@code null}
+   *
+   * @return the sum, which may be one of the supplied closures;
+   * never {@code null}
+   */
+  private static final int[] add(final int[] a, final int[] b) {
+    if (a.length == 0) {
+      return b;
+    } else if (b.length == 0) {
+      return a;
+    }
+    final int[] sum = new int[a.length];
+    for (int i = 0; i < sum.length; i++) {
+      sum[i] = (int)Math.min((long)a[i] + (long)b[i], (long)MAX_PATHS);
+    }
+    return sum;
+  }
+
+  /**
+   * Encodes a pair of {@link Thread}s as a state of the search done
+   * by {@link #isAmbiguous()}.
+   *
+   * @param p the index of the first {@link Thread}'s {@link Filter},
+   * or {@code filterCount} for the start
+   *
+   * @param q the index of the second {@link Thread}'s {@link Filter},
+   * or {@code filterCount} for the start
+   *
+   * @param distinct whether the {@link Thread}s are distinct
+   *
+   * @param filterCount the number of {@link Filter}s
+   *
+   * @return the state
+   */
+  private static final long encode(final int p, final int q, final boolean distinct, final int filterCount) {
+    final long low = Math.min(p, q);
+    final long high = Math.max(p, q);
+    return ((low * (filterCount + 1L) + high) << 1) | (distinct ? 1L : 0L);
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * The {@link Filter}s of a {@link Program}, numbered in the order
+   * in which they appear, and the {@link Filter}s each can be
+   * followed by.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  private static final class FilterGraph {
+
+    /**
+     * The number of {@link Filter}s.
+     */
+    private final int filterCount;
+
+    /**
+     * Whether each pair of {@link Filter}s may accept the same item.
+     * This field is never {@code null}.
+     */
+    private final boolean[][] overlaps;
+
+    /**
+     * The {@link Filter}s that can be reached next from each {@link
+     * Filter}, and from the start at index {@link #filterCount}.
+     * This field is never {@code null}.
+     */
+    private final int[][] next;
+
+    /**
+     * The number of ways in which each of the {@link Filter}s in
+     * {@link #next} can be reached.  This field is never {@code
+     * null}.
+     */
+    private final int[][] ways;
+
+    /**
+     * Creates a new {@link FilterGraph}.
+     *
+     * @param filterCount the number of {@link Filter}s
+     *
+     * @param overlaps whether each pair of {@link Filter}s may accept
+     * the same item; must not be {@code null}
+     *
+     * @param next the {@link Filter}s that can be reached next from
+     * each {@link Filter} and from the start; must not be {@code null}
+     *
+     * @param ways the number of ways in which each of those can be
+     * reached; must not be {@code null}
+     */
+    private FilterGraph(final int filterCount, final boolean[][] overlaps, final int[][] next, final int[][] ways) {
+      super();
+      this.filterCount = filterCount;
+      this.overlaps = overlaps;
+      this.next = next;
+      this.ways = ways;
+    }
+
+  }
+
+  /**
+   * The order in which the states of a search were first visited,
+   * by state.  Only the states actually visited take up room.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  private static final class VisitOrder {
+
+    /**
+     * The visited states, in a table of open addresses, or {@link
+     * #EMPTY} in slots that are unused.  This field is never {@code
+     * null} and its length is always a power of two.
+     */
+    private long[] keys;
+
+    /**
+     * The order in which the state in the corresponding slot of
+     * {@link #keys} was first visited.  This field is never {@code
+     * null}.
+     */
+    private int[] values;
+
+    /**
+     * The number of states visited.
+     */
+    private int size;
+
+    /**
+     * The key marking an unused slot.  States are never negative.
+     */
+    private static final long EMPTY = -1L;
+
+    /**
+     * Creates a new, empty {@link VisitOrder}.
+     */
+    private VisitOrder() {
+      super();
+      this.keys = new long[64];
+      Arrays.fill(this.keys, EMPTY);
+      this.values = new int[64];
+    }
+
+    /**
+     * Returns the number of states visited.
+     *
+     * @return the number of states visited; never negative
+     */
+    private final int size() {
+      return this.size;
+    }
+
+    /**
+     * Returns the order in which the supplied state was first
+     * visited, or {@code -1} if it has not been visited.
+     *
+     * @param state the state; must not be negative
+     *
+     * @return the zero-based visit order, or {@code -1}
+     */
+    private final int get(final long state) {
+      assert state >= 0L;
+      final int mask = this.keys.length - 1;
+      for (int slot = hash(state) & mask; ; slot = (slot + 1) & mask) {
+        final long key = this.keys[slot];
+        if (key == state) {
+          return this.values[slot];
+        } else if (key == EMPTY) {
+          return -1;
+        }
+      }
+    }
+
+    /**
+     * Records that the supplied state, which has not been visited
+     * before, has been visited, and returns the order in which it
+     * was.
+     *
+     * @param state the state; must not be negative and must not have
+     * been visited
+     *
+     * @return the zero-based visit order, which is the number of
+     * states visited before it
+     */
+    private final int visit(final long state) {
+      assert state >= 0L;
+      assert this.get(state) < 0;
+      if (2 * (this.size + 1) > this.keys.length) {
+        final long[] oldKeys = this.keys;
+        final int[] oldValues = this.values;
+        this.keys = new long[2 * oldKeys.length];
+        Arrays.fill(this.keys, EMPTY);
+        this.values = new int[this.keys.length];
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+          if (oldKeys[slot] != EMPTY) {
+            this.put(oldKeys[slot], oldValues[slot]);
+          }
+        }
+      }
+      final int order = this.size++;
+      this.put(state, order);
+      return order;
+    }
+
+    /**
+     * Stores the supplied visit order under the supplied state in
+     * the first free slot, without growing the table.
+     *
+     * @param state the state; must not be negative
+     *
+     * @param order the visit order
+     */
+    private final void put(final long state, final int order) {
+      final int mask = this.keys.length - 1;
+      int slot = hash(state) & mask;
+      while (this.keys[slot] != EMPTY) {
+        slot = (slot + 1) & mask;
+      }
+      this.keys[slot] = state;
+      this.values[slot] = order;
+    }
+
+    /**
+     * Returns a well-mixed hash of the supplied state.
+     *
+     * @param state the state
+     *
+     * @return a hash
+     */
+    private static final int hash(final long state) {
+      final long h = state * 0x9E3779B97F4A7C15L;
+      return (int)(h ^ (h >>> 32));
+    }
+
+  }
+
+  /**
+   * A position together with the registers marked since the last
+   * item was read.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  private static final class State {
+
+    /**
+     * The position.
+     */
+    private final int pc;
+
+    /**
+     * The marked registers, as a bit set.
+     */
+    private final long marks;
+
+    /**
+     * Creates a new {@link State}.
+     *
+     * @param pc the position
+     *
+     * @param marks the marked registers, as a bit set
+     */
+    private State(final int pc, final long marks) {
+      super();
+      this.pc = pc;
+      this.marks = marks;
+    }
+
+    /**
+     * Returns a hashcode for this {@link State}.
+     *
+     * @return a hashcode
+     */
+    @Override
+    public final int hashCode() {
+      return 31 * this.pc + (int)(this.marks ^ (this.marks >>> 32));
+    }
+
+    /**
+     * Returns {@code true} if the supplied {@link Object} is a {@link
+     * State} equal to this one.
+     *
+     * @param other the {@link Object} to compare; may be {@code null}
+     *
+     * @return {@code true} if {@code other} is equal to this {@link
+     * State}; {@code false} otherwise
+     */
+    @Override
+    public final boolean equals(final Object other) {
+      if (other == this) {
+        return true;
+      } else if (other instanceof State) {
+        final State him = (State)other;
+        return this.pc == him.pc && this.marks == him.marks;
+      }
+      return false;
+    }
+
+  }
+
+}
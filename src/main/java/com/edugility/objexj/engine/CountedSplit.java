@@ -0,0 +1,328 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.io.Serializable; // for javadoc only
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An {@link Instruction} that controls a counted repetition loop by
+ * consulting a counter register.
+ *
+ * <p>A counted repetition such as <code>p{2,5}</code> compiles to the
+ * following program fragment, whose size does not depend on the
+ * repetition bounds:</p>
+ *
+ * <pre>
+ * 10: resetCounter 0
+ * 11: countedSplit 0, 2, 5, +(p.size() + 3)
+ * 12: (p)
+ * 13: incrementCounter 0
+ * 14: jump -(p.size() + 2)
+ * 15: ...</pre>
+ *
+ * <p>When {@linkplain #execute(InstructionContext) executed}, a
+ * {@link CountedSplit} instruction reads its {@linkplain #register
+ * register}.  If fewer than {@linkplain #minimum the minimum number}
+ * of repetitions have been made, execution simply continues into the
+ * loop body.  If {@linkplain #maximum the maximum number} of
+ * repetitions have been made, execution {@linkplain
+ * InstructionContext#jump(int, boolean) jumps} to the loop exit.
+ * Otherwise a new {@link Thread} is {@linkplain
+ * InstructionContext#scheduleNewThread(int, boolean) scheduled} at
+ * the loop exit, and execution continues into the loop body, exactly
+ * as with a greedy {@link Split}.</p>
+ *
+ * @param <T> the type of {@link Object}s that {@link
+ * InstructionContext}s supplied to the {@link
+ * #execute(InstructionContext)} method work with
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see ResetCounter
+ *
+ * @see IncrementCounter
+ */
+public class CountedSplit<T> extends Instruction<T> {
+
+  /**
+   * The version of this class for {@linkplain Serializable
+   * serialization purposes}.
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The value of the {@link #maximum} field indicating that there is
+   * no upper bound on the number of repetitions.
+   */
+  public static final int UNBOUNDED = -1;
+
+  /**
+   * A {@link Pattern} for parsing a single operand {@link String}
+   * into arguments for new {@link CountedSplit} instances.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private static final Pattern OPERAND_PATTERN = Pattern.compile("^\\s*(\\d+)\\s*,\\s*(\\d+)\\s*,\\s*(-?\\d+)\\s*,\\s*\\+?(-?\\d+)\\s*$");
+
+  /**
+   * The zero-based number of the counter register this {@link
+   * CountedSplit} consults.
+   */
+  public final int register;
+
+  /**
+   * The minimum number of repetitions; always zero or a positive
+   * integer.
+   */
+  public final int minimum;
+
+  /**
+   * The maximum number of repetitions, or {@link #UNBOUNDED}.
+   */
+  public final int maximum;
+
+  /**
+   * The location of the loop exit, relative to this {@link
+   * CountedSplit}'s location.
+   */
+  public final int exitLocation;
+
+  /**
+   * Creates a new {@link CountedSplit} instruction.
+   *
+   * @param operands a {@link String} of the form <code><em>register</em>,
+   * <em>minimum</em>, <em>maximum</em>, +<em>exitLocation</em></code>;
+   * must not be {@code null}
+   *
+   * @exception IllegalArgumentException if {@code operands} is {@code
+   * null} or could not be parsed, or if the values it contains are
+   * invalid as described in the {@link #CountedSplit(int, int, int,
+   * int)} constructor
+   */
+  public CountedSplit(final String operands) {
+    this(operands, 0, operands == null ? 0 : operands.length());
+  }
+
+  /**
+   * Creates a new {@link CountedSplit} instruction from the operands
+   * found between {@code start} (inclusive) and {@code end}
+   * (exclusive) in the supplied {@link CharSequence}, without copying
+   * them into a {@link String}.
+   *
+   * @param operands a {@link CharSequence} holding operands of the
+   * form described in the documentation for the {@link
+   * #CountedSplit(String)} constructor; must not be {@code null}
+   *
+   * @param start the inclusive index of the operands
+   *
+   * @param end the exclusive index of the operands
+   *
+   * @exception IllegalArgumentException if {@code operands} is {@code
+   * null} or could not be parsed, or if the values it contains are
+   * invalid as described in the {@link #CountedSplit(int, int, int,
+   * int)} constructor
+   *
+   * @see #CountedSplit(String)
+   */
+  CountedSplit(final CharSequence operands, final int start, final int end) {
+    super();
+    if (operands == null) {
+      throw new IllegalArgumentException("operands", new NullPointerException("operands"));
+    }
+    final Matcher m = OPERAND_PATTERN.matcher(operands).region(start, end);
+    if (!m.matches()) {
+      throw new IllegalArgumentException("Bad operands: " + operands.subSequence(start, end));
+    }
+    this.register = parseInt(operands, m.start(1), m.end(1));
+    this.minimum = parseInt(operands, m.start(2), m.end(2));
+    this.maximum = parseInt(operands, m.start(3), m.end(3));
+    this.exitLocation = parseInt(operands, m.start(4), m.end(4));
+    validate(this.minimum, this.maximum, this.exitLocation);
+  }
+
+  /**
+   * Creates a new {@link CountedSplit} instruction.
+   *
+   * @param register the zero-based number of the counter register to
+   * consult; must not be negative
+   *
+   * @param minimum the minimum number of repetitions; must not be
+   * negative
+   *
+   * @param maximum the maximum number of repetitions; must be either
+   * {@link #UNBOUNDED} or greater than or equal to {@code minimum}
+   *
+   * @param exitLocation the location of the loop exit, relative to
+   * this {@link CountedSplit}'s location; must not be {@code 0}
+   *
+   * @exception IllegalArgumentException if any of the preconditions
+   * outlined as part of the parameter descriptions is not fulfilled
+   */
+  public CountedSplit(final int register, final int minimum, final int maximum, final int exitLocation) {
+    super();
+    if (register < 0) {
+      throw new IllegalArgumentException("register < 0: " + register);
+    }
+    validate(minimum, maximum, exitLocation);
+    this.register = register;
+    this.minimum = minimum;
+    this.maximum = maximum;
+    this.exitLocation = exitLocation;
+  }
+
+  /**
+   * Either continues into the loop body, {@linkplain
+   * InstructionContext#jump(int, boolean) jumps} to the loop exit, or
+   * does both by {@linkplain InstructionContext#scheduleNewThread(int,
+   * boolean) scheduling a new <code>Thread</code>}, depending on the
+   * value of this {@link CountedSplit}'s {@linkplain #register
+   * register}.
+   *
+   * <p>When there is no {@linkplain #maximum maximum}, a register
+   * that has reached the {@linkplain #minimum minimum} is pinned
+   * there, since further repetitions cannot change the outcome.
+   * This keeps otherwise identical {@link Thread}s {@linkplain
+   * Thread#equals(Object) equal}.</p>
+   *
+   * @param context an {@link InstructionContext}; must not be {@code
+   * null}
+   *
+   * @exception IllegalArgumentException if {@code context} is {@code
+   * null}
+   */
+  @Override
+  public final void execute(final InstructionContext<? extends T> context) {
+    if (context == null) {
+      throw new IllegalArgumentException("context");
+    }
+    final int count = context.getCounter(this.register);
+    if (count < this.minimum) {
+      context.advanceProgramCounter();
+    } else if (this.maximum != UNBOUNDED && count >= this.maximum) {
+      context.jump(this.exitLocation, true);
+    } else {
+      if (this.maximum == UNBOUNDED && count > this.minimum) {
+        context.setCounter(this.register, this.minimum);
+      }
+      context.scheduleNewThread(this.exitLocation, true);
+      context.advanceProgramCounter();
+    }
+  }
+
+  /**
+   * Returns a hashcode for this {@link CountedSplit} instruction.
+   *
+   * @return a hashcode for this {@link CountedSplit} instruction
+   */
+  @Override
+  public int hashCode() {
+    int result = super.hashCode();
+    result = 37 * result + this.register;
+    result = 37 * result + this.minimum;
+    result = 37 * result + this.maximum;
+    result = 37 * result + this.exitLocation;
+    return result;
+  }
+
+  /**
+   * Returns {@code true} if the supplied {@link Object} is equal to
+   * this {@link CountedSplit} instruction.
+   *
+   * @param other the {@link Object} to test; may be {@code null} in
+   * which case {@code false} will be returned
+   *
+   * @return {@code true} if the supplied {@link Object} is equal to
+   * this {@link CountedSplit} instruction; {@code false} otherwise
+   */
+  @Override
+  public boolean equals(final Object other) {
+    if (other == this) {
+      return true;
+    } else if (super.equals(other)) {
+      final CountedSplit<?> him = (CountedSplit<?>)other;
+      return
+        this.register == him.register &&
+        this.minimum == him.minimum &&
+        this.maximum == him.maximum &&
+        this.exitLocation == him.exitLocation;
+    } else {
+      return false;
+    }
+  }
+
+  /**
+   * Returns a non-{@code null} {@link String} representation of this
+   * {@link CountedSplit} instruction.
+   *
+   * @return a non-{@code null} {@link String} representation of this
+   * {@link CountedSplit} instruction
+   */
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder(super.toString()).append(" ");
+    sb.append(this.register).append(", ");
+    sb.append(this.minimum).append(", ");
+    sb.append(this.maximum).append(", ");
+    if (this.exitLocation >= 0) {
+      sb.append("+");
+    }
+    sb.append(this.exitLocation);
+    return sb.toString();
+  }
+
+  /**
+   * Validates repetition bounds and an exit location.
+   *
+   * @param minimum the minimum number of repetitions
+   *
+   * @param maximum the maximum number of repetitions
+   *
+   * @param exitLocation the relative exit location
+   *
+   * @exception IllegalArgumentException if {@code minimum} is
+   * negative, if {@code maximum} is neither {@link #UNBOUNDED} nor
+   * greater than or equal to {@code minimum}, or if {@code
+   * exitLocation} is {@code 0}
+   */
+  private static final void validate(final int minimum, final int maximum, final int exitLocation) {
+    if (minimum < 0) {
+      throw new IllegalArgumentException("minimum < 0: " + minimum);
+    }
+    if (maximum != UNBOUNDED && maximum < minimum) {
+      throw new IllegalArgumentException("maximum < minimum: " + maximum + " < " + minimum);
+    }
+    if (exitLocation == 0) {
+      throw new IllegalArgumentException("exitLocation == 0");
+    }
+  }
+
+}
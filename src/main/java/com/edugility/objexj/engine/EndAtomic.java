@@ -0,0 +1,85 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.io.Serializable; // for javadoc only
+
+
+/**
+ * An {@link Instruction} that marks the end of an atomic group begun
+ * by a {@link BeginAtomic} instruction.  The first thread of
+ * execution to reach it commits to the way it matched the group;
+ * all other threads of execution that were forked inside the group
+ * are discarded.
+ *
+ * @param <T> the type of {@link Object} that {@link
+ * InstructionContext} instances passed to the {@link
+ * #execute(InstructionContext)} method can work with
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see BeginAtomic
+ */
+public class EndAtomic<T> extends Instruction<T> {
+
+  /**
+   * The version of this class for {@linkplain Serializable
+   * serialization purposes}.
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Creates a new {@link EndAtomic} instruction.
+   */
+  public EndAtomic() {
+    super();
+  }
+
+  /**
+   * {@linkplain InstructionContext#endAtomic() Commits to the
+   * innermost atomic group} and {@linkplain
+   * InstructionContext#advanceProgramCounter() advances the program
+   * counter}.
+   *
+   * @param context the {@link InstructionContext} to operate on; must
+   * not be {@code null}
+   *
+   * @exception IllegalArgumentException if {@code context} is {@code
+   * null}
+   */
+  @Override
+  public final void execute(final InstructionContext<? extends T> context) {
+    if (context == null) {
+      throw new IllegalArgumentException("context");
+    }
+    context.endAtomic();
+    context.advanceProgramCounter();
+  }
+
+}
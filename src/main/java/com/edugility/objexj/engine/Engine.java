@@ -31,18 +31,20 @@ import java.io.IOException;
 import java.io.PushbackReader;
 import java.io.StringReader;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.RandomAccess;
 import java.util.Set;
 
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.Executor;
 
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.edugility.objexj.parser.Parser;
 
@@ -68,16 +70,99 @@ import com.edugility.objexj.parser.Parser;
 public class Engine<T> {
 
 
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * A value for an item limit indicating that a {@link Thread} may
+   * read all of its input.
+   *
+   * @see Thread#setItemLimit(int)
+   */
+  private static final int NO_ITEM_LIMIT = -1;
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The {@link MatchListener} notified of what every {@link Thread}
+   * this {@link Engine} runs does.  This field may be {@code null}.
+   *
+   * @see #Engine(MatchListener)
+   */
+  private final MatchListener<? super T> listener;
+
+  /**
+   * The {@link Executor} large input is {@linkplain
+   * Alphabet#evaluate(List, Executor, MatchStats, MatchBudget)
+   * evaluated} with in
+   * parallel when a run is asked to {@linkplain
+   * MatchOptions#withCompressedAlphabet(boolean) compress its
+   * alphabet} or to {@linkplain MatchOptions#withAtomBitmaps(boolean)
+   * build atom bitmaps}.  This field may be {@code null}.
+   *
+   * @see #Engine(MatchListener, Executor)
+   */
+  private final Executor executor;
+
+
   /*
    * Constructors.
    */
 
 
   /**
-   * Creates a new {@link Engine}.
+   * Creates a new {@link Engine} that notifies no {@link
+   * MatchListener}.
    */
   public Engine() {
+    this(null);
+  }
+
+  /**
+   * Creates a new {@link Engine} that notifies the supplied {@link
+   * MatchListener} of what every {@link Thread} it runs does.
+   *
+   * @param listener the {@link MatchListener} to notify; may be
+   * {@code null} in which case no {@link MatchListener} is notified
+   * and nothing is paid for notifications
+   */
+  public Engine(final MatchListener<? super T> listener) {
+    this(listener, null);
+  }
+
+  /**
+   * Creates a new {@link Engine} that notifies the supplied {@link
+   * MatchListener} of what every {@link Thread} it runs does, and
+   * that evaluates the atoms of large input in parallel using the
+   * supplied {@link Executor} when a run is asked to {@linkplain
+   * MatchOptions#withCompressedAlphabet(boolean) compress its
+   * alphabet} or to {@linkplain MatchOptions#withAtomBitmaps(boolean)
+   * build atom bitmaps}.
+   *
+   * <p>The {@link Executor} is used only to evaluate atoms, which it
+   * does concurrently; the {@link Thread}s of a run are always run
+   * by the calling {@link java.lang.Thread}.</p>
+   *
+   * @param listener the {@link MatchListener} to notify; may be
+   * {@code null} in which case no {@link MatchListener} is notified
+   * and nothing is paid for notifications
+   *
+   * @param executor the {@link Executor} to classify input with; may
+   * be {@code null} in which case input is classified by the calling
+   * {@link java.lang.Thread}
+   *
+   * @see MatchOptions#withCompressedAlphabet(boolean)
+   */
+  public Engine(final MatchListener<? super T> listener, final Executor executor) {
     super();
+    this.listener = listener;
+    this.executor = executor;
   }
 
 
@@ -86,6 +171,18 @@ public class Engine<T> {
    */
 
 
+  /**
+   * Returns the {@link Executor} this {@link Engine} evaluates the
+   * atoms of large input with, or {@code null} if it has none.
+   *
+   * @return an {@link Executor}, or {@code null}
+   *
+   * @see #Engine(MatchListener, Executor)
+   */
+  public final Executor getExecutor() {
+    return this.executor;
+  }
+
   /**
    * Runs the supplied {@link Program} against the supplied {@link
    * List} and returns a (possibly {@code null}) {@link MatchResult}
@@ -103,21 +200,284 @@ public class Engine<T> {
    * null}
    */
   public MatchResult<? extends T> run(final Program<T> program, final List<? extends T> items) {
+    return this.run(program, items, null);
+  }
+
+  /**
+   * Runs the supplied {@link Program} against the supplied {@link
+   * List}, capturing only the capture groups identified by the
+   * supplied keys, and returns a (possibly {@code null}) {@link
+   * MatchResult} describing the run result.
+   *
+   * <p>If {@code groupsOfInterest} is {@linkplain Set#isEmpty()
+   * empty}, no capture groups are recorded at all, and no {@link
+   * Thread} ever has any capture groups to copy when it forks.</p>
+   *
+   * <p>Otherwise, if the supplied {@link Program} forks, it is first
+   * run without recording any capture groups.  Only if that run
+   * finds a match is the {@link Program} run again to record them,
+   * this time abandoning any {@link Thread} that tries to read past
+   * the end of the match already found (unless the {@link Program}
+   * contains atomic groups).  Because {@link Thread}s are
+   * explored in the same order both times, the second run arrives
+   * at the same match.  As a consequence, however, any {@link
+   * Filter}s in the {@link Program} may be evaluated twice against
+   * the same item.</p>
+   *
+   * @param program the {@link Program} to run; must not be {@code
+   * null}
+   *
+   * @param items the input {@link List}; may be {@code null}
+   *
+   * @param groupsOfInterest the keys of the capture groups to
+   * capture; may be {@code null} in which case all capture groups
+   * will be captured
+   *
+   * @return a {@link MatchResult}, or {@code null} if no match
+   * occurred
+   *
+   * @exception IllegalArgumentException if {@code program} is {@code
+   * null}
+   *
+   * @see Thread#setGroupsOfInterest(Set)
+   */
+  public MatchResult<? extends T> run(final Program<T> program, final List<? extends T> items, final Set<?> groupsOfInterest) {
+    return this.run(program, items, groupsOfInterest, null);
+  }
+
+  /**
+   * Runs the supplied {@link Program} against the supplied {@link
+   * List}, capturing only the capture groups identified by the
+   * supplied keys and recording the work done in the supplied {@link
+   * MatchStats}, and returns a (possibly {@code null}) {@link
+   * MatchResult} describing the run result.
+   *
+   * <p>This method behaves exactly like the {@link #run(Program,
+   * List, Set)} method.  If the {@link Program} is run twice, as
+   * described there, the work done by both runs is recorded.</p>
+   *
+   * @param program the {@link Program} to run; must not be {@code
+   * null}
+   *
+   * @param items the input {@link List}; may be {@code null}
+   *
+   * @param groupsOfInterest the keys of the capture groups to
+   * capture; may be {@code null} in which case all capture groups
+   * will be captured
+   *
+   * @param stats the {@link MatchStats} to record the work done in;
+   * may be {@code null} in which case nothing is recorded
+   *
+   * @return a {@link MatchResult}, or {@code null} if no match
+   * occurred
+   *
+   * @exception IllegalArgumentException if {@code program} is {@code
+   * null}
+   *
+   * @see #run(Program, List, Set)
+   */
+  public MatchResult<? extends T> run(final Program<T> program, final List<? extends T> items, final Set<?> groupsOfInterest, final MatchStats stats) {
+    return this.run(program, items, groupsOfInterest, stats, null);
+  }
+
+  /**
+   * Runs the supplied {@link Program} against the supplied {@link
+   * List}, capturing only the capture groups identified by the
+   * supplied keys, recording the work done in the supplied {@link
+   * MatchStats} and abandoning the run if it exceeds any of the
+   * limits imposed by the supplied {@link MatchOptions}, and returns
+   * a (possibly {@code null}) {@link MatchResult} describing the run
+   * result.
+   *
+   * <p>This method behaves exactly like the {@link #run(Program,
+   * List, Set, MatchStats)} method until a limit is exceeded, at
+   * which point it throws a {@link MatchLimitExceededException}
+   * reporting how far it got.  If the {@link Program} is run twice,
+   * as described in the documentation for the {@link #run(Program,
+   * List, Set)} method, the limits apply to both runs together.</p>
+
+   * <p>If {@code options} {@linkplain
+   * MatchOptions#isCompressedAlphabet() ask for it}, the input is
+   * classified once, before either run, or {@linkplain
+   * MatchOptions#isAtomBitmaps() evaluated into bitmaps}, and both
+   * runs look up the results of the {@link Program}'s atoms instead
+   * of evaluating them.</p>
+   *
+   * <p>If {@code options} {@linkplain MatchOptions#isLockstepCheck()
+   * ask for it}, input that cannot match is first ruled out in time
+   * linear in its size, and {@code null} returned without running
+   * the {@link Program} at all.</p>
+   *
+   * <p>If {@code options} {@linkplain MatchOptions#isMemoizedStates()
+   * ask for it} and the {@link Program} {@linkplain
+   * ProgramAnalysis#isMemoizable() allows it}, each run kills every
+   * {@link Thread} that reaches a state another {@link Thread} of the
+   * same run has already reached.</p>
+   *
+   * @param program the {@link Program} to run; must not be {@code
+   * null}
+   *
+   * @param items the input {@link List}; may be {@code null}
+   *
+   * @param groupsOfInterest the keys of the capture groups to
+   * capture; may be {@code null} in which case all capture groups
+   * will be captured
+   *
+   * @param stats the {@link MatchStats} to record the work done in;
+   * may be {@code null} in which case nothing is recorded
+   *
+   * @param options the {@link MatchOptions} imposing limits on the
+   * run; may be {@code null} in which case no limits are imposed
+   *
+   * @return a {@link MatchResult}, or {@code null} if no match
+   * occurred
+   *
+   * @exception IllegalArgumentException if {@code program} is {@code
+   * null}
+   *
+   * @exception MatchLimitExceededException if the run exceeded a
+   * limit imposed by {@code options}
+   *
+   * @see MatchOptions
+   */
+  public MatchResult<? extends T> run(final Program<T> program, final List<? extends T> items, final Set<?> groupsOfInterest, final MatchStats stats, final MatchOptions options) {
     if (program == null) {
       throw new IllegalArgumentException("program", new NullPointerException("program"));
     }
+    final MatchBudget budget;
+    if (options == null || !options.isLimited()) {
+      budget = null;
+    } else {
+      budget = new MatchBudget(options);
+      // Don't start at all if we have already been interrupted.
+      budget.check();
+    }
+    // Threads read by index, so make sure reading by index is cheap.
+    final List<? extends T> input = toRandomAccessList(items);
+    // Memoizable Filters give the same answer for the same item no
+    // matter which Thread asks, or in which of the two runs below.
+    final FilterMemo filterMemo = FilterMemo.of(program, input == null ? 0 : input.size());
+    // If asked, evaluate every atom against every item now, once, so
+    // that no Thread in either run has to.
+    AtomResults atomResults = null;
+    if (options != null && (options.isAtomBitmaps() || options.isCompressedAlphabet())) {
+      final Alphabet<T> alphabet = Alphabet.of(program);
+      if (alphabet != null) {
+        if (options.isAtomBitmaps()) {
+          atomResults = alphabet.evaluate(input, this.executor, stats, budget);
+        } else {
+          atomResults = alphabet.classify(input, this.executor, stats, budget);
+        }
+      }
+    }
+    // If asked, rule out input that cannot match, in time linear in
+    // its size, before any Thread can backtrack over it.
+    if (options != null && options.isLockstepCheck()) {
+      AtomResults lockstepResults = atomResults;
+      if (lockstepResults == null) {
+        final Alphabet<T> alphabet = Alphabet.of(program);
+        if (alphabet != null) {
+          lockstepResults = alphabet.evaluate(input, this.executor, stats, budget);
+        }
+      }
+      if (!new ControlFlow(program).mayMatch(input == null ? 0 : input.size(), lockstepResults, budget)) {
+        return null;
+      }
+    }
+    final boolean memoizeStates = options != null && options.isMemoizedStates();
+    if (!isWorthProbing(program, groupsOfInterest)) {
+      return this.run(program, input, groupsOfInterest, NO_ITEM_LIMIT, stats, budget, filterMemo, atomResults, memoizeStates);
+    }
+    // First find out cheaply whether there is a match at all, and
+    // where it ends.  Only if there is one do we pay for capturing.
+    final MatchResult<? extends T> probe = this.run(program, input, Collections.emptySet(), NO_ITEM_LIMIT, stats, budget, filterMemo, atomResults, memoizeStates);
+    if (probe == null) {
+      return null;
+    }
+    // Any Thread that reads past the end of that match is doomed, so
+    // it can be abandoned early--unless it might first commit an
+    // atomic group, thereby discarding other Threads as it does in
+    // the probe run.
+    final int itemLimit = isAtomic(program) ? NO_ITEM_LIMIT : probe.getEndIndex();
+    return this.run(program, input, groupsOfInterest, itemLimit, stats, budget, filterMemo, atomResults, memoizeStates);
+  }
+
+  /**
+   * Runs the supplied {@link Program} against the supplied {@link
+   * List}, capturing only the capture groups identified by the
+   * supplied keys and never reading past the supplied item limit,
+   * and returns a (possibly {@code null}) {@link MatchResult}
+   * describing the run result.
+   *
+   * @param program the {@link Program} to run; must not be {@code
+   * null}
+   *
+   * @param items the input {@link List}; may be {@code null}
+   *
+   * @param groupsOfInterest the keys of the capture groups to
+   * capture; may be {@code null} in which case all capture groups
+   * will be captured
+   *
+   * @param itemLimit the index of the first item no {@link Thread}
+   * may read, or {@link #NO_ITEM_LIMIT}
+   *
+   * @param stats the {@link MatchStats} to record the work done in;
+   * may be {@code null}
+   *
+   * @param budget the {@link MatchBudget} to charge the work done
+   * to; may be {@code null}
+   *
+   * @param filterMemo the {@link FilterMemo} to remember the results
+   * of memoizable {@link Filter}s in; may be {@code null}
+   *
+   * @param atomResults the {@link AtomResults} to look up the
+   * results of atoms in; may be {@code null}
+   *
+   * @param memoizeStates whether to kill every {@link Thread} that
+   * reaches a state another has already reached, if the {@link
+   * Program} allows it
+   *
+   * @return a {@link MatchResult}, or {@code null} if no match
+   * occurred
+   *
+   * @exception MatchLimitExceededException if {@code budget} is
+   * exhausted
+   *
+   * @see Thread#setItemLimit(int)
+   *
+   * @see StateMemo
+   */
+  private final MatchResult<? extends T> run(final Program<T> program, final List<? extends T> items, final Set<?> groupsOfInterest, final int itemLimit, final MatchStats stats, final MatchBudget budget, final FilterMemo filterMemo, final AtomResults atomResults, final boolean memoizeStates) {
+    assert program != null;
     final AtomicInteger idGenerator = new AtomicInteger();
-    final Queue<Thread<T>> threads = new LinkedList<Thread<T>>();
-    final Scheduler<T> scheduler = new Scheduler<T>(threads, idGenerator);
-
-    scheduler.schedule(scheduler.newThread(String.format("T%d", idGenerator.getAndIncrement()),
-                                           new ProgramCounter<T>(program),
-                                           items,
-                                           0,
-                                           null,
-                                           null));
+    final Queue<Thread<T>> threads = newThreadQueue();
+    final Scheduler<T> scheduler = new Scheduler<T>(threads, idGenerator, budget);
+
+    final Thread<T> initialThread = scheduler.newThread(String.format("T%d", idGenerator.getAndIncrement()),
+                                                        new ProgramCounter<T>(program),
+                                                        items,
+                                                        0,
+                                                        null,
+                                                        null);
+    assert initialThread != null;
+    initialThread.setGroupsOfInterest(groupsOfInterest);
+    initialThread.setItemLimit(itemLimit);
+    initialThread.setStats(stats);
+    initialThread.setListener(this.listener);
+    initialThread.setBudget(budget);
+    initialThread.setFilterMemo(filterMemo);
+    initialThread.setAtomResults(atomResults);
+    if (memoizeStates) {
+      // Each run reaches states of its own, so each needs its own
+      // record of them.
+      initialThread.setStateMemo(StateMemo.of(program, items == null ? 0 : items.size()));
+    }
+    scheduler.schedule(initialThread);
     MatchResult<? extends T> result = null;
     while (!threads.isEmpty()) {
+      if (stats != null) {
+        stats.liveThreads(threads.size());
+      }
       final Thread<T> thread = threads.remove();
       if (thread != null) {
         thread.run();
@@ -131,6 +491,155 @@ public class Engine<T> {
   }
 
 
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns a {@link List} containing the items supplied by the
+   * supplied {@link Iterable} that can be read by index in constant
+   * time.
+   *
+   * <p>If the supplied {@link Iterable} is already a {@link List}
+   * that implements {@link RandomAccess}, it is returned as is.
+   * Otherwise its items are copied, once, into a new {@link
+   * ArrayList}, which is returned.  {@link Thread}s read their input
+   * by index, so without this a {@link java.util.LinkedList} would
+   * make every read, and therefore every match, cost time
+   * proportional to the size of the input.</p>
+   *
+   * @param <T> the type of item in question
+   *
+   * @param items the {@link Iterable} to convert; may be {@code
+   * null} in which case {@code null} will be returned
+   *
+   * @return a {@link List} that implements {@link RandomAccess}, or
+   * {@code null}
+   */
+  public static final <T> List<? extends T> toRandomAccessList(final Iterable<? extends T> items) {
+    final List<? extends T> returnValue;
+    if (items == null) {
+      returnValue = null;
+    } else if (items instanceof List && items instanceof RandomAccess) {
+      returnValue = (List<? extends T>)items;
+    } else if (items instanceof Collection) {
+      returnValue = new ArrayList<T>((Collection<? extends T>)items);
+    } else {
+      final List<T> list = new ArrayList<T>();
+      for (final T item : items) {
+        list.add(item);
+      }
+      returnValue = list;
+    }
+    return returnValue;
+  }
+
+
+  /**
+   * Returns {@code true} if running the supplied {@link Program}
+   * first without any capturing at all, and then again with
+   * capturing only if the first run matched, is likely to be cheaper
+   * than running it once with capturing.
+   *
+   * <p>That is the case when the {@link Program} will capture at
+   * least one group of interest and can also {@linkplain Split fork}
+   * while doing so: every speculative {@link Thread} has to copy the
+   * capture groups recorded so far, and most of them will die
+   * anyway.  A {@link Program} that never forks runs as a single
+   * {@link Thread} and gains nothing from being run twice.</p>
+   *
+   * @param program the {@link Program} in question; must not be
+   * {@code null}
+   *
+   * @param groupsOfInterest the keys of the capture groups to
+   * capture; may be {@code null} in which case all capture groups
+   * will be captured
+   *
+   * @return {@code true} if a capture-free probe run is worthwhile;
+   * {@code false} otherwise
+   */
+  private static final boolean isWorthProbing(final Program<?> program, final Set<?> groupsOfInterest) {
+    assert program != null;
+    if (groupsOfInterest != null && groupsOfInterest.isEmpty()) {
+      return false;
+    }
+    boolean captures = false;
+    boolean forks = false;
+    for (final Instruction<?> instruction : program) {
+      if (instruction instanceof Split || instruction instanceof CountedSplit) {
+        forks = true;
+      } else if (instruction instanceof Save && (groupsOfInterest == null || groupsOfInterest.contains(((Save<?>)instruction).getKey()))) {
+        captures = true;
+      }
+      if (captures && forks) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns {@code true} if the supplied {@link Program} contains
+   * any {@link BeginAtomic} instructions.
+   *
+   * @param program the {@link Program} in question; must not be
+   * {@code null}
+   *
+   * @return {@code true} if the supplied {@link Program} contains
+   * any {@link BeginAtomic} instructions; {@code false} otherwise
+   */
+  private static final boolean isAtomic(final Program<?> program) {
+    assert program != null;
+    for (final Instruction<?> instruction : program) {
+      if (instruction instanceof BeginAtomic) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns a new, empty {@link Queue} suitable for holding the
+   * {@link Thread}s scheduled during a single run.
+   *
+   * <p>The {@link Queue} returned is last-in-first-out: the most
+   * recently scheduled {@link Thread} runs next, and each {@link
+   * Thread} runs until it matches or dies.  A {@link Thread} that
+   * executes a {@link Split} carries on with the split's first
+   * operand itself and schedules a new {@link Thread} for its
+   * second, so the second alternative is tried only once every
+   * {@link Thread} descended from the first has run its course.
+   * This is the order in which a backtracking matcher would try the
+   * same alternatives, and it gives alternatives and repetition
+   * operators a well-defined priority: the first operand of a
+   * {@link Split} is always preferred.  Greedy and reluctant
+   * repetition, {@linkplain BeginAtomic atomic groups} and
+   * possessive repetition are all defined in terms of that
+   * priority.</p>
+   *
+   * <p>Because the first {@link Thread} to match wins, the implicit
+   * leading wildcard the {@link com.edugility.objexj.parser.Parser}
+   * compiles into an unanchored pattern is reluctant (its {@link
+   * Split} prefers to stop consuming input), so that the leftmost
+   * match is found before any later one.</p>
+   *
+   * <p>Earlier versions used a first-in-first-out {@link Queue} and
+   * a greedy leading wildcard, and so could report a different match;
+   * the {@linkplain com.edugility.objexj.Pattern <tt>Pattern</tt>
+   * class documentation} describes the change.</p>
+   *
+   * @param <T> the type of item the {@link Thread}s match
+   *
+   * @return a new, empty, last-in-first-out {@link Queue}; never
+   * {@code null}
+   */
+  private static final <T> Queue<Thread<T>> newThreadQueue() {
+    return Collections.asLifoQueue(new LinkedList<Thread<T>>());
+  }
+
+
+
   /*
    * Inner and nested classes.
    */
@@ -157,6 +666,13 @@ public class Engine<T> {
      */
     private final AtomicInteger idGenerator;
 
+    /**
+     * The {@link MatchBudget} told how many {@link Thread}s are
+     * waiting to run each time one is scheduled.  This field may be
+     * {@code null}.
+     */
+    private final MatchBudget budget;
+
     /**
      * Creates a new {@link Scheduler}.
      *
@@ -164,7 +680,7 @@ public class Engine<T> {
      * null}
      */
     private Scheduler(final Queue<Thread<T>> threads) {
-      this(threads, new AtomicInteger());
+      this(threads, new AtomicInteger(), null);
     }
 
     /**
@@ -175,10 +691,14 @@ public class Engine<T> {
      *
      * @param idGenerator an {@link AtomicInteger} to help with {@link
      * Thread} identifier generation; may be {@code null}
+     *
+     * @param budget the {@link MatchBudget} to tell how many {@link
+     * Thread}s are waiting to run; may be {@code null}
      */
-    private Scheduler(final Queue<Thread<T>> threads, final AtomicInteger idGenerator) {
+    private Scheduler(final Queue<Thread<T>> threads, final AtomicInteger idGenerator, final MatchBudget budget) {
       super();
       this.threads = threads;
+      this.budget = budget;
       if (idGenerator == null) {
         this.idGenerator = new AtomicInteger();
       } else {
@@ -220,20 +740,10 @@ public class Engine<T> {
      */
     @Override
     public final Thread<T> newThread(Object id, final ProgramCounter<T> programCounter, final List<? extends T> items, final int itemPointer, final Map<Object, CaptureGroup<T>> captureGroups, final Map<Object, Object> variables) {
-      final String className = this.getClass().getName();
-      final Logger logger = Logger.getLogger(className);
-      final boolean finer = logger != null && logger.isLoggable(Level.FINER);
-      if (finer) {
-        logger.entering(className, "newThread", new Object[] { id, programCounter, items, itemPointer, captureGroups, variables });
-      }      
       if (id == null) {
         id = String.format("T%d", this.idGenerator.getAndIncrement());
       }
-      final Thread<T> returnValue = new Thread<T>(id, programCounter, items, itemPointer, captureGroups, variables, this);
-      if (finer) {
-        logger.exiting(className, "newThread", returnValue);
-      }
-      return returnValue;
+      return new Thread<T>(id, programCounter, items, itemPointer, captureGroups, variables, this);
     }
       
     /**
@@ -252,26 +762,24 @@ public class Engine<T> {
      *
      * @exception IllegalArgumentException if {@code t} is {@code
      * null}
+     *
+     * @exception MatchLimitExceededException if scheduling the
+     * supplied {@link Thread} leaves more {@link Thread}s waiting to
+     * run than the {@link MatchBudget} this {@link Scheduler} was
+     * created with allows
      */
     @Override
     public final boolean schedule(final Thread<T> t) {
-      final String className = this.getClass().getName();
-      final Logger logger = Logger.getLogger(className);
-      final boolean finer = logger != null && logger.isLoggable(Level.FINER);
-      if (finer) {
-        logger.entering(className, "schedule", t);
-      }
       if (t == null) {
         throw new IllegalArgumentException("t", new NullPointerException("t"));
       }
-      if (finer) {
-        logger.logp(Level.FINER, className, "schedule", "Scheduling thread {0}", t);
+      if (this.threads == null || !this.threads.add(t)) {
+        return false;
       }
-      final boolean returnValue = this.threads != null && this.threads.add(t);
-      if (finer) {
-        logger.exiting(className, "schedule", Boolean.valueOf(returnValue));
+      if (this.budget != null) {
+        this.budget.liveThreads(this.threads.size());
       }
-      return returnValue;
+      return true;
     }
   }
 
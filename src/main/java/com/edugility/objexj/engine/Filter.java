@@ -27,8 +27,6 @@
  */
 package com.edugility.objexj.engine;
 
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
 /**
  * An {@link Instruction} that {@linkplain
@@ -69,6 +67,12 @@ public class Filter<T> extends Instruction<T> {
    * InstructionContext#die() kills the
    * <code>InstructionContext</code>}.</p>
    *
+   * <p>If this {@link Filter} has already been evaluated against the
+   * current item during the current run, and its result was
+   * {@linkplain FilterMemo remembered}, the {@link
+   * #accept(InstructionContext)} method is not called again and the
+   * remembered result is used instead.</p>
+   *
    * @param context an {@link InstructionContext} to execute this
    * {@link Filter} in; must not be {@code null}
    *
@@ -79,24 +83,51 @@ public class Filter<T> extends Instruction<T> {
    */
   @Override
   public final void execute(final InstructionContext<? extends T> context) {
-    final String className = this.getClass().getName();
-    final Logger logger = this.getLogger();
-    final boolean finer = logger != null && logger.isLoggable(Level.FINER);
-    if (finer) {
-      logger.entering(className, "execute", context);
-    }
     if (context == null) {
       throw new IllegalArgumentException("context", new NullPointerException("context == null"));
     }
-    if (this.accept(context)) {
+    final MatchStats stats = context.getStats();
+    final int remembered = context.recallFilterResult();
+    final boolean accepted;
+    if (remembered != FilterMemo.UNKNOWN) {
+      accepted = remembered == FilterMemo.ACCEPTED;
+      if (stats != null) {
+        stats.filterResultRecalled();
+      }
+    } else {
+      if (stats == null) {
+        accepted = this.accept(context);
+      } else if (this.hasMVELExpression()) {
+        final long start = System.nanoTime();
+        accepted = this.accept(context);
+        stats.mvelFilterEvaluated(System.nanoTime() - start);
+      } else {
+        accepted = this.accept(context);
+        stats.classFilterEvaluated();
+      }
+      context.rememberFilterResult(accepted);
+    }
+    context.filterEvaluated(this, accepted);
+    if (accepted) {
       context.advanceItemPointer();
       context.advanceProgramCounter();
     } else {
       context.die();
     }
-    if (finer) {
-      logger.exiting(className, "execute");
-    }
+  }
+
+  /**
+   * Returns {@code true} if evaluating this {@link Filter} may
+   * involve running an MVEL expression.  This is used only to
+   * classify evaluations in {@link MatchStats}.
+   *
+   * <p>This implementation returns {@code false}.</p>
+   *
+   * @return {@code true} if this {@link Filter} has an MVEL
+   * expression; {@code false} otherwise
+   */
+  boolean hasMVELExpression() {
+    return false;
   }
 
   /**
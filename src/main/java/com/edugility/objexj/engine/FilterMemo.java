@@ -0,0 +1,276 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.util.Arrays;
+
+/**
+ * A compact table of the results of {@linkplain
+ * #isMemoizable(Instruction, ConditionEffect) memoizable} {@link
+ * Filter}s, indexed by
+ * the position of each {@link Filter} in a {@link Program} and by
+ * the position in the input of the item it was evaluated against.
+ *
+ * <p>After a {@link Split}, many {@link Thread}s typically arrive at
+ * the same {@link Filter} at the same input position.  A {@link
+ * FilterMemo} lets all but the first of them skip evaluating its
+ * MVEL expression again.  Each result takes two bits: one {@code
+ * long} records the results of one {@link Filter} at 32
+ * consecutive positions.  The bits for a given {@link Filter} are
+ * not allocated until its first result is {@linkplain
+ * #remember(int, int, boolean) remembered}.</p>
+ *
+ * <p>A {@link FilterMemo} is shared by every {@link Thread} of a
+ * run, in the same way a {@link MatchStats} is, and is not safe for
+ * use by multiple Java {@linkplain java.lang.Thread threads}.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see MVELFilter#getConditionEffect()
+ */
+final class FilterMemo {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * The value {@link #recall(int, int)} returns when no result has
+   * been remembered.
+   */
+  static final int UNKNOWN = 0;
+
+  /**
+   * The value {@link #recall(int, int)} returns when the {@link
+   * Filter} rejected the item.
+   */
+  static final int REJECTED = 1;
+
+  /**
+   * The value {@link #recall(int, int)} returns when the {@link
+   * Filter} accepted the item.
+   */
+  static final int ACCEPTED = 2;
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The slot in {@link #results} of the {@link Filter} at each
+   * position in the {@link Program}, or {@code -1} if the {@link
+   * Instruction} there is not memoized.  This field is never {@code
+   * null}.
+   */
+  private final int[] slots;
+
+  /**
+   * The results, two bits per input position, of each memoized
+   * {@link Filter}.  This field is never {@code null}, but its
+   * elements are {@code null} until they are first needed.
+   */
+  private final long[][] results;
+
+  /**
+   * The largest input position a result may be remembered for.
+   */
+  private final int maxPosition;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link FilterMemo}.
+   *
+   * @param slots the slot of the {@link Filter} at each position in
+   * the {@link Program}, or {@code -1}; must not be {@code null}
+   *
+   * @param slotCount the number of slots; must be positive
+   *
+   * @param inputSize the number of items in the input; must not be
+   * negative
+   */
+  private FilterMemo(final int[] slots, final int slotCount, final int inputSize) {
+    super();
+    assert slots != null;
+    assert slotCount > 0;
+    assert inputSize >= 0;
+    this.slots = slots;
+    this.results = new long[slotCount][];
+    this.maxPosition = inputSize;
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns the remembered result of the {@link Filter} at the
+   * supplied position in the {@link Program} for the item at the
+   * supplied position in the input.
+   *
+   * @param programCounterIndex the position of the {@link Filter} in
+   * the {@link Program}
+   *
+   * @param itemPointer the position of the item in the input
+   *
+   * @return {@link #ACCEPTED}, {@link #REJECTED} or, if nothing has
+   * been remembered or the {@link Filter} is not memoized, {@link
+   * #UNKNOWN}
+   */
+  final int recall(final int programCounterIndex, final int itemPointer) {
+    if (programCounterIndex < 0 || programCounterIndex >= this.slots.length || itemPointer < 0 || itemPointer > this.maxPosition) {
+      return UNKNOWN;
+    }
+    final int slot = this.slots[programCounterIndex];
+    if (slot < 0) {
+      return UNKNOWN;
+    }
+    final long[] bits = this.results[slot];
+    if (bits == null) {
+      return UNKNOWN;
+    }
+    return (int)(bits[itemPointer >>> 5] >>> ((itemPointer & 31) << 1)) & 3;
+  }
+
+  /**
+   * Remembers the result of the {@link Filter} at the supplied
+   * position in the {@link Program} for the item at the supplied
+   * position in the input.  If that {@link Filter} is not memoized,
+   * nothing happens.
+   *
+   * @param programCounterIndex the position of the {@link Filter} in
+   * the {@link Program}
+   *
+   * @param itemPointer the position of the item in the input
+   *
+   * @param accepted whether the {@link Filter} accepted the item
+   */
+  final void remember(final int programCounterIndex, final int itemPointer, final boolean accepted) {
+    if (programCounterIndex < 0 || programCounterIndex >= this.slots.length || itemPointer < 0 || itemPointer > this.maxPosition) {
+      return;
+    }
+    final int slot = this.slots[programCounterIndex];
+    if (slot < 0) {
+      return;
+    }
+    long[] bits = this.results[slot];
+    if (bits == null) {
+      bits = new long[(this.maxPosition >>> 5) + 1];
+      this.results[slot] = bits;
+    }
+    bits[itemPointer >>> 5] |= (long)(accepted ? ACCEPTED : REJECTED) << ((itemPointer & 31) << 1);
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns a new {@link FilterMemo} for running the supplied {@link
+   * Program} against input of the supplied size, or {@code null} if
+   * the {@link Program} contains no {@linkplain
+   * #isMemoizable(Instruction, ConditionEffect) memoizable} {@link
+   * Filter}s.
+   *
+   * @param program the {@link Program} that will be run; must not be
+   * {@code null}
+   *
+   * @param inputSize the number of items in the input; must not be
+   * negative
+   *
+   * @return a new {@link FilterMemo}, or {@code null}
+   */
+  static final FilterMemo of(final Program<?> program, final int inputSize) {
+    assert program != null;
+    assert inputSize >= 0;
+    int[] slots = null;
+    int slotCount = 0;
+    final ConditionEffect programEffect = program.getConditionEffect();
+    int i = 0;
+    for (final Instruction<?> instruction : program) {
+      if (isMemoizable(instruction, programEffect)) {
+        if (slots == null) {
+          slots = new int[program.size()];
+          Arrays.fill(slots, -1);
+        }
+        slots[i] = slotCount++;
+      }
+      i++;
+    }
+    if (slots == null) {
+      return null;
+    }
+    return new FilterMemo(slots, slotCount, inputSize);
+  }
+
+  /**
+   * Returns {@code true} if the supplied {@link Instruction} is an
+   * {@link MVELFilter} whose results, in a {@link Program} whose
+   * {@linkplain Program#getConditionEffect() strongest
+   * <code>ConditionEffect</code>} is the supplied one, depend on
+   * nothing but the item it is evaluated against.
+   *
+   * <p>That is the case for {@linkplain ConditionEffect#PURE pure}
+   * {@link MVELFilter}s, and for those that {@linkplain
+   * ConditionEffect#READS_VARIABLES read variables} when nothing in
+   * the {@link Program} {@linkplain ConditionEffect#WRITES_VARIABLES
+   * writes} them.</p>
+   *
+   * @param instruction the {@link Instruction} in question; may be
+   * {@code null}
+   *
+   * @param programEffect the strongest {@link ConditionEffect} of the
+   * {@link Program} containing {@code instruction}; must not be
+   * {@code null}
+   *
+   * @return {@code true} if the results of {@code instruction} may be
+   * remembered; {@code false} otherwise
+   */
+  static final boolean isMemoizable(final Instruction<?> instruction, final ConditionEffect programEffect) {
+    assert programEffect != null;
+    if (!(instruction instanceof MVELFilter) || !((MVELFilter<?>)instruction).hasMVELExpression()) {
+      return false;
+    }
+    final ConditionEffect effect = ((MVELFilter<?>)instruction).getConditionEffect();
+    return effect == ConditionEffect.PURE || (effect == ConditionEffect.READS_VARIABLES && programEffect != ConditionEffect.WRITES_VARIABLES);
+  }
+
+}
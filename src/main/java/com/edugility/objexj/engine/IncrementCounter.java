@@ -0,0 +1,162 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.io.Serializable; // for javadoc only
+
+
+/**
+ * An {@link Instruction} that adds one to a counter register by
+ * calling {@link InstructionContext#getCounter(int)} and {@link
+ * InstructionContext#setCounter(int, int)}, followed by {@link
+ * InstructionContext#advanceProgramCounter()}.
+ *
+ * <p>An {@link IncrementCounter} instruction ends the body of every
+ * counted repetition loop, and is followed by a {@link Jump} back to
+ * the loop's {@link CountedSplit}.</p>
+ *
+ * @param <T> the type of {@link Object}s that {@link
+ * InstructionContext}s supplied to the {@link
+ * #execute(InstructionContext)} method work with
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see CountedSplit
+ *
+ * @see ResetCounter
+ */
+public class IncrementCounter<T> extends Instruction<T> {
+
+  /**
+   * The version of this class for {@linkplain Serializable
+   * serialization purposes}.
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The zero-based number of the counter register to increment.
+   */
+  public final int register;
+
+  /**
+   * Creates a new {@link IncrementCounter} instruction.
+   *
+   * @param register a {@link String} representation of the
+   * zero-based number of the counter register to increment; must not
+   * be {@code null}
+   *
+   * @exception IllegalArgumentException if {@code register} is {@code
+   * null} or does not represent a non-negative integer
+   */
+  public IncrementCounter(final String register) {
+    this(ResetCounter.parseRegister(register));
+  }
+
+  /**
+   * Creates a new {@link IncrementCounter} instruction.
+   *
+   * @param register the zero-based number of the counter register to
+   * increment; must not be negative
+   *
+   * @exception IllegalArgumentException if {@code register} is
+   * negative
+   */
+  public IncrementCounter(final int register) {
+    super();
+    if (register < 0) {
+      throw new IllegalArgumentException("register < 0: " + register);
+    }
+    this.register = register;
+  }
+
+  /**
+   * Increments the counter register identified by this {@link
+   * IncrementCounter}'s {@linkplain #register register} and then
+   * calls {@link InstructionContext#advanceProgramCounter()}.
+   *
+   * @param context an {@link InstructionContext}; must not be {@code
+   * null}
+   *
+   * @exception IllegalArgumentException if {@code context} is {@code
+   * null}
+   */
+  @Override
+  public final void execute(final InstructionContext<? extends T> context) {
+    if (context == null) {
+      throw new IllegalArgumentException("context");
+    }
+    context.setCounter(this.register, context.getCounter(this.register) + 1);
+    context.advanceProgramCounter();
+  }
+
+  /**
+   * Returns a hashcode for this {@link IncrementCounter} instruction.
+   *
+   * @return a hashcode for this {@link IncrementCounter} instruction
+   */
+  @Override
+  public int hashCode() {
+    return 37 * super.hashCode() + this.register;
+  }
+
+  /**
+   * Returns {@code true} if the supplied {@link Object} is equal to
+   * this {@link IncrementCounter} instruction.
+   *
+   * @param other the {@link Object} to test; may be {@code null} in
+   * which case {@code false} will be returned
+   *
+   * @return {@code true} if the supplied {@link Object} is equal to
+   * this {@link IncrementCounter} instruction; {@code false}
+   * otherwise
+   */
+  @Override
+  public boolean equals(final Object other) {
+    if (other == this) {
+      return true;
+    } else if (super.equals(other)) {
+      return this.register == ((IncrementCounter<?>)other).register;
+    } else {
+      return false;
+    }
+  }
+
+  /**
+   * Returns a non-{@code null} {@link String} representation of this
+   * {@link IncrementCounter} instruction.
+   *
+   * @return a non-{@code null} {@link String} representation of this
+   * {@link IncrementCounter} instruction
+   */
+  @Override
+  public String toString() {
+    return new StringBuilder(super.toString()).append(" ").append(this.register).toString();
+  }
+
+}
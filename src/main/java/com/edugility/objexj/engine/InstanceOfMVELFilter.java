@@ -29,9 +29,6 @@ package com.edugility.objexj.engine;
 
 import java.util.Map;
 
-import java.util.logging.Level;
-import java.util.logging.Logger;
-
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -69,13 +66,27 @@ public class InstanceOfMVELFilter<T> extends MVELFilter<T> {
    */
   private static final Pattern OPERAND_PATTERN = Pattern.compile("^\\s*([^\\s]+)\\s*(.*)");
 
+  /**
+   * The {@linkplain Class#getName() name} of the {@link Class} whose
+   * {@link Class#isInstance(Object)} method will be called.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final String className;
+
   /**
    * The {@link Class} whose {@link Class#isInstance(Object)} method
    * will be called.
    *
-   * <p>This field is never {@code null}.</p>
+   * <p>This field is {@code null} only when this {@link
+   * InstanceOfMVELFilter} was {@linkplain
+   * #InstanceOfMVELFilter(String, boolean, String) created for lazy
+   * resolution} and has not yet been asked to {@linkplain
+   * #accept(InstructionContext) accept} anything.</p>
+   *
+   * @see #getTargetClass()
    */
-  private final Class<?> cls;
+  private volatile Class<?> cls;
 
   /**
    * Determines whether an {@link Object} will be checked to see if
@@ -113,6 +124,7 @@ public class InstanceOfMVELFilter<T> extends MVELFilter<T> {
     if (this.exact) {
       className = className.substring(1);
     }
+    this.className = className;
 
     Class<?> c = null;
     try {
@@ -158,6 +170,7 @@ public class InstanceOfMVELFilter<T> extends MVELFilter<T> {
     if (this.exact) {
       className = className.substring(1);
     }
+    this.className = className;
     Class<?> c = null;
     try {
       c = this.loadClass(className);
@@ -233,6 +246,7 @@ public class InstanceOfMVELFilter<T> extends MVELFilter<T> {
       throw new IllegalArgumentException("c", new NullPointerException("c"));
     }
     this.cls = c;
+    this.className = c.getName();
     this.exact = exact;
     if (mvel == null) {
       this.mvelExpression = null;
@@ -243,6 +257,79 @@ public class InstanceOfMVELFilter<T> extends MVELFilter<T> {
     }
   }
 
+  /**
+   * Creates a new {@link InstanceOfMVELFilter} whose {@link Class}
+   * will not be {@linkplain Instruction#loadClass(String) loaded},
+   * and whose <a href="http://mvel.codehaus.org/">MVEL</a> expression
+   * will not be {@linkplain MVEL#compileExpression(String) compiled},
+   * until it is first asked to {@linkplain
+   * #accept(InstructionContext) accept} something.
+   *
+   * <p>This constructor is used when {@linkplain
+   * ProgramCodec#read(java.io.DataInput) reading} {@link Program}s
+   * in bulk, where most filters in most {@link Program}s may never
+   * run at all.</p>
+   *
+   * @param className the name of the {@link Class} to check against;
+   * must not be {@code null}
+   *
+   * @param exact whether {@link Class} equality rather than
+   * {@linkplain Class#isInstance(Object) membership} will be tested
+   *
+   * @param mvel the <a href="http://mvel.codehaus.org/">MVEL</a>
+   * source code; may be {@code null}
+   *
+   * @exception IllegalArgumentException if {@code className} is
+   * {@code null}
+   */
+  InstanceOfMVELFilter(final String className, final boolean exact, final String mvel) {
+    super();
+    if (className == null) {
+      throw new IllegalArgumentException("className", new NullPointerException("className"));
+    }
+    this.className = className;
+    this.exact = exact;
+    this.mvelExpressionSource = mvel;
+  }
+
+  /**
+   * Returns the {@linkplain Class#getName() name} of the {@link
+   * Class} this {@link InstanceOfMVELFilter} checks input {@link
+   * Object}s against.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return the non-{@code null} name of the target {@link Class}
+   */
+  final String getTargetClassName() {
+    return this.className;
+  }
+
+  /**
+   * Returns the {@link Class} this {@link InstanceOfMVELFilter}
+   * checks input {@link Object}s against, {@linkplain
+   * Instruction#loadClass(String) loading} it first if necessary.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return the non-{@code null} target {@link Class}
+   *
+   * @exception IllegalStateException if the {@link Class} could not
+   * be loaded
+   */
+  final Class<?> getTargetClass() {
+    Class<?> c = this.cls;
+    if (c == null) {
+      try {
+        c = this.loadClass(this.className);
+      } catch (final ClassNotFoundException cnfe) {
+        throw new IllegalStateException(this.className, cnfe);
+      }
+      this.cls = c;
+    }
+    return c;
+  }
+
   /**
    * Returns {@code true} if {@link Class} equality will be the
    * comparison test used against input {@link Object}s.
@@ -270,12 +357,6 @@ public class InstanceOfMVELFilter<T> extends MVELFilter<T> {
    */
   @Override
   public boolean accept(final InstructionContext<? extends T> context) {
-    final Logger logger = this.getLogger();
-    final boolean finer = logger != null && logger.isLoggable(Level.FINER);
-    final String className = this.getClass().getName();
-    if (finer) {
-      logger.entering(className, "accept", context);
-    }
     if (context == null) {
       throw new IllegalArgumentException("context", new NullPointerException("context == null"));
     }
@@ -283,10 +364,7 @@ public class InstanceOfMVELFilter<T> extends MVELFilter<T> {
     if (variables == null) {
       throw new IllegalArgumentException("context", new IllegalStateException("context.getVariables()", new NullPointerException("context.getVariables() == null")));
     }
-    final boolean returnValue = this.cls != null && context.canRead() && this.accept(context.read(), variables);
-    if (finer) {
-      logger.exiting(className, "accept", Boolean.valueOf(returnValue));
-    }
+    final boolean returnValue = context.canRead() && this.accept(context.read(), variables);
     return returnValue;
   }
 
@@ -320,20 +398,11 @@ public class InstanceOfMVELFilter<T> extends MVELFilter<T> {
    */
   @Override
   public boolean accept(final T item, Map<Object, Object> variables) {
-    final Logger logger = this.getLogger();
-    final boolean finer = logger != null && logger.isLoggable(Level.FINER);
-    final String className = this.getClass().getName();
-    if (finer) {
-      logger.entering(className, "accept", new Object[] { item, variables });
-    }
+    final Class<?> c = this.getTargetClass();
     final boolean returnValue =
       item != null &&
-      this.cls != null &&
-      this.isExact() ? item.getClass().equals(this.cls) : this.cls.isInstance(item) &&
+      this.isExact() ? item.getClass().equals(c) : c.isInstance(item) &&
       super.accept(item, variables);
-    if (finer) {
-      logger.exiting(className, "accept", Boolean.valueOf(returnValue));
-    }
     return returnValue;
   }
 
@@ -344,8 +413,8 @@ public class InstanceOfMVELFilter<T> extends MVELFilter<T> {
    */
   @Override
   public int hashCode() {
-    assert this.cls != null;
-    return 37 * super.hashCode() + this.cls.hashCode() + (this.exact ? 1 : 0);
+    assert this.className != null;
+    return 37 * super.hashCode() + this.className.hashCode() + (this.exact ? 1 : 0);
   }
 
   /**
@@ -369,7 +438,7 @@ public class InstanceOfMVELFilter<T> extends MVELFilter<T> {
       return true;
     } else if (super.equals(other)) {
       final InstanceOfMVELFilter<?> him = (InstanceOfMVELFilter<?>)other;
-      return this.exact == him.exact && this.cls.equals(him.cls);
+      return this.exact == him.exact && this.className.equals(him.className);
     } else {
       return false;
     }
@@ -389,7 +458,7 @@ public class InstanceOfMVELFilter<T> extends MVELFilter<T> {
     if (this.isExact()) {
       sb.append("=");
     }
-    sb.append(this.cls.getName());
+    sb.append(this.className);
     if (this.mvelExpressionSource != null) {
       sb.append(" ").append(this.mvelExpressionSource);
     }
@@ -35,9 +35,6 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * An instruction {@linkplain #execute(InstructionContext) run} in the
  * {@linkplain InstructionContext context} of a {@linkplain
@@ -72,12 +69,32 @@ public abstract class Instruction<T> implements Serializable {
   private static final long serialVersionUID = 1L;
 
   /**
-   * A {@link Pattern} useful in parsing an {@link Instruction} from
-   * its textual representation.  This field is never {@code null}.
+   * The lock held while {@link #opcodes} is replaced.  This field is
+   * never {@code null}.
    *
-   * @see #valueOf(String)
+   * @see #register(String, InstructionFactory)
    */
-  private static final Pattern LINE_PATTERN = Pattern.compile("^([^\\s]+)(?:\\s+?(.*))?$");
+  private static final Object OPCODES_LOCK = new Object();
+
+  /**
+   * The {@link Opcode}s consulted by the {@link #valueOf(String)}
+   * method before it resorts to reflection, in an open-addressing
+   * hash table whose length is a power of two at least twice the
+   * number of {@link Opcode}s, so that a mnemonic can be looked up
+   * where it lies in a line of text without first being copied into
+   * a {@link String}.  Each mnemonic is spelled as the simple name of
+   * the {@link Instruction} class it stands for, with its first
+   * character in upper case.
+   *
+   * <p>An array assigned to this field is never modified; the {@link
+   * #register(String, InstructionFactory)} method assigns a new one.
+   * This field is never {@code null}.</p>
+   *
+   * @see #register(String, InstructionFactory)
+   *
+   * @see #findOpcode(Opcode[], CharSequence, int, int)
+   */
+  private static volatile Opcode[] opcodes = newDefaultOpcodes();
 
 
   /*
@@ -201,10 +218,67 @@ public abstract class Instruction<T> implements Serializable {
    */
 
 
+  /**
+   * Registers an {@link InstructionFactory} under the supplied
+   * mnemonic so that the {@link #valueOf(String)} and {@link
+   * Program#valueOf(java.io.Reader)} methods can create {@link
+   * Instruction}s for it without reflection.  Every {@link
+   * Instruction} in this package is registered already; custom
+   * {@link Instruction}s should be registered before any assembly
+   * text that uses them is loaded.
+   *
+   * <p>The first character of a mnemonic is not case-sensitive, so
+   * {@code instanceOfMVELFilter} and {@code InstanceOfMVELFilter} are
+   * the same mnemonic.</p>
+   *
+   * @param mnemonic the mnemonic; must not be {@code null}, must not
+   * be {@linkplain String#isEmpty() empty} and must not contain
+   * whitespace
+   *
+   * @param factory the {@link InstructionFactory} to register; must
+   * not be {@code null}
+   *
+   * @return the {@link InstructionFactory} previously registered
+   * under the supplied mnemonic, or {@code null}
+   *
+   * @exception IllegalArgumentException if either parameter is {@code
+   * null} or if {@code mnemonic} is empty or contains whitespace
+   */
+  public static final InstructionFactory register(final String mnemonic, final InstructionFactory factory) {
+    if (mnemonic == null) {
+      throw new IllegalArgumentException("mnemonic", new NullPointerException("mnemonic"));
+    }
+    if (factory == null) {
+      throw new IllegalArgumentException("factory", new NullPointerException("factory"));
+    }
+    if (mnemonic.isEmpty()) {
+      throw new IllegalArgumentException("mnemonic.isEmpty()");
+    }
+    for (int i = 0; i < mnemonic.length(); i++) {
+      if (Character.isWhitespace(mnemonic.charAt(i))) {
+        throw new IllegalArgumentException("Bad mnemonic: " + mnemonic);
+      }
+    }
+    final Opcode opcode = new Opcode(normalizeMnemonic(mnemonic), factory);
+    synchronized (OPCODES_LOCK) {
+      final Opcode[] table = opcodes;
+      final Opcode old = findOpcode(table, opcode.mnemonic, 0, opcode.mnemonic.length());
+      opcodes = withOpcode(table, opcode);
+      return old == null ? null : old.factory;
+    }
+  }
+
   /**
    * Parses the supplied {@code line} and returns a new {@link
    * Instruction} instance appropriate for this input.
    *
+   * <p>If an {@link InstructionFactory} has been {@linkplain
+   * #register(String, InstructionFactory) registered} for the line's
+   * mnemonic, it is used.  Otherwise the mnemonic, with its first
+   * character capitalized, is treated as the simple name of a {@link
+   * Class} in this package, and that {@link Class} is loaded and
+   * instantiated reflectively.</p>
+   *
    * @param <T> the type of {@link Object} the resulting {@link
    * Instruction} will work with
    *
@@ -233,50 +307,601 @@ public abstract class Instruction<T> implements Serializable {
    * @exception NoSuchMethodException if a new {@link Instruction}
    * instance could not be created because its constructor could not
    * be found
+   *
+   * @see #register(String, InstructionFactory)
    */
   public static final <T> Instruction<T> valueOf(final String line) throws ClassNotFoundException, IllegalAccessException, InstantiationException, InvocationTargetException, NoSuchMethodException {
     if (line == null) {
       throw new IllegalArgumentException("line", new NullPointerException("line"));
     }
-    final Matcher m = LINE_PATTERN.matcher(line);
-    assert m != null;
-    if (!m.matches()) {
-      throw new IllegalArgumentException("Bad instruction line: " + line);
+    return valueOf(line, 0, line.length());
+  }
+
+  /**
+   * Parses the characters of the supplied {@link CharSequence}
+   * between {@code start} (inclusive) and {@code end} (exclusive) and
+   * returns a new {@link Instruction} instance appropriate for them.
+   * Leading and trailing whitespace is ignored.
+   *
+   * @param <T> the type of {@link Object} the resulting {@link
+   * Instruction} will work with
+   *
+   * @param line the {@link CharSequence} to parse; must not be {@code
+   * null}
+   *
+   * @param start the inclusive index at which to start parsing
+   *
+   * @param end the exclusive index at which to stop parsing
+   *
+   * @return a new {@link Instruction} instance; never {@code null}
+   *
+   * @exception IllegalArgumentException if the line is unparseable
+   *
+   * @exception ClassNotFoundException if a class corresponding to a
+   * portion of the line could not be found
+   *
+   * @exception IllegalAccessException if a new {@link Instruction}
+   * instance could not be created because its constructor was found
+   * but could not be called due to access restrictions
+   *
+   * @exception InstantiationException if a new {@link Instruction}
+   * instance could not be created because the constructor could not
+   * be called
+   *
+   * @exception InvocationTargetException if a new {@link Instruction}
+   * instance could not be created becase the invocation of its
+   * constructor threw an {@link Exception}
+   *
+   * @exception NoSuchMethodException if a new {@link Instruction}
+   * instance could not be created because its constructor could not
+   * be found
+   *
+   * @see #valueOf(String)
+   */
+  static final <T> Instruction<T> valueOf(final CharSequence line, int start, int end) throws ClassNotFoundException, IllegalAccessException, InstantiationException, InvocationTargetException, NoSuchMethodException {
+    assert line != null;
+    while (start < end && Character.isWhitespace(line.charAt(start))) {
+      start++;
+    }
+    while (end > start && Character.isWhitespace(line.charAt(end - 1))) {
+      end--;
+    }
+    if (start >= end) {
+      throw new IllegalArgumentException("Bad instruction line: " + line.subSequence(start, end));
+    }
+    int mnemonicEnd = start;
+    while (mnemonicEnd < end && !Character.isWhitespace(line.charAt(mnemonicEnd))) {
+      mnemonicEnd++;
+    }
+    int operandStart = mnemonicEnd;
+    while (operandStart < end && Character.isWhitespace(line.charAt(operandStart))) {
+      operandStart++;
+    }
+    final Opcode opcode = findOpcode(opcodes, line, start, mnemonicEnd);
+    if (opcode == null) {
+      return newInstruction(line, start, mnemonicEnd, operandStart, end);
+    }
+    final Instruction<T> instruction = opcode.factory.newInstruction(line, operandStart, end);
+    if (instruction == null) {
+      throw new IllegalStateException("factory.newInstruction() == null; factory: " + opcode.factory);
     }
+    return instruction;
+  }
 
-    final String rawCommand = m.group(1);
-    assert rawCommand != null;
-    assert rawCommand.length() >= 2;
+  /**
+   * Returns a new {@link Instruction} for the mnemonic and operands
+   * held by the supplied {@link CharSequence} by loading and
+   * instantiating a {@link Class} in this package reflectively.
+   *
+   * <p>The mnemonic, with its first character capitalized, names the
+   * {@link Class}.  If there are no operands, its zero-argument
+   * constructor is used; otherwise its constructor that takes a
+   * single {@link String} is passed the operands.</p>
+   *
+   * @param <T> the type of {@link Object} the resulting {@link
+   * Instruction} will work with
+   *
+   * @param line the {@link CharSequence} holding the mnemonic and
+   * operands; must not be {@code null}
+   *
+   * @param start the inclusive index of the mnemonic
+   *
+   * @param mnemonicEnd the exclusive index of the mnemonic; must be
+   * greater than {@code start}
+   *
+   * @param operandStart the inclusive index of the operands
+   *
+   * @param end the exclusive index of the operands
+   *
+   * @return a new {@link Instruction} instance; never {@code null}
+   *
+   * @exception IllegalArgumentException if the named {@link Class} is
+   * not an {@link Instruction}
+   *
+   * @exception ClassNotFoundException if a class corresponding to the
+   * mnemonic could not be found
+   *
+   * @exception IllegalAccessException if a new {@link Instruction}
+   * instance could not be created because its constructor was found
+   * but could not be called due to access restrictions
+   *
+   * @exception InstantiationException if a new {@link Instruction}
+   * instance could not be created because the constructor could not
+   * be called
+   *
+   * @exception InvocationTargetException if a new {@link Instruction}
+   * instance could not be created becase the invocation of its
+   * constructor threw an {@link Exception}
+   *
+   * @exception NoSuchMethodException if a new {@link Instruction}
+   * instance could not be created because its constructor could not
+   * be found
+   */
+  private static final <T> Instruction<T> newInstruction(final CharSequence line, final int start, final int mnemonicEnd, final int operandStart, final int end) throws ClassNotFoundException, IllegalAccessException, InstantiationException, InvocationTargetException, NoSuchMethodException {
+    assert line != null;
+    assert start < mnemonicEnd;
 
-    final String command = String.format("com.edugility.objexj.engine.%s%s", rawCommand.substring(0, 1).toUpperCase(), rawCommand.substring(1));
-    assert command != null;
+    final String command = new StringBuilder("com.edugility.objexj.engine.")
+      .append(Character.toUpperCase(line.charAt(start)))
+      .append(line, start + 1, mnemonicEnd)
+      .toString();
     
     final Class<?> instructionClass = Class.forName(command, true, java.lang.Thread.currentThread().getContextClassLoader());
     assert instructionClass != null;
     if (!Instruction.class.isAssignableFrom(instructionClass)) {
       throw new IllegalArgumentException("bad instruction: " + command);
     }
-    
-    String operands = m.group(2);
-    if (operands == null) {
-      operands = "";
-    } else {
-      operands = operands.trim();
-    }
 
-    Object instruction = null;
-    final Constructor<?> c;
-    if (operands.isEmpty()) {
-      c = null;
+    final Object instruction;
+    if (operandStart >= end) {
       instruction = instructionClass.newInstance();
     } else {
-      c = instructionClass.getConstructor(String.class);
+      final Constructor<?> c = instructionClass.getConstructor(String.class);
       assert c != null;
-      instruction = c.newInstance(operands);
+      instruction = c.newInstance(line.subSequence(operandStart, end).toString());
     }
     @SuppressWarnings("unchecked")
     final Instruction<T> temp = (Instruction<T>)instruction;
     return temp;
   }
 
+  /**
+   * Returns the supplied mnemonic with its first character converted
+   * to upper case, which is how it is spelled in the {@link #opcodes}
+   * table.  This mirrors the way the mnemonic is turned into a class
+   * name when it is {@linkplain #newInstruction(CharSequence, int,
+   * int, int, int) resolved reflectively}, so that both {@code
+   * instanceOfMVELFilter} and {@code InstanceOfMVELFilter} find the
+   * same {@link InstructionFactory}.
+   *
+   * @param mnemonic the mnemonic; must not be {@code null} or
+   * {@linkplain String#isEmpty() empty}
+   *
+   * @return the normalized mnemonic; never {@code null}
+   */
+  private static final String normalizeMnemonic(final String mnemonic) {
+    assert mnemonic != null;
+    assert !mnemonic.isEmpty();
+    final char first = mnemonic.charAt(0);
+    final char upper = Character.toUpperCase(first);
+    if (first == upper) {
+      return mnemonic;
+    }
+    return upper + mnemonic.substring(1);
+  }
+
+  /**
+   * Creates and returns a new {@link #opcodes} table holding an
+   * {@link Opcode} for every {@link Instruction} in this package that
+   * can be written as text.
+   *
+   * <p>Only the operands of {@link Instruction}s that keep them, such
+   * as the expression of an {@link MVELFilter}, are copied into
+   * {@link String}s; numeric operands are parsed where they lie.</p>
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a new, non-{@code null} array of {@link Opcode}s
+   *
+   * @see #opcodes
+   */
+  private static final Opcode[] newDefaultOpcodes() {
+    final Opcode[] table = new Opcode[64];
+    putOpcode(table, new Opcode("Match", new InstructionFactory() {
+        @Override
+        public final <T> Instruction<T> newInstruction(final CharSequence line, final int start, final int end) {
+          requireNoOperands(line, start, end);
+          return new Match<T>();
+        }
+      }));
+    putOpcode(table, new Opcode("BeginInput", new InstructionFactory() {
+        @Override
+        public final <T> Instruction<T> newInstruction(final CharSequence line, final int start, final int end) {
+          requireNoOperands(line, start, end);
+          return new BeginInput<T>();
+        }
+      }));
+    putOpcode(table, new Opcode("EndInput", new InstructionFactory() {
+        @Override
+        public final <T> Instruction<T> newInstruction(final CharSequence line, final int start, final int end) {
+          requireNoOperands(line, start, end);
+          return new EndInput<T>();
+        }
+      }));
+    putOpcode(table, new Opcode("BeginAtomic", new InstructionFactory() {
+        @Override
+        public final <T> Instruction<T> newInstruction(final CharSequence line, final int start, final int end) {
+          requireNoOperands(line, start, end);
+          return new BeginAtomic<T>();
+        }
+      }));
+    putOpcode(table, new Opcode("EndAtomic", new InstructionFactory() {
+        @Override
+        public final <T> Instruction<T> newInstruction(final CharSequence line, final int start, final int end) {
+          requireNoOperands(line, start, end);
+          return new EndAtomic<T>();
+        }
+      }));
+    putOpcode(table, new Opcode("Jump", new InstructionFactory() {
+        @Override
+        public final <T> Instruction<T> newInstruction(final CharSequence line, final int start, final int end) {
+          return new Jump<T>(line, start, end);
+        }
+      }));
+    putOpcode(table, new Opcode("Split", new InstructionFactory() {
+        @Override
+        public final <T> Instruction<T> newInstruction(final CharSequence line, final int start, final int end) {
+          return new Split<T>(line, start, end);
+        }
+      }));
+    putOpcode(table, new Opcode("CountedSplit", new InstructionFactory() {
+        @Override
+        public final <T> Instruction<T> newInstruction(final CharSequence line, final int start, final int end) {
+          return new CountedSplit<T>(line, start, end);
+        }
+      }));
+    putOpcode(table, new Opcode("IncrementCounter", new InstructionFactory() {
+        @Override
+        public final <T> Instruction<T> newInstruction(final CharSequence line, final int start, final int end) {
+          return new IncrementCounter<T>(ResetCounter.parseRegister(line, start, end));
+        }
+      }));
+    putOpcode(table, new Opcode("ResetCounter", new InstructionFactory() {
+        @Override
+        public final <T> Instruction<T> newInstruction(final CharSequence line, final int start, final int end) {
+          return new ResetCounter<T>(ResetCounter.parseRegister(line, start, end));
+        }
+      }));
+    putOpcode(table, new Opcode("MarkPosition", new InstructionFactory() {
+        @Override
+        public final <T> Instruction<T> newInstruction(final CharSequence line, final int start, final int end) {
+          return new MarkPosition<T>(ResetCounter.parseRegister(line, start, end));
+        }
+      }));
+    putOpcode(table, new Opcode("RequireProgress", new InstructionFactory() {
+        @Override
+        public final <T> Instruction<T> newInstruction(final CharSequence line, final int start, final int end) {
+          return new RequireProgress<T>(ResetCounter.parseRegister(line, start, end));
+        }
+      }));
+    putOpcode(table, new Opcode("Save", new InstructionFactory() {
+        @Override
+        public final <T> Instruction<T> newInstruction(final CharSequence line, final int start, final int end) {
+          return new Save<T>(requireOperands(line, start, end));
+        }
+      }));
+    putOpcode(table, new Opcode("Stop", new InstructionFactory() {
+        @Override
+        public final <T> Instruction<T> newInstruction(final CharSequence line, final int start, final int end) {
+          return new Stop<T>(requireOperands(line, start, end));
+        }
+      }));
+    putOpcode(table, new Opcode("MVELFilter", new InstructionFactory() {
+        @Override
+        public final <T> Instruction<T> newInstruction(final CharSequence line, final int start, final int end) {
+          return new MVELFilter<T>(requireOperands(line, start, end));
+        }
+      }));
+    putOpcode(table, new Opcode("InstanceOfMVELFilter", new InstructionFactory() {
+        @Override
+        public final <T> Instruction<T> newInstruction(final CharSequence line, final int start, final int end) {
+          return new InstanceOfMVELFilter<T>(requireOperands(line, start, end));
+        }
+      }));
+    putOpcode(table, new Opcode("NumberRangeFilter", new InstructionFactory() {
+        @Override
+        public final <T> Instruction<T> newInstruction(final CharSequence line, final int start, final int end) {
+          return new NumberRangeFilter<T>(requireOperands(line, start, end));
+        }
+      }));
+    return table;
+  }
+
+  /**
+   * Returns a new {@link #opcodes} table holding every {@link Opcode}
+   * in the supplied table together with the supplied {@link Opcode},
+   * which replaces any {@link Opcode} with the same {@linkplain
+   * Opcode#mnemonic mnemonic}.
+   *
+   * @param table the table to copy; must not be {@code null}; will
+   * not be modified
+   *
+   * @param opcode the {@link Opcode} to add; must not be {@code null}
+   *
+   * @return a new, non-{@code null} table
+   */
+  private static final Opcode[] withOpcode(final Opcode[] table, final Opcode opcode) {
+    assert table != null;
+    assert opcode != null;
+    int count = 1;
+    for (final Opcode existing : table) {
+      if (existing != null && !existing.mnemonic.equals(opcode.mnemonic)) {
+        count++;
+      }
+    }
+    int capacity = table.length;
+    while (capacity < 2 * count) {
+      capacity <<= 1;
+    }
+    final Opcode[] newTable = new Opcode[capacity];
+    for (final Opcode existing : table) {
+      if (existing != null && !existing.mnemonic.equals(opcode.mnemonic)) {
+        putOpcode(newTable, existing);
+      }
+    }
+    putOpcode(newTable, opcode);
+    return newTable;
+  }
+
+  /**
+   * Adds the supplied {@link Opcode} to the supplied table, which
+   * must have room for it and must not already hold an {@link
+   * Opcode} with the same {@linkplain Opcode#mnemonic mnemonic}.
+   *
+   * @param table the table to modify; must not be {@code null} and
+   * its length must be a power of two
+   *
+   * @param opcode the {@link Opcode} to add; must not be {@code null}
+   */
+  private static final void putOpcode(final Opcode[] table, final Opcode opcode) {
+    assert table != null;
+    assert opcode != null;
+    final int mask = table.length - 1;
+    int i = spread(opcode.mnemonic.hashCode()) & mask;
+    while (table[i] != null) {
+      assert !table[i].mnemonic.equals(opcode.mnemonic);
+      i = (i + 1) & mask;
+    }
+    table[i] = opcode;
+  }
+
+  /**
+   * Returns the {@link Opcode} in the supplied table whose {@linkplain
+   * Opcode#mnemonic mnemonic} is spelled by the characters of the
+   * supplied {@link CharSequence} between {@code start} (inclusive)
+   * and {@code end} (exclusive), or {@code null} if there is no such
+   * {@link Opcode}.  The first of those characters is compared as if
+   * it were in upper case.
+   *
+   * <p>This method does not create any objects.</p>
+   *
+   * @param table the table to search; must not be {@code null} and
+   * must have at least one empty slot
+   *
+   * @param text the {@link CharSequence} holding the mnemonic; must
+   * not be {@code null}
+   *
+   * @param start the inclusive index of the mnemonic
+   *
+   * @param end the exclusive index of the mnemonic
+   *
+   * @return the matching {@link Opcode}, or {@code null}
+   */
+  private static final Opcode findOpcode(final Opcode[] table, final CharSequence text, final int start, final int end) {
+    assert table != null;
+    assert text != null;
+    if (start >= end) {
+      return null;
+    }
+    // The same hash String.hashCode() computes for the normalized
+    // mnemonic.
+    int hash = Character.toUpperCase(text.charAt(start));
+    for (int i = start + 1; i < end; i++) {
+      hash = 31 * hash + text.charAt(i);
+    }
+    final int mask = table.length - 1;
+    for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+      final Opcode opcode = table[i];
+      if (opcode == null || opcode.matches(text, start, end)) {
+        return opcode;
+      }
+    }
+  }
+
+  /**
+   * Mixes the high bits of the supplied hash code into its low bits,
+   * which are the only ones an {@link #opcodes} table of modest
+   * length uses.
+   *
+   * @param hash the hash code to spread
+   *
+   * @return the spread hash code
+   */
+  private static final int spread(final int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * Parses the decimal integer, optionally preceded by a {@code -} or
+   * {@code +} sign, spelled by the characters of the supplied {@link
+   * CharSequence} between {@code start} (inclusive) and {@code end}
+   * (exclusive), without copying them into a {@link String}.
+   *
+   * @param text the {@link CharSequence} to parse; must not be {@code
+   * null}
+   *
+   * @param start the inclusive index at which to start parsing
+   *
+   * @param end the exclusive index at which to stop parsing
+   *
+   * @return the parsed {@code int}
+   *
+   * @exception NumberFormatException if the characters do not spell
+   * an {@code int}, as described in the documentation for the {@link
+   * Integer#parseInt(String)} method
+   */
+  static final int parseInt(final CharSequence text, final int start, final int end) {
+    assert text != null;
+    int i = start;
+    boolean negative = false;
+    if (i < end) {
+      final char sign = text.charAt(i);
+      if (sign == '-') {
+        negative = true;
+        i++;
+      } else if (sign == '+') {
+        i++;
+      }
+    }
+    if (i >= end) {
+      throw new NumberFormatException("For input string: \"" + text.subSequence(start, end) + "\"");
+    }
+    final long limit = negative ? Integer.MIN_VALUE : -(long)Integer.MAX_VALUE;
+    long result = 0L;
+    for (; i < end; i++) {
+      final int digit = Character.digit(text.charAt(i), 10);
+      result = 10L * result - digit;
+      if (digit < 0 || result < limit) {
+        throw new NumberFormatException("For input string: \"" + text.subSequence(start, end) + "\"");
+      }
+    }
+    return (int)(negative ? result : -result);
+  }
+
+  /**
+   * Ensures that there are no operands between {@code start}
+   * (inclusive) and {@code end} (exclusive) in the supplied {@link
+   * CharSequence}.
+   *
+   * @param line the {@link CharSequence} holding the operands; must
+   * not be {@code null}
+   *
+   * @param start the inclusive index of the operands
+   *
+   * @param end the exclusive index of the operands
+   *
+   * @exception IllegalArgumentException if there are operands
+   */
+  private static final void requireNoOperands(final CharSequence line, final int start, final int end) {
+    assert line != null;
+    if (start < end) {
+      throw new IllegalArgumentException("Unexpected operands: " + line.subSequence(start, end));
+    }
+  }
+
+  /**
+   * Ensures that there are operands between {@code start}
+   * (inclusive) and {@code end} (exclusive) in the supplied {@link
+   * CharSequence} and returns them as a {@link String}, for an {@link
+   * Instruction} that keeps them.
+   *
+   * @param line the {@link CharSequence} holding the operands; must
+   * not be {@code null}
+   *
+   * @param start the inclusive index of the operands
+   *
+   * @param end the exclusive index of the operands
+   *
+   * @return the non-{@code null} operands as a {@link String}
+   *
+   * @exception IllegalArgumentException if there are no operands
+   */
+  private static final String requireOperands(final CharSequence line, final int start, final int end) {
+    assert line != null;
+    if (start >= end) {
+      throw new IllegalArgumentException("Missing operands");
+    }
+    return line.subSequence(start, end).toString();
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * An immutable pairing of a normalized mnemonic and the {@link
+   * InstructionFactory} registered under it.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   *
+   * @see Instruction#opcodes
+   */
+  private static final class Opcode {
+
+    /**
+     * The mnemonic, with its first character in upper case.  This
+     * field is never {@code null}.
+     */
+    private final String mnemonic;
+
+    /**
+     * The {@link InstructionFactory} registered under the {@link
+     * #mnemonic}.  This field is never {@code null}.
+     */
+    private final InstructionFactory factory;
+
+    /**
+     * Creates a new {@link Opcode}.
+     *
+     * @param mnemonic the normalized mnemonic; must not be {@code
+     * null} or empty
+     *
+     * @param factory the {@link InstructionFactory}; must not be
+     * {@code null}
+     */
+    private Opcode(final String mnemonic, final InstructionFactory factory) {
+      super();
+      assert mnemonic != null;
+      assert !mnemonic.isEmpty();
+      assert factory != null;
+      this.mnemonic = mnemonic;
+      this.factory = factory;
+    }
+
+    /**
+     * Returns {@code true} if the characters of the supplied {@link
+     * CharSequence} between {@code start} (inclusive) and {@code end}
+     * (exclusive) spell this {@link Opcode}'s {@linkplain #mnemonic
+     * mnemonic}, comparing the first of them as if it were in upper
+     * case.
+     *
+     * @param text the {@link CharSequence} to compare; must not be
+     * {@code null}
+     *
+     * @param start the inclusive index of the characters; must be
+     * less than {@code end}
+     *
+     * @param end the exclusive index of the characters
+     *
+     * @return whether the characters spell this {@link Opcode}'s
+     * mnemonic
+     */
+    private final boolean matches(final CharSequence text, final int start, final int end) {
+      final int length = this.mnemonic.length();
+      if (end - start != length || Character.toUpperCase(text.charAt(start)) != this.mnemonic.charAt(0)) {
+        return false;
+      }
+      for (int i = 1; i < length; i++) {
+        if (text.charAt(start + i) != this.mnemonic.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+  }
+
 }
@@ -114,6 +114,62 @@ public class InstructionContext<T> implements Serializable {
     return this.thread.getVariables();
   }
 
+  /**
+   * Returns the {@link MatchStats} the {@link Thread} this {@link
+   * InstructionContext} wraps records its work in, or {@code null}
+   * if it records nothing.
+   *
+   * @return a {@link MatchStats}, or {@code null}
+   *
+   * @see Thread#getStats()
+   */
+  final MatchStats getStats() {
+    return this.thread.getStats();
+  }
+
+  /**
+   * Returns the remembered result of the {@link Filter} the {@link
+   * Thread} this {@link InstructionContext} wraps is about to
+   * execute, for the current item.
+   *
+   * @return {@link FilterMemo#ACCEPTED}, {@link FilterMemo#REJECTED}
+   * or {@link FilterMemo#UNKNOWN}
+   *
+   * @see Thread#recallFilterResult()
+   */
+  final int recallFilterResult() {
+    return this.thread.recallFilterResult();
+  }
+
+  /**
+   * Remembers the result of the {@link Filter} the {@link Thread}
+   * this {@link InstructionContext} wraps is executing, for the
+   * current item, if that {@link Filter} is memoizable.
+   *
+   * @param accepted whether the {@link Filter} accepted the item
+   *
+   * @see Thread#rememberFilterResult(boolean)
+   */
+  final void rememberFilterResult(final boolean accepted) {
+    this.thread.rememberFilterResult(accepted);
+  }
+
+  /**
+   * Notifies the {@link MatchListener}, if any, of the {@link Thread}
+   * this {@link InstructionContext} wraps that the supplied {@link
+   * Filter} accepted or rejected the current item.
+   *
+   * @param filter the {@link Filter} that was evaluated; must not be
+   * {@code null}
+   *
+   * @param accepted whether the {@link Filter} accepted the item
+   *
+   * @see Thread#filterEvaluated(Filter, boolean)
+   */
+  final void filterEvaluated(final Filter<?> filter, final boolean accepted) {
+    this.thread.filterEvaluated(filter, accepted);
+  }
+
   /**
    * Creates a new {@link Thread} and schedules it for execution
    * beginning at the supplied {@code programCounterIndex}.
@@ -210,6 +266,119 @@ public class InstructionContext<T> implements Serializable {
     this.thread.stop(key);
   }
 
+  /**
+   * Records the current input position in the counter register
+   * identified by the supplied {@code register} number.
+   *
+   * @param register the zero-based register number; must not be
+   * negative
+   *
+   * @exception IllegalArgumentException if {@code register} is
+   * negative
+   *
+   * @exception IllegalStateException if the underlying {@link Thread}
+   * {@linkplain Thread#isViable() is not viable}
+   *
+   * @see Thread#markPosition(int)
+   */
+  public final void markPosition(final int register) {
+    this.thread.markPosition(register);
+  }
+
+  /**
+   * Returns {@code true} if no input has been consumed since the
+   * position was {@linkplain #markPosition(int) recorded} in the
+   * counter register identified by the supplied {@code register}
+   * number.
+   *
+   * @param register the zero-based register number; must not be
+   * negative
+   *
+   * @return {@code true} if the input position is unchanged; {@code
+   * false} otherwise
+   *
+   * @exception IllegalArgumentException if {@code register} is
+   * negative
+   *
+   * @exception IllegalStateException if the underlying {@link Thread}
+   * {@linkplain Thread#isViable() is not viable}
+   *
+   * @see Thread#isAtMarkedPosition(int)
+   */
+  public final boolean isAtMarkedPosition(final int register) {
+    return this.thread.isAtMarkedPosition(register);
+  }
+
+  /**
+   * Records that execution is entering an atomic group.
+   *
+   * @exception IllegalStateException if the underlying {@link Thread}
+   * {@linkplain Thread#isViable() is not viable}
+   *
+   * @see Thread#beginAtomic()
+   */
+  public final void beginAtomic() {
+    this.thread.beginAtomic();
+  }
+
+  /**
+   * Records that execution has matched the innermost atomic group it
+   * {@linkplain #beginAtomic() entered}, discarding any alternative
+   * ways of matching it.
+   *
+   * @exception IllegalStateException if the underlying {@link Thread}
+   * {@linkplain Thread#isViable() is not viable} or is not inside an
+   * atomic group
+   *
+   * @see Thread#endAtomic()
+   */
+  public final void endAtomic() {
+    this.thread.endAtomic();
+  }
+
+  /**
+   * Returns the value of the counter register identified by the
+   * supplied {@code register} number.
+   *
+   * @param register the zero-based register number; must not be
+   * negative
+   *
+   * @return the value of the register; {@code 0} if it has never
+   * been {@linkplain #setCounter(int, int) set}
+   *
+   * @exception IllegalArgumentException if {@code register} is
+   * negative
+   *
+   * @exception IllegalStateException if the underlying {@link Thread}
+   * {@linkplain Thread#isViable() is not viable}
+   *
+   * @see Thread#getCounter(int)
+   */
+  public final int getCounter(final int register) {
+    return this.thread.getCounter(register);
+  }
+
+  /**
+   * Sets the value of the counter register identified by the supplied
+   * {@code register} number.
+   *
+   * @param register the zero-based register number; must not be
+   * negative
+   *
+   * @param value the new value of the register
+   *
+   * @exception IllegalArgumentException if {@code register} is
+   * negative
+   *
+   * @exception IllegalStateException if the underlying {@link Thread}
+   * {@linkplain Thread#isViable() is not viable}
+   *
+   * @see Thread#setCounter(int, int)
+   */
+  public final void setCounter(final int register, final int value) {
+    this.thread.setCounter(register, value);
+  }
+
   /**
    * Returns {@code true} if the next call to {@link #read()} will
    * read the first item in the input.
@@ -313,6 +482,52 @@ public class InstructionContext<T> implements Serializable {
     return this.thread.read();
   }
 
+  /**
+   * Returns {@code true} if this {@link InstructionContext} can
+   * {@linkplain #read() read an item in the input} and that item is
+   * a {@link Number}.
+   *
+   * @return {@code true} if this {@link InstructionContext} can read
+   * a {@link Number}; {@code false} otherwise
+   *
+   * @see Thread#canReadNumber()
+   */
+  public final boolean canReadNumber() {
+    return this.thread.canReadNumber();
+  }
+
+  /**
+   * Reads the current item in the input as a {@code long} and returns
+   * it, without boxing it if possible.
+   *
+   * @return the current item in the input as a {@code long}
+   *
+   * @exception IllegalStateException if this {@link
+   * InstructionContext} {@linkplain #canReadNumber() cannot read a
+   * number}
+   *
+   * @see Thread#readLong()
+   */
+  public final long readLong() {
+    return this.thread.readLong();
+  }
+
+  /**
+   * Reads the current item in the input as a {@code double} and
+   * returns it, without boxing it if possible.
+   *
+   * @return the current item in the input as a {@code double}
+   *
+   * @exception IllegalStateException if this {@link
+   * InstructionContext} {@linkplain #canReadNumber() cannot read a
+   * number}
+   *
+   * @see Thread#readDouble()
+   */
+  public final double readDouble() {
+    return this.thread.readDouble();
+  }
+
   /**
    * Causes this {@link InstructionContext} to become invalid.
    *
@@ -0,0 +1,79 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+/**
+ * A factory for {@link Instruction}s that is {@linkplain
+ * Instruction#register(String, InstructionFactory) registered} under a
+ * mnemonic so that lines of assembly text like {@code split 1, +3}
+ * can be turned into {@link Instruction}s without reflection.
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see Instruction#register(String, InstructionFactory)
+ *
+ * @see Instruction#valueOf(String)
+ *
+ * @see Program#valueOf(java.io.Reader)
+ */
+public interface InstructionFactory {
+
+  /**
+   * Creates a new {@link Instruction} from the operands found between
+   * {@code start} (inclusive) and {@code end} (exclusive) in the
+   * supplied {@link CharSequence}.  Implementations of this method
+   * must not return {@code null}.
+   *
+   * <p>The operands are those that followed the mnemonic, with
+   * leading and trailing whitespace removed; {@code start} is equal
+   * to {@code end} if there were none.  The supplied {@link
+   * CharSequence} holds the whole line, and may be a buffer that will
+   * be reused once this method returns, so implementations must not
+   * retain it.  They should parse what they need where it lies, and
+   * copy out only what they must keep, for example with {@code
+   * line.subSequence(start, end).toString()}.</p>
+   *
+   * @param <T> the type of {@link Object} the new {@link Instruction}
+   * will work with
+   *
+   * @param line the {@link CharSequence} holding the operands; never
+   * {@code null}
+   *
+   * @param start the inclusive index of the operands
+   *
+   * @param end the exclusive index of the operands
+   *
+   * @return a new, non-{@code null} {@link Instruction}
+   *
+   * @exception IllegalArgumentException if the operands could not be
+   * parsed
+   */
+  public <T> Instruction<T> newInstruction(final CharSequence line, final int start, final int end);
+
+}
@@ -29,9 +29,6 @@ package com.edugility.objexj.engine;
 
 import java.util.List;
 
-import java.util.logging.Level;
-import java.util.logging.Logger;
-
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -90,16 +87,38 @@ public class Jump<T> extends Instruction<T> {
    * operand} {@link String} could not be parsed
    */
   public Jump(final String operand) {
+    this(operand, 0, operand == null ? 0 : operand.length());
+  }
+
+  /**
+   * Creates a new {@link Jump} instruction from the operands found
+   * between {@code start} (inclusive) and {@code end} (exclusive) in
+   * the supplied {@link CharSequence}, without copying them into a
+   * {@link String}.
+   *
+   * @param operand a {@link CharSequence} containing the operands for
+   * this {@link Jump} instruction; must not be {@code null}
+   *
+   * @param start the inclusive index of the operands
+   *
+   * @param end the exclusive index of the operands
+   *
+   * @exception IllegalArgumentException if the operands could not be
+   * parsed
+   *
+   * @see #Jump(String)
+   */
+  Jump(final CharSequence operand, final int start, final int end) {
     super();
     if (operand == null) {
       throw new IllegalArgumentException("operand", new NullPointerException("operand"));
     }
-    final Matcher m = OPERAND_PATTERN.matcher(operand);
+    final Matcher m = OPERAND_PATTERN.matcher(operand).region(start, end);
     if (m.find()) {
-      this.programLocation = Integer.parseInt(m.group(2));
-      this.relative = "+".equals(m.group(1)) || this.programLocation < 0;
+      this.programLocation = parseInt(operand, m.start(2), m.end(2));
+      this.relative = m.start(1) < m.end(1) || this.programLocation < 0;
     } else {
-      throw new IllegalArgumentException("Bad operand: " + operand);
+      throw new IllegalArgumentException("Bad operand: " + operand.subSequence(start, end));
     }
   }
 
@@ -145,19 +164,10 @@ public class Jump<T> extends Instruction<T> {
    */
   @Override
   public void execute(final InstructionContext<? extends T> context) {
-    final String className = this.getClass().getName();
-    final Logger logger = this.getLogger();
-    final boolean finer = logger != null && logger.isLoggable(Level.FINER);
-    if (finer) {
-      logger.entering(className, "execute", context);
-    }      
     if (context == null) {
       throw new IllegalArgumentException("context");
     }
     context.jump(this.programLocation, this.relative);
-    if (finer) {
-      logger.exiting(className, "execute");
-    }
   }
 
   /**
@@ -0,0 +1,173 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link MatchListener} that traces what the {@link Engine} does to
+ * a {@link Logger}.
+ *
+ * <p>This is the trace the {@link Engine} used to write at {@link
+ * Level#FINER} unconditionally; {@linkplain Engine#Engine(MatchListener)
+ * bind} a {@link LoggingMatchListener} to an {@link Engine} to get it
+ * back.</p>
+ *
+ * @param <T> the type of {@link Object} the {@link Thread}s being
+ * reported on read
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+public class LoggingMatchListener<T> extends MatchListener<T> {
+
+  /**
+   * The {@link Logger} to trace to.  This field is never {@code
+   * null}.
+   */
+  private final Logger logger;
+
+  /**
+   * The {@link Level} to trace at.  This field is never {@code
+   * null}.
+   */
+  private final Level level;
+
+  /**
+   * Creates a new {@link LoggingMatchListener} that traces at {@link
+   * Level#FINER} to the {@link Logger} named after this class.
+   */
+  public LoggingMatchListener() {
+    this(Logger.getLogger(LoggingMatchListener.class.getName()), Level.FINER);
+  }
+
+  /**
+   * Creates a new {@link LoggingMatchListener}.
+   *
+   * @param logger the {@link Logger} to trace to; must not be {@code
+   * null}
+   *
+   * @param level the {@link Level} to trace at; must not be {@code
+   * null}
+   *
+   * @exception IllegalArgumentException if either parameter is {@code
+   * null}
+   */
+  public LoggingMatchListener(final Logger logger, final Level level) {
+    super();
+    if (logger == null) {
+      throw new IllegalArgumentException("logger", new NullPointerException("logger"));
+    }
+    if (level == null) {
+      throw new IllegalArgumentException("level", new NullPointerException("level"));
+    }
+    this.logger = logger;
+    this.level = level;
+  }
+
+  /**
+   * Logs that the supplied {@code parent} {@link Thread} forked the
+   * supplied {@code child} {@link Thread}.
+   *
+   * @param parent the {@link Thread} that forked; never {@code null}
+   *
+   * @param child the new {@link Thread}; never {@code null}
+   */
+  @Override
+  public void threadForked(final Thread<? extends T> parent, final Thread<? extends T> child) {
+    if (this.logger.isLoggable(this.level)) {
+      this.logger.logp(this.level, this.getClass().getName(), "threadForked", "Thread {0} forked thread {1}", new Object[] { parent, child });
+    }
+  }
+
+  /**
+   * Logs that the supplied {@link Thread} is about to execute the
+   * supplied {@link Instruction}.
+   *
+   * @param thread the {@link Thread} in question; never {@code null}
+   *
+   * @param instruction the {@link Instruction} about to be executed;
+   * never {@code null}
+   *
+   * @param programCounter the index of the {@link Instruction} in its
+   * {@link Program}
+   *
+   * @param itemPointer the index of the item the {@link Thread} will
+   * read next
+   */
+  @Override
+  public void step(final Thread<? extends T> thread, final Instruction<?> instruction, final int programCounter, final int itemPointer) {
+    if (this.logger.isLoggable(this.level)) {
+      this.logger.logp(this.level, this.getClass().getName(), "step", "Before running Thread {0} {1} ({2}) at input position {3}", new Object[] { thread, instruction, Integer.valueOf(programCounter), Integer.valueOf(itemPointer) });
+    }
+  }
+
+  /**
+   * Logs that the supplied {@link Filter} accepted or rejected an
+   * item.
+   *
+   * @param thread the {@link Thread} in question; never {@code null}
+   *
+   * @param filter the {@link Filter} that was evaluated; never {@code
+   * null}
+   *
+   * @param accepted whether the {@link Filter} accepted the item
+   */
+  @Override
+  public void filterEvaluated(final Thread<? extends T> thread, final Filter<?> filter, final boolean accepted) {
+    if (this.logger.isLoggable(this.level)) {
+      this.logger.logp(this.level, this.getClass().getName(), "filterEvaluated", "Thread {0}: {1} returned {2}", new Object[] { thread, filter, Boolean.valueOf(accepted) });
+    }
+  }
+
+  /**
+   * Logs that the supplied {@link Thread} found a match.
+   *
+   * @param thread the {@link Thread} that matched; never {@code null}
+   */
+  @Override
+  public void matchFound(final Thread<? extends T> thread) {
+    if (this.logger.isLoggable(this.level)) {
+      this.logger.logp(this.level, this.getClass().getName(), "matchFound", "Thread {0} matched", thread);
+    }
+  }
+
+  /**
+   * Logs that the supplied {@link Thread} died.
+   *
+   * @param thread the {@link Thread} that died; never {@code null}
+   */
+  @Override
+  public void threadDied(final Thread<? extends T> thread) {
+    if (this.logger.isLoggable(this.level)) {
+      this.logger.logp(this.level, this.getClass().getName(), "threadDied", "Thread {0} is no longer viable", thread);
+    }
+  }
+
+}
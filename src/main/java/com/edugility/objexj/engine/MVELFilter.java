@@ -30,9 +30,6 @@ package com.edugility.objexj.engine;
 import java.util.HashMap;
 import java.util.Map;
 
-import java.util.logging.Level;
-import java.util.logging.Logger;
-
 import org.mvel2.CompileException; // for javadoc only
 import org.mvel2.MVEL;
 
@@ -76,11 +73,23 @@ public class MVELFilter<T> extends Filter<T> {
    * The {@linkplain MVEL#compileExpression(String) compiled} form of
    * the {@linkplain #mvelExpressionSource MVEL source code}.
    *
-   * <p>This field may be {@code null}.</p>
+   * <p>This field may be {@code null}.  It may also be {@code null}
+   * when the {@link #mvelExpressionSource} field is not, in which
+   * case the source code will be compiled on first use.</p>
    *
    * @see #mvelExpressionSource
+   *
+   * @see #getMVELExpression()
+   */
+  protected volatile Object mvelExpression;
+
+  /**
+   * The {@link ConditionEffect} of this {@link MVELFilter}'s MVEL
+   * expression, or {@code null} if that has not yet been worked out.
+   *
+   * @see #getConditionEffect()
    */
-  protected Object mvelExpression;
+  private transient volatile ConditionEffect conditionEffect;
 
   /**
    * Creates a new {@link MVELFilter}.  This constructor is intended
@@ -113,6 +122,68 @@ public class MVELFilter<T> extends Filter<T> {
     }
   }
 
+  /**
+   * Returns the {@linkplain MVEL#compileExpression(String) compiled}
+   * form of the {@linkplain #mvelExpressionSource MVEL source code},
+   * compiling it first if that has not yet happened.
+   *
+   * <p>This method may return {@code null} if there is no source
+   * code.</p>
+   *
+   * @return the compiled MVEL expression, or {@code null}
+   *
+   * @exception CompileException if the source code could not be
+   * compiled
+   */
+  protected final Object getMVELExpression() {
+    Object expression = this.mvelExpression;
+    if (expression == null && this.mvelExpressionSource != null) {
+      expression = MVEL.compileExpression(this.mvelExpressionSource);
+      this.mvelExpression = expression;
+    }
+    return expression;
+  }
+
+  /**
+   * Returns {@code true} if this {@link MVELFilter} has {@linkplain
+   * #mvelExpressionSource MVEL source code}.
+   *
+   * @return {@code true} if this {@link MVELFilter} has MVEL source
+   * code; {@code false} otherwise
+   */
+  @Override
+  final boolean hasMVELExpression() {
+    return this.mvelExpressionSource != null;
+  }
+
+  /**
+   * Returns the {@link ConditionEffect} of this {@link MVELFilter}'s
+   * MVEL expression: whether it depends on nothing but the item it is
+   * evaluated against, whether it also reads variables, or whether
+   * it may assign them.  The {@link Engine} uses this to decide,
+   * among other things, whether the results of this {@link
+   * MVELFilter} may be {@linkplain FilterMemo remembered}.
+   *
+   * <p>An {@link MVELFilter} with no MVEL expression is {@linkplain
+   * ConditionEffect#PURE pure}.  MVEL expressions are assumed not to
+   * modify the items they are evaluated against.</p>
+   *
+   * <p>The answer is worked out once and then cached.</p>
+   *
+   * @return the {@link ConditionEffect} of this {@link MVELFilter};
+   * never {@code null}
+   *
+   * @see ConditionAnalyzer
+   */
+  public final ConditionEffect getConditionEffect() {
+    ConditionEffect conditionEffect = this.conditionEffect;
+    if (conditionEffect == null) {
+      conditionEffect = ConditionAnalyzer.analyze(this.mvelExpressionSource);
+      this.conditionEffect = conditionEffect;
+    }
+    return conditionEffect;
+  }
+
   /**
    * Accepts or rejects the supplied {@link InstructionContext} during
    * execution by making sure that it {@linkplain
@@ -133,17 +204,11 @@ public class MVELFilter<T> extends Filter<T> {
    */
   @Override
   public boolean accept(final InstructionContext<? extends T> context) {
-    final String className = this.getClass().getName();
-    final Logger logger = this.getLogger();
-    final boolean finer = logger != null && logger.isLoggable(Level.FINER);
-    if (finer) {
-      logger.entering(className, "accept", context);
-    }
     if (context == null) {
       throw new IllegalArgumentException("context", new NullPointerException("context == null"));
     }
     final boolean returnValue;
-    if (this.mvelExpression == null) {
+    if (this.mvelExpressionSource == null) {
       returnValue = context.canRead(); // no MVEL expression means no additional constraints
     } else {
       final Map<Object, Object> variables = context.getVariables();
@@ -152,9 +217,6 @@ public class MVELFilter<T> extends Filter<T> {
       }
       returnValue = context.canRead() && this.accept(context.read(), variables);
     }
-    if (finer) {
-      logger.exiting(className, "accept", Boolean.valueOf(returnValue));
-    }
     return returnValue;
   }
 
@@ -195,44 +257,36 @@ public class MVELFilter<T> extends Filter<T> {
    * {@code null}
    */
   public boolean accept(final T item, final Map<Object, Object> variables) {
-    final String className = this.getClass().getName();
-    final Logger logger = this.getLogger();
-    final boolean finer = logger != null && logger.isLoggable(Level.FINER);
-    if (finer) {
-      logger.entering(className, "accept", new Object[] { item, variables });
-    }
     if (variables == null) {
       throw new IllegalArgumentException("variables", new NullPointerException("variables"));
     }
+    final Object mvelExpression = this.getMVELExpression();
     final boolean returnValue;
-    if (this.mvelExpression == null) {
+    if (mvelExpression == null) {
       returnValue = true;
     } else {
+      // Only a condition that may write variables needs them put
+      // back the way they were if it rejects the item.
+      final boolean writes = this.getConditionEffect() == ConditionEffect.WRITES_VARIABLES;
       final Map<Object, Object> oldVariables;
-      if (!variables.isEmpty()) {
+      if (writes && !variables.isEmpty()) {
         oldVariables = new HashMap<Object, Object>(variables);
       } else {
         oldVariables = null;
       }
-      final Object executionResult = MVEL.executeExpression(this.mvelExpression, item, new MapVariableResolverFactory(variables));
-      if (finer) {
-        logger.logp(Level.FINER, className, "accept", "Execution result: {0}; variables after execution: {1}", new Object[] { executionResult, variables });
-      }
+      final Object executionResult = MVEL.executeExpression(mvelExpression, item, new MapVariableResolverFactory(variables));
       if (executionResult instanceof Boolean) {
         returnValue = ((Boolean)executionResult).booleanValue();
       } else {
         returnValue = true;
       }
-      if (!returnValue) {
+      if (writes && !returnValue) {
         variables.clear();
         if (oldVariables != null && !oldVariables.isEmpty()) {
           variables.putAll(oldVariables);
         }
       }
     }
-    if (finer) {
-      logger.exiting(className, "accept", Boolean.valueOf(returnValue));
-    }
     return returnValue;
   }
 
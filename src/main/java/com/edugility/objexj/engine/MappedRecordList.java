@@ -0,0 +1,481 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+
+import java.nio.channels.FileChannel;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An unmodifiable {@link java.util.List} of items decoded lazily from
+ * a file of fixed-size binary records that has been {@linkplain
+ * FileChannel#map(FileChannel.MapMode, long, long) mapped into
+ * memory}.
+ *
+ * <p>Nothing is read from the file until a record is actually
+ * requested with the {@link #get(int)} method.  The record is then
+ * {@linkplain RecordDecoder#decode(ByteBuffer) decoded} and the
+ * result is kept in a cache of fixed size, since a {@link Program}
+ * typically reads the same item from several {@link Thread}s in quick
+ * succession.  The cache holds at most {@link #CACHE_SIZE} items
+ * unless a different size is {@linkplain #MappedRecordList(FileChannel,
+ * int, ByteOrder, RecordDecoder, int) requested}, no matter how many
+ * records there are, so files larger than the heap, or larger than a
+ * single {@link MappedByteBuffer} can address, can be matched without
+ * deserializing them first.</p>
+ *
+ * <p>The cache is direct-mapped: two records evict each other only
+ * if their indices differ by a multiple of its size.  A record is
+ * therefore decoded at most once as long as the {@link Thread}s of a
+ * match never read records further apart than the size of the cache,
+ * and in particular if the cache is at least as large as the file.
+ * Otherwise a record whose item has been evicted is simply decoded
+ * again.</p>
+ *
+ * <p>{@link Filter}s are applied to decoded items, not to the bytes
+ * of a record.  A {@link RecordDecoder} that returns a view reading
+ * its fields from the record's {@link ByteBuffer} only when asked
+ * keeps a match from copying anything it does not look at.</p>
+ *
+ * <p>Any trailing bytes that do not make up a complete record are
+ * ignored.</p>
+ *
+ * <p>{@link MappedRecordList}s are safe for use by multiple Java
+ * {@linkplain java.lang.Thread threads} provided that their {@link
+ * RecordDecoder} is.  Two threads reading the same record at the same
+ * time may each decode it.</p>
+ *
+ * @param <T> the type of item the {@link RecordDecoder} produces
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see RecordDecoder
+ */
+public class MappedRecordList<T> extends AbstractList<T> implements RandomAccess {
+
+  /**
+   * The number of decoded items a {@link MappedRecordList} keeps
+   * unless told otherwise.
+   */
+  public static final int CACHE_SIZE = 1024;
+
+  /**
+   * The largest number of decoded items a {@link MappedRecordList}
+   * will keep.
+   */
+  private static final int MAX_CACHE_SIZE = 1 << 30;
+
+  /**
+   * The mapped segments of the file, each holding {@link
+   * #recordsPerSegment} records except possibly the last.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final ByteBuffer[] segments;
+
+  /**
+   * The size, in bytes, of a single record.
+   */
+  private final int recordSize;
+
+  /**
+   * The number of records in each of the {@link #segments}.
+   */
+  private final int recordsPerSegment;
+
+  /**
+   * The number of records in the file.
+   */
+  private final int size;
+
+  /**
+   * The {@link RecordDecoder} that turns records into items.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final RecordDecoder<? extends T> decoder;
+
+  /**
+   * The most recently decoded items.  The item for the record at
+   * index {@code i} can only ever be found in the slot at {@code i}
+   * masked with {@link #cacheMask}, which it shares with every other
+   * record whose index has the same low bits; an element is {@code
+   * null} if no record has yet been decoded into that slot.
+   *
+   * <p>Each {@link Entry} is immutable and is stored and read with
+   * volatile semantics, so a thread never sees a partially published
+   * one.</p>
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final AtomicReferenceArray<Entry> cache;
+
+  /**
+   * One less than the length of the {@link #cache}, which is a power
+   * of two.
+   */
+  private final int cacheMask;
+
+  /**
+   * Creates a new {@link MappedRecordList} over the entire contents
+   * of the supplied {@link FileChannel}.
+   *
+   * @param channel the {@link FileChannel} to map; must not be {@code
+   * null} and must be readable; it may be closed once this
+   * constructor returns
+   *
+   * @param recordSize the size in bytes of a record; must be greater
+   * than {@code 0}
+   *
+   * @param byteOrder the {@link ByteOrder} of the {@link ByteBuffer}s
+   * that will be supplied to the {@link RecordDecoder}; if {@code
+   * null}, {@link ByteOrder#BIG_ENDIAN} will be used
+   *
+   * @param decoder the {@link RecordDecoder} that will turn records
+   * into items; must not be {@code null}
+   *
+   * @exception IllegalArgumentException if any parameter is invalid,
+   * or if the file holds more than {@link Integer#MAX_VALUE} records
+   *
+   * @exception IOException if the file could not be mapped
+   *
+   * @see #CACHE_SIZE
+   */
+  public MappedRecordList(final FileChannel channel, final int recordSize, final ByteOrder byteOrder, final RecordDecoder<? extends T> decoder) throws IOException {
+    this(channel, recordSize, byteOrder, decoder, CACHE_SIZE, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Creates a new {@link MappedRecordList} over the entire contents
+   * of the supplied {@link FileChannel} that keeps at least the
+   * supplied number of decoded items, or one for every record if
+   * there are fewer records than that.
+   *
+   * <p>To have every record decoded at most once, pass a {@code
+   * cacheSize} at least as large as the distance between the first
+   * and last records a match reads, or {@link Integer#MAX_VALUE} to
+   * size the cache to the file.</p>
+   *
+   * @param channel the {@link FileChannel} to map; must not be {@code
+   * null} and must be readable; it may be closed once this
+   * constructor returns
+   *
+   * @param recordSize the size in bytes of a record; must be greater
+   * than {@code 0}
+   *
+   * @param byteOrder the {@link ByteOrder} of the {@link ByteBuffer}s
+   * that will be supplied to the {@link RecordDecoder}; if {@code
+   * null}, {@link ByteOrder#BIG_ENDIAN} will be used
+   *
+   * @param decoder the {@link RecordDecoder} that will turn records
+   * into items; must not be {@code null}
+   *
+   * @param cacheSize the number of decoded items to keep; must be
+   * greater than {@code 0}; rounded up to a power of two
+   *
+   * @exception IllegalArgumentException if any parameter is invalid,
+   * or if the file holds more than {@link Integer#MAX_VALUE} records
+   *
+   * @exception IOException if the file could not be mapped
+   */
+  public MappedRecordList(final FileChannel channel, final int recordSize, final ByteOrder byteOrder, final RecordDecoder<? extends T> decoder, final int cacheSize) throws IOException {
+    this(channel, recordSize, byteOrder, decoder, cacheSize, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Creates a new {@link MappedRecordList} over the entire contents
+   * of the supplied {@link FileChannel}, mapping it in segments of no
+   * more than the supplied number of bytes.
+   *
+   * @param channel the {@link FileChannel} to map; must not be {@code
+   * null} and must be readable
+   *
+   * @param recordSize the size in bytes of a record; must be greater
+   * than {@code 0}
+   *
+   * @param byteOrder the {@link ByteOrder} of the {@link ByteBuffer}s
+   * that will be supplied to the {@link RecordDecoder}; if {@code
+   * null}, {@link ByteOrder#BIG_ENDIAN} will be used
+   *
+   * @param decoder the {@link RecordDecoder} that will turn records
+   * into items; must not be {@code null}
+   *
+   * @param cacheSize the number of decoded items to keep; must be
+   * greater than {@code 0}; rounded up to a power of two
+   *
+   * @param maxSegmentSize the largest number of bytes to map at once;
+   * must be at least {@code recordSize}
+   *
+   * @exception IllegalArgumentException if any parameter is invalid,
+   * or if the file holds more than {@link Integer#MAX_VALUE} records
+   *
+   * @exception IOException if the file could not be mapped
+   */
+  MappedRecordList(final FileChannel channel, final int recordSize, final ByteOrder byteOrder, final RecordDecoder<? extends T> decoder, final int cacheSize, final int maxSegmentSize) throws IOException {
+    super();
+    if (channel == null) {
+      throw new IllegalArgumentException("channel", new NullPointerException("channel"));
+    }
+    if (recordSize <= 0) {
+      throw new IllegalArgumentException("recordSize <= 0: " + recordSize);
+    }
+    if (decoder == null) {
+      throw new IllegalArgumentException("decoder", new NullPointerException("decoder"));
+    }
+    if (cacheSize <= 0) {
+      throw new IllegalArgumentException("cacheSize <= 0: " + cacheSize);
+    }
+    if (maxSegmentSize < recordSize) {
+      throw new IllegalArgumentException("maxSegmentSize < recordSize: " + maxSegmentSize + " < " + recordSize);
+    }
+    final long recordCount = channel.size() / recordSize;
+    if (recordCount > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Too many records: " + recordCount);
+    }
+    this.recordSize = recordSize;
+    this.recordsPerSegment = maxSegmentSize / recordSize;
+    this.size = (int)recordCount;
+    this.decoder = decoder;
+    final int slots = cacheSlots(cacheSize, this.size);
+    this.cache = new AtomicReferenceArray<Entry>(slots);
+    this.cacheMask = slots - 1;
+    final int segmentCount = (int)((recordCount + this.recordsPerSegment - 1) / this.recordsPerSegment);
+    this.segments = new ByteBuffer[segmentCount];
+    final ByteOrder order = byteOrder == null ? ByteOrder.BIG_ENDIAN : byteOrder;
+    for (int i = 0; i < segmentCount; i++) {
+      final long firstRecord = (long)i * this.recordsPerSegment;
+      final long records = Math.min(this.recordsPerSegment, recordCount - firstRecord);
+      final MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, firstRecord * recordSize, records * recordSize);
+      assert segment != null;
+      segment.order(order);
+      this.segments[i] = segment;
+    }
+  }
+
+  /**
+   * Returns the number of complete records in the file.
+   *
+   * @return the number of records; never less than {@code 0}
+   */
+  @Override
+  public final int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns the item decoded from the record at the supplied index,
+   * decoding it first if it is not in the cache.
+   *
+   * @param index the zero-based index of the record
+   *
+   * @return the decoded item; may be {@code null}
+   *
+   * @exception IndexOutOfBoundsException if {@code index} is out of
+   * range
+   */
+  @Override
+  public final T get(final int index) {
+    if (index < 0 || index >= this.size) {
+      throw new IndexOutOfBoundsException("index: " + index + "; size: " + this.size);
+    }
+    final int slot = index & this.cacheMask;
+    final Entry entry = this.cache.get(slot);
+    final Object item;
+    if (entry != null && entry.index == index) {
+      item = entry.item;
+    } else {
+      final ByteBuffer segment = this.segments[index / this.recordsPerSegment];
+      assert segment != null;
+      final int offset = (index % this.recordsPerSegment) * this.recordSize;
+      final ByteBuffer record = segment.duplicate();
+      record.limit(offset + this.recordSize);
+      record.position(offset);
+      item = this.decoder.decode(record.slice().order(segment.order()));
+      this.cache.set(slot, new Entry(index, item));
+    }
+    @SuppressWarnings("unchecked")
+    final T returnValue = (T)item;
+    return returnValue;
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns the number of slots a cache should have to keep at least
+   * {@code cacheSize} items, or one for each of {@code size} records
+   * if that is fewer.
+   *
+   * @param cacheSize the requested number of items; must be greater
+   * than {@code 0}
+   *
+   * @param size the number of records; must not be negative
+   *
+   * @return a power of two no greater than {@link #MAX_CACHE_SIZE}
+   */
+  static final int cacheSlots(final int cacheSize, final int size) {
+    final int wanted = Math.min(Math.min(cacheSize, Math.max(1, size)), MAX_CACHE_SIZE);
+    final int slots = Integer.highestOneBit(wanted);
+    return slots < wanted ? slots << 1 : slots;
+  }
+
+  /**
+   * Maps the supplied {@link File} into memory and returns a new
+   * {@link MappedRecordList} over its records.
+   *
+   * <p>The file is closed before this method returns; the mapping
+   * remains valid.</p>
+   *
+   * @param <T> the type of item the {@link RecordDecoder} produces
+   *
+   * @param file the {@link File} to map; must not be {@code null}
+   *
+   * @param recordSize the size in bytes of a record; must be greater
+   * than {@code 0}
+   *
+   * @param byteOrder the {@link ByteOrder} of the records; if {@code
+   * null}, {@link ByteOrder#BIG_ENDIAN} will be used
+   *
+   * @param decoder the {@link RecordDecoder} that will turn records
+   * into items; must not be {@code null}
+   *
+   * @return a new {@link MappedRecordList}; never {@code null}
+   *
+   * @exception IllegalArgumentException if any parameter is invalid
+   *
+   * @exception IOException if the file could not be opened or mapped
+   *
+   * @see #map(File, int, ByteOrder, RecordDecoder, int)
+   */
+  public static final <T> MappedRecordList<T> map(final File file, final int recordSize, final ByteOrder byteOrder, final RecordDecoder<? extends T> decoder) throws IOException {
+    return map(file, recordSize, byteOrder, decoder, CACHE_SIZE);
+  }
+
+  /**
+   * Maps the supplied {@link File} into memory and returns a new
+   * {@link MappedRecordList} over its records that keeps at least the
+   * supplied number of decoded items.
+   *
+   * <p>The file is closed before this method returns; the mapping
+   * remains valid.</p>
+   *
+   * @param <T> the type of item the {@link RecordDecoder} produces
+   *
+   * @param file the {@link File} to map; must not be {@code null}
+   *
+   * @param recordSize the size in bytes of a record; must be greater
+   * than {@code 0}
+   *
+   * @param byteOrder the {@link ByteOrder} of the records; if {@code
+   * null}, {@link ByteOrder#BIG_ENDIAN} will be used
+   *
+   * @param decoder the {@link RecordDecoder} that will turn records
+   * into items; must not be {@code null}
+   *
+   * @param cacheSize the number of decoded items to keep; must be
+   * greater than {@code 0}
+   *
+   * @return a new {@link MappedRecordList}; never {@code null}
+   *
+   * @exception IllegalArgumentException if any parameter is invalid
+   *
+   * @exception IOException if the file could not be opened or mapped
+   *
+   * @see #MappedRecordList(FileChannel, int, ByteOrder, RecordDecoder,
+   * int)
+   */
+  public static final <T> MappedRecordList<T> map(final File file, final int recordSize, final ByteOrder byteOrder, final RecordDecoder<? extends T> decoder, final int cacheSize) throws IOException {
+    if (file == null) {
+      throw new IllegalArgumentException("file", new NullPointerException("file"));
+    }
+    final RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      return new MappedRecordList<T>(raf.getChannel(), recordSize, byteOrder, decoder, cacheSize);
+    } finally {
+      raf.close();
+    }
+  }
+
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * An immutable pairing of a record index and the item decoded from
+   * it.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  private static final class Entry {
+
+    /**
+     * The index of the record.
+     */
+    private final int index;
+
+    /**
+     * The item decoded from the record; may be {@code null}.
+     */
+    private final Object item;
+
+    /**
+     * Creates a new {@link Entry}.
+     *
+     * @param index the index of the record
+     *
+     * @param item the item decoded from the record; may be {@code
+     * null}
+     */
+    private Entry(final int index, final Object item) {
+      super();
+      this.index = index;
+      this.item = item;
+    }
+
+  }
+
+}
@@ -0,0 +1,161 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.io.Serializable; // for javadoc only
+
+
+/**
+ * An {@link Instruction} that records the current input position in
+ * a counter register by calling {@link
+ * InstructionContext#markPosition(int)} followed by {@link
+ * InstructionContext#advanceProgramCounter()}.
+ *
+ * <p>A {@link MarkPosition} instruction begins each iteration of a
+ * loop whose body can match without consuming any input, so that a
+ * {@link RequireProgress} instruction at the end of the iteration
+ * can tell whether it did.</p>
+ *
+ * @param <T> the type of {@link Object}s that {@link
+ * InstructionContext}s supplied to the {@link
+ * #execute(InstructionContext)} method work with
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see RequireProgress
+ */
+public class MarkPosition<T> extends Instruction<T> {
+
+  /**
+   * The version of this class for {@linkplain Serializable
+   * serialization purposes}.
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The zero-based number of the counter register
+   * in which to record the position.
+   */
+  public final int register;
+
+  /**
+   * Creates a new {@link MarkPosition} instruction.
+   *
+   * @param register a {@link String} representation of the
+   * zero-based number of the counter register in which to
+   * record the position; must not be {@code null}
+   *
+   * @exception IllegalArgumentException if {@code register} is {@code
+   * null} or does not represent a non-negative integer
+   */
+  public MarkPosition(final String register) {
+    this(ResetCounter.parseRegister(register));
+  }
+
+  /**
+   * Creates a new {@link MarkPosition} instruction.
+   *
+   * @param register the zero-based number of the counter register
+   * in which to record the position; must not be negative
+   *
+   * @exception IllegalArgumentException if {@code register} is
+   * negative
+   */
+  public MarkPosition(final int register) {
+    super();
+    if (register < 0) {
+      throw new IllegalArgumentException("register < 0: " + register);
+    }
+    this.register = register;
+  }
+
+  /**
+   * Calls {@link InstructionContext#markPosition(int)} with this
+   * {@link MarkPosition}'s {@linkplain #register register}, followed
+   * by {@link InstructionContext#advanceProgramCounter()}.
+   *
+   * @param context an {@link InstructionContext}; must not be {@code
+   * null}
+   *
+   * @exception IllegalArgumentException if {@code context} is {@code
+   * null}
+   */
+  @Override
+  public final void execute(final InstructionContext<? extends T> context) {
+    if (context == null) {
+      throw new IllegalArgumentException("context");
+    }
+    context.markPosition(this.register);
+    context.advanceProgramCounter();
+  }
+
+  /**
+   * Returns a hashcode for this {@link MarkPosition} instruction.
+   *
+   * @return a hashcode for this {@link MarkPosition} instruction
+   */
+  @Override
+  public int hashCode() {
+    return 37 * super.hashCode() + this.register;
+  }
+
+  /**
+   * Returns {@code true} if the supplied {@link Object} is equal to
+   * this {@link MarkPosition} instruction.
+   *
+   * @param other the {@link Object} to test; may be {@code null} in
+   * which case {@code false} will be returned
+   *
+   * @return {@code true} if the supplied {@link Object} is equal to
+   * this {@link MarkPosition} instruction; {@code false} otherwise
+   */
+  @Override
+  public boolean equals(final Object other) {
+    if (other == this) {
+      return true;
+    } else if (super.equals(other)) {
+      return this.register == ((MarkPosition<?>)other).register;
+    } else {
+      return false;
+    }
+  }
+
+  /**
+   * Returns a non-{@code null} {@link String} representation of this
+   * {@link MarkPosition} instruction.
+   *
+   * @return a non-{@code null} {@link String} representation of this
+   * {@link MarkPosition} instruction
+   */
+  @Override
+  public String toString() {
+    return new StringBuilder(super.toString()).append(" ").append(this.register).toString();
+  }
+
+}
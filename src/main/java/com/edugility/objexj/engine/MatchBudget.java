@@ -0,0 +1,204 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+/**
+ * The running tally a single call to the {@link Engine#run(Program,
+ * java.util.List, java.util.Set, MatchStats, MatchOptions)} method
+ * keeps of the work done so far, checked against the limits of its
+ * {@link MatchOptions}.
+ *
+ * <p>A {@link MatchBudget} is shared by every {@link Thread} of a
+ * run, in the same way a {@link MatchStats} is, and is not safe for
+ * use by multiple Java {@linkplain java.lang.Thread threads}, with
+ * one exception: its {@link #check()} method may be called by tasks
+ * that evaluate atoms on the run's behalf in other Java {@linkplain
+ * java.lang.Thread threads}.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see MatchOptions
+ */
+final class MatchBudget {
+
+  /**
+   * A mask selecting the step counts at which the timeout and the
+   * interrupt status are checked.
+   */
+  private static final long CHECK_MASK = MatchOptions.CHECK_INTERVAL - 1;
+
+  /**
+   * The largest number of steps that may be taken.
+   */
+  private final long maxSteps;
+
+  /**
+   * The largest number of {@link Thread}s that may be waiting to run
+   * at any one time.
+   */
+  private final int maxLiveThreads;
+
+  /**
+   * The value of {@link System#nanoTime()} when this {@link
+   * MatchBudget} was created.
+   */
+  private final long startNanos;
+
+  /**
+   * The number of nanoseconds after {@link #startNanos} that the
+   * run must end by, or {@link Long#MAX_VALUE}.
+   */
+  private final long timeoutNanos;
+
+  /**
+   * Whether the interrupt status of the {@link #caller} is checked.
+   */
+  private final boolean interruptible;
+
+  /**
+   * The {@link java.lang.Thread} that created this {@link
+   * MatchBudget} and whose interrupt status is checked.  This field
+   * is never {@code null}.
+   */
+  private final java.lang.Thread caller;
+
+  /**
+   * The number of steps taken so far.
+   */
+  private long steps;
+
+  /**
+   * The largest number of {@link Thread}s that were waiting to run
+   * at any one time so far.
+   */
+  private int peakLiveThreads;
+
+  /**
+   * The furthest position in the input any {@link Thread} has
+   * reached so far.
+   */
+  private int furthestItemIndex;
+
+  /**
+   * Creates a new {@link MatchBudget} and starts its clock.
+   *
+   * @param options the {@link MatchOptions} supplying the limits;
+   * must not be {@code null}
+   */
+  MatchBudget(final MatchOptions options) {
+    super();
+    assert options != null;
+    this.maxSteps = options.getMaxSteps();
+    this.maxLiveThreads = options.getMaxLiveThreads();
+    this.timeoutNanos = options.getTimeoutNanos();
+    this.interruptible = options.isInterruptible();
+    this.furthestItemIndex = -1;
+    this.caller = java.lang.Thread.currentThread();
+    this.startNanos = System.nanoTime();
+  }
+
+  /**
+   * Records that a {@link Thread} is about to execute an {@link
+   * Instruction} at the supplied position in its input.
+   *
+   * @param itemPointer the position in the input of the {@link
+   * Thread} in question
+   *
+   * @exception MatchLimitExceededException if this step exceeds a
+   * limit, or if the timeout has passed or the calling {@link
+   * java.lang.Thread} has been interrupted
+   */
+  final void step(final int itemPointer) {
+    if (itemPointer > this.furthestItemIndex) {
+      this.furthestItemIndex = itemPointer;
+    }
+    final long steps = ++this.steps;
+    if (steps > this.maxSteps) {
+      throw this.exceeded(MatchLimitExceededException.Limit.STEPS);
+    }
+    if ((steps & CHECK_MASK) == 0L) {
+      this.check();
+    }
+  }
+
+  /**
+   * Records the number of {@link Thread}s now waiting to run.
+   *
+   * @param liveThreads the number of {@link Thread}s waiting to run
+   *
+   * @exception MatchLimitExceededException if {@code liveThreads}
+   * exceeds the live {@link Thread} limit
+   */
+  final void liveThreads(final int liveThreads) {
+    if (liveThreads > this.peakLiveThreads) {
+      this.peakLiveThreads = liveThreads;
+      if (liveThreads > this.maxLiveThreads) {
+        throw this.exceeded(MatchLimitExceededException.Limit.LIVE_THREADS);
+      }
+    }
+  }
+
+  /**
+   * Checks the timeout and, if required, the interrupt status of the
+   * {@link java.lang.Thread} that created this {@link MatchBudget}.
+   *
+   * <p>This method may be called from any Java {@linkplain
+   * java.lang.Thread thread}, though the progress reported by the
+   * {@link MatchLimitExceededException} it throws may then be out of
+   * date.</p>
+   *
+   * @exception MatchLimitExceededException if the timeout has passed
+   * or the {@link java.lang.Thread} that created this {@link
+   * MatchBudget} has been interrupted
+   */
+  final void check() {
+    if (this.interruptible && this.caller.isInterrupted()) {
+      throw this.exceeded(MatchLimitExceededException.Limit.INTERRUPT);
+    }
+    if (this.timeoutNanos != Long.MAX_VALUE && System.nanoTime() - this.startNanos > this.timeoutNanos) {
+      throw this.exceeded(MatchLimitExceededException.Limit.TIMEOUT);
+    }
+  }
+
+  /**
+   * Returns a new {@link MatchLimitExceededException} reporting that
+   * the supplied {@link MatchLimitExceededException.Limit} was
+   * exceeded and how far the run had got.
+   *
+   * @param limit the limit that was exceeded; must not be {@code
+   * null}
+   *
+   * @return a new {@link MatchLimitExceededException}; never {@code
+   * null}
+   */
+  private final MatchLimitExceededException exceeded(final MatchLimitExceededException.Limit limit) {
+    return new MatchLimitExceededException(limit, this.steps, this.peakLiveThreads, this.furthestItemIndex, System.nanoTime() - this.startNanos);
+  }
+
+}
@@ -0,0 +1,219 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.io.Serializable; // for javadoc only
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link RuntimeException} indicating that the {@link Engine}
+ * abandoned a run because it exceeded one of the limits imposed by
+ * its {@link MatchOptions}.
+ *
+ * <p>A {@link MatchLimitExceededException} reports {@linkplain
+ * #getLimit() which limit} was exceeded and how far the run had got
+ * when it was: how many {@linkplain #getSteps() steps} it had taken,
+ * the {@linkplain #getPeakLiveThreads() largest number of
+ * <tt>Thread</tt>s} that were waiting to run at any one time, the
+ * {@linkplain #getFurthestItemIndex() furthest position} in the
+ * input any {@link Thread} had reached, and how much {@linkplain
+ * #getElapsedTime(TimeUnit) time} had passed.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see MatchOptions
+ */
+public class MatchLimitExceededException extends RuntimeException {
+
+  /**
+   * The version of this class for {@linkplain Serializable
+   * serialization purposes}.
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The {@link Limit} that was exceeded.  This field is never {@code
+   * null}.
+   */
+  private final Limit limit;
+
+  /**
+   * The number of steps taken.
+   */
+  private final long steps;
+
+  /**
+   * The largest number of {@link Thread}s that were waiting to run
+   * at any one time.
+   */
+  private final int peakLiveThreads;
+
+  /**
+   * The furthest position in the input any {@link Thread} reached.
+   */
+  private final int furthestItemIndex;
+
+  /**
+   * The number of nanoseconds that had passed.
+   */
+  private final long elapsedNanos;
+
+  /**
+   * Creates a new {@link MatchLimitExceededException}.
+   *
+   * @param limit the {@link Limit} that was exceeded; must not be
+   * {@code null}
+   *
+   * @param steps the number of steps taken; must not be negative
+   *
+   * @param peakLiveThreads the largest number of {@link Thread}s
+   * that were waiting to run at any one time; must not be negative
+   *
+   * @param furthestItemIndex the furthest position in the input any
+   * {@link Thread} reached
+   *
+   * @param elapsedNanos the number of nanoseconds that had passed;
+   * must not be negative
+   *
+   * @exception IllegalArgumentException if {@code limit} is {@code
+   * null}
+   */
+  public MatchLimitExceededException(final Limit limit, final long steps, final int peakLiveThreads, final int furthestItemIndex, final long elapsedNanos) {
+    super(String.format("%s limit exceeded after %d steps and %d ms; peak live threads: %d; furthest item index: %d",
+                        limit, steps, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), peakLiveThreads, furthestItemIndex));
+    if (limit == null) {
+      throw new IllegalArgumentException("limit", new NullPointerException("limit"));
+    }
+    this.limit = limit;
+    this.steps = steps;
+    this.peakLiveThreads = peakLiveThreads;
+    this.furthestItemIndex = furthestItemIndex;
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  /**
+   * Returns the {@link Limit} that was exceeded.
+   *
+   * @return a non-{@code null} {@link Limit}
+   */
+  public final Limit getLimit() {
+    return this.limit;
+  }
+
+  /**
+   * Returns the number of {@link Instruction}s executed before the
+   * run was abandoned.
+   *
+   * @return the number of steps taken; never negative
+   */
+  public final long getSteps() {
+    return this.steps;
+  }
+
+  /**
+   * Returns the largest number of {@link Thread}s that were waiting
+   * to run at any one time before the run was abandoned.
+   *
+   * @return the peak number of live {@link Thread}s; never negative
+   */
+  public final int getPeakLiveThreads() {
+    return this.peakLiveThreads;
+  }
+
+  /**
+   * Returns the furthest position in the input any {@link Thread}
+   * reached before the run was abandoned, or {@code -1} if no {@link
+   * Thread} took a step.
+   *
+   * @return the furthest item index reached
+   */
+  public final int getFurthestItemIndex() {
+    return this.furthestItemIndex;
+  }
+
+  /**
+   * Returns the amount of time that had passed, in the supplied
+   * {@link TimeUnit}, when the run was abandoned.
+   *
+   * @param unit the {@link TimeUnit} to express the time in; must
+   * not be {@code null}
+   *
+   * @return the elapsed time; never negative
+   *
+   * @exception IllegalArgumentException if {@code unit} is {@code
+   * null}
+   */
+  public final long getElapsedTime(final TimeUnit unit) {
+    if (unit == null) {
+      throw new IllegalArgumentException("unit", new NullPointerException("unit"));
+    }
+    return unit.convert(this.elapsedNanos, TimeUnit.NANOSECONDS);
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * The limits a {@link MatchOptions} can impose.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  public enum Limit {
+
+    /**
+     * The {@linkplain MatchOptions#getMaxSteps() maximum number of
+     * steps}.
+     */
+    STEPS,
+
+    /**
+     * The {@linkplain MatchOptions#getMaxLiveThreads() maximum
+     * number of live <tt>Thread</tt>s}.
+     */
+    LIVE_THREADS,
+
+    /**
+     * The {@linkplain MatchOptions#getTimeout(TimeUnit) timeout}.
+     */
+    TIMEOUT,
+
+    /**
+     * The {@linkplain MatchOptions#isInterruptible() interrupt
+     * status} of the calling {@link java.lang.Thread}.
+     */
+    INTERRUPT;
+
+  }
+
+}
@@ -0,0 +1,149 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.util.List; // for javadoc only
+
+/**
+ * An object notified of what the {@link Engine} does while it
+ * {@linkplain Engine#run(Program, List) runs} a {@link Program}.
+ *
+ * <p>A {@link MatchListener} is bound to an {@link Engine} when the
+ * {@link Engine} is {@linkplain Engine#Engine(MatchListener)
+ * created}, and through it to a {@link com.edugility.objexj.Pattern}
+ * when the {@link com.edugility.objexj.Pattern} is {@linkplain
+ * com.edugility.objexj.PatternOptions#withListener(MatchListener)
+ * compiled with one}.  An {@link Engine} without one does not pay for
+ * notifications at all.</p>
+ *
+ * <p>Every method in this class does nothing.  Subclasses override
+ * those they are interested in.  Since the methods are called from
+ * the {@link Engine}'s innermost loop, overrides should return
+ * quickly, and should not modify the {@link Thread}s they are
+ * passed.</p>
+ *
+ * <p>{@link MatchListener}s may be called by several Java
+ * {@linkplain java.lang.Thread threads} at once if the {@link
+ * com.edugility.objexj.Pattern} they are bound to is used by several
+ * at once.</p>
+ *
+ * @param <T> the type of {@link Object} the {@link Thread}s being
+ * reported on read
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see Engine#Engine(MatchListener)
+ *
+ * @see LoggingMatchListener
+ */
+public abstract class MatchListener<T> {
+
+  /**
+   * Creates a new {@link MatchListener}.
+   */
+  protected MatchListener() {
+    super();
+  }
+
+  /**
+   * Called when the supplied {@code parent} {@link Thread} forks the
+   * supplied {@code child} {@link Thread}.
+   *
+   * <p>This implementation does nothing.</p>
+   *
+   * @param parent the {@link Thread} that forked; never {@code null}
+   *
+   * @param child the new {@link Thread}; never {@code null}
+   */
+  public void threadForked(final Thread<? extends T> parent, final Thread<? extends T> child) {
+
+  }
+
+  /**
+   * Called when the supplied {@link Thread} is about to execute the
+   * supplied {@link Instruction}.
+   *
+   * <p>This implementation does nothing.</p>
+   *
+   * @param thread the {@link Thread} in question; never {@code null}
+   *
+   * @param instruction the {@link Instruction} about to be executed;
+   * never {@code null}
+   *
+   * @param programCounter the index of the {@link Instruction} in its
+   * {@link Program}
+   *
+   * @param itemPointer the index of the item the {@link Thread} will
+   * read next
+   */
+  public void step(final Thread<? extends T> thread, final Instruction<?> instruction, final int programCounter, final int itemPointer) {
+
+  }
+
+  /**
+   * Called when the supplied {@link Filter} has accepted or rejected
+   * the item the supplied {@link Thread} was about to read.
+   *
+   * <p>This implementation does nothing.</p>
+   *
+   * @param thread the {@link Thread} in question; never {@code null}
+   *
+   * @param filter the {@link Filter} that was evaluated; never {@code
+   * null}
+   *
+   * @param accepted whether the {@link Filter} accepted the item
+   */
+  public void filterEvaluated(final Thread<? extends T> thread, final Filter<?> filter, final boolean accepted) {
+
+  }
+
+  /**
+   * Called when the supplied {@link Thread} has found a match.
+   *
+   * <p>This implementation does nothing.</p>
+   *
+   * @param thread the {@link Thread} that matched; never {@code null}
+   */
+  public void matchFound(final Thread<? extends T> thread) {
+
+  }
+
+  /**
+   * Called when the supplied {@link Thread} has died without finding
+   * a match.
+   *
+   * <p>This implementation does nothing.</p>
+   *
+   * @param thread the {@link Thread} that died; never {@code null}
+   */
+  public void threadDied(final Thread<? extends T> thread) {
+
+  }
+
+}
@@ -0,0 +1,640 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.io.Serializable;
+
+import java.util.List; // for javadoc only
+import java.util.Set; // for javadoc only
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An immutable set of limits on how much work the {@link Engine}
+ * may do while {@linkplain Engine#run(Program, List, Set,
+ * MatchStats, MatchOptions) running} a {@link Program}, and of
+ * choices about how it does that work.
+ *
+ * <p>Start with {@link #UNLIMITED} and add limits with the {@code
+ * with} methods, each of which returns a new {@link MatchOptions}:</p>
+ *
+ * <blockquote><pre>MatchOptions options = MatchOptions.UNLIMITED
+ *   .withMaxSteps(1000000L)
+ *   .withMaxLiveThreads(10000)
+ *   .withTimeout(250L, TimeUnit.MILLISECONDS)
+ *   .withInterruptible(true);</pre></blockquote>
+ *
+ * <p>A run that exceeds any limit ends with a {@link
+ * MatchLimitExceededException}.  Steps and live {@link Thread}s are
+ * checked as they happen.  The timeout and the interrupt status of
+ * the calling {@link java.lang.Thread} are checked once every {@link
+ * #CHECK_INTERVAL} steps, so a run may overshoot its timeout by the
+ * time those steps take.  They are also checked before each item is
+ * evaluated by the passes that {@link #withCompressedAlphabet(boolean)},
+ * {@link #withAtomBitmaps(boolean)} and {@link
+ * #withLockstepCheck(boolean)} add ahead of a run, including those
+ * done by an {@link Engine}'s {@link java.util.concurrent.Executor}.</p>
+ *
+ * <p>{@link #withCompressedAlphabet(boolean)}, {@link
+ * #withAtomBitmaps(boolean)} and {@link
+ * #withLockstepCheck(boolean)} change how a run evaluates its {@link
+ * Filter}s, but not its result.  {@link
+ * #withMemoizedStates(boolean)} changes which {@link Thread}s a run
+ * bothers to run, but not its result either.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see Engine#run(Program, List, Set, MatchStats, MatchOptions)
+ *
+ * @see MatchLimitExceededException
+ */
+public final class MatchOptions implements Serializable {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * The version of this class for {@linkplain Serializable
+   * serialization purposes}.
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The number of steps between checks of the timeout and of the
+   * calling {@link java.lang.Thread}'s interrupt status.
+   */
+  public static final int CHECK_INTERVAL = 1024;
+
+  /**
+   * A {@link MatchOptions} that imposes no limits at all.
+   */
+  public static final MatchOptions UNLIMITED = new MatchOptions(Long.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE, false, false, false, false, false);
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The largest number of {@link Instruction}s a run may execute,
+   * or {@link Long#MAX_VALUE}.
+   */
+  private final long maxSteps;
+
+  /**
+   * The largest number of {@link Thread}s that may be waiting to run
+   * at any one time, or {@link Integer#MAX_VALUE}.
+   */
+  private final int maxLiveThreads;
+
+  /**
+   * The number of nanoseconds a run may take, or {@link
+   * Long#MAX_VALUE}.
+   */
+  private final long timeoutNanos;
+
+  /**
+   * Whether a run ends when the calling {@link java.lang.Thread} is
+   * interrupted.
+   */
+  private final boolean interruptible;
+
+  /**
+   * Whether a run classifies its input with an {@link Alphabet}
+   * before it starts.
+   */
+  private final boolean compressedAlphabet;
+
+  /**
+   * Whether a run evaluates its atoms into bitmaps with an {@link
+   * Alphabet} before it starts.
+   */
+  private final boolean atomBitmaps;
+
+  /**
+   * Whether a run first checks, in time linear in the size of its
+   * input, that its input can match at all.
+   */
+  private final boolean lockstepCheck;
+
+  /**
+   * Whether a run lets only the first {@link Thread} to reach each
+   * state go on.
+   */
+  private final boolean memoizedStates;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link MatchOptions}.
+   *
+   * @param maxSteps the largest number of {@link Instruction}s a run
+   * may execute; must be positive
+   *
+   * @param maxLiveThreads the largest number of {@link Thread}s that
+   * may be waiting to run at any one time; must be positive
+   *
+   * @param timeoutNanos the number of nanoseconds a run may take;
+   * must be positive
+   *
+   * @param interruptible whether a run ends when the calling {@link
+   * java.lang.Thread} is interrupted
+   *
+   * @param compressedAlphabet whether a run classifies its input
+   * with an {@link Alphabet} before it starts
+   *
+   * @param atomBitmaps whether a run evaluates its atoms into bitmaps
+   * with an {@link Alphabet} before it starts
+   *
+   * @param lockstepCheck whether a run first checks, in time linear
+   * in the size of its input, that its input can match at all
+   *
+   * @param memoizedStates whether a run lets only the first {@link
+   * Thread} to reach each state go on
+   */
+  private MatchOptions(final long maxSteps, final int maxLiveThreads, final long timeoutNanos, final boolean interruptible, final boolean compressedAlphabet, final boolean atomBitmaps, final boolean lockstepCheck, final boolean memoizedStates) {
+    super();
+    this.maxSteps = maxSteps;
+    this.maxLiveThreads = maxLiveThreads;
+    this.timeoutNanos = timeoutNanos;
+    this.interruptible = interruptible;
+    this.compressedAlphabet = compressedAlphabet;
+    this.atomBitmaps = atomBitmaps;
+    this.lockstepCheck = lockstepCheck;
+    this.memoizedStates = memoizedStates;
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns the largest number of {@link Instruction}s a run may
+   * execute, or {@link Long#MAX_VALUE} if there is no such limit.
+   *
+   * <p>If a {@link Program} is run twice, as described in the
+   * documentation for the {@link Engine#run(Program, List, Set)}
+   * method, this limit applies to both runs together.</p>
+   *
+   * @return the step limit; always positive
+   */
+  public final long getMaxSteps() {
+    return this.maxSteps;
+  }
+
+  /**
+   * Returns a new {@link MatchOptions} just like this one except
+   * that it limits each run to the supplied number of steps.
+   *
+   * @param maxSteps the largest number of {@link Instruction}s a run
+   * may execute; must be positive
+   *
+   * @return a new {@link MatchOptions}; never {@code null}
+   *
+   * @exception IllegalArgumentException if {@code maxSteps} is not
+   * positive
+   *
+   * @see #getMaxSteps()
+   */
+  public final MatchOptions withMaxSteps(final long maxSteps) {
+    if (maxSteps <= 0L) {
+      throw new IllegalArgumentException("maxSteps <= 0: " + maxSteps);
+    }
+    return new MatchOptions(maxSteps, this.maxLiveThreads, this.timeoutNanos, this.interruptible, this.compressedAlphabet, this.atomBitmaps, this.lockstepCheck, this.memoizedStates);
+  }
+
+  /**
+   * Returns the largest number of {@link Thread}s that may be
+   * waiting to run at any one time, or {@link Integer#MAX_VALUE} if
+   * there is no such limit.
+   *
+   * @return the live {@link Thread} limit; always positive
+   */
+  public final int getMaxLiveThreads() {
+    return this.maxLiveThreads;
+  }
+
+  /**
+   * Returns a new {@link MatchOptions} just like this one except
+   * that it limits the number of {@link Thread}s that may be waiting
+   * to run at any one time to the supplied number.
+   *
+   * @param maxLiveThreads the largest number of {@link Thread}s that
+   * may be waiting to run at any one time; must be positive
+   *
+   * @return a new {@link MatchOptions}; never {@code null}
+   *
+   * @exception IllegalArgumentException if {@code maxLiveThreads}
+   * is not positive
+   *
+   * @see #getMaxLiveThreads()
+   */
+  public final MatchOptions withMaxLiveThreads(final int maxLiveThreads) {
+    if (maxLiveThreads <= 0) {
+      throw new IllegalArgumentException("maxLiveThreads <= 0: " + maxLiveThreads);
+    }
+    return new MatchOptions(this.maxSteps, maxLiveThreads, this.timeoutNanos, this.interruptible, this.compressedAlphabet, this.atomBitmaps, this.lockstepCheck, this.memoizedStates);
+  }
+
+  /**
+   * Returns the amount of time a run may take, measured from the
+   * moment it starts, in the supplied {@link TimeUnit}, or {@link
+   * Long#MAX_VALUE} if there is no such limit.
+   *
+   * <p>If a {@link Program} is run twice, as described in the
+   * documentation for the {@link Engine#run(Program, List, Set)}
+   * method, this limit applies to both runs together.</p>
+   *
+   * @param unit the {@link TimeUnit} to express the timeout in; must
+   * not be {@code null}
+   *
+   * @return the timeout; always positive
+   *
+   * @exception IllegalArgumentException if {@code unit} is {@code
+   * null}
+   */
+  public final long getTimeout(final TimeUnit unit) {
+    if (unit == null) {
+      throw new IllegalArgumentException("unit", new NullPointerException("unit"));
+    }
+    if (this.timeoutNanos == Long.MAX_VALUE) {
+      return Long.MAX_VALUE;
+    }
+    return Math.max(1L, unit.convert(this.timeoutNanos, TimeUnit.NANOSECONDS));
+  }
+
+  /**
+   * Returns a new {@link MatchOptions} just like this one except
+   * that it limits each run to the supplied amount of time.
+   *
+   * @param timeout the amount of time a run may take; must be
+   * positive
+   *
+   * @param unit the {@link TimeUnit} {@code timeout} is expressed
+   * in; must not be {@code null}
+   *
+   * @return a new {@link MatchOptions}; never {@code null}
+   *
+   * @exception IllegalArgumentException if {@code timeout} is not
+   * positive or {@code unit} is {@code null}
+   *
+   * @see #getTimeout(TimeUnit)
+   */
+  public final MatchOptions withTimeout(final long timeout, final TimeUnit unit) {
+    if (timeout <= 0L) {
+      throw new IllegalArgumentException("timeout <= 0: " + timeout);
+    }
+    if (unit == null) {
+      throw new IllegalArgumentException("unit", new NullPointerException("unit"));
+    }
+    return new MatchOptions(this.maxSteps, this.maxLiveThreads, unit.toNanos(timeout), this.interruptible, this.compressedAlphabet, this.atomBitmaps, this.lockstepCheck, this.memoizedStates);
+  }
+
+  /**
+   * Returns {@code true} if a run ends as soon as it notices that the
+   * calling {@link java.lang.Thread} has been {@linkplain
+   * java.lang.Thread#interrupt() interrupted}.
+   *
+   * @return whether runs are interruptible
+   */
+  public final boolean isInterruptible() {
+    return this.interruptible;
+  }
+
+  /**
+   * Returns a new {@link MatchOptions} just like this one except
+   * that runs do or do not end when the calling {@link
+   * java.lang.Thread} is {@linkplain java.lang.Thread#interrupt()
+   * interrupted}.
+   *
+   * <p>The interrupt status of the calling {@link java.lang.Thread}
+   * is left alone, so code further up the stack can still see
+   * it.</p>
+   *
+   * @param interruptible whether runs are interruptible
+   *
+   * @return a new {@link MatchOptions}; never {@code null}
+   *
+   * @see #isInterruptible()
+   */
+  public final MatchOptions withInterruptible(final boolean interruptible) {
+    return new MatchOptions(this.maxSteps, this.maxLiveThreads, this.timeoutNanos, interruptible, this.compressedAlphabet, this.atomBitmaps, this.lockstepCheck, this.memoizedStates);
+  }
+
+  /**
+   * Returns {@code true} if each run first reduces its input to one
+   * small integer symbol per item, standing for exactly the set of
+   * distinct item-only {@link Filter}s that accept that item, and
+   * then looks up the results of those {@link Filter}s instead of
+   * evaluating them.
+   *
+   * @return whether runs classify their input up front
+   *
+   * @see #withCompressedAlphabet(boolean)
+   */
+  public final boolean isCompressedAlphabet() {
+    return this.compressedAlphabet;
+  }
+
+  /**
+   * Returns a new {@link MatchOptions} just like this one except
+   * that each run does or does not classify its input up front, as
+   * described in the documentation for the {@link
+   * #isCompressedAlphabet()} method.
+   *
+   * <p>Classifying input evaluates every distinct {@link Filter} of
+   * a {@link Program} whose result depends only on the item&mdash;a
+   * test of the item's {@link Class}, for example, or an MVEL
+   * expression that {@linkplain ConditionEffect#PURE reads nothing
+   * else}&mdash;exactly once against every item.  A run that would
+   * otherwise evaluate the same {@link Filter}s against the same
+   * items from many {@link Thread}s then does far less work; a run
+   * that would have stopped after reading a few items does more.
+   * {@link Class} tests are worked out once per {@link Class} of
+   * item.  An {@link Engine} {@linkplain Engine#Engine(MatchListener,
+   * java.util.concurrent.Executor) created with an
+   * <code>Executor</code>} classifies large input in parallel.</p>
+   *
+   * <p>If a {@link Filter} throws an exception while input is being
+   * classified, the run evaluates its {@link Filter}s as usual
+   * instead, so that the exception is thrown only if the run
+   * actually reaches the item that caused it.</p>
+   *
+   * @param compressedAlphabet whether runs classify their input up
+   * front
+   *
+   * @return a new {@link MatchOptions}; never {@code null}
+   *
+   * @see #isCompressedAlphabet()
+   */
+  public final MatchOptions withCompressedAlphabet(final boolean compressedAlphabet) {
+    return new MatchOptions(this.maxSteps, this.maxLiveThreads, this.timeoutNanos, this.interruptible, compressedAlphabet, this.atomBitmaps, this.lockstepCheck, this.memoizedStates);
+  }
+
+  /**
+   * Returns {@code true} if each run first evaluates every distinct
+   * item-only {@link Filter} against every item, recording the
+   * results as one bitmap per {@link Filter}, and then looks up the
+   * results of those {@link Filter}s instead of evaluating them.
+   *
+   * @return whether runs evaluate atom bitmaps up front
+   *
+   * @see #withAtomBitmaps(boolean)
+   */
+  public final boolean isAtomBitmaps() {
+    return this.atomBitmaps;
+  }
+
+  /**
+   * Returns a new {@link MatchOptions} just like this one except
+   * that each run does or does not evaluate atom bitmaps up front, as
+   * described in the documentation for the {@link #isAtomBitmaps()}
+   * method.
+   *
+   * <p>This evaluates exactly the same {@link Filter}s as {@linkplain
+   * #withCompressedAlphabet(boolean) compressing the alphabet} does,
+   * in the same way, but stores the results column by column instead
+   * of reducing each item to a symbol.  That skips the one part of
+   * compressing the alphabet that is always done by a single {@link
+   * java.lang.Thread}, and so suits large input evaluated in parallel
+   * by an {@link Engine} {@linkplain Engine#Engine(MatchListener,
+   * java.util.concurrent.Executor) created with an
+   * <code>Executor</code>}.  It takes one bit per item per distinct
+   * {@link Filter}.  If both are asked for, atom bitmaps are
+   * used.</p>
+   *
+   * @param atomBitmaps whether runs evaluate atom bitmaps up front
+   *
+   * @return a new {@link MatchOptions}; never {@code null}
+   *
+   * @see #isAtomBitmaps()
+   */
+  public final MatchOptions withAtomBitmaps(final boolean atomBitmaps) {
+    return new MatchOptions(this.maxSteps, this.maxLiveThreads, this.timeoutNanos, this.interruptible, this.compressedAlphabet, atomBitmaps, this.lockstepCheck, this.memoizedStates);
+  }
+
+  /**
+   * Returns {@code true} if each run first simulates its {@link
+   * Program} in lockstep over the input, reading each item once, and
+   * ends at once without a match if no {@link Thread} could reach the
+   * {@link Program}'s {@link Match}.
+   *
+   * @return whether runs check in lockstep that their input can
+   * match
+   *
+   * @see #withLockstepCheck(boolean)
+   */
+  public final boolean isLockstepCheck() {
+    return this.lockstepCheck;
+  }
+
+  /**
+   * Returns a new {@link MatchOptions} just like this one except
+   * that each run does or does not first check in lockstep that its
+   * input can match, as described in the documentation for the
+   * {@link #isLockstepCheck()} method.
+   *
+   * <p>The check follows every {@link Thread} at once, the way a
+   * finite automaton would, and so takes time proportional to the
+   * size of the input times the size of the {@link Program} no matter
+   * how ambiguous the {@link Program} is.  Input that a backtracking
+   * run would spend exponential time failing to match is rejected
+   * in linear time instead.  Input that can match is then matched as
+   * usual.</p>
+   *
+   * <p>The check evaluates every {@linkplain
+   * #withAtomBitmaps(boolean) atom} against every item, and assumes
+   * that {@link Filter}s that are not atoms accept every item, so it
+   * can rule out only input that the atoms rule out.</p>
+   *
+   * @param lockstepCheck whether runs check in lockstep that their
+   * input can match
+   *
+   * @return a new {@link MatchOptions}; never {@code null}
+   *
+   * @see #isLockstepCheck()
+   */
+  public final MatchOptions withLockstepCheck(final boolean lockstepCheck) {
+    return new MatchOptions(this.maxSteps, this.maxLiveThreads, this.timeoutNanos, this.interruptible, this.compressedAlphabet, this.atomBitmaps, lockstepCheck, this.memoizedStates);
+  }
+
+  /**
+   * Returns {@code true} if each run lets only the first {@link
+   * Thread} to reach a given {@link Instruction} at a given position
+   * in the input go on, and kills any other that reaches it there
+   * later.
+   *
+   * @return whether runs memoize the states their {@link Thread}s
+   * reach
+   *
+   * @see #withMemoizedStates(boolean)
+   */
+  public final boolean isMemoizedStates() {
+    return this.memoizedStates;
+  }
+
+  /**
+   * Returns a new {@link MatchOptions} just like this one except
+   * that each run does or does not memoize the states its {@link
+   * Thread}s reach, as described in the documentation for the {@link
+   * #isMemoizedStates()} method.
+   *
+   * <p>{@link Thread}s are run most recently scheduled first, so a
+   * {@link Thread} that reaches a state another has already reached
+   * can only find what that one has already failed to find, and
+   * killing it changes neither whether there is a match nor which
+   * match is reported.  No state is explored twice, so a run executes
+   * a number of {@link Instruction}s at most proportional to the size
+   * of the {@link Program} times the size of the input, however
+   * ambiguous the {@link Program} is.  Recording the states takes one
+   * bit per item for each {@link Instruction} that a {@link Split} or
+   * {@link Jump} leads to.</p>
+   *
+   * <p>This is not so for {@link Program}s that keep counters, as
+   * bounded repetitions do, that contain atomic groups or possessive
+   * repetitions, or whose conditions {@linkplain
+   * ConditionEffect#WRITES_VARIABLES assign variables}; they are run
+   * as usual whatever this {@link MatchOptions} says.</p>
+   *
+   * @param memoizedStates whether runs memoize the states their
+   * {@link Thread}s reach
+   *
+   * @return a new {@link MatchOptions}; never {@code null}
+   *
+   * @see #isMemoizedStates()
+   *
+   * @see ProgramAnalysis#isMemoizable()
+   */
+  public final MatchOptions withMemoizedStates(final boolean memoizedStates) {
+    return new MatchOptions(this.maxSteps, this.maxLiveThreads, this.timeoutNanos, this.interruptible, this.compressedAlphabet, this.atomBitmaps, this.lockstepCheck, memoizedStates);
+  }
+
+  /**
+   * Returns {@code true} if this {@link MatchOptions} imposes any
+   * limit at all.
+   *
+   * @return {@code true} if this {@link MatchOptions} imposes any
+   * limit; {@code false} if it is equivalent to {@link #UNLIMITED}
+   */
+  final boolean isLimited() {
+    return this.maxSteps != Long.MAX_VALUE || this.maxLiveThreads != Integer.MAX_VALUE || this.timeoutNanos != Long.MAX_VALUE || this.interruptible;
+  }
+
+  /**
+   * Returns the number of nanoseconds a run may take, or {@link
+   * Long#MAX_VALUE}.
+   *
+   * @return the timeout in nanoseconds; always positive
+   */
+  final long getTimeoutNanos() {
+    return this.timeoutNanos;
+  }
+
+  /**
+   * Returns a hashcode for this {@link MatchOptions}.
+   *
+   * @return a hashcode for this {@link MatchOptions}
+   */
+  @Override
+  public final int hashCode() {
+    int hashCode = 17;
+    hashCode = 37 * hashCode + (int)(this.maxSteps ^ (this.maxSteps >>> 32));
+    hashCode = 37 * hashCode + this.maxLiveThreads;
+    hashCode = 37 * hashCode + (int)(this.timeoutNanos ^ (this.timeoutNanos >>> 32));
+    hashCode = 37 * hashCode + (this.interruptible ? 1 : 0);
+    hashCode = 37 * hashCode + (this.compressedAlphabet ? 1 : 0);
+    hashCode = 37 * hashCode + (this.atomBitmaps ? 1 : 0);
+    hashCode = 37 * hashCode + (this.lockstepCheck ? 1 : 0);
+    hashCode = 37 * hashCode + (this.memoizedStates ? 1 : 0);
+    return hashCode;
+  }
+
+  /**
+   * Returns {@code true} if the supplied {@link Object} is a {@link
+   * MatchOptions} imposing exactly the same limits, and making
+   * exactly the same choices, as this one.
+   *
+   * @param other the {@link Object} to test; may be {@code null}
+   *
+   * @return {@code true} if the supplied {@link Object} is equal to
+   * this {@link MatchOptions}; {@code false} otherwise
+   */
+  @Override
+  public final boolean equals(final Object other) {
+    if (other == this) {
+      return true;
+    } else if (other instanceof MatchOptions) {
+      final MatchOptions her = (MatchOptions)other;
+      return
+        this.maxSteps == her.maxSteps &&
+        this.maxLiveThreads == her.maxLiveThreads &&
+        this.timeoutNanos == her.timeoutNanos &&
+        this.interruptible == her.interruptible &&
+        this.compressedAlphabet == her.compressedAlphabet &&
+        this.atomBitmaps == her.atomBitmaps &&
+        this.lockstepCheck == her.lockstepCheck &&
+        this.memoizedStates == her.memoizedStates;
+    } else {
+      return false;
+    }
+  }
+
+  /**
+   * Returns a non-{@code null} {@link String} representation of this
+   * {@link MatchOptions}.
+   *
+   * @return a non-{@code null} {@link String}
+   */
+  @Override
+  public final String toString() {
+    final StringBuilder sb = new StringBuilder("maxSteps: ");
+    sb.append(this.maxSteps == Long.MAX_VALUE ? "unlimited" : String.valueOf(this.maxSteps));
+    sb.append("; maxLiveThreads: ");
+    sb.append(this.maxLiveThreads == Integer.MAX_VALUE ? "unlimited" : String.valueOf(this.maxLiveThreads));
+    sb.append("; timeout: ");
+    sb.append(this.timeoutNanos == Long.MAX_VALUE ? "none" : TimeUnit.NANOSECONDS.toMillis(this.timeoutNanos) + " ms");
+    sb.append("; interruptible: ").append(this.interruptible);
+    sb.append("; compressedAlphabet: ").append(this.compressedAlphabet);
+    sb.append("; atomBitmaps: ").append(this.atomBitmaps);
+    sb.append("; lockstepCheck: ").append(this.lockstepCheck);
+    sb.append("; memoizedStates: ").append(this.memoizedStates);
+    return sb.toString();
+  }
+
+}
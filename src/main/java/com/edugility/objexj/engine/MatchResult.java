@@ -30,8 +30,11 @@ package com.edugility.objexj.engine;
 import java.io.Serializable;
 
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
 import java.util.logging.Level;
@@ -43,6 +46,14 @@ import com.edugility.objexj.engine.Thread;
  * The result of a {@link Thread} that has successfully {@linkplain
  * Thread#match() matched} its input.
  *
+ * <p>A {@link MatchResult} is an immutable snapshot taken at the
+ * moment the match occurs.  It holds on to the input, the start and
+ * end indices of each capture group and a copy of the variables, but
+ * not to the matching {@link Thread}, so the {@link Program} run,
+ * the other {@link Thread}s and everything else involved in finding
+ * the match may be garbage collected as soon as the match is
+ * found.</p>
+ *
  * @param <T> the type of {@link Object} the matching {@link Thread}
  * works with
  *
@@ -60,32 +71,125 @@ public class MatchResult<T> implements Serializable {
   private static final long serialVersionUID = 1L;
 
   /**
-   * The {@link Thread} that caused the match to happen.
+   * The input that was matched.
    *
    * <p>This field may be {@code null}.</p>
    */
-  private final Thread<? extends T> thread;
+  private final List<? extends T> input;
 
   /**
-   * Creates a new {@link MatchResult}.
+   * Whether a match occurred at all.
+   *
+   * @see #lookingAt()
+   */
+  private final boolean lookingAt;
+
+  /**
+   * Whether the match consumed all of the {@linkplain #input input}.
+   *
+   * @see #matches()
+   */
+  private final boolean matches;
+
+  /**
+   * The index of the first item following the match.
+   *
+   * @see #getEndIndex()
+   */
+  private final int endIndex;
+
+  /**
+   * The start and end indices of the capture groups indexed under
+   * non-negative {@link Integer} keys, laid out as described in the
+   * documentation for the {@link #offsets()} method.
+   *
+   * <p>This field is never {@code null}.</p>
+   *
+   * @see #offsets()
+   */
+  private final int[] offsets;
+
+  /**
+   * The start and end indices of any capture groups indexed under
+   * other keys, such as those used by {@link Program}s that were
+   * {@linkplain Program#valueOf(String) written by hand}.
+   *
+   * <p>This field may be {@code null}.</p>
+   */
+  private final Map<Object, int[]> otherOffsets;
+
+  /**
+   * An unmodifiable copy of the variables set by the matching {@link
+   * Thread}.
+   *
+   * <p>This field is never {@code null}.</p>
+   *
+   * @see #getVariables()
+   */
+  private final Map<?, ?> variables;
+
+  /**
+   * Creates a new {@link MatchResult} that represents no match.
    */
   MatchResult() {
     super();
-    this.thread = null;
+    this.input = null;
+    this.lookingAt = false;
+    this.matches = false;
+    this.endIndex = -1;
+    this.offsets = new int[0];
+    this.otherOffsets = null;
+    this.variables = Collections.emptyMap();
   }
 
   /**
-   * Creates a new {@link MatchResult}.
+   * Creates a new {@link MatchResult} by taking a snapshot of the
+   * supplied {@link Thread}.  No reference to the supplied {@link
+   * Thread} is retained.
    *
    * @param thread the {@link Thread} that {@linkplain Thread#match()
-   * matched}; may be {@code null}
+   * matched}; may be {@code null} in which case the new {@link
+   * MatchResult} will represent no match
+   *
+   * @exception IllegalArgumentException if {@code thread} is not
+   * {@code null} and did not match
    */
   MatchResult(final Thread<? extends T> thread) {
     super();
-    if (thread != null && Thread.State.MATCH != thread.getState()) {
-      throw new IllegalArgumentException(String.format("Thread.State.MATCH != thread.getState(): %s", thread.getState()));
+    if (thread == null) {
+      this.input = null;
+      this.lookingAt = false;
+      this.matches = false;
+      this.endIndex = -1;
+      this.offsets = new int[0];
+      this.otherOffsets = null;
+      this.variables = Collections.emptyMap();
+    } else {
+      if (Thread.State.MATCH != thread.getState()) {
+        throw new IllegalArgumentException(String.format("Thread.State.MATCH != thread.getState(): %s", thread.getState()));
+      }
+      this.input = thread.getItems();
+      this.lookingAt = true;
+      this.matches = thread.atEnd();
+      this.endIndex = thread.getItemPointer();
+      this.offsets = thread.getGroupOffsets();
+      Map<Object, int[]> otherOffsets = null;
+      for (final Object key : thread.getGroupKeySet()) {
+        if (!(key instanceof Integer) || ((Integer)key).intValue() < 0) {
+          if (otherOffsets == null) {
+            otherOffsets = new HashMap<Object, int[]>();
+          }
+          otherOffsets.put(key, new int[] { thread.getGroupStart(key), thread.getGroupEnd(key) });
+        }
+      }
+      this.otherOffsets = otherOffsets;
+      final Map<?, ?> variables = thread.getVariables();
+      if (variables == null || variables.isEmpty()) {
+        this.variables = Collections.emptyMap();
+      } else {
+        this.variables = Collections.unmodifiableMap(new HashMap<Object, Object>(variables));
+      }
     }
-    this.thread = thread;
   }
 
   /**
@@ -102,30 +206,156 @@ public class MatchResult<T> implements Serializable {
 
   /**
    * Returns {@code true} if the {@link #lookingAt()} method returns
-   * {@code true} and if the underlying {@link Thread} was {@linkplain
+   * {@code true} and if the matching {@link Thread} was {@linkplain
    * Thread#atEnd() at the end of its input} when the match occurred.
    *
    * @return {@code true} if the {@link #lookingAt()} method returns
-   * {@code true} and if the underlying {@link Thread} was {@linkplain
+   * {@code true} and if the matching {@link Thread} was {@linkplain
    * Thread#atEnd() at the end of its input} when the match occurred.
    */
   public boolean matches() {
-    return this.lookingAt() && this.thread.atEnd();
+    return this.lookingAt() && this.matches;
   }
 
   /**
-   * Returns {@code true} if the underlying {@link Thread} {@linkplain
-   * #MatchResult(Thread) supplied at construction time} has a
-   * {@linkplain Thread#getState() state} of {@link
-   * Thread.State#MATCH}.
-   *
-   * @return {@code true} if the underlying {@link Thread} {@linkplain
-   * #MatchResult(Thread) supplied at construction time} has a
-   * {@linkplain Thread#getState() state} of {@link
-   * Thread.State#MATCH}.
+   * Returns {@code true} if this {@link MatchResult} was created from
+   * a {@link Thread} that {@linkplain Thread#match() matched}.
+   *
+   * @return {@code true} if this {@link MatchResult} represents a
+   * match; {@code false} otherwise
    */
   public boolean lookingAt() {
-    return this.thread != null && this.thread.getState() == Thread.State.MATCH;
+    return this.lookingAt;
+  }
+
+  /**
+   * Returns the index of the first item following the match, or
+   * {@link Thread#VALID_NO_INPUT_POINTER} if there was no input.
+   *
+   * @return the index of the first item following the match
+   *
+   * @exception IllegalStateException if this {@link MatchResult}
+   * does not represent a match
+   */
+  final int getEndIndex() {
+    if (!this.lookingAt()) {
+      throw new IllegalStateException();
+    }
+    return this.endIndex;
+  }
+
+  /**
+   * Returns the inclusive zero-based index of the first item in the
+   * capture group indexed under the supplied group number, or {@code
+   * -1} if there is no such capture group.
+   *
+   * <p>This method does not create any objects.</p>
+   *
+   * @param group the number of the capture group
+   *
+   * @return the start index of the capture group, or {@code -1}
+   *
+   * @see #end(int)
+   */
+  public int start(final int group) {
+    if (group < 0 || 2 * group >= this.offsets.length) {
+      return -1;
+    }
+    return this.offsets[2 * group];
+  }
+
+  /**
+   * Returns the inclusive zero-based index of the first item in the
+   * match, or {@code -1} if group {@code 0} was not captured.
+   *
+   * @return the start index of the match, or {@code -1}
+   *
+   * @see #start(int)
+   */
+  public int start() {
+    return this.start(0);
+  }
+
+  /**
+   * Returns the exclusive zero-based index of the last item in the
+   * capture group indexed under the supplied group number, or {@code
+   * -1} if there is no such capture group.
+   *
+   * <p>This method does not create any objects.</p>
+   *
+   * @param group the number of the capture group
+   *
+   * @return the end index of the capture group, or {@code -1}
+   *
+   * @see #start(int)
+   */
+  public int end(final int group) {
+    if (group < 0 || 2 * group + 1 >= this.offsets.length) {
+      return -1;
+    }
+    return this.offsets[2 * group + 1];
+  }
+
+  /**
+   * Returns the exclusive zero-based index of the last item in the
+   * match, or {@code -1} if group {@code 0} was not captured.
+   *
+   * @return the end index of the match, or {@code -1}
+   *
+   * @see #end(int)
+   */
+  public int end() {
+    return this.end(0);
+  }
+
+  /**
+   * Returns an {@code int} array holding the {@linkplain #start(int)
+   * start} and {@linkplain #end(int) end} indices of every capture
+   * group: those of group {@code n} are found at indices {@code 2 *
+   * n} and {@code 2 * n + 1} respectively, and are both {@code -1} if
+   * the group was not captured.
+   *
+   * <p>This method never returns {@code null}.  A new array is
+   * returned each time this method is called; modifying it has no
+   * effect on this {@link MatchResult}.</p>
+   *
+   * @return a new, non-{@code null} {@code int} array of offsets
+   *
+   * @see #offsets(int[])
+   *
+   * @see Thread#getGroupOffsets()
+   */
+  public int[] offsets() {
+    return this.offsets.clone();
+  }
+
+  /**
+   * Copies the offsets {@linkplain #offsets() described} in the
+   * documentation for the {@link #offsets()} method into the supplied
+   * {@code int} array, starting at its index {@code 0}, and returns
+   * how many there are.
+   *
+   * <p>If {@code target} is too short to hold every offset, as many
+   * as fit are copied; the return value lets the caller tell.  This
+   * method does not create any objects.</p>
+   *
+   * @param target the {@code int} array to fill; must not be {@code
+   * null}
+   *
+   * @return the number of offsets this {@link MatchResult} holds,
+   * which may be greater than the number copied
+   *
+   * @exception IllegalArgumentException if {@code target} is {@code
+   * null}
+   *
+   * @see #offsets()
+   */
+  public int offsets(final int[] target) {
+    if (target == null) {
+      throw new IllegalArgumentException("target", new NullPointerException("target"));
+    }
+    System.arraycopy(this.offsets, 0, target, 0, Math.min(this.offsets.length, target.length));
+    return this.offsets.length;
   }
 
   /**
@@ -137,10 +367,8 @@ public class MatchResult<T> implements Serializable {
    * @param key the key of the capture group {@link
    * List} to return; may be {@code null}
    *
-   * @return a {@link List} of items captured, or {@code null} if
-   * there is no such {@link List}
-   *
-   * @see Thread#getGroup(Object)
+   * @return an unmodifiable {@link List} of items captured, or {@code
+   * null} if there is no such {@link List}
    */
   public List<? extends T> getGroup(final Object key) {
     final String className = this.getClass().getName();
@@ -150,8 +378,26 @@ public class MatchResult<T> implements Serializable {
       logger.entering(className, "getGroup", key);
     }      
     List<? extends T> result = null;
-    if (this.thread != null) {
-      result = thread.getGroup(key);
+    if (this.input != null) {
+      final int start;
+      final int end;
+      if (key instanceof Integer && ((Integer)key).intValue() >= 0) {
+        final int group = ((Integer)key).intValue();
+        start = this.start(group);
+        end = this.end(group);
+      } else if (this.otherOffsets != null && this.otherOffsets.containsKey(key)) {
+        final int[] offsets = this.otherOffsets.get(key);
+        assert offsets != null;
+        assert offsets.length == 2;
+        start = offsets[0];
+        end = offsets[1];
+      } else {
+        start = -1;
+        end = -1;
+      }
+      if (start >= 0) {
+        result = Collections.unmodifiableList(this.input.subList(start, end));
+      }
     }
     if (finer) {
       logger.exiting(className, "getGroup", result);
@@ -168,24 +414,13 @@ public class MatchResult<T> implements Serializable {
    * {@code 0}
    *
    * @see #getGroup(Object)
-   *
-   * @see Thread#getGroupCount()
    */
   public int getGroupCount() {
-    final String className = this.getClass().getName();
-    final Logger logger = this.getLogger();
-    final boolean finer = logger != null && logger.isLoggable(Level.FINER);
-    if (finer) {
-      logger.entering(className, "getGroupCount");
-    }
-    final int result;
-    if (this.thread == null) {
-      result = 0;
-    } else {
-      result = this.thread.getGroupCount();
-    }
-    if (finer) {
-      logger.exiting(className, "getGroupCount", Integer.valueOf(result));
+    int result = this.otherOffsets == null ? 0 : this.otherOffsets.size();
+    for (int i = 0; i < this.offsets.length; i += 2) {
+      if (this.offsets[i] >= 0) {
+        result++;
+      }
     }
     return result;
   }
@@ -203,22 +438,16 @@ public class MatchResult<T> implements Serializable {
    * method
    */
   public Set<?> getGroupKeySet() {
-    final String className = this.getClass().getName();
-    final Logger logger = this.getLogger();
-    final boolean finer = logger != null && logger.isLoggable(Level.FINER);
-    if (finer) {
-      logger.entering(className, "getGroupKeySet");
-    }
-    final Set<?> returnValue;
-    if (this.thread == null) {
-      returnValue = Collections.emptySet();
-    } else {
-      returnValue = this.thread.getGroupKeySet();
+    final Set<Object> returnValue = new HashSet<Object>();
+    for (int i = 0; i < this.offsets.length; i += 2) {
+      if (this.offsets[i] >= 0) {
+        returnValue.add(Integer.valueOf(i / 2));
+      }
     }
-    if (finer) {
-      logger.exiting(className, "getGroupKeySet", returnValue);
+    if (this.otherOffsets != null) {
+      returnValue.addAll(this.otherOffsets.keySet());
     }
-    return returnValue;
+    return Collections.unmodifiableSet(returnValue);
   }
 
   /**
@@ -235,52 +464,25 @@ public class MatchResult<T> implements Serializable {
    * @see #getVariables()
    */
   public Object getVariable(final Object key) {
-    final String className = this.getClass().getName();
-    final Logger logger = this.getLogger();
-    final boolean finer = logger != null && logger.isLoggable(Level.FINER);
-    if (finer) {
-      logger.entering(className, "getVariable", key);
-    }
-    Object result = null;
-    if (this.thread != null) {
-      final Map<?, ?> variables = this.getVariables();
-      if (variables != null) {
-        result = variables.get(key);
-      }
-    }
-    if (finer) {
-      logger.exiting(className, "getVariable", result);
-    }
-    return result;
+    final Map<?, ?> variables = this.getVariables();
+    assert variables != null;
+    return variables.get(key);
   }
 
   /**
    * Returns a non-{@code null} {@linkplain
    * Collections#unmodifiableMap(Map) unmodifiable <code>Map</code>}
-   * of the variables set on the {@link Thread} that this {@link
-   * MatchResult} wraps.
+   * of the variables that were set on the matching {@link Thread} at
+   * the moment it matched.
    *
    * <p>This method never returns {@code null}.</p>
    *
    * <p>Overrides of this method must never return {@code null}.</p>
    *
-   * @return a non-{@code null} {@link Map} of variables, or {@code null}
+   * @return a non-{@code null} {@link Map} of variables
    */
   public Map<?, ?> getVariables() {
-    final String className = this.getClass().getName();
-    final Logger logger = this.getLogger();
-    final boolean finer = logger != null && logger.isLoggable(Level.FINER);
-    if (finer) {
-      logger.entering(className, "getVariables");
-    }
-    Map<?, ?> result = null;
-    if (this.thread != null) {
-      result = this.thread.getVariables();
-    }
-    if (finer) {
-      logger.exiting(className, "getVariables", result);
-    }
-    return result;
+    return this.variables;
   }
 
 }
@@ -0,0 +1,338 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.io.Serializable;
+
+import java.util.List; // for javadoc only
+import java.util.Set; // for javadoc only
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counters describing how much work the {@link Engine} did while
+ * {@linkplain Engine#run(Program, List, Set, MatchStats) running} a
+ * {@link Program}.
+ *
+ * <p>A {@link MatchStats} is filled in by the {@link Engine} as it
+ * runs and may be {@linkplain #add(MatchStats) added} to another to
+ * accumulate totals over many runs.  Keeping count costs an
+ * increment here and there, and a call to {@link System#nanoTime()}
+ * around each evaluation of a {@link Filter} with an MVEL
+ * expression, so it is cheap enough to leave on in production.</p>
+ *
+ * <p>{@link MatchStats} instances are not safe for use by multiple
+ * Java {@linkplain java.lang.Thread threads}.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see Engine#run(Program, List, Set, MatchStats)
+ */
+public final class MatchStats implements Serializable {
+
+  /**
+   * The version of this class for {@linkplain Serializable
+   * serialization purposes}.
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The number of {@link Thread}s forked by {@link Split}s and
+   * similar {@link Instruction}s.
+   */
+  private long threadsForked;
+
+  /**
+   * The number of {@link Instruction}s executed.
+   */
+  private long instructionsExecuted;
+
+  /**
+   * The number of times a {@link Filter} without an MVEL expression
+   * was evaluated.
+   */
+  private long classFilterEvaluations;
+
+  /**
+   * The number of times a {@link Filter} with an MVEL expression was
+   * evaluated.
+   */
+  private long mvelFilterEvaluations;
+
+  /**
+   * The number of nanoseconds spent evaluating {@link Filter}s with
+   * MVEL expressions.
+   */
+  private long mvelFilterNanos;
+
+  /**
+   * The largest number of {@link Thread}s that were waiting to run
+   * at any one time.
+   */
+  private int peakLiveThreads;
+
+  /**
+   * The number of times a {@link Thread} read an item and moved past
+   * it.
+   */
+  private long itemsRead;
+
+  /**
+   * The number of times a {@link Filter}'s result was recalled from
+   * a {@link FilterMemo} instead of being evaluated again.
+   */
+  private long filterResultsRecalled;
+
+  /**
+   * Creates a new {@link MatchStats} whose counters are all zero.
+   */
+  public MatchStats() {
+    super();
+  }
+
+  /**
+   * Creates a new {@link MatchStats} whose counters are copied from
+   * the supplied {@link MatchStats}.
+   *
+   * @param stats the {@link MatchStats} to copy; must not be {@code
+   * null}
+   *
+   * @exception IllegalArgumentException if {@code stats} is {@code
+   * null}
+   */
+  public MatchStats(final MatchStats stats) {
+    this();
+    this.add(stats);
+  }
+
+  /**
+   * Returns the number of {@link Thread}s forked by {@link Split}s
+   * and similar {@link Instruction}s.  The {@link Thread} each run
+   * starts with is not included.
+   *
+   * @return the number of {@link Thread}s forked; never negative
+   */
+  public final long getThreadsForked() {
+    return this.threadsForked;
+  }
+
+  /**
+   * Returns the number of {@link Instruction}s executed across all
+   * {@link Thread}s.
+   *
+   * @return the number of {@link Instruction}s executed; never
+   * negative
+   */
+  public final long getInstructionsExecuted() {
+    return this.instructionsExecuted;
+  }
+
+  /**
+   * Returns the number of times a {@link Filter} without an MVEL
+   * expression, such as one that merely tests an item's class, was
+   * evaluated.
+   *
+   * @return the number of such evaluations; never negative
+   */
+  public final long getClassFilterEvaluations() {
+    return this.classFilterEvaluations;
+  }
+
+  /**
+   * Returns the number of times a {@link Filter} with an MVEL
+   * expression was evaluated.  An evaluation is counted even if the
+   * item's class meant the MVEL expression itself did not need to be
+   * run.
+   *
+   * @return the number of such evaluations; never negative
+   */
+  public final long getMVELFilterEvaluations() {
+    return this.mvelFilterEvaluations;
+  }
+
+  /**
+   * Returns the time spent evaluating {@link Filter}s with MVEL
+   * expressions, in the supplied {@link TimeUnit}.
+   *
+   * @param unit the {@link TimeUnit} to express the time in; must
+   * not be {@code null}
+   *
+   * @return the time spent; never negative
+   *
+   * @exception IllegalArgumentException if {@code unit} is {@code
+   * null}
+   */
+  public final long getMVELFilterTime(final TimeUnit unit) {
+    if (unit == null) {
+      throw new IllegalArgumentException("unit", new NullPointerException("unit"));
+    }
+    return unit.convert(this.mvelFilterNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Returns the largest number of {@link Thread}s that were waiting
+   * to run at any one time.
+   *
+   * @return the peak number of live {@link Thread}s; never negative
+   */
+  public final int getPeakLiveThreads() {
+    return this.peakLiveThreads;
+  }
+
+  /**
+   * Returns the number of times a {@link Thread} read an item of its
+   * input and moved past it.  An item read by several {@link
+   * Thread}s is counted once for each of them.
+   *
+   * @return the number of items read; never negative
+   */
+  public final long getItemsRead() {
+    return this.itemsRead;
+  }
+
+  /**
+   * Returns the number of times the {@linkplain
+   * FilterMemo remembered} result of a {@link Filter}
+   * with an MVEL expression was used instead of evaluating it again.
+   * Such uses are not counted by {@link #getMVELFilterEvaluations()}.
+   *
+   * @return the number of {@link Filter} results recalled; never
+   * negative
+   */
+  public final long getFilterResultsRecalled() {
+    return this.filterResultsRecalled;
+  }
+
+  /**
+   * Adds the counters of the supplied {@link MatchStats} to those of
+   * this {@link MatchStats}.  The {@linkplain #getPeakLiveThreads()
+   * peak number of live <code>Thread</code>s} becomes the larger of
+   * the two.
+   *
+   * @param stats the {@link MatchStats} to add; must not be {@code
+   * null}
+   *
+   * @exception IllegalArgumentException if {@code stats} is {@code
+   * null}
+   */
+  public final void add(final MatchStats stats) {
+    if (stats == null) {
+      throw new IllegalArgumentException("stats", new NullPointerException("stats"));
+    }
+    this.threadsForked += stats.threadsForked;
+    this.instructionsExecuted += stats.instructionsExecuted;
+    this.classFilterEvaluations += stats.classFilterEvaluations;
+    this.mvelFilterEvaluations += stats.mvelFilterEvaluations;
+    this.mvelFilterNanos += stats.mvelFilterNanos;
+    this.peakLiveThreads = Math.max(this.peakLiveThreads, stats.peakLiveThreads);
+    this.itemsRead += stats.itemsRead;
+    this.filterResultsRecalled += stats.filterResultsRecalled;
+  }
+
+  /**
+   * Records that a {@link Thread} was forked.
+   */
+  final void threadForked() {
+    ++this.threadsForked;
+  }
+
+  /**
+   * Records that an {@link Instruction} was executed.
+   */
+  final void instructionExecuted() {
+    ++this.instructionsExecuted;
+  }
+
+  /**
+   * Records that a {@link Filter} without an MVEL expression was
+   * evaluated.
+   */
+  final void classFilterEvaluated() {
+    ++this.classFilterEvaluations;
+  }
+
+  /**
+   * Records that a {@link Filter} with an MVEL expression was
+   * evaluated, taking the supplied number of nanoseconds.
+   *
+   * @param nanos the number of nanoseconds the evaluation took
+   */
+  final void mvelFilterEvaluated(final long nanos) {
+    ++this.mvelFilterEvaluations;
+    this.mvelFilterNanos += nanos;
+  }
+
+  /**
+   * Records that the supplied number of {@link Thread}s were waiting
+   * to run.
+   *
+   * @param liveThreads the number of {@link Thread}s waiting to run
+   */
+  final void liveThreads(final int liveThreads) {
+    if (liveThreads > this.peakLiveThreads) {
+      this.peakLiveThreads = liveThreads;
+    }
+  }
+
+  /**
+   * Records that a {@link Thread} read an item and moved past it.
+   */
+  final void itemRead() {
+    ++this.itemsRead;
+  }
+
+  /**
+   * Records that a {@link Filter}'s remembered result was used
+   * instead of evaluating it again.
+   */
+  final void filterResultRecalled() {
+    ++this.filterResultsRecalled;
+  }
+
+  /**
+   * Returns a non-{@code null} {@link String} representation of this
+   * {@link MatchStats}.
+   *
+   * @return a non-{@code null} {@link String} representation of this
+   * {@link MatchStats}
+   */
+  @Override
+  public final String toString() {
+    return String.format("threadsForked=%d, instructionsExecuted=%d, classFilterEvaluations=%d, mvelFilterEvaluations=%d, mvelFilterTime=%dus, peakLiveThreads=%d, itemsRead=%d, filterResultsRecalled=%d",
+                         this.threadsForked,
+                         this.instructionsExecuted,
+                         this.classFilterEvaluations,
+                         this.mvelFilterEvaluations,
+                         this.getMVELFilterTime(TimeUnit.MICROSECONDS),
+                         this.peakLiveThreads,
+                         this.itemsRead,
+                         this.filterResultsRecalled);
+  }
+
+}
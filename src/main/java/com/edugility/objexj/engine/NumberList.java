@@ -0,0 +1,450 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.io.Serializable;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * An unmodifiable, fixed-size {@link java.util.List} of {@link
+ * Number}s backed by an array or a buffer of primitive values.
+ *
+ * <p>A {@link Thread} whose input is a {@link NumberList} {@linkplain
+ * Thread#readLong() reads} and {@linkplain Thread#readDouble()
+ * reads} primitive values from it directly, so {@link
+ * NumberRangeFilter}s can match such input without any boxing.  The
+ * ordinary {@link #get(int)} method, which boxes, is used only when
+ * capture groups and the like are retrieved.</p>
+ *
+ * <p>{@link NumberList}s do not copy the arrays or buffers they are
+ * {@linkplain #valueOf(int[]) created from}, so those must not be
+ * modified while the {@link NumberList} is in use.</p>
+ *
+ * @param <T> the type of {@link Number} this {@link NumberList}
+ * contains
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see NumberRangeFilter
+ */
+public abstract class NumberList<T extends Number> extends AbstractList<T> implements RandomAccess, Serializable {
+
+  /**
+   * The version of this class for {@linkplain Serializable
+   * serialization purposes}.
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Creates a new {@link NumberList}.
+   */
+  private NumberList() {
+    super();
+  }
+
+  /**
+   * Returns the element at the supplied index as a {@code long},
+   * without boxing it.
+   *
+   * @param index the zero-based index of the element to return
+   *
+   * @return the element at the supplied index, widened or truncated
+   * to a {@code long}
+   *
+   * @exception IndexOutOfBoundsException if {@code index} is out of
+   * range
+   */
+  public abstract long getLong(final int index);
+
+  /**
+   * Returns the element at the supplied index as a {@code double},
+   * without boxing it.
+   *
+   * @param index the zero-based index of the element to return
+   *
+   * @return the element at the supplied index, widened to a {@code
+   * double}
+   *
+   * @exception IndexOutOfBoundsException if {@code index} is out of
+   * range
+   */
+  public abstract double getDouble(final int index);
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns a new {@link NumberList} backed by the supplied {@code
+   * int} array.
+   *
+   * @param values the array; must not be {@code null}
+   *
+   * @return a new {@link NumberList}; never {@code null}
+   *
+   * @exception IllegalArgumentException if {@code values} is {@code
+   * null}
+   */
+  public static final NumberList<Integer> valueOf(final int[] values) {
+    if (values == null) {
+      throw new IllegalArgumentException("values", new NullPointerException("values"));
+    }
+    return new IntArrayList(values);
+  }
+
+  /**
+   * Returns a new {@link NumberList} backed by the supplied {@code
+   * long} array.
+   *
+   * @param values the array; must not be {@code null}
+   *
+   * @return a new {@link NumberList}; never {@code null}
+   *
+   * @exception IllegalArgumentException if {@code values} is {@code
+   * null}
+   */
+  public static final NumberList<Long> valueOf(final long[] values) {
+    if (values == null) {
+      throw new IllegalArgumentException("values", new NullPointerException("values"));
+    }
+    return new LongArrayList(values);
+  }
+
+  /**
+   * Returns a new {@link NumberList} backed by the supplied {@code
+   * double} array.
+   *
+   * @param values the array; must not be {@code null}
+   *
+   * @return a new {@link NumberList}; never {@code null}
+   *
+   * @exception IllegalArgumentException if {@code values} is {@code
+   * null}
+   */
+  public static final NumberList<Double> valueOf(final double[] values) {
+    if (values == null) {
+      throw new IllegalArgumentException("values", new NullPointerException("values"));
+    }
+    return new DoubleArrayList(values);
+  }
+
+  /**
+   * Returns a new {@link NumberList} backed by the {@linkplain
+   * IntBuffer#remaining() remaining} elements of the supplied {@link
+   * IntBuffer}.  The buffer's position is not changed.
+   *
+   * @param buffer the buffer; must not be {@code null}
+   *
+   * @return a new {@link NumberList}; never {@code null}
+   *
+   * @exception IllegalArgumentException if {@code buffer} is {@code
+   * null}
+   */
+  public static final NumberList<Integer> valueOf(final IntBuffer buffer) {
+    if (buffer == null) {
+      throw new IllegalArgumentException("buffer", new NullPointerException("buffer"));
+    }
+    return new IntBufferList(buffer.slice());
+  }
+
+  /**
+   * Returns a new {@link NumberList} backed by the {@linkplain
+   * LongBuffer#remaining() remaining} elements of the supplied {@link
+   * LongBuffer}.  The buffer's position is not changed.
+   *
+   * @param buffer the buffer; must not be {@code null}
+   *
+   * @return a new {@link NumberList}; never {@code null}
+   *
+   * @exception IllegalArgumentException if {@code buffer} is {@code
+   * null}
+   */
+  public static final NumberList<Long> valueOf(final LongBuffer buffer) {
+    if (buffer == null) {
+      throw new IllegalArgumentException("buffer", new NullPointerException("buffer"));
+    }
+    return new LongBufferList(buffer.slice());
+  }
+
+  /**
+   * Returns a new {@link NumberList} backed by the {@linkplain
+   * DoubleBuffer#remaining() remaining} elements of the supplied
+   * {@link DoubleBuffer}.  The buffer's position is not changed.
+   *
+   * @param buffer the buffer; must not be {@code null}
+   *
+   * @return a new {@link NumberList}; never {@code null}
+   *
+   * @exception IllegalArgumentException if {@code buffer} is {@code
+   * null}
+   */
+  public static final NumberList<Double> valueOf(final DoubleBuffer buffer) {
+    if (buffer == null) {
+      throw new IllegalArgumentException("buffer", new NullPointerException("buffer"));
+    }
+    return new DoubleBufferList(buffer.slice());
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * A {@link NumberList} backed by an {@code int} array.
+   */
+  private static final class IntArrayList extends NumberList<Integer> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int[] values;
+
+    private IntArrayList(final int[] values) {
+      super();
+      this.values = values;
+    }
+
+    @Override
+    public final int size() {
+      return this.values.length;
+    }
+
+    @Override
+    public final Integer get(final int index) {
+      return Integer.valueOf(this.values[index]);
+    }
+
+    @Override
+    public final long getLong(final int index) {
+      return this.values[index];
+    }
+
+    @Override
+    public final double getDouble(final int index) {
+      return this.values[index];
+    }
+
+  }
+
+  /**
+   * A {@link NumberList} backed by a {@code long} array.
+   */
+  private static final class LongArrayList extends NumberList<Long> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long[] values;
+
+    private LongArrayList(final long[] values) {
+      super();
+      this.values = values;
+    }
+
+    @Override
+    public final int size() {
+      return this.values.length;
+    }
+
+    @Override
+    public final Long get(final int index) {
+      return Long.valueOf(this.values[index]);
+    }
+
+    @Override
+    public final long getLong(final int index) {
+      return this.values[index];
+    }
+
+    @Override
+    public final double getDouble(final int index) {
+      return this.values[index];
+    }
+
+  }
+
+  /**
+   * A {@link NumberList} backed by a {@code double} array.
+   */
+  private static final class DoubleArrayList extends NumberList<Double> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final double[] values;
+
+    private DoubleArrayList(final double[] values) {
+      super();
+      this.values = values;
+    }
+
+    @Override
+    public final int size() {
+      return this.values.length;
+    }
+
+    @Override
+    public final Double get(final int index) {
+      return Double.valueOf(this.values[index]);
+    }
+
+    @Override
+    public final long getLong(final int index) {
+      return (long)this.values[index];
+    }
+
+    @Override
+    public final double getDouble(final int index) {
+      return this.values[index];
+    }
+
+  }
+
+  /**
+   * A {@link NumberList} backed by an {@link IntBuffer}.  Buffers
+   * are not {@link Serializable}, so neither, in practice, is this
+   * class.
+   */
+  private static final class IntBufferList extends NumberList<Integer> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient IntBuffer buffer;
+
+    private IntBufferList(final IntBuffer buffer) {
+      super();
+      this.buffer = buffer;
+    }
+
+    @Override
+    public final int size() {
+      return this.buffer.limit();
+    }
+
+    @Override
+    public final Integer get(final int index) {
+      return Integer.valueOf(this.buffer.get(index));
+    }
+
+    @Override
+    public final long getLong(final int index) {
+      return this.buffer.get(index);
+    }
+
+    @Override
+    public final double getDouble(final int index) {
+      return this.buffer.get(index);
+    }
+
+  }
+
+  /**
+   * A {@link NumberList} backed by a {@link LongBuffer}.  Buffers
+   * are not {@link Serializable}, so neither, in practice, is this
+   * class.
+   */
+  private static final class LongBufferList extends NumberList<Long> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient LongBuffer buffer;
+
+    private LongBufferList(final LongBuffer buffer) {
+      super();
+      this.buffer = buffer;
+    }
+
+    @Override
+    public final int size() {
+      return this.buffer.limit();
+    }
+
+    @Override
+    public final Long get(final int index) {
+      return Long.valueOf(this.buffer.get(index));
+    }
+
+    @Override
+    public final long getLong(final int index) {
+      return this.buffer.get(index);
+    }
+
+    @Override
+    public final double getDouble(final int index) {
+      return this.buffer.get(index);
+    }
+
+  }
+
+  /**
+   * A {@link NumberList} backed by a {@link DoubleBuffer}.  Buffers
+   * are not {@link Serializable}, so neither, in practice, is this
+   * class.
+   */
+  private static final class DoubleBufferList extends NumberList<Double> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient DoubleBuffer buffer;
+
+    private DoubleBufferList(final DoubleBuffer buffer) {
+      super();
+      this.buffer = buffer;
+    }
+
+    @Override
+    public final int size() {
+      return this.buffer.limit();
+    }
+
+    @Override
+    public final Double get(final int index) {
+      return Double.valueOf(this.buffer.get(index));
+    }
+
+    @Override
+    public final long getLong(final int index) {
+      return (long)this.buffer.get(index);
+    }
+
+    @Override
+    public final double getDouble(final int index) {
+      return this.buffer.get(index);
+    }
+
+  }
+
+}
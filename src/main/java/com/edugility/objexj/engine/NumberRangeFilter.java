@@ -0,0 +1,477 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.io.Serializable; // for javadoc only
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link Filter} that accepts a {@link Number} if it falls within a
+ * range, testing it as a primitive {@code long} or {@code double}
+ * without boxing it or evaluating any <a
+ * href="http://mvel.codehaus.org/">MVEL</a>.
+ *
+ * <p>A {@link NumberRangeFilter} is described by a {@link Kind} and
+ * an optional predicate.  The predicate may be a comparison such as
+ * {@code > 500}, {@code >= 500}, {@code < 500}, {@code <= 500}, {@code
+ * == 500} or {@code != 500}, or an inclusive range such as {@code
+ * 500..599}.  Without a predicate, every {@link Number} is
+ * accepted.</p>
+ *
+ * <p>Input items are read using the {@link
+ * InstructionContext#readLong()} or {@link
+ * InstructionContext#readDouble()} methods, which do not box
+ * anything if the input is a {@link NumberList}.</p>
+ *
+ * @param <T> the type of {@link Object} that can be {@linkplain
+ * #accept(InstructionContext) accepted}
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see NumberList
+ */
+public class NumberRangeFilter<T> extends Filter<T> {
+
+  /**
+   * The version of this class for {@linkplain Serializable
+   * serialization purposes}.
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * A {@link Pattern} for parsing a single {@link String} for the
+   * operands logically taken by this {@link NumberRangeFilter}.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private static final Pattern OPERAND_PATTERN = Pattern.compile("^\\s*(\\w+)\\s*(.*?)\\s*$");
+
+  /**
+   * A {@link Pattern} for parsing a comparison predicate.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private static final Pattern COMPARISON_PATTERN = Pattern.compile("^(<=|>=|==|!=|<|>)\\s*(\\S+)$");
+
+  /**
+   * A {@link Pattern} for parsing an inclusive range predicate.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private static final Pattern RANGE_PATTERN = Pattern.compile("^(\\S+?)\\s*\\.\\.\\s*(\\S+)$");
+
+  /**
+   * The kind of {@link Number} this {@link NumberRangeFilter} tests.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final Kind kind;
+
+  /**
+   * The predicate this {@link NumberRangeFilter} was created with.
+   *
+   * <p>This field may be {@code null}.</p>
+   */
+  private final String predicate;
+
+  /**
+   * Whether the range test's outcome is inverted, as it is for the
+   * {@code !=} comparison.
+   */
+  private final boolean negated;
+
+  /**
+   * The inclusive lower bound used when {@link #kind} is not {@link
+   * Kind#DOUBLE}.
+   */
+  private final long minLong;
+
+  /**
+   * The inclusive upper bound used when {@link #kind} is not {@link
+   * Kind#DOUBLE}.
+   */
+  private final long maxLong;
+
+  /**
+   * The lower bound used when {@link #kind} is {@link Kind#DOUBLE}.
+   */
+  private final double minDouble;
+
+  /**
+   * The upper bound used when {@link #kind} is {@link Kind#DOUBLE}.
+   */
+  private final double maxDouble;
+
+  /**
+   * Whether {@link #minDouble} is itself in range.
+   */
+  private final boolean minInclusive;
+
+  /**
+   * Whether {@link #maxDouble} is itself in range.
+   */
+  private final boolean maxInclusive;
+
+  /**
+   * Creates a new {@link NumberRangeFilter}.
+   *
+   * @param operands the {@linkplain Kind#getKeyword() keyword of a
+   * <code>Kind</code>}, optionally followed by whitespace and a
+   * predicate, as described in the {@linkplain NumberRangeFilter
+   * class documentation}; for example, {@code int >= 500}; must not
+   * be {@code null}
+   *
+   * @exception IllegalArgumentException if {@code operands} is {@code
+   * null} or could not be parsed
+   */
+  public NumberRangeFilter(final String operands) {
+    super();
+    if (operands == null) {
+      throw new IllegalArgumentException("operands", new NullPointerException("operands"));
+    }
+    final Matcher m = OPERAND_PATTERN.matcher(operands);
+    assert m != null;
+    if (!m.matches()) {
+      throw new IllegalArgumentException("Bad operands: " + operands);
+    }
+    this.kind = Kind.forKeyword(m.group(1));
+    final String predicate = m.group(2);
+    boolean negated = false;
+    long minLong = Long.MIN_VALUE;
+    long maxLong = Long.MAX_VALUE;
+    double minDouble = Double.NEGATIVE_INFINITY;
+    double maxDouble = Double.POSITIVE_INFINITY;
+    boolean minInclusive = true;
+    boolean maxInclusive = true;
+    if (predicate == null || predicate.isEmpty()) {
+      this.predicate = null;
+    } else {
+      this.predicate = predicate;
+      final Matcher comparison = COMPARISON_PATTERN.matcher(predicate);
+      final Matcher range = RANGE_PATTERN.matcher(predicate);
+      if (comparison.matches()) {
+        final String operator = comparison.group(1);
+        final String operand = comparison.group(2);
+        if (this.kind == Kind.DOUBLE) {
+          final double value = parseDouble(operand);
+          if (operator.equals("<")) {
+            maxDouble = value;
+            maxInclusive = false;
+          } else if (operator.equals("<=")) {
+            maxDouble = value;
+          } else if (operator.equals(">")) {
+            minDouble = value;
+            minInclusive = false;
+          } else if (operator.equals(">=")) {
+            minDouble = value;
+          } else {
+            minDouble = value;
+            maxDouble = value;
+            negated = operator.equals("!=");
+          }
+        } else {
+          final long value = this.kind.parseLong(operand);
+          if (operator.equals("<")) {
+            if (value == Long.MIN_VALUE) {
+              // Nothing is less than Long.MIN_VALUE; value - 1 would
+              // wrap around to Long.MAX_VALUE.
+              minLong = Long.MAX_VALUE;
+              maxLong = Long.MIN_VALUE;
+            } else {
+              maxLong = value - 1L;
+            }
+          } else if (operator.equals("<=")) {
+            maxLong = value;
+          } else if (operator.equals(">")) {
+            if (value == Long.MAX_VALUE) {
+              // Nothing is greater than Long.MAX_VALUE; value + 1
+              // would wrap around to Long.MIN_VALUE.
+              minLong = Long.MAX_VALUE;
+              maxLong = Long.MIN_VALUE;
+            } else {
+              minLong = value + 1L;
+            }
+          } else if (operator.equals(">=")) {
+            minLong = value;
+          } else {
+            minLong = value;
+            maxLong = value;
+            negated = operator.equals("!=");
+          }
+        }
+      } else if (range.matches()) {
+        if (this.kind == Kind.DOUBLE) {
+          minDouble = parseDouble(range.group(1));
+          maxDouble = parseDouble(range.group(2));
+        } else {
+          minLong = this.kind.parseLong(range.group(1));
+          maxLong = this.kind.parseLong(range.group(2));
+        }
+      } else {
+        throw new IllegalArgumentException("Bad predicate: " + predicate);
+      }
+    }
+    this.negated = negated;
+    this.minLong = minLong;
+    this.maxLong = maxLong;
+    this.minDouble = minDouble;
+    this.maxDouble = maxDouble;
+    this.minInclusive = minInclusive;
+    this.maxInclusive = maxInclusive;
+  }
+
+  /**
+   * Returns the {@link Kind} of {@link Number} this {@link
+   * NumberRangeFilter} tests.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null} {@link Kind}
+   */
+  public final Kind getKind() {
+    return this.kind;
+  }
+
+  /**
+   * Returns {@code true} if the supplied {@link InstructionContext}
+   * {@linkplain InstructionContext#canReadNumber() can read a
+   * <code>Number</code>} and that {@link Number} is in range.
+   *
+   * @param context the {@link InstructionContext} in which this
+   * {@link NumberRangeFilter} is running; may be {@code null} in which
+   * case {@code false} will be returned
+   *
+   * @return {@code true} if the current item is a {@link Number} in
+   * range; {@code false} otherwise
+   */
+  @Override
+  public boolean accept(final InstructionContext<? extends T> context) {
+    final boolean returnValue;
+    if (context == null || !context.canReadNumber()) {
+      returnValue = false;
+    } else if (this.kind == Kind.DOUBLE) {
+      final double value = context.readDouble();
+      returnValue = this.negated != ((this.minInclusive ? value >= this.minDouble : value > this.minDouble) &&
+                                     (this.maxInclusive ? value <= this.maxDouble : value < this.maxDouble));
+    } else {
+      final long value = context.readLong();
+      returnValue = this.negated != (value >= this.minLong && value <= this.maxLong);
+    }
+    return returnValue;
+  }
+
+  /**
+   * Returns a hashcode for this {@link NumberRangeFilter}.
+   *
+   * @return a hashcode for this {@link NumberRangeFilter}
+   */
+  @Override
+  public int hashCode() {
+    int result = 17;
+    result = 37 * result + this.kind.hashCode();
+    result = 37 * result + (this.predicate == null ? 0 : this.predicate.hashCode());
+    return result;
+  }
+
+  /**
+   * Returns {@code true} if the supplied {@link Object} is equal to
+   * this {@link NumberRangeFilter}.
+   *
+   * @param other the {@link Object} to test; may be {@code null} in
+   * which case {@code false} will be returned
+   *
+   * @return {@code true} if the supplied {@link Object} is equal to
+   * this {@link NumberRangeFilter}; {@code false} otherwise
+   */
+  @Override
+  public boolean equals(final Object other) {
+    if (other == this) {
+      return true;
+    } else if (super.equals(other)) {
+      final NumberRangeFilter<?> him = (NumberRangeFilter<?>)other;
+      if (this.kind != him.kind) {
+        return false;
+      }
+      if (this.predicate == null) {
+        return him.predicate == null;
+      }
+      return this.predicate.equals(him.predicate);
+    } else {
+      return false;
+    }
+  }
+
+  /**
+   * Returns a non-{@code null} {@link String} representation of this
+   * {@link NumberRangeFilter} that could be supplied to its
+   * {@linkplain #NumberRangeFilter(String) constructor}.
+   *
+   * @return a non-{@code null} {@link String} representation of this
+   * {@link NumberRangeFilter}
+   */
+  @Override
+  public String toString() {
+    return new StringBuilder(super.toString()).append(" ").append(this.getOperands()).toString();
+  }
+
+  /**
+   * Returns the operands of this {@link NumberRangeFilter} in a form
+   * suitable for supplying to its {@linkplain
+   * #NumberRangeFilter(String) constructor}.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null} operand {@link String}, such as {@code
+   * int >= 500}
+   */
+  final String getOperands() {
+    if (this.predicate == null) {
+      return this.kind.getKeyword();
+    }
+    return new StringBuilder(this.kind.getKeyword()).append(" ").append(this.predicate).toString();
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Parses the supplied {@link String} as a {@code double}.
+   *
+   * @param text the {@link String} to parse; must not be {@code null}
+   *
+   * @return the {@code double} represented by {@code text}
+   *
+   * @exception IllegalArgumentException if {@code text} is not a
+   * valid {@code double}
+   */
+  private static final double parseDouble(final String text) {
+    try {
+      return Double.parseDouble(text);
+    } catch (final NumberFormatException wrapMe) {
+      throw new IllegalArgumentException(text, wrapMe);
+    }
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * The kinds of {@link Number} a {@link NumberRangeFilter} can test.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  public static enum Kind {
+
+    /**
+     * A {@link Kind} whose values are tested as {@code long}s and
+     * whose bounds must fit in an {@code int}.
+     */
+    INT,
+
+    /**
+     * A {@link Kind} whose values are tested as {@code long}s.
+     */
+    LONG,
+
+    /**
+     * A {@link Kind} whose values are tested as {@code double}s.
+     */
+    DOUBLE;
+
+    /**
+     * Returns the keyword that identifies this {@link Kind} in
+     * textual representations: {@code int}, {@code long} or {@code
+     * double}.
+     *
+     * <p>This method never returns {@code null}.</p>
+     *
+     * @return a non-{@code null} keyword
+     */
+    public final String getKeyword() {
+      return this.name().toLowerCase();
+    }
+
+    /**
+     * Parses the supplied {@link String} as a bound for this {@link
+     * Kind}.
+     *
+     * @param text the {@link String} to parse; must not be {@code
+     * null}
+     *
+     * @return the bound represented by {@code text}
+     *
+     * @exception IllegalArgumentException if {@code text} is not a
+     * valid bound for this {@link Kind}
+     */
+    private final long parseLong(final String text) {
+      try {
+        if (this == INT) {
+          return Integer.parseInt(text);
+        }
+        return Long.parseLong(text);
+      } catch (final NumberFormatException wrapMe) {
+        throw new IllegalArgumentException(text, wrapMe);
+      }
+    }
+
+    /**
+     * Returns the {@link Kind} identified by the supplied {@linkplain
+     * #getKeyword() keyword}.
+     *
+     * @param keyword the keyword; must not be {@code null}
+     *
+     * @return a non-{@code null} {@link Kind}
+     *
+     * @exception IllegalArgumentException if {@code keyword} is
+     * {@code null} or does not identify a {@link Kind}
+     */
+    public static final Kind forKeyword(final String keyword) {
+      if (keyword == null) {
+        throw new IllegalArgumentException("keyword", new NullPointerException("keyword"));
+      }
+      for (final Kind kind : values()) {
+        if (kind.getKeyword().equals(keyword)) {
+          return kind;
+        }
+      }
+      throw new IllegalArgumentException("Unknown kind: " + keyword);
+    }
+
+  }
+
+}
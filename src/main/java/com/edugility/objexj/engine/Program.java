@@ -31,12 +31,14 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
-import java.io.Reader; // for javadoc only
+import java.io.Reader;
 import java.io.StringReader;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 
+import java.nio.CharBuffer;
+
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
@@ -174,6 +176,60 @@ public final class Program<T> extends LinkedList<Instruction<T>> {
     this.source = source;
   }
 
+  /**
+   * Returns the strongest {@link ConditionEffect} of any {@link
+   * MVELFilter} in this {@link Program}, or {@link
+   * ConditionEffect#PURE} if there are none.
+   *
+   * <p>If the return value is not {@link
+   * ConditionEffect#WRITES_VARIABLES}, then no variable changes while
+   * this {@link Program} runs, and so even those {@link MVELFilter}s
+   * that {@linkplain ConditionEffect#READS_VARIABLES read variables}
+   * always give the same answer for the same item.</p>
+   *
+   * @return the strongest {@link ConditionEffect} of any {@link
+   * MVELFilter} in this {@link Program}; never {@code null}
+   *
+   * @see MVELFilter#getConditionEffect()
+   */
+  public final ConditionEffect getConditionEffect() {
+    ConditionEffect returnValue = ConditionEffect.PURE;
+    for (final Instruction<T> instruction : this) {
+      if (instruction instanceof MVELFilter) {
+        returnValue = returnValue.max(((MVELFilter<?>)instruction).getConditionEffect());
+        if (returnValue == ConditionEffect.WRITES_VARIABLES) {
+          break;
+        }
+      }
+    }
+    return returnValue;
+  }
+
+  /**
+   * Returns the {@link ConditionEffect} of the {@link Instruction}
+   * found at the supplied {@code index}, or {@code null} if that
+   * {@link Instruction} is not an {@link MVELFilter}.
+   *
+   * @param index the zero-based index of the {@link Instruction} in
+   * question
+   *
+   * @return the {@link ConditionEffect} of the {@link Instruction} at
+   * {@code index}, or {@code null}
+   *
+   * @exception InvalidProgramCounterException if {@code index} is
+   * less than {@code 0} or greater than or equal to {@linkplain
+   * #size() this <code>Program</code>'s size}
+   *
+   * @see MVELFilter#getConditionEffect()
+   */
+  public final ConditionEffect getConditionEffect(final int index) {
+    final Instruction<T> instruction = this.get(index);
+    if (instruction instanceof MVELFilter) {
+      return ((MVELFilter<?>)instruction).getConditionEffect();
+    }
+    return null;
+  }
+
   /**
    * Returns {@code true} if the supplied {@code programCounter} is
    * valid&mdash;that is, greater than or equal to {@code 0} and less
@@ -554,16 +610,128 @@ public final class Program<T> extends LinkedList<Instruction<T>> {
     if (reader == null) {
       throw new IllegalArgumentException("reader == null");
     }
-    Program<T> program = new Program<T>();
-    String line = null;
-    while ((line = reader.readLine()) != null) {
-      line = line.trim();
-      if (!line.isEmpty() && !line.startsWith("#")) {
-        program.add(Instruction.<T>valueOf(line));
+    return valueOf((Reader)reader);
+  }
+
+  /**
+   * Creates and returns a {@link Program} assembled from the
+   * characters read from the supplied {@link Reader}.
+   *
+   * <p>Each line read is an {@link Instruction} in {@linkplain
+   * Instruction#valueOf(String) source form}.  Blank lines, and lines
+   * whose first non-whitespace character is {@code #}, are
+   * ignored.</p>
+   *
+   * <p>Characters are read in blocks into a buffer that is reused
+   * from line to line, so the supplied {@link Reader} does not need
+   * to be buffered.  {@link Instruction}s whose mnemonics have been
+   * {@linkplain Instruction#register(String, InstructionFactory)
+   * registered} are created without reflection.</p>
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param <T> the type of {@link Object}s the returned {@link
+   * Program} will be able to match
+   *
+   * @param reader a {@link Reader} that can read {@link
+   * Instruction}s in {@linkplain Instruction#valueOf(String) source
+   * form}; must not be {@code null} and must not be {@linkplain
+   * Reader#close() closed}.  It is not closed by this method.
+   *
+   * @return a new {@link Program}; never {@code null}
+   *
+   * @exception IllegalArgumentException if {@code reader} is {@code
+   * null} or if a line could not be parsed
+   *
+   * @exception ClassNotFoundException if there was an error
+   * assembling an {@link Instruction} reflectively
+   *
+   * @exception IllegalAccessException if there was an error
+   * assembling an {@link Instruction} reflectively
+   *
+   * @exception InstantiationException if there was an error
+   * assembling an {@link Instruction} reflectively
+   *
+   * @exception InvocationTargetException if there was an error
+   * assembling an {@link Instruction} reflectively
+   *
+   * @exception IOException if there was an error reading
+   *
+   * @exception NoSuchMethodException if there was an error
+   * assembling an {@link Instruction} reflectively
+   *
+   * @see Instruction#register(String, InstructionFactory)
+   */
+  public static final <T> Program<T> valueOf(final Reader reader) throws ClassNotFoundException, IllegalAccessException, InstantiationException, InvocationTargetException, IOException, NoSuchMethodException {
+    if (reader == null) {
+      throw new IllegalArgumentException("reader", new NullPointerException("reader"));
+    }
+    final Program<T> program = new Program<T>();
+    final char[] buffer = new char[8192];
+    char[] line = new char[128];
+    CharBuffer lineView = CharBuffer.wrap(line);
+    int length = 0;
+    int read;
+    while ((read = reader.read(buffer)) >= 0) {
+      for (int i = 0; i < read; i++) {
+        final char c = buffer[i];
+        if (c == '\n' || c == '\r') {
+          assemble(program, lineView, length);
+          length = 0;
+        } else {
+          if (length == line.length) {
+            final char[] newLine = new char[line.length * 2];
+            System.arraycopy(line, 0, newLine, 0, length);
+            line = newLine;
+            lineView = CharBuffer.wrap(line);
+          }
+          line[length++] = c;
+        }
       }
     }
+    assemble(program, lineView, length);
     return program;
   }
+
+  /**
+   * Adds an {@link Instruction} assembled from the first {@code
+   * length} characters of the supplied {@link CharSequence} to the
+   * supplied {@link Program}, unless those characters are blank or
+   * form a comment.
+   *
+   * @param program the {@link Program} to add to; must not be {@code
+   * null}
+   *
+   * @param line the line to assemble; must not be {@code null}
+   *
+   * @param length the number of characters in the line
+   *
+   * @exception ClassNotFoundException if there was an error
+   * assembling an {@link Instruction} reflectively
+   *
+   * @exception IllegalAccessException if there was an error
+   * assembling an {@link Instruction} reflectively
+   *
+   * @exception InstantiationException if there was an error
+   * assembling an {@link Instruction} reflectively
+   *
+   * @exception InvocationTargetException if there was an error
+   * assembling an {@link Instruction} reflectively
+   *
+   * @exception NoSuchMethodException if there was an error
+   * assembling an {@link Instruction} reflectively
+   */
+  private static final <T> void assemble(final Program<T> program, final CharSequence line, final int length) throws ClassNotFoundException, IllegalAccessException, InstantiationException, InvocationTargetException, NoSuchMethodException {
+    assert program != null;
+    assert line != null;
+    int start = 0;
+    while (start < length && Character.isWhitespace(line.charAt(start))) {
+      start++;
+    }
+    if (start < length && line.charAt(start) != '#') {
+      program.add(Instruction.<T>valueOf(line, start, length));
+    }
+  }
   
   /**
    * Creates and returns a {@link Program} parsed from the supplied
@@ -604,7 +772,7 @@ public final class Program<T> extends LinkedList<Instruction<T>> {
     if (text == null) {
       throw new IllegalArgumentException("text == null");
     }
-    final BufferedReader reader = new BufferedReader(new StringReader(text));
+    final Reader reader = new StringReader(text);
     try {
       return valueOf(reader);
     } finally {
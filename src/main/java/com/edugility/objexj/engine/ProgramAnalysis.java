@@ -0,0 +1,643 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * What can be learned about a {@link Program} without running it,
+ * and which {@link Strategy} is therefore likely to run it fastest
+ * against input of a given size.
+ *
+ * <p>Facts that are cheap to learn are learned when a {@link
+ * ProgramAnalysis} is {@linkplain #of(Program) created}.  The rest,
+ * which {@link #isAnchoredAtStart()}, {@link #getRequiredAtoms()},
+ * {@link #getMaximumFanOut()}, {@link #getComplexity()}, {@link
+ * #risksSuperlinearTime()} and {@link #hasEmptyLoop()} report, are
+ * learned the first time one of those methods is called, and then
+ * remembered.  {@link ProgramAnalysis} instances are otherwise
+ * immutable, and are safe for use by multiple Java {@linkplain
+ * java.lang.Thread threads}.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see #of(Program)
+ *
+ * @see #selectStrategy(int, Set, boolean)
+ */
+public final class ProgramAnalysis {
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The number of {@link Instruction}s in the {@link Program}.
+   */
+  private final int size;
+
+  /**
+   * The keys of the capture groups the {@link Program} {@linkplain
+   * Save saves}.  This field is never {@code null}.
+   */
+  private final Set<Object> captureKeys;
+
+  /**
+   * Whether the {@link Program} contains any {@link Split} or {@link
+   * CountedSplit} instructions.
+   */
+  private final boolean forks;
+
+  /**
+   * Whether every path through the {@link Program} to its {@link
+   * Match} passes through an {@link EndInput}.
+   */
+  private final boolean anchoredAtEnd;
+
+  /**
+   * The {@linkplain Program#getConditionEffect() strongest
+   * <code>ConditionEffect</code>} of the {@link Program}.  This field
+   * is never {@code null}.
+   */
+  private final ConditionEffect conditionEffect;
+
+  /**
+   * The number of distinct atoms in the {@link Program}.
+   *
+   * @see Alphabet
+   */
+  private final int atomCount;
+
+  /**
+   * Whether runs of the {@link Program} may be {@linkplain
+   * MatchOptions#withMemoizedStates(boolean) memoized}.
+   */
+  private final boolean memoizable;
+
+  /**
+   * The {@link ControlFlow} of the {@link Program}, from which the
+   * remaining facts are learned when they are first needed.  This
+   * field is never {@code null} and is used as the lock guarding
+   * those facts.
+   */
+  private final ControlFlow controlFlow;
+
+  /**
+   * Whether every match of the {@link Program} must begin at the
+   * start of the input, or {@code null} if that has not yet been
+   * needed.
+   */
+  private Boolean anchoredAtStart;
+
+  /**
+   * The distinct atoms every match of the {@link Program} must pass
+   * through, in {@link Program} order, or {@code null} if they have
+   * not yet been needed.
+   */
+  private List<Filter<?>> requiredAtoms;
+
+  /**
+   * The largest number of {@link Thread}s that can be waiting to
+   * read the next item after a single {@link Thread} starts or reads
+   * one, or {@code -1} if that has not yet been needed.
+   */
+  private int maximumFanOut;
+
+  /**
+   * How the time taken to match the {@link Program} may grow with
+   * its input, or {@code null} if that has not yet been needed.
+   */
+  private Complexity complexity;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link ProgramAnalysis}.
+   *
+   * @param size the number of {@link Instruction}s in the {@link
+   * Program}
+   *
+   * @param captureKeys the keys of the capture groups the {@link
+   * Program} saves; must not be {@code null}; not copied
+   *
+   * @param forks whether the {@link Program} can fork
+   *
+   * @param anchoredAtEnd whether every match must end at the end of
+   * the input
+   *
+   * @param conditionEffect the strongest {@link ConditionEffect} of
+   * the {@link Program}; must not be {@code null}
+   *
+   * @param atomCount the number of distinct atoms in the {@link
+   * Program}
+   *
+   * @param memoizable whether runs of the {@link Program} may be
+   * memoized
+   *
+   * @param controlFlow the {@link ControlFlow} of the {@link
+   * Program}; must not be {@code null}
+   */
+  private ProgramAnalysis(final int size, final Set<Object> captureKeys, final boolean forks, final boolean anchoredAtEnd, final ConditionEffect conditionEffect, final int atomCount, final boolean memoizable, final ControlFlow controlFlow) {
+    super();
+    assert captureKeys != null;
+    assert conditionEffect != null;
+    assert controlFlow != null;
+    this.size = size;
+    this.captureKeys = captureKeys;
+    this.forks = forks;
+    this.anchoredAtEnd = anchoredAtEnd;
+    this.conditionEffect = conditionEffect;
+    this.atomCount = atomCount;
+    this.memoizable = memoizable;
+    this.controlFlow = controlFlow;
+    this.maximumFanOut = -1;
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns the number of {@link Instruction}s in the analyzed
+   * {@link Program}.
+   *
+   * @return the size of the {@link Program}; never negative
+   */
+  public final int getSize() {
+    return this.size;
+  }
+
+  /**
+   * Returns the keys of the capture groups the analyzed {@link
+   * Program} {@linkplain Save saves}, in the order in which they are
+   * first saved.  This method never returns {@code null}.
+   *
+   * @return a non-{@code null}, unmodifiable {@link Set} of keys
+   */
+  public final Set<Object> getCaptureKeys() {
+    return this.captureKeys;
+  }
+
+  /**
+   * Returns {@code true} if the analyzed {@link Program} can fork new
+   * {@link Thread}s, and so may read an item more than once.
+   *
+   * @return {@code true} if the {@link Program} contains any {@link
+   * Split} or {@link CountedSplit} instructions; {@code false}
+   * otherwise
+   */
+  public final boolean isForking() {
+    return this.forks;
+  }
+
+  /**
+   * Returns {@code true} if every match of the analyzed {@link
+   * Program} begins at the start of its input, as is the case for
+   * patterns beginning with {@code ^} that do not then skip items
+   * with {@code java.lang.Object*}.
+   *
+   * @return {@code true} if the {@link Program} cannot skip items
+   * before it begins to match; {@code false} otherwise
+   */
+  public final boolean isAnchoredAtStart() {
+    synchronized (this.controlFlow) {
+      if (this.anchoredAtStart == null) {
+        this.anchoredAtStart = Boolean.valueOf(isAnchoredAtStart(this.controlFlow));
+      }
+      return this.anchoredAtStart.booleanValue();
+    }
+  }
+
+  /**
+   * Returns {@code true} if every match of the analyzed {@link
+   * Program} ends at the end of its input, as is the case for
+   * patterns ending in {@code $}.
+   *
+   * <p>Such a {@link Program} reads all of its input whenever it
+   * matches.  Any other {@link Program} may stop reading as soon as
+   * it finds a match.</p>
+   *
+   * @return {@code true} if every path to the {@link Program}'s
+   * {@link Match} passes through an {@link EndInput}; {@code false}
+   * otherwise
+   */
+  public final boolean isAnchoredAtEnd() {
+    return this.anchoredAtEnd;
+  }
+
+  /**
+   * Returns the {@linkplain Program#getConditionEffect() strongest
+   * <code>ConditionEffect</code>} of the analyzed {@link Program}.
+   * This method never returns {@code null}.
+   *
+   * @return a non-{@code null} {@link ConditionEffect}
+   */
+  public final ConditionEffect getConditionEffect() {
+    return this.conditionEffect;
+  }
+
+  /**
+   * Returns the number of distinct atoms&mdash;{@link Filter}s whose
+   * results depend on nothing but the item they read&mdash;in the
+   * analyzed {@link Program}.
+   *
+   * @return the number of distinct atoms; never negative
+   */
+  public final int getAtomCount() {
+    return this.atomCount;
+  }
+
+  /**
+   * Returns the distinct atoms that every match of the analyzed
+   * {@link Program} must pass through, in {@link Program} order.
+   * This method never returns {@code null}.
+   *
+   * <p>Input containing no item that one of these atoms accepts
+   * cannot match, so a cheap scan for such items can rule input out
+   * before it is matched at all.  Atoms that accept every item are
+   * not included.</p>
+   *
+   * @return a non-{@code null}, unmodifiable {@link List} of {@link
+   * Filter}s
+   */
+  public final List<Filter<?>> getRequiredAtoms() {
+    synchronized (this.controlFlow) {
+      if (this.requiredAtoms == null) {
+        this.requiredAtoms = Collections.unmodifiableList(getRequiredAtoms(this.controlFlow, this.conditionEffect));
+      }
+      return this.requiredAtoms;
+    }
+  }
+
+  /**
+   * Returns the largest number of {@link Thread}s that can be waiting
+   * to read the next item, or to finish, after a single {@link
+   * Thread} starts or reads an item.
+   *
+   * <p>Every one of those {@link Thread}s but one is forked, so this
+   * is a bound on how many {@link Thread}s each item can cost,
+   * before any of them fail.</p>
+   *
+   * @return the largest fan-out; never negative
+   */
+  public final int getMaximumFanOut() {
+    synchronized (this.controlFlow) {
+      if (this.maximumFanOut < 0) {
+        this.maximumFanOut = this.controlFlow.getMaximumFanOut();
+      }
+      return this.maximumFanOut;
+    }
+  }
+
+  /**
+   * Returns {@code true} if matching the analyzed {@link Program}
+   * may take time that grows faster than its input does.
+   *
+   * <p>That is the case when two different {@link Thread}s can read
+   * the same items, one after another, for as long as the input
+   * lasts: input that does not match will be tried once for every
+   * way of dividing it among them.  Patterns such as
+   * <code>^java.lang.Integer&#42;/java.lang.Integer&#42;/java.lang.String$</code>
+   * and {@code ^(?:java.lang.Integer|java.lang.Number)*$} are
+   * examples.
+   * The analysis is conservative, so some {@link Program}s for which
+   * this method returns {@code true} are in fact cheap.</p>
+   *
+   * @return {@code true} if matching may take superlinear time;
+   * {@code false} if it will not
+   *
+   * @see #getComplexity()
+   */
+  public final boolean risksSuperlinearTime() {
+    return this.getComplexity() != Complexity.LINEAR;
+  }
+
+  /**
+   * Returns how the time taken to match the analyzed {@link Program}
+   * may grow with the size of its input, in the worst case.
+   *
+   * <p>Of the examples given in the documentation for the {@link
+   * #risksSuperlinearTime()} method, the first is {@link
+   * Complexity#POLYNOMIAL}: the two stars can divide a run of
+   * {@code n} items between them in only {@code n + 1} ways.  The
+   * second is {@link Complexity#EXPONENTIAL}: each {@link Integer}
+   * can be read by either alternative, so a run of {@code n} of them
+   * can be read in {@code 2}<sup>{@code n}</sup> ways.  So can runs
+   * read by nested loops, such as those of
+   * {@code ^(?:java.lang.Integer*)*$}.</p>
+   *
+   * <p>The search that learns this gives up after a bounded number
+   * of steps, and a {@link Program} too large to be searched in that
+   * many is reported to be {@link Complexity#EXPONENTIAL}.</p>
+   *
+   * @return the {@link Complexity}; never {@code null}
+   */
+  public final Complexity getComplexity() {
+    synchronized (this.controlFlow) {
+      if (this.complexity == null) {
+        this.complexity = this.controlFlow.getComplexity();
+      }
+      return this.complexity;
+    }
+  }
+
+  /**
+   * Returns {@code true} if nothing but its position in the analyzed
+   * {@link Program} and in the input decides what a {@link Thread}
+   * can go on to do, so that runs {@linkplain
+   * MatchOptions#withMemoizedStates(boolean) memoizing states} take
+   * time at most proportional to the size of the {@link Program}
+   * times the size of the input, whatever its {@linkplain
+   * #getComplexity() complexity}.
+   *
+   * <p>That is the case unless the {@link Program} keeps counters,
+   * as bounded repetitions such as {@code java.lang.Integer{2,3}} do,
+   * contains atomic groups or possessive repetitions, or has
+   * conditions that {@linkplain ConditionEffect#WRITES_VARIABLES
+   * assign variables}.</p>
+   *
+   * @return {@code true} if runs of the {@link Program} may be
+   * memoized; {@code false} otherwise
+   *
+   * @see MatchOptions#withMemoizedStates(boolean)
+   */
+  public final boolean isMemoizable() {
+    return this.memoizable;
+  }
+
+  /**
+   * Returns {@code true} if the analyzed {@link Program} has a loop
+   * whose body may read nothing, as {@code (?:java.lang.Integer*)*}
+   * does.
+   *
+   * <p>{@link Thread}s that repeat such a body without reading
+   * anything are stopped, so they cannot loop forever, but the
+   * nested loop usually also makes the {@link Program} {@linkplain
+   * #getComplexity() exponential}.</p>
+   *
+   * @return {@code true} if the {@link Program} has an empty loop;
+   * {@code false} otherwise
+   */
+  public final boolean hasEmptyLoop() {
+    synchronized (this.controlFlow) {
+      return this.controlFlow.hasEmptyLoop();
+    }
+  }
+
+  /**
+   * Returns {@code true} if the {@link Engine} will run the analyzed
+   * {@link Program} twice, once without capturing and once with, when
+   * asked to capture the supplied groups.
+   *
+   * @param groupsOfInterest the keys of the capture groups to
+   * capture; may be {@code null} in which case all capture groups
+   * will be captured
+   *
+   * @return {@code true} if the {@link Program} will be run twice;
+   * {@code false} otherwise
+   */
+  public final boolean isProbed(final Set<?> groupsOfInterest) {
+    if (!this.forks || this.captureKeys.isEmpty()) {
+      return false;
+    } else if (groupsOfInterest == null) {
+      return true;
+    }
+    for (final Object key : this.captureKeys) {
+      if (groupsOfInterest.contains(key)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the {@link Strategy} likely to run the analyzed {@link
+   * Program} fastest against input of the supplied size.  This method
+   * never returns {@code null}.
+   *
+   * <p>Atoms are remembered as they are evaluated whichever {@link
+   * Strategy} is chosen, so evaluating them up front saves nothing by
+   * itself, and costs the evaluation of every item that no {@link
+   * Thread} would have read.  It pays off only when that work can be
+   * shared among several processors, and when the whole input is
+   * going to be read anyway.  So this method returns {@link
+   * Strategy#ATOM_BITMAPS} if the {@link Program} has atoms, is
+   * {@linkplain #isAnchoredAtEnd() anchored at its end}, the {@link
+   * Engine} has an {@link java.util.concurrent.Executor}, and the
+   * input is long enough to be split into chunks for it&mdash;one
+   * chunk is enough if the {@link Program} will be {@linkplain
+   * #isProbed(Set) run twice}&mdash;and {@link Strategy#LAZY}
+   * otherwise.  {@link Strategy#COMPRESSED_ALPHABET} is never
+   * returned, since it does more work up front than {@link
+   * Strategy#ATOM_BITMAPS} does.</p>
+   *
+   * @param inputSize the number of items in the input
+   *
+   * @param groupsOfInterest the keys of the capture groups to
+   * capture; may be {@code null} in which case all capture groups
+   * will be captured
+   *
+   * @param parallel whether the {@link Engine} that will run the
+   * {@link Program} has an {@link java.util.concurrent.Executor}
+   *
+   * @return a non-{@code null} {@link Strategy}
+   */
+  public final Strategy selectStrategy(final int inputSize, final Set<?> groupsOfInterest, final boolean parallel) {
+    if (!parallel || this.atomCount <= 0 || !this.anchoredAtEnd) {
+      return Strategy.LAZY;
+    }
+    final int chunks = this.isProbed(groupsOfInterest) ? 1 : 2;
+    if (inputSize < chunks * Alphabet.CHUNK_SIZE) {
+      return Strategy.LAZY;
+    }
+    return Strategy.ATOM_BITMAPS;
+  }
+
+  /**
+   * Returns a non-{@code null} {@link String} representation of this
+   * {@link ProgramAnalysis}.
+   *
+   * @return a non-{@code null} {@link String}
+   */
+  @Override
+  public final String toString() {
+    return new StringBuilder("size=").append(this.size)
+      .append(", captureKeys=").append(this.captureKeys)
+      .append(", forking=").append(this.forks)
+      .append(", anchoredAtStart=").append(this.isAnchoredAtStart())
+      .append(", anchoredAtEnd=").append(this.anchoredAtEnd)
+      .append(", conditionEffect=").append(this.conditionEffect)
+      .append(", atoms=").append(this.atomCount)
+      .append(", requiredAtoms=").append(this.getRequiredAtoms())
+      .append(", maximumFanOut=").append(this.getMaximumFanOut())
+      .append(", complexity=").append(this.getComplexity())
+      .append(", emptyLoop=").append(this.hasEmptyLoop())
+      .append(", memoizable=").append(this.memoizable)
+      .toString();
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Analyzes the supplied {@link Program}.  This method never returns
+   * {@code null}.
+   *
+   * <p>Only the facts that take time roughly linear in the size of
+   * the {@link Program} to learn are learned by this method; see
+   * the class documentation.</p>
+   *
+   * @param <T> the type of {@link Object} the {@link Program} matches
+   *
+   * @param program the {@link Program} to analyze; must not be {@code
+   * null}
+   *
+   * @return a new {@link ProgramAnalysis}; never {@code null}
+   *
+   * @exception IllegalArgumentException if {@code program} is {@code
+   * null}
+   */
+  public static final <T> ProgramAnalysis of(final Program<T> program) {
+    if (program == null) {
+      throw new IllegalArgumentException("program", new NullPointerException("program"));
+    }
+    final Set<Object> captureKeys = new LinkedHashSet<Object>();
+    boolean forks = false;
+    for (final Instruction<T> instruction : program) {
+      if (instruction instanceof Split || instruction instanceof CountedSplit) {
+        forks = true;
+      } else if (instruction instanceof Save) {
+        captureKeys.add(((Save<T>)instruction).getKey());
+      }
+    }
+    final Alphabet<T> alphabet = Alphabet.of(program);
+    final ControlFlow controlFlow = new ControlFlow(program);
+    return new ProgramAnalysis(program.size(),
+                               Collections.unmodifiableSet(captureKeys),
+                               forks,
+                               isAnchoredAtEnd(controlFlow),
+                               program.getConditionEffect(),
+                               alphabet == null ? 0 : alphabet.getAtomCount(),
+                               StateMemo.isMemoizable(program),
+                               controlFlow);
+  }
+
+  /**
+   * Returns {@code true} if no {@link Thread} can skip items before it
+   * begins to match, by looping over a {@linkplain
+   * ControlFlow#isWildcard(Instruction) wildcard} that it reaches
+   * before reading anything else.
+   *
+   * @param controlFlow the {@link ControlFlow} of the {@link Program}
+   * in question; must not be {@code null}
+   *
+   * @return {@code true} if every match of the {@link Program} begins
+   * at the start of its input; {@code false} otherwise
+   */
+  private static final boolean isAnchoredAtStart(final ControlFlow controlFlow) {
+    assert controlFlow != null;
+    final int[] start = controlFlow.getStartClosure();
+    for (int pc = 0; pc < start.length; pc++) {
+      if (start[pc] > 0 && ControlFlow.isWildcard(controlFlow.get(pc))) {
+        final int[] after = controlFlow.getClosureAfter(pc);
+        if (after.length > pc && after[pc] > 0) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns {@code true} if no path through a {@link Program} reaches
+   * its {@link Match} without passing through an {@link EndInput}.
+   *
+   * @param controlFlow the {@link ControlFlow} of the {@link Program}
+   * in question; must not be {@code null}
+   *
+   * @return {@code true} if every match of the {@link Program} ends
+   * at the end of its input; {@code false} otherwise
+   */
+  private static final boolean isAnchoredAtEnd(final ControlFlow controlFlow) {
+    assert controlFlow != null;
+    final boolean[] barriers = new boolean[controlFlow.size()];
+    for (int pc = 0; pc < barriers.length; pc++) {
+      barriers[pc] = controlFlow.get(pc) instanceof EndInput;
+    }
+    return !controlFlow.isMatchReachable(barriers);
+  }
+
+  /**
+   * Returns the distinct {@linkplain Alphabet#isAtom(Instruction,
+   * ConditionEffect) atoms} that no path through a {@link Program}
+   * can reach its {@link Match} without passing through, other than
+   * {@linkplain ControlFlow#isWildcard(Instruction) wildcards}.
+   *
+   * @param controlFlow the {@link ControlFlow} of the {@link Program}
+   * in question; must not be {@code null}
+   *
+   * @param programEffect the strongest {@link ConditionEffect} of the
+   * {@link Program}; must not be {@code null}
+   *
+   * @return a non-{@code null} {@link List} of atoms in {@link
+   * Program} order
+   */
+  private static final List<Filter<?>> getRequiredAtoms(final ControlFlow controlFlow, final ConditionEffect programEffect) {
+    assert controlFlow != null;
+    final List<Filter<?>> requiredAtoms = new ArrayList<Filter<?>>();
+    final boolean[] barriers = new boolean[controlFlow.size()];
+    for (int pc = 0; pc < barriers.length; pc++) {
+      final Instruction<?> instruction = controlFlow.get(pc);
+      if (Alphabet.isAtom(instruction, programEffect) && !ControlFlow.isWildcard(instruction) && !requiredAtoms.contains(instruction)) {
+        barriers[pc] = true;
+        if (!controlFlow.isMatchReachable(barriers)) {
+          requiredAtoms.add((Filter<?>)instruction);
+        }
+        barriers[pc] = false;
+      }
+    }
+    return requiredAtoms;
+  }
+
+}
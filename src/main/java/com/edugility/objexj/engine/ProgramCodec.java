@@ -0,0 +1,674 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UTFDataFormatException; // for javadoc only
+
+import java.lang.reflect.InvocationTargetException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Writes {@link Program}s to, and reads them from, a compact,
+ * versioned binary format.
+ *
+ * <p>Compiling a pattern involves tokenizing and parsing it, {@linkplain
+ * Instruction#loadClass(String) loading} every {@link Class} it names
+ * and {@linkplain org.mvel2.MVEL#compileExpression(String) compiling}
+ * every <a href="http://mvel.codehaus.org/">MVEL</a> expression it
+ * contains.  Applications that compile many patterns at startup can
+ * instead compile them once, {@linkplain #write(Collection,
+ * DataOutput) write} the resulting {@link Program}s, and {@linkplain
+ * #read(DataInput) read} them back in bulk later.  {@link Program}s
+ * read in this way defer class loading and MVEL compilation until
+ * each filter first runs.</p>
+ *
+ * <p>The format is a magic number ({@link #MAGIC}), a format
+ * {@linkplain #VERSION version}, a count of {@link Program}s, and
+ * then, for each {@link Program}, its {@linkplain Program#getName()
+ * name}, the {@linkplain Object#toString() textual form} of its
+ * {@linkplain Program#getSource() source} and its {@link
+ * Instruction}s.  Each {@link
+ * Instruction} is written as a one-byte opcode followed by its
+ * operands.  {@link Instruction}s of a class this codec does not know
+ * about are written in their {@linkplain Instruction#valueOf(String)
+ * textual form} instead, and so must be able to be read back by the
+ * {@link Instruction#valueOf(String)} method.</p>
+ *
+ * <p>{@link String}s are written using the {@link
+ * DataOutput#writeUTF(String)} method and so are each limited to
+ * 65535 bytes in their encoded form.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see #write(Collection, DataOutput)
+ *
+ * @see #read(DataInput)
+ */
+public final class ProgramCodec {
+
+  /**
+   * The magic number that begins every stream of {@link Program}s
+   * written by this class: the ASCII characters {@code OBJX}.
+   */
+  public static final int MAGIC = 0x4F424A58;
+
+  /**
+   * The version of the format written by this class.
+   */
+  public static final int VERSION = 1;
+
+  /**
+   * The opcode for an {@link Instruction} written in its {@linkplain
+   * Instruction#valueOf(String) textual form}.
+   */
+  private static final byte TEXT = 0;
+
+  /**
+   * The opcode for {@link Match}.
+   */
+  private static final byte MATCH = 1;
+
+  /**
+   * The opcode for {@link BeginInput}.
+   */
+  private static final byte BEGIN_INPUT = 2;
+
+  /**
+   * The opcode for {@link EndInput}.
+   */
+  private static final byte END_INPUT = 3;
+
+  /**
+   * The opcode for {@link BeginAtomic}.
+   */
+  private static final byte BEGIN_ATOMIC = 4;
+
+  /**
+   * The opcode for {@link EndAtomic}.
+   */
+  private static final byte END_ATOMIC = 5;
+
+  /**
+   * The opcode for {@link Jump}.
+   */
+  private static final byte JUMP = 6;
+
+  /**
+   * The opcode for {@link Split}.
+   */
+  private static final byte SPLIT = 7;
+
+  /**
+   * The opcode for {@link CountedSplit}.
+   */
+  private static final byte COUNTED_SPLIT = 8;
+
+  /**
+   * The opcode for {@link IncrementCounter}.
+   */
+  private static final byte INCREMENT_COUNTER = 9;
+
+  /**
+   * The opcode for {@link ResetCounter}.
+   */
+  private static final byte RESET_COUNTER = 10;
+
+  /**
+   * The opcode for {@link MarkPosition}.
+   */
+  private static final byte MARK_POSITION = 11;
+
+  /**
+   * The opcode for {@link RequireProgress}.
+   */
+  private static final byte REQUIRE_PROGRESS = 12;
+
+  /**
+   * The opcode for {@link Save}.
+   */
+  private static final byte SAVE = 13;
+
+  /**
+   * The opcode for {@link Stop}.
+   */
+  private static final byte STOP = 14;
+
+  /**
+   * The opcode for {@link InstanceOfMVELFilter}.
+   */
+  private static final byte INSTANCE_OF_MVEL_FILTER = 15;
+
+  /**
+   * The opcode for {@link NumberRangeFilter}.
+   */
+  private static final byte NUMBER_RANGE_FILTER = 16;
+
+  /**
+   * The tag for a {@code null} {@link Save} or {@link Stop} key.
+   */
+  private static final byte KEY_NULL = 0;
+
+  /**
+   * The tag for an {@link Integer} {@link Save} or {@link Stop} key.
+   */
+  private static final byte KEY_INTEGER = 1;
+
+  /**
+   * The tag for any other {@link Save} or {@link Stop} key, which is
+   * written as a {@link String}.
+   */
+  private static final byte KEY_STRING = 2;
+
+  /**
+   * Creates a new {@link ProgramCodec}.
+   */
+  private ProgramCodec() {
+    super();
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Writes the supplied {@link Program} to the supplied {@link
+   * DataOutput}.
+   *
+   * @param program the {@link Program} to write; must not be {@code
+   * null}
+   *
+   * @param out the {@link DataOutput} to write to; must not be {@code
+   * null}
+   *
+   * @exception IllegalArgumentException if either parameter is {@code
+   * null}
+   *
+   * @exception IOException if an error occurs while writing
+   *
+   * @see #write(Collection, DataOutput)
+   */
+  public static final void write(final Program<?> program, final DataOutput out) throws IOException {
+    if (program == null) {
+      throw new IllegalArgumentException("program", new NullPointerException("program"));
+    }
+    write(Collections.singleton(program), out);
+  }
+
+  /**
+   * Writes the supplied {@link Program}s to the supplied {@link
+   * DataOutput}.
+   *
+   * @param programs the {@link Program}s to write; must not be {@code
+   * null} and must not contain {@code null} elements
+   *
+   * @param out the {@link DataOutput} to write to; must not be {@code
+   * null}
+   *
+   * @exception IllegalArgumentException if either parameter is {@code
+   * null} or if {@code programs} contains a {@code null} element
+   *
+   * @exception IOException if an error occurs while writing
+   *
+   * @exception UTFDataFormatException if a name, source or operand
+   * {@link String} is too long to be written
+   *
+   * @see #read(DataInput)
+   */
+  public static final void write(final Collection<? extends Program<?>> programs, final DataOutput out) throws IOException {
+    if (programs == null) {
+      throw new IllegalArgumentException("programs", new NullPointerException("programs"));
+    }
+    if (out == null) {
+      throw new IllegalArgumentException("out", new NullPointerException("out"));
+    }
+    out.writeInt(MAGIC);
+    out.writeShort(VERSION);
+    out.writeInt(programs.size());
+    for (final Program<?> program : programs) {
+      if (program == null) {
+        throw new IllegalArgumentException("programs", new NullPointerException("program"));
+      }
+      writeProgram(program, out);
+    }
+  }
+
+  /**
+   * Reads {@link Program}s from the supplied {@link DataInput} that
+   * were previously {@linkplain #write(Collection, DataOutput)
+   * written} by this class.
+   *
+   * <p>No {@link Class} named by a filter is {@linkplain
+   * Instruction#loadClass(String) loaded}, and no <a
+   * href="http://mvel.codehaus.org/">MVEL</a> expression is
+   * compiled, until that filter is first run.  Errors that would
+   * have been reported at compile time are therefore reported at
+   * match time instead.</p>
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param <T> the type of {@link Object} the returned {@link
+   * Program}s will be able to match
+   *
+   * @param in the {@link DataInput} to read from; must not be {@code
+   * null}
+   *
+   * @return a non-{@code null} {@link List} of {@link Program}s in
+   * the order in which they were written
+   *
+   * @exception IllegalArgumentException if {@code in} is {@code null}
+   *
+   * @exception IOException if an error occurs while reading, or if
+   * the data read was not written by this class or was written in an
+   * unsupported version of its format
+   */
+  public static final <T> List<Program<T>> read(final DataInput in) throws IOException {
+    if (in == null) {
+      throw new IllegalArgumentException("in", new NullPointerException("in"));
+    }
+    final int magic = in.readInt();
+    if (magic != MAGIC) {
+      throw new IOException("Bad magic number: 0x" + Integer.toHexString(magic));
+    }
+    final int version = in.readUnsignedShort();
+    if (version != VERSION) {
+      throw new IOException("Unsupported version: " + version);
+    }
+    final int size = in.readInt();
+    if (size < 0) {
+      throw new IOException("Bad program count: " + size);
+    }
+    final List<Program<T>> programs = new ArrayList<Program<T>>(size);
+    for (int i = 0; i < size; i++) {
+      final Program<T> program = readProgram(in);
+      programs.add(program);
+    }
+    return programs;
+  }
+
+  /**
+   * Writes a single {@link Program}'s name, source and {@link
+   * Instruction}s to the supplied {@link DataOutput}.
+   *
+   * @param program the {@link Program} to write; must not be {@code
+   * null}
+   *
+   * @param out the {@link DataOutput} to write to; must not be {@code
+   * null}
+   *
+   * @exception IOException if an error occurs while writing
+   */
+  private static final void writeProgram(final Program<?> program, final DataOutput out) throws IOException {
+    assert program != null;
+    assert out != null;
+    writeString(program.getName(), out);
+    final Object source = program.getSource();
+    writeString(source == null ? null : source.toString(), out);
+    out.writeInt(program.size());
+    for (final Instruction<?> instruction : program) {
+      writeInstruction(instruction, out);
+    }
+  }
+
+  /**
+   * Reads a single {@link Program} written by the {@link
+   * #writeProgram(Program, DataOutput)} method.
+   *
+   * @param <T> the type of {@link Object} the returned {@link
+   * Program} will be able to match
+   *
+   * @param in the {@link DataInput} to read from; must not be {@code
+   * null}
+   *
+   * @return a new, non-{@code null} {@link Program}
+   *
+   * @exception IOException if an error occurs while reading
+   */
+  private static final <T> Program<T> readProgram(final DataInput in) throws IOException {
+    assert in != null;
+    final Program<T> program = new Program<T>();
+    program.setName(readString(in));
+    final String source = readString(in);
+    if (source != null) {
+      program.setSource(source);
+    }
+    final int size = in.readInt();
+    if (size < 0) {
+      throw new IOException("Bad instruction count: " + size);
+    }
+    for (int i = 0; i < size; i++) {
+      final Instruction<T> instruction = readInstruction(in);
+      program.add(instruction);
+    }
+    return program;
+  }
+
+  /**
+   * Writes the opcode and operands of the supplied {@link
+   * Instruction} to the supplied {@link DataOutput}.  Only {@link
+   * Instruction}s whose {@linkplain Object#getClass() class} is
+   * exactly one of those known to this class get their own opcode, so
+   * that subclasses are never written in a form that would lose their
+   * identity.
+   *
+   * @param instruction the {@link Instruction} to write; must not be
+   * {@code null}
+   *
+   * @param out the {@link DataOutput} to write to; must not be {@code
+   * null}
+   *
+   * @exception IOException if an error occurs while writing
+   */
+  private static final void writeInstruction(final Instruction<?> instruction, final DataOutput out) throws IOException {
+    assert instruction != null;
+    assert out != null;
+    final Class<?> c = instruction.getClass();
+    if (c == Match.class) {
+      out.writeByte(MATCH);
+    } else if (c == BeginInput.class) {
+      out.writeByte(BEGIN_INPUT);
+    } else if (c == EndInput.class) {
+      out.writeByte(END_INPUT);
+    } else if (c == BeginAtomic.class) {
+      out.writeByte(BEGIN_ATOMIC);
+    } else if (c == EndAtomic.class) {
+      out.writeByte(END_ATOMIC);
+    } else if (c == Jump.class) {
+      final Jump<?> jump = (Jump<?>)instruction;
+      out.writeByte(JUMP);
+      out.writeInt(jump.programLocation);
+      out.writeBoolean(jump.relative);
+    } else if (c == Split.class) {
+      final Split<?> split = (Split<?>)instruction;
+      final Jump<?> jump = split;
+      out.writeByte(SPLIT);
+      out.writeInt(jump.programLocation);
+      out.writeInt(split.newThreadProgramLocation);
+      // Split's own relative flag is derived from Jump's, so Jump's is
+      // the one to write.
+      out.writeBoolean(jump.relative);
+    } else if (c == CountedSplit.class) {
+      final CountedSplit<?> countedSplit = (CountedSplit<?>)instruction;
+      out.writeByte(COUNTED_SPLIT);
+      out.writeInt(countedSplit.register);
+      out.writeInt(countedSplit.minimum);
+      out.writeInt(countedSplit.maximum);
+      out.writeInt(countedSplit.exitLocation);
+    } else if (c == IncrementCounter.class) {
+      out.writeByte(INCREMENT_COUNTER);
+      out.writeInt(((IncrementCounter<?>)instruction).register);
+    } else if (c == ResetCounter.class) {
+      out.writeByte(RESET_COUNTER);
+      out.writeInt(((ResetCounter<?>)instruction).register);
+    } else if (c == MarkPosition.class) {
+      out.writeByte(MARK_POSITION);
+      out.writeInt(((MarkPosition<?>)instruction).register);
+    } else if (c == RequireProgress.class) {
+      out.writeByte(REQUIRE_PROGRESS);
+      out.writeInt(((RequireProgress<?>)instruction).register);
+    } else if (c == Save.class) {
+      out.writeByte(SAVE);
+      writeKey(((Save<?>)instruction).getKey(), out);
+    } else if (c == Stop.class) {
+      out.writeByte(STOP);
+      writeKey(((Stop<?>)instruction).getKey(), out);
+    } else if (c == InstanceOfMVELFilter.class) {
+      final InstanceOfMVELFilter<?> filter = (InstanceOfMVELFilter<?>)instruction;
+      out.writeByte(INSTANCE_OF_MVEL_FILTER);
+      out.writeUTF(filter.getTargetClassName());
+      out.writeBoolean(filter.isExact());
+      writeString(filter.mvelExpressionSource, out);
+    } else if (c == NumberRangeFilter.class) {
+      out.writeByte(NUMBER_RANGE_FILTER);
+      out.writeUTF(((NumberRangeFilter<?>)instruction).getOperands());
+    } else {
+      out.writeByte(TEXT);
+      out.writeUTF(instruction.toString());
+    }
+  }
+
+  /**
+   * Reads a single {@link Instruction} written by the {@link
+   * #writeInstruction(Instruction, DataOutput)} method.
+   *
+   * @param <T> the type of {@link Object} the returned {@link
+   * Instruction} will operate on
+   *
+   * @param in the {@link DataInput} to read from; must not be {@code
+   * null}
+   *
+   * @return a new, non-{@code null} {@link Instruction}
+   *
+   * @exception IOException if an error occurs while reading or if an
+   * unknown opcode is encountered
+   */
+  private static final <T> Instruction<T> readInstruction(final DataInput in) throws IOException {
+    assert in != null;
+    final Instruction<T> returnValue;
+    final byte opcode = in.readByte();
+    switch (opcode) {
+    case MATCH:
+      returnValue = new Match<T>();
+      break;
+    case BEGIN_INPUT:
+      returnValue = new BeginInput<T>();
+      break;
+    case END_INPUT:
+      returnValue = new EndInput<T>();
+      break;
+    case BEGIN_ATOMIC:
+      returnValue = new BeginAtomic<T>();
+      break;
+    case END_ATOMIC:
+      returnValue = new EndAtomic<T>();
+      break;
+    case JUMP:
+      final int jumpLocation = in.readInt();
+      returnValue = new Jump<T>(jumpLocation, in.readBoolean());
+      break;
+    case SPLIT:
+      final int splitLocation = in.readInt();
+      final int newThreadLocation = in.readInt();
+      returnValue = new Split<T>(splitLocation, newThreadLocation, in.readBoolean());
+      break;
+    case COUNTED_SPLIT:
+      final int register = in.readInt();
+      final int minimum = in.readInt();
+      final int maximum = in.readInt();
+      returnValue = new CountedSplit<T>(register, minimum, maximum, in.readInt());
+      break;
+    case INCREMENT_COUNTER:
+      returnValue = new IncrementCounter<T>(in.readInt());
+      break;
+    case RESET_COUNTER:
+      returnValue = new ResetCounter<T>(in.readInt());
+      break;
+    case MARK_POSITION:
+      returnValue = new MarkPosition<T>(in.readInt());
+      break;
+    case REQUIRE_PROGRESS:
+      returnValue = new RequireProgress<T>(in.readInt());
+      break;
+    case SAVE:
+      returnValue = new Save<T>(readKey(in));
+      break;
+    case STOP:
+      returnValue = new Stop<T>(readKey(in));
+      break;
+    case INSTANCE_OF_MVEL_FILTER:
+      final String className = in.readUTF();
+      final boolean exact = in.readBoolean();
+      returnValue = new InstanceOfMVELFilter<T>(className, exact, readString(in));
+      break;
+    case NUMBER_RANGE_FILTER:
+      returnValue = new NumberRangeFilter<T>(in.readUTF());
+      break;
+    case TEXT:
+      returnValue = valueOf(in.readUTF());
+      break;
+    default:
+      throw new IOException("Bad opcode: " + opcode);
+    }
+    return returnValue;
+  }
+
+  /**
+   * Calls the {@link Instruction#valueOf(String)} method, wrapping
+   * any reflection-related exception it throws in an {@link
+   * IOException}.
+   *
+   * @param <T> the type of {@link Object} the returned {@link
+   * Instruction} will operate on
+   *
+   * @param line the textual form of an {@link Instruction}; must not
+   * be {@code null}
+   *
+   * @return a new, non-{@code null} {@link Instruction}
+   *
+   * @exception IOException if the {@link Instruction} could not be
+   * created
+   */
+  private static final <T> Instruction<T> valueOf(final String line) throws IOException {
+    assert line != null;
+    try {
+      return Instruction.valueOf(line);
+    } catch (final ClassNotFoundException kaboom) {
+      throw new IOException(line, kaboom);
+    } catch (final IllegalAccessException kaboom) {
+      throw new IOException(line, kaboom);
+    } catch (final InstantiationException kaboom) {
+      throw new IOException(line, kaboom);
+    } catch (final InvocationTargetException kaboom) {
+      throw new IOException(line, kaboom);
+    } catch (final NoSuchMethodException kaboom) {
+      throw new IOException(line, kaboom);
+    }
+  }
+
+  /**
+   * Writes a {@link Save} or {@link Stop} key, preserving whether it
+   * was an {@link Integer} or not.
+   *
+   * @param key the key to write; may be {@code null}
+   *
+   * @param out the {@link DataOutput} to write to; must not be {@code
+   * null}
+   *
+   * @exception IOException if an error occurs while writing
+   */
+  private static final void writeKey(final Object key, final DataOutput out) throws IOException {
+    assert out != null;
+    if (key == null) {
+      out.writeByte(KEY_NULL);
+    } else if (key instanceof Integer) {
+      out.writeByte(KEY_INTEGER);
+      out.writeInt(((Integer)key).intValue());
+    } else {
+      out.writeByte(KEY_STRING);
+      out.writeUTF(key.toString());
+    }
+  }
+
+  /**
+   * Reads a key written by the {@link #writeKey(Object, DataOutput)}
+   * method.
+   *
+   * @param in the {@link DataInput} to read from; must not be {@code
+   * null}
+   *
+   * @return the key, which may be {@code null}
+   *
+   * @exception IOException if an error occurs while reading
+   */
+  private static final Object readKey(final DataInput in) throws IOException {
+    assert in != null;
+    final Object returnValue;
+    final byte type = in.readByte();
+    switch (type) {
+    case KEY_NULL:
+      returnValue = null;
+      break;
+    case KEY_INTEGER:
+      returnValue = Integer.valueOf(in.readInt());
+      break;
+    case KEY_STRING:
+      returnValue = in.readUTF();
+      break;
+    default:
+      throw new IOException("Bad key type: " + type);
+    }
+    return returnValue;
+  }
+
+  /**
+   * Writes a {@link String} that may be {@code null}.
+   *
+   * @param s the {@link String} to write; may be {@code null}
+   *
+   * @param out the {@link DataOutput} to write to; must not be {@code
+   * null}
+   *
+   * @exception IOException if an error occurs while writing
+   */
+  private static final void writeString(final String s, final DataOutput out) throws IOException {
+    assert out != null;
+    out.writeBoolean(s != null);
+    if (s != null) {
+      out.writeUTF(s);
+    }
+  }
+
+  /**
+   * Reads a {@link String} written by the {@link #writeString(String,
+   * DataOutput)} method.
+   *
+   * @param in the {@link DataInput} to read from; must not be {@code
+   * null}
+   *
+   * @return the {@link String}, which may be {@code null}
+   *
+   * @exception IOException if an error occurs while reading
+   */
+  private static final String readString(final DataInput in) throws IOException {
+    assert in != null;
+    if (in.readBoolean()) {
+      return in.readUTF();
+    }
+    return null;
+  }
+
+}
@@ -0,0 +1,72 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An object that turns a fixed-size binary record into an item that
+ * a {@link Program} can match.
+ *
+ * <p>{@link RecordDecoder}s are used by {@link MappedRecordList}s,
+ * which call the {@link #decode(ByteBuffer)} method only for records
+ * that are actually read.  A record that is read again after its
+ * item has left the {@link MappedRecordList}'s cache, or that is read
+ * by two threads at once, is decoded again, so implementations
+ * should be free of side effects and, if the {@link
+ * MappedRecordList} is to be shared among threads, safe for
+ * concurrent use.</p>
+ *
+ * @param <T> the type of item produced
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see MappedRecordList
+ */
+public interface RecordDecoder<T> {
+
+  /**
+   * Decodes the record held by the supplied {@link ByteBuffer} and
+   * returns the result.
+   *
+   * <p>The supplied {@link ByteBuffer} is positioned at the start of
+   * the record, its limit is the end of the record, and it shares its
+   * content with the underlying file.  An implementation may
+   * therefore return an object that retains the {@link ByteBuffer}
+   * and reads fields from it only when asked, so that nothing is
+   * copied out of the file that a pattern never looks at.</p>
+   *
+   * @param record a {@link ByteBuffer} holding exactly one record;
+   * never {@code null}
+   *
+   * @return the decoded item; may be {@code null}
+   */
+  public T decode(final ByteBuffer record);
+
+}
@@ -0,0 +1,218 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.io.Serializable; // for javadoc only
+
+
+/**
+ * An {@link Instruction} that sets a counter register to {@code 0}
+ * by calling {@link InstructionContext#setCounter(int, int)} followed
+ * by {@link InstructionContext#advanceProgramCounter()}.
+ *
+ * <p>A {@link ResetCounter} instruction begins every counted
+ * repetition loop.</p>
+ *
+ * @param <T> the type of {@link Object}s that {@link
+ * InstructionContext}s supplied to the {@link
+ * #execute(InstructionContext)} method work with
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see CountedSplit
+ *
+ * @see IncrementCounter
+ */
+public class ResetCounter<T> extends Instruction<T> {
+
+  /**
+   * The version of this class for {@linkplain Serializable
+   * serialization purposes}.
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The zero-based number of the counter register to reset.
+   */
+  public final int register;
+
+  /**
+   * Creates a new {@link ResetCounter} instruction.
+   *
+   * @param register a {@link String} representation of the
+   * zero-based number of the counter register to reset; must not be
+   * {@code null}
+   *
+   * @exception IllegalArgumentException if {@code register} is {@code
+   * null} or does not represent a non-negative integer
+   */
+  public ResetCounter(final String register) {
+    this(parseRegister(register));
+  }
+
+  /**
+   * Creates a new {@link ResetCounter} instruction.
+   *
+   * @param register the zero-based number of the counter register to
+   * reset; must not be negative
+   *
+   * @exception IllegalArgumentException if {@code register} is
+   * negative
+   */
+  public ResetCounter(final int register) {
+    super();
+    if (register < 0) {
+      throw new IllegalArgumentException("register < 0: " + register);
+    }
+    this.register = register;
+  }
+
+  /**
+   * Calls {@link InstructionContext#setCounter(int, int)} with this
+   * {@link ResetCounter}'s {@linkplain #register register} and {@code
+   * 0}, followed by {@link
+   * InstructionContext#advanceProgramCounter()}.
+   *
+   * @param context an {@link InstructionContext}; must not be {@code
+   * null}
+   *
+   * @exception IllegalArgumentException if {@code context} is {@code
+   * null}
+   */
+  @Override
+  public final void execute(final InstructionContext<? extends T> context) {
+    if (context == null) {
+      throw new IllegalArgumentException("context");
+    }
+    context.setCounter(this.register, 0);
+    context.advanceProgramCounter();
+  }
+
+  /**
+   * Returns a hashcode for this {@link ResetCounter} instruction.
+   *
+   * @return a hashcode for this {@link ResetCounter} instruction
+   */
+  @Override
+  public int hashCode() {
+    return 37 * super.hashCode() + this.register;
+  }
+
+  /**
+   * Returns {@code true} if the supplied {@link Object} is equal to
+   * this {@link ResetCounter} instruction.
+   *
+   * @param other the {@link Object} to test; may be {@code null} in
+   * which case {@code false} will be returned
+   *
+   * @return {@code true} if the supplied {@link Object} is equal to
+   * this {@link ResetCounter} instruction; {@code false} otherwise
+   */
+  @Override
+  public boolean equals(final Object other) {
+    if (other == this) {
+      return true;
+    } else if (super.equals(other)) {
+      return this.register == ((ResetCounter<?>)other).register;
+    } else {
+      return false;
+    }
+  }
+
+  /**
+   * Returns a non-{@code null} {@link String} representation of this
+   * {@link ResetCounter} instruction.
+   *
+   * @return a non-{@code null} {@link String} representation of this
+   * {@link ResetCounter} instruction
+   */
+  @Override
+  public String toString() {
+    return new StringBuilder(super.toString()).append(" ").append(this.register).toString();
+  }
+
+  /**
+   * Parses the supplied {@link String} into a register number.
+   *
+   * @param register the {@link String} to parse; must not be {@code
+   * null}
+   *
+   * @return a non-negative register number
+   *
+   * @exception IllegalArgumentException if {@code register} is {@code
+   * null} or does not represent a non-negative integer
+   */
+  static final int parseRegister(final String register) {
+    if (register == null) {
+      throw new IllegalArgumentException("register", new NullPointerException("register"));
+    }
+    return parseRegister(register, 0, register.length());
+  }
+
+  /**
+   * Parses the characters between {@code start} (inclusive) and
+   * {@code end} (exclusive) in the supplied {@link CharSequence} into
+   * a register number, ignoring leading and trailing whitespace,
+   * without copying them into a {@link String}.
+   *
+   * @param register the {@link CharSequence} to parse; must not be
+   * {@code null}
+   *
+   * @param start the inclusive index at which to start parsing
+   *
+   * @param end the exclusive index at which to stop parsing
+   *
+   * @return a non-negative register number
+   *
+   * @exception IllegalArgumentException if {@code register} is {@code
+   * null} or the characters do not represent a non-negative integer
+   */
+  static final int parseRegister(final CharSequence register, int start, int end) {
+    if (register == null) {
+      throw new IllegalArgumentException("register", new NullPointerException("register"));
+    }
+    while (start < end && Character.isWhitespace(register.charAt(start))) {
+      start++;
+    }
+    while (end > start && Character.isWhitespace(register.charAt(end - 1))) {
+      end--;
+    }
+    final int returnValue;
+    try {
+      returnValue = parseInt(register, start, end);
+    } catch (final NumberFormatException nfe) {
+      throw new IllegalArgumentException("Bad operand: " + register.subSequence(start, end), nfe);
+    }
+    if (returnValue < 0) {
+      throw new IllegalArgumentException("Bad operand: " + register.subSequence(start, end));
+    }
+    return returnValue;
+  }
+
+}
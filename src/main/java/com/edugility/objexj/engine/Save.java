@@ -31,8 +31,6 @@ import java.io.Serializable; // for javadoc only
 
 import java.util.List;
 
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
 /**
  * An {@link Instruction} that saves the current item pointer in an
@@ -85,6 +83,18 @@ public class Save<T> extends Instruction<T> {
     this.key = key;
   }
 
+  /**
+   * Returns the key under which the item pointer will be saved.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * @return the key under which the item pointer will be saved, or
+   * {@code null}
+   */
+  public final Object getKey() {
+    return this.key;
+  }
+
   /**
    * Calls {@link InstructionContext#save(Object)} and then {@link
    * InstructionContext#advanceProgramCounter()}.
@@ -97,20 +107,11 @@ public class Save<T> extends Instruction<T> {
    */
   @Override
   public final void execute(final InstructionContext<? extends T> context) {
-    final String className = this.getClass().getName();
-    final Logger logger = this.getLogger();
-    final boolean finer = logger != null && logger.isLoggable(Level.FINER);
-    if (finer) {
-      logger.entering(className, "execute", context);
-    }
     if (context == null) {
       throw new IllegalArgumentException("context");
     }
     context.save(this.key);
     context.advanceProgramCounter();
-    if (finer) {
-      logger.exiting(className, "execute");
-    }
   }
 
   /**
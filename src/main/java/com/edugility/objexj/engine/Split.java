@@ -31,9 +31,6 @@ import java.io.Serializable;
 
 import java.util.List;
 
-import java.util.logging.Level;
-import java.util.logging.Logger;
-
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -90,15 +87,40 @@ public class Split<T> extends Jump<T> {
    * #newThreadProgramLocation} fields are the same
    */
   public Split(String operands) {
-    super(operands);
+    this(operands, 0, operands == null ? 0 : operands.length());
+  }
+
+  /**
+   * Creates a new {@link Split} instruction from the operands found
+   * between {@code start} (inclusive) and {@code end} (exclusive) in
+   * the supplied {@link CharSequence}, without copying them into a
+   * {@link String}.
+   *
+   * @param operands a {@link CharSequence} containing values for the
+   * {@link Jump#programLocation}, {@link #newThreadProgramLocation}
+   * and {@link #relative} fields; must not be {@code null}
+   *
+   * @param start the inclusive index of the operands
+   *
+   * @param end the exclusive index of the operands
+   *
+   * @exception IllegalArgumentException if the operands could not be
+   * parsed, or if after parsing the values of the {@link
+   * Jump#programLocation} and {@link #newThreadProgramLocation}
+   * fields are the same
+   *
+   * @see #Split(String)
+   */
+  Split(final CharSequence operands, final int start, final int end) {
+    super(operands, start, end);
     assert operands != null;
-    final Matcher m = OPERAND_PATTERN.matcher(operands);
+    final Matcher m = OPERAND_PATTERN.matcher(operands).region(start, end);
     assert m != null;
     if (!m.find()) {
-      throw new IllegalArgumentException("Bad operands: " + operands);
+      throw new IllegalArgumentException("Bad operands: " + operands.subSequence(start, end));
     } else {
-      this.newThreadProgramLocation = Integer.parseInt(m.group(2));
-      this.relative = "+".equals(m.group(1)) || this.newThreadProgramLocation < 0 || this.programLocation < 0;
+      this.newThreadProgramLocation = parseInt(operands, m.start(2), m.end(2));
+      this.relative = m.start(1) < m.end(1) || this.newThreadProgramLocation < 0 || this.programLocation < 0;
     }
     if (this.programLocation == this.newThreadProgramLocation) {
       throw new IllegalArgumentException("this.programLocation == this.newThreadProgramLocation: " + this.newThreadProgramLocation);
@@ -158,20 +180,11 @@ public class Split<T> extends Jump<T> {
    */
   @Override
   public final void execute(final InstructionContext<? extends T> context) {
-    final String className = this.getClass().getName();
-    final Logger logger = this.getLogger();
-    final boolean finer = logger != null && logger.isLoggable(Level.FINER);
-    if (finer) {
-      logger.entering(className, "execute", context);
-    }
     if (context == null) {
       throw new IllegalArgumentException("context");
     }
     context.scheduleNewThread(this.newThreadProgramLocation, this.relative);
     super.execute(context);
-    if (finer) {
-      logger.exiting(className, "execute");
-    }
   }
 
   /**
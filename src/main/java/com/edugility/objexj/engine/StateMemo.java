@@ -0,0 +1,280 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.util.Arrays;
+
+/**
+ * A compact record of the states&mdash;pairs of a position in a
+ * {@link Program} and a position in the input&mdash;that some {@link
+ * Thread} of a run has already reached, so that any {@link Thread}
+ * that reaches one of them later can {@linkplain Thread#die() die}
+ * at once.
+ *
+ * <p>{@link Thread}s are run one at a time, most recently scheduled
+ * first, so by the time a second {@link Thread} reaches a state,
+ * every {@link Thread} that could follow from the first one's visit
+ * has either matched, ending the run, or died.  If nothing but its
+ * position in the {@link Program} and in the input decides what a
+ * {@link Thread} can go on to do, the second {@link Thread} can do
+ * nothing the first did not, and the first has priority.  Killing
+ * it therefore changes neither whether there is a match nor which
+ * match is reported, but it does mean that no state is explored
+ * twice, so that a run executes a number of {@link Instruction}s at
+ * most proportional to the size of the {@link Program} times the
+ * size of the input, however ambiguous the {@link Program} is.</p>
+ *
+ * <p>That is not so for {@link Program}s that {@linkplain
+ * #isMemoizable(Program) keep other state}: counters, atomic groups
+ * and variables that conditions assign.  No {@link StateMemo} is
+ * made for them.</p>
+ *
+ * <p>Only positions in the {@link Program} that a {@link Split},
+ * {@link Jump} or {@link CountedSplit} leads to are remembered, since
+ * two {@link Thread}s can only come together at one of them.  Each
+ * takes one bit per input position, allocated the first time a
+ * {@link Thread} reaches it.</p>
+ *
+ * <p>A {@link StateMemo} is shared by every {@link Thread} of a run,
+ * in the same way a {@link FilterMemo} is, and is not safe for use by
+ * multiple Java {@linkplain java.lang.Thread threads}.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see MatchOptions#withMemoizedStates(boolean)
+ */
+final class StateMemo {
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The slot in {@link #visited} of each position in the {@link
+   * Program}, or {@code -1} if that position is not remembered.  This
+   * field is never {@code null}.
+   */
+  private final int[] slots;
+
+  /**
+   * The input positions, one bit each, at which each remembered
+   * position in the {@link Program} has been reached.  This field is
+   * never {@code null}, but its elements are {@code null} until they
+   * are first needed.
+   */
+  private final long[][] visited;
+
+  /**
+   * The largest input position a state may be remembered for.
+   */
+  private final int maxPosition;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link StateMemo}.
+   *
+   * @param slots the slot of each position in the {@link Program},
+   * or {@code -1}; must not be {@code null}
+   *
+   * @param slotCount the number of slots; must be positive
+   *
+   * @param inputSize the number of items in the input; must not be
+   * negative
+   */
+  private StateMemo(final int[] slots, final int slotCount, final int inputSize) {
+    super();
+    assert slots != null;
+    assert slotCount > 0;
+    assert inputSize >= 0;
+    this.slots = slots;
+    this.visited = new long[slotCount][];
+    this.maxPosition = inputSize;
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Records that a {@link Thread} has reached the supplied position
+   * in the {@link Program} at the supplied position in the input,
+   * and returns {@code true} if no {@link Thread} had reached it
+   * there before.
+   *
+   * <p>Positions that are not remembered are always reported as not
+   * having been reached before.</p>
+   *
+   * @param programCounterIndex the position in the {@link Program}
+   *
+   * @param itemPointer the position in the input
+   *
+   * @return {@code true} if this is the first {@link Thread} to reach
+   * the state; {@code false} if it is not, and so may die
+   */
+  final boolean visit(final int programCounterIndex, final int itemPointer) {
+    if (programCounterIndex < 0 || programCounterIndex >= this.slots.length || itemPointer < 0 || itemPointer > this.maxPosition) {
+      return true;
+    }
+    final int slot = this.slots[programCounterIndex];
+    if (slot < 0) {
+      return true;
+    }
+    long[] bits = this.visited[slot];
+    if (bits == null) {
+      bits = new long[(this.maxPosition >>> 6) + 1];
+      this.visited[slot] = bits;
+    }
+    final int index = itemPointer >>> 6;
+    final long bit = 1L << itemPointer;
+    if ((bits[index] & bit) != 0L) {
+      return false;
+    }
+    bits[index] |= bit;
+    return true;
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns a new {@link StateMemo} for running the supplied {@link
+   * Program} against input of the supplied size, or {@code null} if
+   * the {@link Program} is not {@linkplain #isMemoizable(Program)
+   * memoizable} or never branches.
+   *
+   * @param program the {@link Program} that will be run; must not be
+   * {@code null}
+   *
+   * @param inputSize the number of items in the input; must not be
+   * negative
+   *
+   * @return a new {@link StateMemo}, or {@code null}
+   */
+  static final StateMemo of(final Program<?> program, final int inputSize) {
+    assert program != null;
+    assert inputSize >= 0;
+    if (!isMemoizable(program)) {
+      return null;
+    }
+    final int size = program.size();
+    final boolean[] targets = new boolean[size];
+    boolean branches = false;
+    int pc = 0;
+    for (final Instruction<?> instruction : program) {
+      if (instruction instanceof Split) {
+        final Split<?> split = (Split<?>)instruction;
+        branches |= mark(targets, split.relative ? pc + split.programLocation : split.programLocation);
+        branches |= mark(targets, split.relative ? pc + split.newThreadProgramLocation : split.newThreadProgramLocation);
+      } else if (instruction instanceof Jump) {
+        final Jump<?> jump = (Jump<?>)instruction;
+        branches |= mark(targets, jump.relative ? pc + jump.programLocation : jump.programLocation);
+      }
+      pc++;
+    }
+    if (!branches) {
+      return null;
+    }
+    final int[] slots = new int[size];
+    Arrays.fill(slots, -1);
+    int slotCount = 0;
+    for (int i = 0; i < size; i++) {
+      if (targets[i]) {
+        slots[i] = slotCount++;
+      }
+    }
+    return new StateMemo(slots, slotCount, inputSize);
+  }
+
+  /**
+   * Returns {@code true} if nothing but its position in the supplied
+   * {@link Program} and in the input decides what a {@link Thread}
+   * running it can go on to do.
+   *
+   * <p>That is the case unless the {@link Program} contains
+   * instructions that keep counters ({@link CountedSplit}, {@link
+   * IncrementCounter} and {@link ResetCounter}), atomic groups
+   * ({@link BeginAtomic} and {@link EndAtomic}), or conditions that
+   * {@linkplain ConditionEffect#WRITES_VARIABLES assign
+   * variables}.</p>
+   *
+   * @param program the {@link Program} in question; must not be
+   * {@code null}
+   *
+   * @return {@code true} if runs of {@code program} may be memoized;
+   * {@code false} otherwise
+   */
+  static final boolean isMemoizable(final Program<?> program) {
+    assert program != null;
+    if (program.getConditionEffect() == ConditionEffect.WRITES_VARIABLES) {
+      return false;
+    }
+    for (final Instruction<?> instruction : program) {
+      if (instruction instanceof CountedSplit ||
+          instruction instanceof IncrementCounter ||
+          instruction instanceof ResetCounter ||
+          instruction instanceof BeginAtomic ||
+          instruction instanceof EndAtomic) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Marks the supplied position in the supplied array, if it is a
+   * valid index into it.
+   *
+   * @param targets the array to mark; must not be {@code null}
+   *
+   * @param pc the position to mark
+   *
+   * @return {@code true} if {@code pc} was marked
+   */
+  private static final boolean mark(final boolean[] targets, final int pc) {
+    assert targets != null;
+    if (pc < 0 || pc >= targets.length) {
+      return false;
+    }
+    targets[pc] = true;
+    return true;
+  }
+
+}
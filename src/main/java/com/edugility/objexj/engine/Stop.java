@@ -29,8 +29,6 @@ package com.edugility.objexj.engine;
 
 import java.util.List;
 
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
 /**
  * An {@link Instruction} that stops saving a capture group by calling
@@ -85,6 +83,18 @@ public class Stop<T> extends Instruction<T> {
     this.key = key;
   }
 
+  /**
+   * Returns the key identifying the capture group to save.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * @return the key identifying the capture group to save, or {@code
+   * null}
+   */
+  public final Object getKey() {
+    return this.key;
+  }
+
   /**
    * Calls {@link InstructionContext#stop(Object)} followed by {@link
    * InstructionContext#advanceProgramCounter()}.
@@ -101,20 +111,11 @@ public class Stop<T> extends Instruction<T> {
    */
   @Override
   public final void execute(final InstructionContext<? extends T> context) {
-    final String className = this.getClass().getName();
-    final Logger logger = this.getLogger();
-    final boolean finer = logger != null && logger.isLoggable(Level.FINER);
-    if (finer) {
-      logger.entering(className, "execute", context);
-    }
     if (context == null) {
       throw new IllegalArgumentException("context");
     }
     context.stop(this.key);
     context.advanceProgramCounter();
-    if (finer) {
-      logger.exiting(className, "execute");
-    }
   }
 
   /**
@@ -0,0 +1,103 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+/**
+ * How a run of a {@link Program} evaluates its atoms: the {@link
+ * Filter}s whose results depend on nothing but the item they read.
+ *
+ * <p>Every {@link Strategy} produces the same {@link MatchResult};
+ * they differ only in how much work is done, and when.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see ProgramAnalysis#selectStrategy(int, java.util.Set, boolean)
+ *
+ * @see #applyTo(MatchOptions)
+ */
+public enum Strategy {
+
+  /**
+   * Atoms are evaluated as {@link Thread}s reach them, and their
+   * results remembered for the rest of the run.  Nothing is done for
+   * items no {@link Thread} reads.
+   */
+  LAZY,
+
+  /**
+   * The input is {@linkplain MatchOptions#withCompressedAlphabet(boolean)
+   * classified} before the run, each item being reduced to a small
+   * integer standing for the set of atoms it satisfies.
+   */
+  COMPRESSED_ALPHABET,
+
+  /**
+   * Every atom is {@linkplain MatchOptions#withAtomBitmaps(boolean)
+   * evaluated into a bitmap} over the whole input before the run, in
+   * parallel if the {@link Engine} has an {@link
+   * java.util.concurrent.Executor}.
+   */
+  ATOM_BITMAPS;
+
+  /**
+   * Returns a {@link MatchOptions} that is identical to the supplied
+   * one except that it asks for this {@link Strategy}.  This method
+   * never returns {@code null}.
+   *
+   * @param options the {@link MatchOptions} to start from; may be
+   * {@code null} in which case {@link MatchOptions#UNLIMITED} is used
+   *
+   * @return a non-{@code null} {@link MatchOptions}
+   */
+  public final MatchOptions applyTo(final MatchOptions options) {
+    final MatchOptions base = options == null ? MatchOptions.UNLIMITED : options;
+    return base.withCompressedAlphabet(this == COMPRESSED_ALPHABET).withAtomBitmaps(this == ATOM_BITMAPS);
+  }
+
+  /**
+   * Returns the {@link Strategy} the supplied {@link MatchOptions}
+   * ask for, or {@code null} if they ask for none in particular.
+   *
+   * @param options the {@link MatchOptions} in question; may be
+   * {@code null}
+   *
+   * @return a {@link Strategy}, or {@code null}
+   */
+  public static final Strategy of(final MatchOptions options) {
+    if (options == null) {
+      return null;
+    } else if (options.isAtomBitmaps()) {
+      return ATOM_BITMAPS;
+    } else if (options.isCompressedAlphabet()) {
+      return COMPRESSED_ALPHABET;
+    }
+    return null;
+  }
+
+}
@@ -36,7 +36,6 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
-import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -180,6 +179,18 @@ public class Thread<T> implements Cloneable, Runnable, ThreadScheduler<T> {
    */
   private int itemPointer;
 
+  /**
+   * The index of the first item this {@link Thread} is not permitted
+   * to {@linkplain #read() read}, or a negative value if it may read
+   * all of its input.
+   *
+   * <p>This field is shared by the {@link #clone()} method and by the
+   * {@link #newThread(Object, int, boolean)} method.</p>
+   *
+   * @see #setItemLimit(int)
+   */
+  private int itemLimit;
+
   /**
    * This {@link Thread}'s affiliated {@link ProgramCounter}.  This
    * field must not be {@code null}.
@@ -238,6 +249,21 @@ public class Thread<T> implements Cloneable, Runnable, ThreadScheduler<T> {
    */
   private Map<Object, CaptureGroup<T>> captureGroups;
 
+  /**
+   * The keys of the capture groups this {@link Thread} will actually
+   * record when asked to {@linkplain #save(Object) save} or
+   * {@linkplain #stop(Object) stop}.
+   *
+   * <p>This field may be {@code null}, in which case all capture
+   * groups are recorded.</p>
+   *
+   * <p>This field is shared by the {@link #clone()} method and by the
+   * {@link #newThread(Object, int, boolean)} method.</p>
+   *
+   * @see #setGroupsOfInterest(Set)
+   */
+  private Set<?> groupsOfInterest;
+
   /**
    * A {@link Map} of global variables maintained by this {@link
    * Thread}.
@@ -248,6 +274,128 @@ public class Thread<T> implements Cloneable, Runnable, ThreadScheduler<T> {
    */
   private Map<Object, Object> variables;
 
+  /**
+   * The counter registers used by counted repetition loops, indexed
+   * by register number.
+   *
+   * <p>This field may be {@code null}, in which case every register
+   * is considered to hold {@code 0}.</p>
+   *
+   * <p>This field is copied by the {@link #clone()} method and by the
+   * {@link #newThread(Object, int, boolean)} method, so that a forked
+   * {@link Thread} continues counting from where its parent left
+   * off.</p>
+   *
+   * @see #getCounter(int)
+   *
+   * @see #setCounter(int, int)
+   */
+  private int[] counters;
+
+  /**
+   * The innermost {@link AtomicScope} this {@link Thread} is
+   * currently executing inside of.
+   *
+   * <p>This field may be {@code null}, in which case this {@link
+   * Thread} is not inside any atomic group.</p>
+   *
+   * <p>This field is shared&mdash;not copied&mdash;by the {@link
+   * #clone()} method and by the {@link #newThread(Object, int,
+   * boolean)} method, so that when one {@link Thread} {@linkplain
+   * #endAtomic() commits} an atomic group every other {@link Thread}
+   * that was forked inside it can tell.</p>
+   *
+   * @see #beginAtomic()
+   *
+   * @see #endAtomic()
+   */
+  private AtomicScope atomicScope;
+
+  /**
+   * The {@link MatchStats} this {@link Thread} records the work it
+   * does in.
+   *
+   * <p>This field may be {@code null}, in which case nothing is
+   * recorded.</p>
+   *
+   * <p>This field is shared by the {@link #clone()} method and by the
+   * {@link #newThread(Object, int, boolean)} method.</p>
+   *
+   * @see #setStats(MatchStats)
+   */
+  private MatchStats stats;
+
+  /**
+   * The {@link MatchListener} notified of what this {@link Thread}
+   * does.
+   *
+   * <p>This field may be {@code null}, in which case no {@link
+   * MatchListener} is notified.</p>
+   *
+   * <p>This field is shared by the {@link #clone()} method and by the
+   * {@link #newThread(Object, int, boolean)} method.</p>
+   *
+   * @see #setListener(MatchListener)
+   */
+  private MatchListener<? super T> listener;
+
+  /**
+   * The {@link MatchBudget} this {@link Thread} charges each step it
+   * takes to.
+   *
+   * <p>This field may be {@code null}, in which case this {@link
+   * Thread} may take as many steps as it likes.</p>
+   *
+   * <p>This field is shared by the {@link #clone()} method and by the
+   * {@link #newThread(Object, int, boolean)} method.</p>
+   *
+   * @see #setBudget(MatchBudget)
+   */
+  private MatchBudget budget;
+
+  /**
+   * The {@link FilterMemo} this {@link Thread} remembers the results
+   * of memoizable {@link Filter}s in.
+   *
+   * <p>This field may be {@code null}, in which case nothing is
+   * remembered.</p>
+   *
+   * <p>This field is shared by the {@link #clone()} method and by the
+   * {@link #newThread(Object, int, boolean)} method.</p>
+   *
+   * @see #setFilterMemo(FilterMemo)
+   */
+  private FilterMemo filterMemo;
+
+  /**
+   * The {@link AtomResults} this {@link Thread} looks up the results
+   * of atoms in.
+   *
+   * <p>This field may be {@code null}, in which case atoms are
+   * evaluated as they are reached.</p>
+   *
+   * <p>This field is shared by the {@link #clone()} method and by the
+   * {@link #newThread(Object, int, boolean)} method.</p>
+   *
+   * @see #setAtomResults(AtomResults)
+   */
+  private AtomResults atomResults;
+
+  /**
+   * The {@link StateMemo} this {@link Thread} records the states it
+   * reaches in.
+   *
+   * <p>This field may be {@code null}, in which case nothing is
+   * recorded, and this {@link Thread} never dies merely because
+   * another {@link Thread} has already reached the same state.</p>
+   *
+   * <p>This field is shared by the {@link #clone()} method and by the
+   * {@link #newThread(Object, int, boolean)} method.</p>
+   *
+   * @see #setStateMemo(StateMemo)
+   */
+  private StateMemo stateMemo;
+
   /**
    * An {@link InstructionContext} that wraps this {@link Thread}.
    *
@@ -392,6 +540,7 @@ public class Thread<T> implements Cloneable, Runnable, ThreadScheduler<T> {
       throw new IllegalArgumentException("itemPointer > items.size(): " + itemPointer + " > " + this.items.size());
     }
     this.itemPointer = itemPointer;
+    this.itemLimit = -1;
   }
 
 
@@ -440,6 +589,216 @@ public class Thread<T> implements Cloneable, Runnable, ThreadScheduler<T> {
     this.id = id;
   }
 
+  /**
+   * Restricts the capture groups this {@link Thread} will record to
+   * those identified by the supplied keys.  Calls to {@link
+   * #save(Object)} and {@link #stop(Object)} with any other key will
+   * have no effect.
+   *
+   * <p>This method should be called, if at all, before this {@link
+   * Thread} is {@linkplain #run() run}; the restriction is inherited
+   * by any {@link Thread}s it {@linkplain #newThread(Object, int,
+   * boolean) forks}.</p>
+   *
+   * @param groupsOfInterest the keys of the capture groups to record;
+   * may be {@code null} in which case all capture groups will be
+   * recorded
+   */
+  final void setGroupsOfInterest(final Set<?> groupsOfInterest) {
+    this.groupsOfInterest = groupsOfInterest;
+  }
+
+  /**
+   * Prevents this {@link Thread} from {@linkplain #read() reading}
+   * the item at the supplied index or any item after it.  Once this
+   * {@link Thread}'s item pointer reaches that index, {@link
+   * #canRead()} will return {@code false}, exactly as though the
+   * input ended there, although {@link #atEnd()} will be unaffected.
+   *
+   * <p>This method should be called, if at all, before this {@link
+   * Thread} is {@linkplain #run() run}; the limit is inherited by any
+   * {@link Thread}s it {@linkplain #newThread(Object, int, boolean)
+   * forks}.</p>
+   *
+   * @param itemLimit the index of the first item that may not be
+   * read; a negative value removes any limit
+   */
+  final void setItemLimit(final int itemLimit) {
+    this.itemLimit = itemLimit;
+  }
+
+  /**
+   * Causes this {@link Thread}, and any {@link Thread}s it
+   * {@linkplain #newThread(Object, int, boolean) forks}, to record
+   * the work they do in the supplied {@link MatchStats}.
+   *
+   * <p>This method should be called, if at all, before this {@link
+   * Thread} is {@linkplain #run() run}.</p>
+   *
+   * @param stats the {@link MatchStats} to record work in; may be
+   * {@code null} in which case nothing will be recorded
+   */
+  final void setStats(final MatchStats stats) {
+    this.stats = stats;
+  }
+
+  /**
+   * Returns the {@link MatchStats} this {@link Thread} records the
+   * work it does in, or {@code null} if it records nothing.
+   *
+   * @return a {@link MatchStats}, or {@code null}
+   *
+   * @see #setStats(MatchStats)
+   */
+  final MatchStats getStats() {
+    return this.stats;
+  }
+
+  /**
+   * Causes the supplied {@link MatchListener} to be notified of what
+   * this {@link Thread}, and any {@link Thread}s it {@linkplain
+   * #newThread(Object, int, boolean) forks}, do.
+   *
+   * <p>This method should be called, if at all, before this {@link
+   * Thread} is {@linkplain #run() run}.</p>
+   *
+   * @param listener the {@link MatchListener} to notify; may be
+   * {@code null} in which case nothing will be notified
+   */
+  final void setListener(final MatchListener<? super T> listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Causes this {@link Thread}, and any {@link Thread}s it
+   * {@linkplain #newThread(Object, int, boolean) forks}, to charge
+   * each step they take to the supplied {@link MatchBudget}.
+   *
+   * <p>This method should be called, if at all, before this {@link
+   * Thread} is {@linkplain #run() run}.</p>
+   *
+   * @param budget the {@link MatchBudget} to charge; may be {@code
+   * null} in which case steps are not limited
+   */
+  final void setBudget(final MatchBudget budget) {
+    this.budget = budget;
+  }
+
+  /**
+   * Causes this {@link Thread}, and any {@link Thread}s it
+   * {@linkplain #newThread(Object, int, boolean) forks}, to remember
+   * the results of memoizable {@link Filter}s in, and recall them
+   * from, the supplied {@link FilterMemo}.
+   *
+   * <p>This method should be called, if at all, before this {@link
+   * Thread} is {@linkplain #run() run}.</p>
+   *
+   * @param filterMemo the {@link FilterMemo} to use; may be {@code
+   * null} in which case nothing is remembered
+   */
+  final void setFilterMemo(final FilterMemo filterMemo) {
+    this.filterMemo = filterMemo;
+  }
+
+  /**
+   * Causes this {@link Thread}, and any {@link Thread}s it
+   * {@linkplain #newThread(Object, int, boolean) forks}, to look up
+   * the results of atoms in the supplied {@link AtomResults} instead
+   * of evaluating them.
+   *
+   * <p>This method should be called, if at all, before this {@link
+   * Thread} is {@linkplain #run() run}.</p>
+   *
+   * @param atomResults the {@link AtomResults} to use; must have
+   * been evaluated from this {@link Thread}'s input and {@link
+   * Program}; may be {@code null} in which case atoms are evaluated
+   * as usual
+   *
+   * @see Alphabet
+   */
+  final void setAtomResults(final AtomResults atomResults) {
+    this.atomResults = atomResults;
+  }
+
+  /**
+   * Causes this {@link Thread}, and any {@link Thread}s it
+   * {@linkplain #newThread(Object, int, boolean) forks}, to record
+   * the states they reach in the supplied {@link StateMemo}, and to
+   * {@linkplain #die() die} on reaching a state that another {@link
+   * Thread} has already reached.
+   *
+   * <p>This method should be called, if at all, before this {@link
+   * Thread} is {@linkplain #run() run}.</p>
+   *
+   * @param stateMemo the {@link StateMemo} to use; must have been
+   * made for this {@link Thread}'s input and {@link Program}; may be
+   * {@code null} in which case nothing is recorded
+   *
+   * @see MatchOptions#withMemoizedStates(boolean)
+   */
+  final void setStateMemo(final StateMemo stateMemo) {
+    this.stateMemo = stateMemo;
+  }
+
+  /**
+   * Returns the remembered result of the {@link Filter} this {@link
+   * Thread} is about to execute for the item it is about to read,
+   * looking it up first in this {@link Thread}'s {@link
+   * AtomResults}, if any, and then in its {@link FilterMemo}, if
+   * any.
+   *
+   * @return {@link FilterMemo#ACCEPTED}, {@link FilterMemo#REJECTED}
+   * or {@link FilterMemo#UNKNOWN}
+   *
+   * @see AtomResults#recall(int, int)
+   *
+   * @see FilterMemo#recall(int, int)
+   */
+  final int recallFilterResult() {
+    final int programPosition = this.programCounter.getIndex();
+    if (this.atomResults != null) {
+      final int result = this.atomResults.recall(programPosition, this.itemPointer);
+      if (result != FilterMemo.UNKNOWN) {
+        return result;
+      }
+    }
+    if (this.filterMemo == null) {
+      return FilterMemo.UNKNOWN;
+    }
+    return this.filterMemo.recall(programPosition, this.itemPointer);
+  }
+
+  /**
+   * Remembers the result of the {@link Filter} this {@link Thread}
+   * is executing for the item it is about to read, if that {@link
+   * Filter} is memoizable.
+   *
+   * @param accepted whether the {@link Filter} accepted the item
+   *
+   * @see FilterMemo#remember(int, int, boolean)
+   */
+  final void rememberFilterResult(final boolean accepted) {
+    if (this.filterMemo != null) {
+      this.filterMemo.remember(this.programCounter.getIndex(), this.itemPointer, accepted);
+    }
+  }
+
+  /**
+   * Notifies this {@link Thread}'s {@link MatchListener}, if any,
+   * that the supplied {@link Filter} accepted or rejected the item
+   * this {@link Thread} was about to read.
+   *
+   * @param filter the {@link Filter} that was evaluated; must not be
+   * {@code null}
+   *
+   * @param accepted whether the {@link Filter} accepted the item
+   */
+  final void filterEvaluated(final Filter<?> filter, final boolean accepted) {
+    if (this.listener != null) {
+      this.listener.filterEvaluated(this, filter, accepted);
+    }
+  }
+
   /**
    * Returns an {@linkplain Collections#unmodifiableMap(Map)
    * unmodifiable <tt>Map</tt>} of submatches found by this {@link
@@ -484,12 +843,21 @@ public class Thread<T> implements Cloneable, Runnable, ThreadScheduler<T> {
     return returnValue;
   }
 
+  /**
+   * Returns the {@link List} of items this {@link Thread} reads from.
+   *
+   * @return the {@link List} of items, or {@code null}
+   */
+  final List<? extends T> getItems() {
+    return this.items;
+  }
+
   /**
    * Returns the item pointer associated with this {@link Thread}.
    *
    * @return the item pointer associated with this {@link Thread}
    */
-  private final int getItemPointer() {
+  final int getItemPointer() {
     return this.itemPointer;
   }
 
@@ -534,6 +902,9 @@ public class Thread<T> implements Cloneable, Runnable, ThreadScheduler<T> {
       throw new IllegalArgumentException("key", new NullPointerException("key"));
     }
     this.ensureViable();
+    if (this.groupsOfInterest != null && !this.groupsOfInterest.contains(key)) {
+      return;
+    }
     if (this.captureGroups == null) {
       this.captureGroups = new HashMap<Object, CaptureGroup<T>>();
       this.captureGroups.put(key, new CaptureGroup<T>(this.items, this.getItemPointer()));
@@ -559,6 +930,9 @@ public class Thread<T> implements Cloneable, Runnable, ThreadScheduler<T> {
       throw new IllegalArgumentException("key", new NullPointerException("key"));
     }
     this.ensureViable();
+    if (this.groupsOfInterest != null && !this.groupsOfInterest.contains(key)) {
+      return;
+    }
     if (this.captureGroups != null) {
       final CaptureGroup<T> cg = this.captureGroups.get(key);
       if (cg != null) {
@@ -601,7 +975,28 @@ public class Thread<T> implements Cloneable, Runnable, ThreadScheduler<T> {
       programCounter = programCounter.clone(absoluteProgramCounterIndex);
     }
     // TODO: we're not cloning the variables; is that OK?
-    return this.newThread(id, programCounter, this.items, this.getItemPointer(), deepClone(this.captureGroups), this.variables);
+    final Thread<T> returnValue = this.newThread(id, programCounter, this.items, this.getItemPointer(), deepClone(this.captureGroups), this.variables);
+    if (returnValue != null) {
+      if (this.counters != null) {
+        returnValue.counters = this.counters.clone();
+      }
+      returnValue.atomicScope = this.atomicScope;
+      returnValue.groupsOfInterest = this.groupsOfInterest;
+      returnValue.itemLimit = this.itemLimit;
+      if (this.stats != null) {
+        returnValue.stats = this.stats;
+        this.stats.threadForked();
+      }
+      returnValue.budget = this.budget;
+      returnValue.filterMemo = this.filterMemo;
+      returnValue.atomResults = this.atomResults;
+      returnValue.stateMemo = this.stateMemo;
+      if (this.listener != null) {
+        returnValue.listener = this.listener;
+        this.listener.threadForked(this, returnValue);
+      }
+    }
+    return returnValue;
   }
 
   /**
@@ -643,6 +1038,172 @@ public class Thread<T> implements Cloneable, Runnable, ThreadScheduler<T> {
     return this.threadScheduler.schedule(t);
   }
 
+  /**
+   * Returns the value of the counter register identified by the
+   * supplied {@code register} number.  Registers that have never been
+   * {@linkplain #setCounter(int, int) set} hold {@code 0}.
+   *
+   * @param register the zero-based register number; must not be
+   * negative
+   *
+   * @return the value of the register
+   *
+   * @exception IllegalArgumentException if {@code register} is
+   * negative
+   *
+   * @exception IllegalStateException if this {@link Thread}
+   * {@linkplain #isViable() is not viable}
+   *
+   * @see #setCounter(int, int)
+   */
+  public final int getCounter(final int register) {
+    if (register < 0) {
+      throw new IllegalArgumentException("register < 0: " + register);
+    }
+    this.ensureViable();
+    if (this.counters == null || register >= this.counters.length) {
+      return 0;
+    }
+    return this.counters[register];
+  }
+
+  /**
+   * Sets the value of the counter register identified by the supplied
+   * {@code register} number.
+   *
+   * @param register the zero-based register number; must not be
+   * negative
+   *
+   * @param value the new value of the register
+   *
+   * @exception IllegalArgumentException if {@code register} is
+   * negative
+   *
+   * @exception IllegalStateException if this {@link Thread}
+   * {@linkplain #isViable() is not viable}
+   *
+   * @see #getCounter(int)
+   */
+  public final void setCounter(final int register, final int value) {
+    if (register < 0) {
+      throw new IllegalArgumentException("register < 0: " + register);
+    }
+    this.ensureViable();
+    if (this.counters == null) {
+      if (value == 0) {
+        return;
+      }
+      this.counters = new int[register + 1];
+    } else if (register >= this.counters.length) {
+      if (value == 0) {
+        return;
+      }
+      this.counters = Arrays.copyOf(this.counters, register + 1);
+    }
+    this.counters[register] = value;
+  }
+
+  /**
+   * Records this {@link Thread}'s current input position in the
+   * counter register identified by the supplied {@code register}
+   * number.
+   *
+   * @param register the zero-based register number; must not be
+   * negative
+   *
+   * @exception IllegalArgumentException if {@code register} is
+   * negative
+   *
+   * @exception IllegalStateException if this {@link Thread}
+   * {@linkplain #isViable() is not viable}
+   *
+   * @see #isAtMarkedPosition(int)
+   */
+  public final void markPosition(final int register) {
+    this.setCounter(register, this.getItemPointer());
+  }
+
+  /**
+   * Returns {@code true} if this {@link Thread} is at the input
+   * position most recently {@linkplain #markPosition(int) recorded}
+   * in the counter register identified by the supplied {@code
+   * register} number.
+   *
+   * @param register the zero-based register number; must not be
+   * negative
+   *
+   * @return {@code true} if no input has been consumed since the
+   * position was recorded; {@code false} otherwise
+   *
+   * @exception IllegalArgumentException if {@code register} is
+   * negative
+   *
+   * @exception IllegalStateException if this {@link Thread}
+   * {@linkplain #isViable() is not viable}
+   *
+   * @see #markPosition(int)
+   */
+  public final boolean isAtMarkedPosition(final int register) {
+    return this.getCounter(register) == this.getItemPointer();
+  }
+
+  /**
+   * Records that this {@link Thread} is entering an atomic group.
+   * Any {@link Thread} forked by this {@link Thread} before the
+   * matching call to {@link #endAtomic()} will be discarded if that
+   * call is made.
+   *
+   * @exception IllegalStateException if this {@link Thread}
+   * {@linkplain #isViable() is not viable}
+   *
+   * @see #endAtomic()
+   */
+  public final void beginAtomic() {
+    this.ensureViable();
+    this.atomicScope = new AtomicScope(this.atomicScope);
+  }
+
+  /**
+   * Records that this {@link Thread} has matched the innermost atomic
+   * group it {@linkplain #beginAtomic() entered}, thereby committing
+   * to this particular way of matching it.  Every other {@link
+   * Thread} that was forked inside the group will {@linkplain #die()
+   * die} instead of {@linkplain #run() running}.
+   *
+   * @exception IllegalStateException if this {@link Thread}
+   * {@linkplain #isViable() is not viable}, or if it is not inside an
+   * atomic group
+   *
+   * @see #beginAtomic()
+   */
+  public final void endAtomic() {
+    this.ensureViable();
+    final AtomicScope atomicScope = this.atomicScope;
+    if (atomicScope == null) {
+      throw new IllegalStateException("endAtomic() without beginAtomic()");
+    }
+    atomicScope.committed = true;
+    this.atomicScope = atomicScope.enclosing;
+  }
+
+  /**
+   * Returns {@code true} if some other {@link Thread} has {@linkplain
+   * #endAtomic() committed} to an atomic group that this {@link
+   * Thread} is still inside of.  Such a {@link Thread} represents an
+   * alternative that has been discarded.
+   *
+   * @return {@code true} if this {@link Thread} has been discarded;
+   * {@code false} otherwise
+   */
+  private final boolean isDiscarded() {
+    for (AtomicScope scope = this.atomicScope; scope != null; scope = scope.enclosing) {
+      if (scope.committed) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Returns {@code true} if this {@link Thread}'s {@linkplain
    * #getItemPointer() item pointer} is {@code 0} (in the case of
@@ -698,7 +1259,8 @@ public class Thread<T> implements Cloneable, Runnable, ThreadScheduler<T> {
    * @return {@code true} if this {@link Thread} can read an item
    */
   public final boolean canRead() {
-    return this.isViable() && this.isValidItemPointer(this.getItemPointer());
+    final int itemPointer = this.getItemPointer();
+    return this.isViable() && this.isValidItemPointer(itemPointer) && (this.itemLimit < 0 || itemPointer < this.itemLimit || itemPointer == VALID_NO_INPUT_POINTER);
   }
 
   /**
@@ -715,12 +1277,6 @@ public class Thread<T> implements Cloneable, Runnable, ThreadScheduler<T> {
    * @see #canRead()
    */
   public final T read() {
-    final String className = this.getClass().getName();
-    final Logger logger = this.getLogger();
-    final boolean finer = logger != null && logger.isLoggable(Level.FINER);
-    if (finer) {
-      logger.entering(className, "read");
-    }
     if (!this.canRead()) {
       throw new IllegalStateException("Thread cannot read");
     }
@@ -732,11 +1288,73 @@ public class Thread<T> implements Cloneable, Runnable, ThreadScheduler<T> {
       return null;
     }
     assert this.getItemPointer() >= 0 && this.getItemPointer() < this.items.size();
-    final T returnValue = this.items.get(this.getItemPointer());
-    if (finer) {
-      logger.exiting(className, "read", returnValue);
+    return this.items.get(this.getItemPointer());
+  }
+
+  /**
+   * Returns {@code true} if this {@link Thread} {@linkplain #canRead()
+   * can read} an item and that item is a {@link Number}.
+   *
+   * <p>This method may be invoked in all states.</p>
+   *
+   * @return {@code true} if this {@link Thread} can read a {@link
+   * Number}
+   *
+   * @see #readLong()
+   *
+   * @see #readDouble()
+   */
+  public final boolean canReadNumber() {
+    if (!this.canRead() || this.items == null || this.items.isEmpty()) {
+      return false;
     }
-    return returnValue;
+    return this.items instanceof NumberList || this.read() instanceof Number;
+  }
+
+  /**
+   * Reads (but does not "consume") the current item as a {@code
+   * long}.  If this {@link Thread}'s input is a {@link NumberList},
+   * no boxing takes place.
+   *
+   * <p>This method may be invoked only when {@link #canReadNumber()}
+   * returns {@code true}.</p>
+   *
+   * @return the current item as a {@code long}
+   *
+   * @exception IllegalStateException if the {@link #canReadNumber()}
+   * method returns {@code false}
+   */
+  public final long readLong() {
+    if (!this.canReadNumber()) {
+      throw new IllegalStateException("Thread cannot read a number");
+    }
+    if (this.items instanceof NumberList) {
+      return ((NumberList<?>)this.items).getLong(this.getItemPointer());
+    }
+    return ((Number)this.read()).longValue();
+  }
+
+  /**
+   * Reads (but does not "consume") the current item as a {@code
+   * double}.  If this {@link Thread}'s input is a {@link NumberList},
+   * no boxing takes place.
+   *
+   * <p>This method may be invoked only when {@link #canReadNumber()}
+   * returns {@code true}.</p>
+   *
+   * @return the current item as a {@code double}
+   *
+   * @exception IllegalStateException if the {@link #canReadNumber()}
+   * method returns {@code false}
+   */
+  public final double readDouble() {
+    if (!this.canReadNumber()) {
+      throw new IllegalStateException("Thread cannot read a number");
+    }
+    if (this.items instanceof NumberList) {
+      return ((NumberList<?>)this.items).getDouble(this.getItemPointer());
+    }
+    return ((Number)this.read()).doubleValue();
   }
 
   /**
@@ -779,6 +1397,9 @@ public class Thread<T> implements Cloneable, Runnable, ThreadScheduler<T> {
       returnValue = false;
     } else {
       ++this.itemPointer;
+      if (this.stats != null) {
+        this.stats.itemRead();
+      }
       returnValue = this.isValidItemPointer(this.getItemPointer());
     }
     return returnValue;
@@ -922,26 +1543,30 @@ public class Thread<T> implements Cloneable, Runnable, ThreadScheduler<T> {
    * @exception IllegalStateException if this {@link Thread}
    * {@linkplain #isViable() is not viable}
    *
+   * @exception MatchLimitExceededException if taking this step
+   * exceeds a limit imposed by the {@link MatchOptions} this {@link
+   * Thread} is being run with
+   *
    * @see Instruction#execute(InstructionContext)
    *
    * @see InstructionContext
    */
   public final void step() {
-    final String className = this.getClass().getName();
-    final Logger logger = this.getLogger();
-    final boolean finer = logger != null && logger.isLoggable(Level.FINER);
-    if (finer) {
-      logger.entering(className, "step");
-    }
     this.ensureViable();
     final Instruction<T> instruction = this.getInstruction();
     assert instruction != null;
     if (this.ic == null) {
       this.ic = new InstructionContext<T>(this);
     }
+    if (this.budget != null) {
+      this.budget.step(this.itemPointer);
+    }
+    if (this.listener != null) {
+      this.listener.step(this, instruction, this.programCounter.getIndex(), this.itemPointer);
+    }
     instruction.execute(this.ic);
-    if (finer) {
-      logger.exiting(className, "step");
+    if (this.stats != null) {
+      this.stats.instructionExecuted();
     }
   }
 
@@ -971,6 +1596,14 @@ public class Thread<T> implements Cloneable, Runnable, ThreadScheduler<T> {
    * <p>This method may be invoked only when {@link #isViable()}
    * returns {@code true}.</p>
    *
+   * <p>If another {@link Thread} has {@linkplain #endAtomic()
+   * committed} to an atomic group that this {@link Thread} was forked
+   * inside of, this {@link Thread} simply {@linkplain #die() dies}
+   * without running any {@link Instruction}s.  If it has been
+   * {@linkplain #setStateMemo(StateMemo) given a
+   * <code>StateMemo</code>}, it also dies on reaching a state that
+   * another {@link Thread} has already reached.</p>
+   *
    * @exception IllegalStateException if this {@link Thread}
    * {@linkplain #isViable() is not viable}, or if an infinite loop is
    * detected
@@ -979,39 +1612,27 @@ public class Thread<T> implements Cloneable, Runnable, ThreadScheduler<T> {
    */
   @Override
   public final void run() {
-    final String className = this.getClass().getName();
-    final Logger logger = this.getLogger();
-    final boolean finer = logger != null && logger.isLoggable(Level.FINER);
-    if (finer) {
-      logger.entering(className, "run");
-    }
     this.ensureViable();
+    if (this.isDiscarded()) {
+      this.die();
+      return;
+    }
     final ProgramCounter<T> pc = this.getProgramCounter();
     assert pc != null;
     while (this.isViable()) {
-      final Instruction<T> currentInstruction = pc.getInstruction();
-      assert currentInstruction != null;
       final int oldIndex = pc.getIndex();
-      if (finer) {
-        logger.logp(Level.FINER, className, "run", "Before running Thread {0} {1} ({2}) at input position {3}", new Object[] { this, currentInstruction, Integer.valueOf(oldIndex), Integer.valueOf(this.getItemPointer()) });
+      if (this.stateMemo != null && !this.stateMemo.visit(oldIndex, this.itemPointer)) {
+        this.die();
+        break;
       }
       this.step();
-      if (finer) {
-        if (this.isViable()) {
-          logger.logp(Level.FINER, className, "run", "After running Thread {0} {1}; input position is now {2}", new Object[] { this, currentInstruction, Integer.valueOf(this.getItemPointer()) });
-        } else {
-          logger.logp(Level.FINER, className, "run", "Thread {0} is no longer viable", this);
-        }
-      }
       if (this.isViable() && oldIndex == pc.getIndex()) {
         throw new IllegalStateException("Infinite loop detected");
       }
     }
-    if (finer) {
-      logger.exiting(className, "run");
-    }
   }
 
+
   /**
    * Returns {@code true} if and only if this {@link Thread}'s
    * {@linkplain #getState() associated state} is {@link State#VIABLE
@@ -1041,6 +1662,9 @@ public class Thread<T> implements Cloneable, Runnable, ThreadScheduler<T> {
   public final void match() {
     this.ensureViable();
     this.state = State.MATCH;
+    if (this.listener != null) {
+      this.listener.matchFound(this);
+    }
   }
 
   /**
@@ -1057,11 +1681,15 @@ public class Thread<T> implements Cloneable, Runnable, ThreadScheduler<T> {
     if (State.MATCH == this.getState()) {
       throw new IllegalStateException();
     }
+    final boolean wasDead = State.DEAD == this.state;
     this.state = State.DEAD;
     this.itemPointer = INVALID_INPUT_POINTER;
     if (this.captureGroups != null) {
       this.captureGroups.clear();
     }
+    if (!wasDead && this.listener != null) {
+      this.listener.threadDied(this);
+    }
   }
 
   /**
@@ -1134,6 +1762,100 @@ public class Thread<T> implements Cloneable, Runnable, ThreadScheduler<T> {
     return result;
   }
 
+  /**
+   * Returns the inclusive zero-based index of the first item captured
+   * under the supplied {@link Object} key, or {@code -1} if there is
+   * no such capture group.
+   *
+   * <p>Unlike the {@link #getGroup(Object)} method, this method does
+   * not create any objects.</p>
+   *
+   * @param key the key in question; may be {@code null}
+   *
+   * @return the start index of the capture group, or {@code -1}
+   */
+  public final int getGroupStart(final Object key) {
+    if (this.captureGroups != null) {
+      final CaptureGroup<T> cg = this.captureGroups.get(key);
+      if (cg != null) {
+        return cg.getStartIndex();
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the exclusive zero-based index of the last item captured
+   * under the supplied {@link Object} key, or {@code -1} if there is
+   * no such capture group.
+   *
+   * <p>Unlike the {@link #getGroup(Object)} method, this method does
+   * not create any objects.</p>
+   *
+   * @param key the key in question; may be {@code null}
+   *
+   * @return the end index of the capture group, or {@code -1}
+   */
+  public final int getGroupEnd(final Object key) {
+    if (this.captureGroups != null) {
+      final CaptureGroup<T> cg = this.captureGroups.get(key);
+      if (cg != null) {
+        return cg.getEndIndex();
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns a new {@code int} array holding the start and end indices
+   * of every capture group indexed under an {@link Integer} key.
+   *
+   * <p>The start index of the group with key {@code n} is found at
+   * index {@code 2 * n} of the returned array and its end index at
+   * index {@code 2 * n + 1}.  Both are {@code -1} for any group that
+   * was not captured.  The array is just long enough to hold the
+   * group with the highest key.  Capture groups indexed under keys
+   * that are not non-negative {@link Integer}s are not
+   * represented.</p>
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null} {@code int} array of offsets
+   *
+   * @see #getGroupStart(Object)
+   *
+   * @see #getGroupEnd(Object)
+   */
+  public final int[] getGroupOffsets() {
+    if (this.captureGroups == null || this.captureGroups.isEmpty()) {
+      return new int[0];
+    }
+    int groupCount = 0;
+    for (final Object key : this.captureGroups.keySet()) {
+      if (key instanceof Integer) {
+        final int index = ((Integer)key).intValue();
+        if (index >= groupCount) {
+          groupCount = index + 1;
+        }
+      }
+    }
+    final int[] returnValue = new int[2 * groupCount];
+    Arrays.fill(returnValue, -1);
+    for (final Entry<Object, CaptureGroup<T>> entry : this.captureGroups.entrySet()) {
+      final Object key = entry.getKey();
+      if (key instanceof Integer) {
+        final int index = ((Integer)key).intValue();
+        if (index >= 0) {
+          final CaptureGroup<T> cg = entry.getValue();
+          assert cg != null;
+          returnValue[2 * index] = cg.getStartIndex();
+          returnValue[2 * index + 1] = cg.getEndIndex();
+        }
+      }
+    }
+    return returnValue;
+  }
+
   /**
    * Does nothing if this {@link Thread} {@linkplain #isViable() is viable}.
    *
@@ -1186,6 +1908,13 @@ public class Thread<T> implements Cloneable, Runnable, ThreadScheduler<T> {
 
     // TODO: Clone our variables?
 
+    // Copy our counter registers.
+    if (this.counters != null) {
+      clone.counters = this.counters.clone();
+    }
+
+    // Our atomic scopes are shared, not copied, on purpose.
+
     // Clone our capture groups.
     if (this.captureGroups != null) {
       clone.captureGroups = deepClone(this.captureGroups);
@@ -1227,6 +1956,12 @@ public class Thread<T> implements Cloneable, Runnable, ThreadScheduler<T> {
     c = this.captureGroups == null ? 0 : this.captureGroups.hashCode();
     result = result * 37 + c;
 
+    c = Arrays.hashCode(this.counters);
+    result = result * 37 + c;
+
+    c = this.atomicScope == null ? 0 : this.atomicScope.hashCode();
+    result = result * 37 + c;
+
     return result;
   }
 
@@ -1288,6 +2023,18 @@ public class Thread<T> implements Cloneable, Runnable, ThreadScheduler<T> {
         return false;
       }
 
+      // Two Threads sitting at the same place in a counted loop are
+      // not interchangeable unless they have made the same number of
+      // trips around it.
+      if (!Arrays.equals(this.counters, him.counters)) {
+        return false;
+      }
+
+      // Atomic scopes are compared by identity.
+      if (this.atomicScope != him.atomicScope) {
+        return false;
+      }
+
       return true;
 
     } else {
@@ -1367,4 +2114,53 @@ public class Thread<T> implements Cloneable, Runnable, ThreadScheduler<T> {
     return captureGroups;
   }
 
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * A record of an atomic group that one or more {@link Thread}s are
+   * executing inside of.  {@link AtomicScope}s form a chain from the
+   * innermost atomic group outwards, and are shared among all the
+   * {@link Thread}s forked inside them.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   *
+   * @see Thread#beginAtomic()
+   *
+   * @see Thread#endAtomic()
+   */
+  private static final class AtomicScope {
+
+    /**
+     * The {@link AtomicScope} enclosing this one.
+     *
+     * <p>This field may be {@code null}.</p>
+     */
+    private final AtomicScope enclosing;
+
+    /**
+     * Whether a {@link Thread} has {@linkplain Thread#endAtomic()
+     * committed} to the atomic group this {@link AtomicScope}
+     * represents.
+     */
+    private boolean committed;
+
+    /**
+     * Creates a new {@link AtomicScope}.
+     *
+     * @param enclosing the {@link AtomicScope} enclosing the new one;
+     * may be {@code null}
+     */
+    private AtomicScope(final AtomicScope enclosing) {
+      super();
+      this.enclosing = enclosing;
+    }
+
+  }
+
 }
@@ -0,0 +1,1120 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import com.edugility.objexj.engine.CountedSplit;
+
+/**
+ * A node in the abstract syntax tree of a textual objexj pattern, as
+ * produced by the {@link Parser#parseTree(CharSequence)} method and
+ * consumed by the {@link Parser#compile(Node)} method.
+ *
+ * <p>{@link Node}s are immutable.  The set of {@link Node} subclasses
+ * is closed; {@linkplain Visitor visitors} may rely on there being no
+ * others.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see Parser#parseTree(CharSequence)
+ *
+ * @see Parser#compile(Node)
+ */
+public abstract class Node {
+
+  /**
+   * Creates a new {@link Node}.
+   */
+  Node() {
+    super();
+  }
+
+  /**
+   * Dispatches to the method on the supplied {@link Visitor} that
+   * corresponds to this {@link Node}'s class and returns its result.
+   *
+   * @param <R> the type of the result
+   *
+   * @param visitor the {@link Visitor}; must not be {@code null}
+   *
+   * @return the result of visiting this {@link Node}, which may be
+   * {@code null}
+   */
+  public abstract <R> R accept(final Visitor<R> visitor);
+
+  /**
+   * Returns a {@link String} representation of the supplied {@link
+   * Node}, enclosed in a non-capturing group if it binds more loosely
+   * than the supplied precedence.
+   *
+   * @param node the {@link Node} to represent; must not be {@code
+   * null}
+   *
+   * @param precedence {@code 0} if {@code node} is an alternative,
+   * {@code 1} if it is a term in a catenation and {@code 2} if it is
+   * the subject of a repetition
+   *
+   * @return a non-{@code null} {@link String}
+   */
+  private static final String toString(final Node node, final int precedence) {
+    final int nodePrecedence;
+    if (node instanceof Alternation) {
+      nodePrecedence = 0;
+    } else if (node instanceof Catenation) {
+      nodePrecedence = 1;
+    } else if (node instanceof Repetition) {
+      nodePrecedence = 1; // repetitions don't nest without a group
+    } else {
+      nodePrecedence = 2;
+    }
+    if (nodePrecedence < precedence) {
+      return "(?:" + node + ")";
+    }
+    return node.toString();
+  }
+
+  /**
+   * Returns an unmodifiable copy of the supplied {@link List} of
+   * {@link Node}s.
+   *
+   * @param nodes the {@link List} to copy; must not be {@code null},
+   * must not contain {@code null} and must contain at least two
+   * elements
+   *
+   * @param name the name of the parameter being checked, for use in
+   * exception messages; must not be {@code null}
+   *
+   * @return a non-{@code null}, unmodifiable {@link List}
+   *
+   * @exception IllegalArgumentException if {@code nodes} is {@code
+   * null}, contains {@code null} or contains fewer than two elements
+   */
+  private static final List<Node> copy(final List<? extends Node> nodes, final String name) {
+    if (nodes == null) {
+      throw new IllegalArgumentException(name, new NullPointerException(name));
+    }
+    if (nodes.size() < 2) {
+      throw new IllegalArgumentException(name + ".size() < 2: " + nodes.size());
+    }
+    final List<Node> copy = new ArrayList<Node>(nodes);
+    if (copy.contains(null)) {
+      throw new IllegalArgumentException(name + " contains null");
+    }
+    return Collections.unmodifiableList(copy);
+  }
+
+  /**
+   * Checks the supplied {@link Node} for {@code null} and returns it.
+   *
+   * @param child the {@link Node} to check
+   *
+   * @return {@code child}
+   *
+   * @exception IllegalArgumentException if {@code child} is {@code
+   * null}
+   */
+  private static final Node check(final Node child) {
+    if (child == null) {
+      throw new IllegalArgumentException("child", new NullPointerException("child"));
+    }
+    return child;
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * An object that performs an operation on a {@link Node} according
+   * to its class.
+   *
+   * @param <R> the type of the result of a visit
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   *
+   * @see Node#accept(Node.Visitor)
+   */
+  public interface Visitor<R> {
+
+    /**
+     * Visits the supplied {@link Atom}.
+     *
+     * @param atom the {@link Atom}; will not be {@code null}
+     *
+     * @return the result of the visit; may be {@code null}
+     */
+    public R visitAtom(final Atom atom);
+
+    /**
+     * Visits the supplied {@link BeginInput}.
+     *
+     * @param beginInput the {@link BeginInput}; will not be {@code
+     * null}
+     *
+     * @return the result of the visit; may be {@code null}
+     */
+    public R visitBeginInput(final BeginInput beginInput);
+
+    /**
+     * Visits the supplied {@link EndInput}.
+     *
+     * @param endInput the {@link EndInput}; will not be {@code null}
+     *
+     * @return the result of the visit; may be {@code null}
+     */
+    public R visitEndInput(final EndInput endInput);
+
+    /**
+     * Visits the supplied {@link Catenation}.
+     *
+     * @param catenation the {@link Catenation}; will not be {@code
+     * null}
+     *
+     * @return the result of the visit; may be {@code null}
+     */
+    public R visitCatenation(final Catenation catenation);
+
+    /**
+     * Visits the supplied {@link Alternation}.
+     *
+     * @param alternation the {@link Alternation}; will not be {@code
+     * null}
+     *
+     * @return the result of the visit; may be {@code null}
+     */
+    public R visitAlternation(final Alternation alternation);
+
+    /**
+     * Visits the supplied {@link Repetition}.
+     *
+     * @param repetition the {@link Repetition}; will not be {@code
+     * null}
+     *
+     * @return the result of the visit; may be {@code null}
+     */
+    public R visitRepetition(final Repetition repetition);
+
+    /**
+     * Visits the supplied {@link Capture}.
+     *
+     * @param capture the {@link Capture}; will not be {@code null}
+     *
+     * @return the result of the visit; may be {@code null}
+     */
+    public R visitCapture(final Capture capture);
+
+    /**
+     * Visits the supplied {@link Atomic}.
+     *
+     * @param atomic the {@link Atomic}; will not be {@code null}
+     *
+     * @return the result of the visit; may be {@code null}
+     */
+    public R visitAtomic(final Atomic atomic);
+
+  }
+
+  /**
+   * A {@link Node} that matches a single item: a filter type,
+   * usually the name of a Java class, possibly preceded by {@code =},
+   * and an optional expression.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  public static final class Atom extends Node {
+
+    /**
+     * The filter type.  This field is never {@code null}.
+     */
+    private final String filterType;
+
+    /**
+     * The expression found between parentheses after the filter
+     * type.  This field may be {@code null}.
+     */
+    private final String expression;
+
+    /**
+     * Creates a new {@link Atom}.
+     *
+     * @param filterType the filter type; must not be {@code null}
+     *
+     * @param expression the expression; may be {@code null}
+     *
+     * @exception IllegalArgumentException if {@code filterType} is
+     * {@code null}
+     */
+    public Atom(final String filterType, final String expression) {
+      super();
+      if (filterType == null) {
+        throw new IllegalArgumentException("filterType", new NullPointerException("filterType"));
+      }
+      this.filterType = filterType;
+      this.expression = expression;
+    }
+
+    /**
+     * Returns the filter type, which is usually the name of a Java
+     * class, possibly preceded by {@code =}.
+     *
+     * @return the filter type; never {@code null}
+     */
+    public final String getFilterType() {
+      return this.filterType;
+    }
+
+    /**
+     * Returns the expression found between parentheses after the
+     * filter type, if there was one.
+     *
+     * @return the expression, or {@code null}
+     */
+    public final String getExpression() {
+      return this.expression;
+    }
+
+    /**
+     * Calls the {@link Visitor#visitAtom(Node.Atom)} method on the
+     * supplied {@link Visitor} and returns its result.
+     *
+     * @param <R> the type of the result
+     *
+     * @param visitor the {@link Visitor}; must not be {@code null}
+     *
+     * @return the result of the visit; may be {@code null}
+     */
+    @Override
+    public final <R> R accept(final Visitor<R> visitor) {
+      return visitor.visitAtom(this);
+    }
+
+    /**
+     * Returns a hashcode for this {@link Atom}.
+     *
+     * @return a hashcode for this {@link Atom}
+     */
+    @Override
+    public final int hashCode() {
+      return 37 * this.filterType.hashCode() + (this.expression == null ? 0 : this.expression.hashCode());
+    }
+
+    /**
+     * Returns {@code true} if the supplied {@link Object} is an {@link
+     * Atom} with the same filter type and expression as this one.
+     *
+     * @param other the {@link Object} to test; may be {@code null}
+     *
+     * @return {@code true} if the supplied {@link Object} is equal to
+     * this {@link Atom}; {@code false} otherwise
+     */
+    @Override
+    public final boolean equals(final Object other) {
+      if (other == this) {
+        return true;
+      } else if (other instanceof Atom) {
+        final Atom him = (Atom)other;
+        if (!this.filterType.equals(him.filterType)) {
+          return false;
+        }
+        if (this.expression == null) {
+          return him.expression == null;
+        }
+        return this.expression.equals(him.expression);
+      } else {
+        return false;
+      }
+    }
+
+    /**
+     * Returns the textual pattern representation of this {@link
+     * Atom}.
+     *
+     * @return a non-{@code null} {@link String}
+     */
+    @Override
+    public final String toString() {
+      if (this.expression == null) {
+        return this.filterType;
+      }
+      return this.filterType + "(" + this.expression + ")";
+    }
+
+  }
+
+  /**
+   * A {@link Node} that matches only at the beginning of the input.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  public static final class BeginInput extends Node {
+
+    /**
+     * Creates a new {@link BeginInput}.
+     */
+    public BeginInput() {
+      super();
+    }
+
+    /**
+     * Calls the {@link Visitor#visitBeginInput(Node.BeginInput)}
+     * method on the supplied {@link Visitor} and returns its result.
+     *
+     * @param <R> the type of the result
+     *
+     * @param visitor the {@link Visitor}; must not be {@code null}
+     *
+     * @return the result of the visit; may be {@code null}
+     */
+    @Override
+    public final <R> R accept(final Visitor<R> visitor) {
+      return visitor.visitBeginInput(this);
+    }
+
+    /**
+     * Returns a hashcode for this {@link BeginInput}.
+     *
+     * @return a hashcode for this {@link BeginInput}
+     */
+    @Override
+    public final int hashCode() {
+      return 1;
+    }
+
+    /**
+     * Returns {@code true} if the supplied {@link Object} is a {@link
+     * BeginInput}.
+     *
+     * @param other the {@link Object} to test; may be {@code null}
+     *
+     * @return {@code true} if the supplied {@link Object} is a {@link
+     * BeginInput}; {@code false} otherwise
+     */
+    @Override
+    public final boolean equals(final Object other) {
+      return other instanceof BeginInput;
+    }
+
+    /**
+     * Returns {@code ^}.
+     *
+     * @return {@code ^}
+     */
+    @Override
+    public final String toString() {
+      return "^";
+    }
+
+  }
+
+  /**
+   * A {@link Node} that matches only at the end of the input.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  public static final class EndInput extends Node {
+
+    /**
+     * Creates a new {@link EndInput}.
+     */
+    public EndInput() {
+      super();
+    }
+
+    /**
+     * Calls the {@link Visitor#visitEndInput(Node.EndInput)} method on
+     * the supplied {@link Visitor} and returns its result.
+     *
+     * @param <R> the type of the result
+     *
+     * @param visitor the {@link Visitor}; must not be {@code null}
+     *
+     * @return the result of the visit; may be {@code null}
+     */
+    @Override
+    public final <R> R accept(final Visitor<R> visitor) {
+      return visitor.visitEndInput(this);
+    }
+
+    /**
+     * Returns a hashcode for this {@link EndInput}.
+     *
+     * @return a hashcode for this {@link EndInput}
+     */
+    @Override
+    public final int hashCode() {
+      return 2;
+    }
+
+    /**
+     * Returns {@code true} if the supplied {@link Object} is an {@link
+     * EndInput}.
+     *
+     * @param other the {@link Object} to test; may be {@code null}
+     *
+     * @return {@code true} if the supplied {@link Object} is an {@link
+     * EndInput}; {@code false} otherwise
+     */
+    @Override
+    public final boolean equals(final Object other) {
+      return other instanceof EndInput;
+    }
+
+    /**
+     * Returns {@code $}.
+     *
+     * @return {@code $}
+     */
+    @Override
+    public final String toString() {
+      return "$";
+    }
+
+  }
+
+  /**
+   * A {@link Node} that matches each of its children in turn.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  public static final class Catenation extends Node {
+
+    /**
+     * The children, in order.  This field is never {@code null} and
+     * always contains at least two elements.
+     */
+    private final List<Node> children;
+
+    /**
+     * Creates a new {@link Catenation}.
+     *
+     * @param children the {@link Node}s to match in turn; must not be
+     * {@code null}, must not contain {@code null} and must contain at
+     * least two elements
+     *
+     * @exception IllegalArgumentException if {@code children} is
+     * {@code null}, contains {@code null} or contains fewer than two
+     * elements
+     */
+    public Catenation(final List<? extends Node> children) {
+      super();
+      this.children = copy(children, "children");
+    }
+
+    /**
+     * Returns the children of this {@link Catenation}, in order.
+     *
+     * @return a non-{@code null}, unmodifiable {@link List} of at
+     * least two {@link Node}s
+     */
+    public final List<Node> getChildren() {
+      return this.children;
+    }
+
+    /**
+     * Calls the {@link Visitor#visitCatenation(Node.Catenation)}
+     * method on the supplied {@link Visitor} and returns its result.
+     *
+     * @param <R> the type of the result
+     *
+     * @param visitor the {@link Visitor}; must not be {@code null}
+     *
+     * @return the result of the visit; may be {@code null}
+     */
+    @Override
+    public final <R> R accept(final Visitor<R> visitor) {
+      return visitor.visitCatenation(this);
+    }
+
+    /**
+     * Returns a hashcode for this {@link Catenation}.
+     *
+     * @return a hashcode for this {@link Catenation}
+     */
+    @Override
+    public final int hashCode() {
+      return 3 + this.children.hashCode();
+    }
+
+    /**
+     * Returns {@code true} if the supplied {@link Object} is a {@link
+     * Catenation} with children equal to this one's.
+     *
+     * @param other the {@link Object} to test; may be {@code null}
+     *
+     * @return {@code true} if the supplied {@link Object} is equal to
+     * this {@link Catenation}; {@code false} otherwise
+     */
+    @Override
+    public final boolean equals(final Object other) {
+      return other instanceof Catenation && this.children.equals(((Catenation)other).children);
+    }
+
+    /**
+     * Returns the textual pattern representation of this {@link
+     * Catenation}.
+     *
+     * @return a non-{@code null} {@link String}
+     */
+    @Override
+    public final String toString() {
+      final StringBuilder sb = new StringBuilder();
+      final Iterator<Node> iterator = this.children.iterator();
+      while (iterator.hasNext()) {
+        sb.append(Node.toString(iterator.next(), 1));
+        if (iterator.hasNext()) {
+          sb.append('/');
+        }
+      }
+      return sb.toString();
+    }
+
+  }
+
+  /**
+   * A {@link Node} that matches any one of its alternatives,
+   * preferring earlier ones.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  public static final class Alternation extends Node {
+
+    /**
+     * The alternatives, in order of preference.  This field is never
+     * {@code null} and always contains at least two elements.
+     */
+    private final List<Node> alternatives;
+
+    /**
+     * Creates a new {@link Alternation}.
+     *
+     * @param alternatives the {@link Node}s to try, in order of
+     * preference; must not be {@code null}, must not contain {@code
+     * null} and must contain at least two elements
+     *
+     * @exception IllegalArgumentException if {@code alternatives} is
+     * {@code null}, contains {@code null} or contains fewer than two
+     * elements
+     */
+    public Alternation(final List<? extends Node> alternatives) {
+      super();
+      this.alternatives = copy(alternatives, "alternatives");
+    }
+
+    /**
+     * Returns the alternatives of this {@link Alternation}, in order
+     * of preference.
+     *
+     * @return a non-{@code null}, unmodifiable {@link List} of at
+     * least two {@link Node}s
+     */
+    public final List<Node> getAlternatives() {
+      return this.alternatives;
+    }
+
+    /**
+     * Calls the {@link Visitor#visitAlternation(Node.Alternation)}
+     * method on the supplied {@link Visitor} and returns its result.
+     *
+     * @param <R> the type of the result
+     *
+     * @param visitor the {@link Visitor}; must not be {@code null}
+     *
+     * @return the result of the visit; may be {@code null}
+     */
+    @Override
+    public final <R> R accept(final Visitor<R> visitor) {
+      return visitor.visitAlternation(this);
+    }
+
+    /**
+     * Returns a hashcode for this {@link Alternation}.
+     *
+     * @return a hashcode for this {@link Alternation}
+     */
+    @Override
+    public final int hashCode() {
+      return 4 + this.alternatives.hashCode();
+    }
+
+    /**
+     * Returns {@code true} if the supplied {@link Object} is an {@link
+     * Alternation} with alternatives equal to this one's.
+     *
+     * @param other the {@link Object} to test; may be {@code null}
+     *
+     * @return {@code true} if the supplied {@link Object} is equal to
+     * this {@link Alternation}; {@code false} otherwise
+     */
+    @Override
+    public final boolean equals(final Object other) {
+      return other instanceof Alternation && this.alternatives.equals(((Alternation)other).alternatives);
+    }
+
+    /**
+     * Returns the textual pattern representation of this {@link
+     * Alternation}.
+     *
+     * @return a non-{@code null} {@link String}
+     */
+    @Override
+    public final String toString() {
+      final StringBuilder sb = new StringBuilder();
+      final Iterator<Node> iterator = this.alternatives.iterator();
+      while (iterator.hasNext()) {
+        sb.append(Node.toString(iterator.next(), 0));
+        if (iterator.hasNext()) {
+          sb.append('|');
+        }
+      }
+      return sb.toString();
+    }
+
+  }
+
+  /**
+   * A {@link Node} that matches its child a bounded or unbounded
+   * number of times.
+   *
+   * <p>The {@code *}, {@code +} and {@code ?} operators are
+   * represented as {@link Repetition}s with bounds of {@code {0,}},
+   * {@code {1,}} and {@code {0,1}} respectively.  A possessive
+   * repetition is represented as a {@link Repetition} enclosed in an
+   * {@link Atomic}.</p>
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  public static final class Repetition extends Node {
+
+    /**
+     * The {@link Node} to repeat.  This field is never {@code null}.
+     */
+    private final Node child;
+
+    /**
+     * The minimum number of repetitions; never negative.
+     */
+    private final int minimum;
+
+    /**
+     * The maximum number of repetitions, or {@link
+     * CountedSplit#UNBOUNDED}.
+     */
+    private final int maximum;
+
+    /**
+     * Whether this {@link Repetition} prefers fewer repetitions to
+     * more.
+     */
+    private final boolean reluctant;
+
+    /**
+     * Creates a new {@link Repetition}.
+     *
+     * @param child the {@link Node} to repeat; must not be {@code
+     * null}
+     *
+     * @param minimum the minimum number of repetitions; must not be
+     * negative
+     *
+     * @param maximum the maximum number of repetitions, which must not
+     * be less than {@code minimum}, or {@link CountedSplit#UNBOUNDED}
+     *
+     * @param reluctant whether fewer repetitions are preferred to
+     * more; only unbounded repetitions with a minimum of {@code 0} may
+     * be reluctant
+     *
+     * @exception IllegalArgumentException if any argument is invalid
+     */
+    public Repetition(final Node child, final int minimum, final int maximum, final boolean reluctant) {
+      super();
+      this.child = check(child);
+      if (minimum < 0) {
+        throw new IllegalArgumentException("minimum < 0: " + minimum);
+      }
+      if (maximum != CountedSplit.UNBOUNDED && maximum < minimum) {
+        throw new IllegalArgumentException("maximum < minimum: " + maximum + " < " + minimum);
+      }
+      if (reluctant && (minimum != 0 || maximum != CountedSplit.UNBOUNDED)) {
+        throw new IllegalArgumentException("reluctant: {" + minimum + "," + (maximum == CountedSplit.UNBOUNDED ? "" : String.valueOf(maximum)) + "}");
+      }
+      this.minimum = minimum;
+      this.maximum = maximum;
+      this.reluctant = reluctant;
+    }
+
+    /**
+     * Returns the {@link Node} this {@link Repetition} repeats.
+     *
+     * @return a non-{@code null} {@link Node}
+     */
+    public final Node getChild() {
+      return this.child;
+    }
+
+    /**
+     * Returns the minimum number of repetitions.
+     *
+     * @return the minimum number of repetitions; never negative
+     */
+    public final int getMinimum() {
+      return this.minimum;
+    }
+
+    /**
+     * Returns the maximum number of repetitions, or {@link
+     * CountedSplit#UNBOUNDED}.
+     *
+     * @return the maximum number of repetitions, or {@link
+     * CountedSplit#UNBOUNDED}
+     */
+    public final int getMaximum() {
+      return this.maximum;
+    }
+
+    /**
+     * Returns {@code true} if this {@link Repetition} prefers fewer
+     * repetitions to more.
+     *
+     * @return {@code true} if this {@link Repetition} is reluctant
+     */
+    public final boolean isReluctant() {
+      return this.reluctant;
+    }
+
+    /**
+     * Calls the {@link Visitor#visitRepetition(Node.Repetition)}
+     * method on the supplied {@link Visitor} and returns its result.
+     *
+     * @param <R> the type of the result
+     *
+     * @param visitor the {@link Visitor}; must not be {@code null}
+     *
+     * @return the result of the visit; may be {@code null}
+     */
+    @Override
+    public final <R> R accept(final Visitor<R> visitor) {
+      return visitor.visitRepetition(this);
+    }
+
+    /**
+     * Returns a hashcode for this {@link Repetition}.
+     *
+     * @return a hashcode for this {@link Repetition}
+     */
+    @Override
+    public final int hashCode() {
+      int result = 17;
+      result = 37 * result + this.child.hashCode();
+      result = 37 * result + this.minimum;
+      result = 37 * result + this.maximum;
+      result = 37 * result + (this.reluctant ? 1 : 0);
+      return result;
+    }
+
+    /**
+     * Returns {@code true} if the supplied {@link Object} is a {@link
+     * Repetition} with the same bounds, reluctance and child as this
+     * one.
+     *
+     * @param other the {@link Object} to test; may be {@code null}
+     *
+     * @return {@code true} if the supplied {@link Object} is equal to
+     * this {@link Repetition}; {@code false} otherwise
+     */
+    @Override
+    public final boolean equals(final Object other) {
+      if (other == this) {
+        return true;
+      } else if (other instanceof Repetition) {
+        final Repetition him = (Repetition)other;
+        return
+          this.minimum == him.minimum &&
+          this.maximum == him.maximum &&
+          this.reluctant == him.reluctant &&
+          this.child.equals(him.child);
+      } else {
+        return false;
+      }
+    }
+
+    /**
+     * Returns the textual pattern representation of this {@link
+     * Repetition}.  A reluctant {@link Repetition} is represented with
+     * a trailing {@code ?}, although textual patterns cannot express
+     * one.
+     *
+     * @return a non-{@code null} {@link String}
+     */
+    @Override
+    public final String toString() {
+      final StringBuilder sb = new StringBuilder(Node.toString(this.child, 2));
+      if (this.maximum == CountedSplit.UNBOUNDED) {
+        if (this.minimum == 0) {
+          sb.append('*');
+        } else if (this.minimum == 1) {
+          sb.append('+');
+        } else {
+          sb.append('{').append(this.minimum).append(",}");
+        }
+      } else if (this.minimum == 0 && this.maximum == 1) {
+        sb.append('?');
+      } else if (this.minimum == this.maximum) {
+        sb.append('{').append(this.minimum).append('}');
+      } else {
+        sb.append('{').append(this.minimum).append(',').append(this.maximum).append('}');
+      }
+      if (this.reluctant) {
+        sb.append('?');
+      }
+      return sb.toString();
+    }
+
+  }
+
+  /**
+   * A {@link Node} that records the items its child matches as a
+   * numbered capture group.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  public static final class Capture extends Node {
+
+    /**
+     * The number of the capture group; always greater than {@code
+     * 0}.
+     */
+    private final int index;
+
+    /**
+     * The {@link Node} whose matches are captured.  This field is
+     * never {@code null}.
+     */
+    private final Node child;
+
+    /**
+     * Creates a new {@link Capture}.
+     *
+     * @param index the number of the capture group; must be greater
+     * than {@code 0}
+     *
+     * @param child the {@link Node} whose matches will be captured;
+     * must not be {@code null}
+     *
+     * @exception IllegalArgumentException if {@code index} is less
+     * than {@code 1} or {@code child} is {@code null}
+     */
+    public Capture(final int index, final Node child) {
+      super();
+      if (index < 1) {
+        throw new IllegalArgumentException("index < 1: " + index);
+      }
+      this.index = index;
+      this.child = check(child);
+    }
+
+    /**
+     * Returns the number of the capture group.
+     *
+     * @return the number of the capture group; always greater than
+     * {@code 0}
+     */
+    public final int getIndex() {
+      return this.index;
+    }
+
+    /**
+     * Returns the {@link Node} whose matches are captured.
+     *
+     * @return a non-{@code null} {@link Node}
+     */
+    public final Node getChild() {
+      return this.child;
+    }
+
+    /**
+     * Calls the {@link Visitor#visitCapture(Node.Capture)} method on
+     * the supplied {@link Visitor} and returns its result.
+     *
+     * @param <R> the type of the result
+     *
+     * @param visitor the {@link Visitor}; must not be {@code null}
+     *
+     * @return the result of the visit; may be {@code null}
+     */
+    @Override
+    public final <R> R accept(final Visitor<R> visitor) {
+      return visitor.visitCapture(this);
+    }
+
+    /**
+     * Returns a hashcode for this {@link Capture}.
+     *
+     * @return a hashcode for this {@link Capture}
+     */
+    @Override
+    public final int hashCode() {
+      return 37 * this.index + this.child.hashCode();
+    }
+
+    /**
+     * Returns {@code true} if the supplied {@link Object} is a {@link
+     * Capture} with the same index and child as this one.
+     *
+     * @param other the {@link Object} to test; may be {@code null}
+     *
+     * @return {@code true} if the supplied {@link Object} is equal to
+     * this {@link Capture}; {@code false} otherwise
+     */
+    @Override
+    public final boolean equals(final Object other) {
+      if (other instanceof Capture) {
+        final Capture him = (Capture)other;
+        return this.index == him.index && this.child.equals(him.child);
+      }
+      return false;
+    }
+
+    /**
+     * Returns the textual pattern representation of this {@link
+     * Capture}.
+     *
+     * @return a non-{@code null} {@link String}
+     */
+    @Override
+    public final String toString() {
+      return "(" + this.child + ")";
+    }
+
+  }
+
+  /**
+   * A {@link Node} whose child, once matched, is never backtracked
+   * into.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  public static final class Atomic extends Node {
+
+    /**
+     * The {@link Node} that is matched atomically.  This field is
+     * never {@code null}.
+     */
+    private final Node child;
+
+    /**
+     * Creates a new {@link Atomic}.
+     *
+     * @param child the {@link Node} to match atomically; must not be
+     * {@code null}
+     *
+     * @exception IllegalArgumentException if {@code child} is {@code
+     * null}
+     */
+    public Atomic(final Node child) {
+      super();
+      this.child = check(child);
+    }
+
+    /**
+     * Returns the {@link Node} that is matched atomically.
+     *
+     * @return a non-{@code null} {@link Node}
+     */
+    public final Node getChild() {
+      return this.child;
+    }
+
+    /**
+     * Calls the {@link Visitor#visitAtomic(Node.Atomic)} method on the
+     * supplied {@link Visitor} and returns its result.
+     *
+     * @param <R> the type of the result
+     *
+     * @param visitor the {@link Visitor}; must not be {@code null}
+     *
+     * @return the result of the visit; may be {@code null}
+     */
+    @Override
+    public final <R> R accept(final Visitor<R> visitor) {
+      return visitor.visitAtomic(this);
+    }
+
+    /**
+     * Returns a hashcode for this {@link Atomic}.
+     *
+     * @return a hashcode for this {@link Atomic}
+     */
+    @Override
+    public final int hashCode() {
+      return 5 + 37 * this.child.hashCode();
+    }
+
+    /**
+     * Returns {@code true} if the supplied {@link Object} is an {@link
+     * Atomic} with a child equal to this one's.
+     *
+     * @param other the {@link Object} to test; may be {@code null}
+     *
+     * @return {@code true} if the supplied {@link Object} is equal to
+     * this {@link Atomic}; {@code false} otherwise
+     */
+    @Override
+    public final boolean equals(final Object other) {
+      return other instanceof Atomic && this.child.equals(((Atomic)other).child);
+    }
+
+    /**
+     * Returns the textual pattern representation of this {@link
+     * Atomic}.
+     *
+     * @return a non-{@code null} {@link String}
+     */
+    @Override
+    public final String toString() {
+      return "(?>" + this.child + ")";
+    }
+
+  }
+
+}
@@ -0,0 +1,414 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.parser;
+
+import java.text.ParseException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.edugility.objexj.engine.CountedSplit;
+
+/**
+ * A single-pass recursive-descent parser that turns a textual objexj
+ * pattern into a tree of {@link Node}s.
+ *
+ * <p>The grammar accepted is the one the {@link PostfixTokenizer}
+ * accepts:</p>
+ *
+ * <pre>
+ * pattern     := [ '^' ] alternation [ '$' ]
+ * alternation := catenation { '|' catenation }
+ * catenation  := term { ( '/' | ',' ) term }
+ * term        := '(' alternation ')'
+ *              | ( '(?:' | '(?&gt;' ) alternation ')' [ repetition ]
+ *              | atom [ repetition ]
+ * atom        := [ '=' ] name [ '(' expression ')' ]
+ * repetition  := ( '*' | '+' | '?' | '{' n [ ',' [ m ] ] '}' ) [ '+' ]</pre>
+ *
+ * <p>Whitespace may appear between any two of these elements.  A
+ * pattern that does not begin with {@code ^} is treated as though it
+ * began with {@code ^java.lang.Object*?/}, a reluctant prefix that
+ * makes it match anywhere in its input.  Just as the {@link
+ * PostfixTokenizer} does, this class catenates that prefix and any
+ * trailing {@code $} with the first and last alternatives
+ * respectively, so that both front ends produce identical {@link
+ * com.edugility.objexj.engine.Program}s.</p>
+ *
+ * <p>Instances of this class are not safe for use by multiple
+ * threads, and are good for only one call to the {@link #parse()}
+ * method.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see Parser#parseTree(CharSequence)
+ */
+final class NodeParser {
+
+  /**
+   * The pattern being parsed.  This field is never {@code null}.
+   */
+  private final CharSequence input;
+
+  /**
+   * The length of the {@linkplain #input pattern being parsed}.
+   */
+  private final int length;
+
+  /**
+   * The zero-based index of the next character to be read.
+   */
+  private int position;
+
+  /**
+   * The number the next capture group will be given.
+   */
+  private int groupIndex;
+
+  /**
+   * The number of groups that have been opened but not yet closed.
+   */
+  private int depth;
+
+  /**
+   * Whether a {@code $} has been read.
+   */
+  private boolean ended;
+
+  /**
+   * Creates a new {@link NodeParser}.
+   *
+   * @param input the pattern to parse; must not be {@code null}
+   *
+   * @exception IllegalArgumentException if {@code input} is {@code
+   * null}
+   */
+  NodeParser(final CharSequence input) {
+    super();
+    if (input == null) {
+      throw new IllegalArgumentException("input", new NullPointerException("input"));
+    }
+    this.input = input;
+    this.length = input.length();
+    this.groupIndex = 1;
+  }
+
+  /**
+   * Parses the pattern supplied at construction time and returns the
+   * root of its tree.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return the non-{@code null} root {@link Node}
+   *
+   * @exception ParseException if the pattern is malformed; its
+   * {@linkplain ParseException#getErrorOffset() error offset} will be
+   * the index of the offending character
+   */
+  final Node parse() throws ParseException {
+    this.skipWhitespace();
+    if (this.position >= this.length) {
+      throw new ParseException("Empty pattern", this.position);
+    }
+    final List<Node> prefix = new ArrayList<Node>(3);
+    prefix.add(new Node.BeginInput());
+    if (this.input.charAt(this.position) == '^') {
+      this.position++;
+    } else {
+      prefix.add(new Node.Repetition(new Node.Atom("java.lang.Object", null), 0, CountedSplit.UNBOUNDED, true));
+    }
+    final Node root = this.alternation(prefix);
+    this.skipWhitespace();
+    if (this.position < this.length) {
+      if (!this.ended && this.input.charAt(this.position) == ')') {
+        throw new ParseException("Mismatched parentheses", this.position);
+      }
+      throw this.unexpected();
+    }
+    return root;
+  }
+
+  private final Node alternation(final List<Node> prefix) throws ParseException {
+    final Node first = this.catenation(prefix);
+    if (this.ended || this.position >= this.length || this.input.charAt(this.position) != '|') {
+      return first;
+    }
+    final List<Node> alternatives = new ArrayList<Node>();
+    if (first instanceof Node.Alternation) {
+      alternatives.addAll(((Node.Alternation)first).getAlternatives());
+    } else {
+      alternatives.add(first);
+    }
+    while (!this.ended && this.position < this.length && this.input.charAt(this.position) == '|') {
+      this.position++;
+      alternatives.add(this.catenation(null));
+    }
+    return new Node.Alternation(alternatives);
+  }
+
+  private final Node catenation(final List<Node> prefix) throws ParseException {
+    final List<Node> terms = new ArrayList<Node>();
+    if (prefix != null) {
+      terms.addAll(prefix);
+    }
+    add(terms, this.term());
+    while (true) {
+      this.skipWhitespace();
+      if (this.position >= this.length) {
+        break;
+      }
+      final char c = this.input.charAt(this.position);
+      if (c == '/' || c == ',') {
+        this.position++;
+        add(terms, this.term());
+      } else if (c == '$' && this.depth == 0) {
+        this.position++;
+        terms.add(new Node.EndInput());
+        this.ended = true;
+        break;
+      } else {
+        break;
+      }
+    }
+    if (terms.size() == 1) {
+      return terms.get(0);
+    }
+    return new Node.Catenation(terms);
+  }
+
+  private final Node term() throws ParseException {
+    this.skipWhitespace();
+    if (this.position >= this.length) {
+      throw new ParseException("Unexpected end of pattern", this.position);
+    }
+    final char c = this.input.charAt(this.position);
+    if (c == '(') {
+      final int start = this.position++;
+      if (this.position < this.length && this.input.charAt(this.position) == '?') {
+        this.position++;
+        final boolean atomic;
+        if (this.position < this.length && this.input.charAt(this.position) == ':') {
+          atomic = false;
+        } else if (this.position < this.length && this.input.charAt(this.position) == '>') {
+          atomic = true;
+        } else {
+          throw this.unexpected();
+        }
+        this.position++;
+        final Node body = this.group(start);
+        return this.repetition(atomic ? new Node.Atomic(body) : body);
+      }
+      // Capture groups are numbered in the order in which they open.
+      final int index = this.groupIndex++;
+      return new Node.Capture(index, this.group(start));
+    } else if (c != '$' && (c == '=' || Character.isJavaIdentifierStart(c))) {
+      return this.repetition(this.atom());
+    }
+    throw this.unexpected();
+  }
+
+  private final Node group(final int start) throws ParseException {
+    this.depth++;
+    final Node body = this.alternation(null);
+    this.skipWhitespace();
+    if (this.position >= this.length) {
+      throw new ParseException("Mismatched parentheses", start);
+    } else if (this.input.charAt(this.position) != ')') {
+      throw this.unexpected();
+    }
+    this.position++;
+    this.depth--;
+    return body;
+  }
+
+  private final Node atom() throws ParseException {
+    final StringBuilder sb = new StringBuilder();
+    final char first = this.input.charAt(this.position++);
+    sb.append(first);
+    while (this.position < this.length) {
+      final char c = this.input.charAt(this.position);
+      if (c == '$') {
+        break;
+      } else if (Character.isJavaIdentifierPart(c)) {
+        sb.append(c);
+        this.position++;
+      } else if (Character.isWhitespace(c)) {
+        this.position++;
+      } else if (c == '.') {
+        sb.append(c);
+        this.position++;
+        if (this.position >= this.length) {
+          throw new ParseException("Unexpected end of pattern", this.position);
+        } else if (!Character.isJavaIdentifierStart(this.input.charAt(this.position))) {
+          throw this.unexpected();
+        }
+        sb.append(this.input.charAt(this.position++));
+      } else {
+        break;
+      }
+    }
+    if (first == '=' && sb.length() == 1) {
+      if (this.position >= this.length) {
+        throw new ParseException("Unexpected end of pattern", this.position);
+      }
+      throw this.unexpected();
+    }
+    String expression = null;
+    if (this.position < this.length && this.input.charAt(this.position) == '(') {
+      final int start = ++this.position;
+      int parenCount = 1;
+      while (parenCount > 0) {
+        if (this.position >= this.length) {
+          throw new ParseException("Mismatched parentheses", start - 1);
+        }
+        final char c = this.input.charAt(this.position++);
+        if (c == '(') {
+          parenCount++;
+        } else if (c == ')') {
+          parenCount--;
+        }
+      }
+      expression = this.input.subSequence(start, this.position - 1).toString();
+    }
+    return new Node.Atom(sb.toString(), expression);
+  }
+
+  private final Node repetition(final Node node) throws ParseException {
+    this.skipWhitespace();
+    if (this.position >= this.length) {
+      return node;
+    }
+    final int minimum;
+    final int maximum;
+    switch (this.input.charAt(this.position)) {
+    case '*':
+      minimum = 0;
+      maximum = CountedSplit.UNBOUNDED;
+      break;
+    case '+':
+      minimum = 1;
+      maximum = CountedSplit.UNBOUNDED;
+      break;
+    case '?':
+      minimum = 0;
+      maximum = 1;
+      break;
+    case '{':
+      return this.possessive(this.countedRepetition(node));
+    default:
+      return node;
+    }
+    this.position++;
+    return this.possessive(new Node.Repetition(node, minimum, maximum, false));
+  }
+
+  private final Node countedRepetition(final Node node) throws ParseException {
+    final int start = this.position++;
+    int minimum = -1;
+    int maximum = -1;
+    int value = -1;
+    boolean comma = false;
+    while (true) {
+      if (this.position >= this.length) {
+        throw new ParseException("Unterminated counted repetition", this.position);
+      }
+      final char c = this.input.charAt(this.position);
+      if (c >= '0' && c <= '9') {
+        final int digit = c - '0';
+        if (value > (Integer.MAX_VALUE - digit) / 10) {
+          throw new ParseException(String.format("Counted repetition bounds are too large: %s", this.input.subSequence(start, this.position + 1)), this.position);
+        }
+        value = value < 0 ? digit : value * 10 + digit;
+      } else if (c == ',' && !comma) {
+        if (value < 0) {
+          throw new ParseException("Missing minimum in counted repetition", this.position);
+        }
+        minimum = value;
+        value = -1;
+        comma = true;
+      } else if (c == '}') {
+        break;
+      } else {
+        throw this.unexpected();
+      }
+      this.position++;
+    }
+    if (comma) {
+      maximum = value < 0 ? CountedSplit.UNBOUNDED : value;
+    } else if (value < 0) {
+      throw new ParseException("Missing minimum in counted repetition", this.position);
+    } else {
+      minimum = value;
+      maximum = value;
+    }
+    if (maximum != CountedSplit.UNBOUNDED && maximum < minimum) {
+      throw new ParseException(String.format("Counted repetition maximum is less than its minimum: %s", this.input.subSequence(start, this.position + 1)), this.position);
+    }
+    this.position++; // '}'
+    return new Node.Repetition(node, minimum, maximum, false);
+  }
+
+  private final Node possessive(final Node repetition) {
+    // A repetition operator immediately followed by a '+' is
+    // possessive, which is to say that it is atomic.
+    if (this.position < this.length && this.input.charAt(this.position) == '+') {
+      this.position++;
+      return new Node.Atomic(repetition);
+    }
+    return repetition;
+  }
+
+  private final void skipWhitespace() {
+    while (this.position < this.length && Character.isWhitespace(this.input.charAt(this.position))) {
+      this.position++;
+    }
+  }
+
+  private final ParseException unexpected() {
+    return new ParseException(String.format("Unexpected character (%c) at position %d in %s", this.input.charAt(this.position), this.position, this.input), this.position);
+  }
+
+  /**
+   * Adds the supplied {@link Node} to the supplied {@link List} of
+   * the terms of a catenation, adding its children instead if it is
+   * itself a {@link Node.Catenation}.
+   *
+   * @param terms the {@link List} to add to; must not be {@code null}
+   *
+   * @param term the {@link Node} to add; must not be {@code null}
+   */
+  static final void add(final List<Node> terms, final Node term) {
+    if (term instanceof Node.Catenation) {
+      terms.addAll(((Node.Catenation)term).getChildren());
+    } else {
+      terms.add(term);
+    }
+  }
+
+}
@@ -28,35 +28,44 @@
 package com.edugility.objexj.parser;
 
 import java.io.IOException;
-import java.io.PushbackReader;
-import java.io.Reader;
-import java.io.StringReader;
 
 import java.text.ParseException;
-import java.text.ParsePosition;
 
 import java.util.ArrayDeque;
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.Deque;
-import java.util.Formatter;
-import java.util.Iterator;
-
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 import com.edugility.objexj.engine.BeginInput;
+import com.edugility.objexj.engine.BeginAtomic;
+import com.edugility.objexj.engine.CountedSplit;
+import com.edugility.objexj.engine.EndAtomic;
 import com.edugility.objexj.engine.EndInput;
+import com.edugility.objexj.engine.Filter;
+import com.edugility.objexj.engine.IncrementCounter;
 import com.edugility.objexj.engine.InstanceOfMVELFilter;
-import com.edugility.objexj.engine.Instruction;
 import com.edugility.objexj.engine.Jump;
+import com.edugility.objexj.engine.MarkPosition;
 import com.edugility.objexj.engine.Match;
 import com.edugility.objexj.engine.Program;
+import com.edugility.objexj.engine.RequireProgress;
+import com.edugility.objexj.engine.ResetCounter;
 import com.edugility.objexj.engine.Save;
 import com.edugility.objexj.engine.Split;
 import com.edugility.objexj.engine.Stop;
 
 /**
- * A parser that consumes {@link Token}s from a {@link PostfixTokenizer}.
+ * A parser that turns textual objexj patterns into {@link Program}s.
+ *
+ * <p>Parsing happens in two steps.  First a pattern is turned into a
+ * tree of {@link Node}s, either {@linkplain #parseTree(CharSequence)
+ * directly from its text} or {@linkplain
+ * #parseTree(PostfixTokenizer) from the <code>Token</code>s of a
+ * <code>PostfixTokenizer</code>}.  Then the tree is {@linkplain
+ * #compile(Node) compiled} into a {@link Program}.  Both routes yield
+ * identical {@link Program}s for the same pattern.</p>
  *
  * @author <a href="http://about.me/lairdnelson"
  * target="_parent">Laird Nelson</a>
@@ -71,9 +80,13 @@ public class Parser {
   }
 
   /**
-   * Constructs a new {@link PostfixTokenizer} and associated {@link
-   * Reader} machinery and then calls the {@link
-   * #parse(PostfixTokenizer)} method and returns its result.
+   * {@linkplain #parseTree(CharSequence) Parses} the supplied textual
+   * pattern into a tree of {@link Node}s and {@linkplain
+   * #compile(Node) compiles} that tree into a {@link Program}, whose
+   * {@linkplain Program#getSource() source} will be the supplied
+   * {@link String}.
+   *
+   * <p>This method never returns {@code null}.</p>
    *
    * @param <T> the type of {@link Object} the resulting {@link
    * Program} will work with
@@ -81,39 +94,28 @@ public class Parser {
    * @param input the {@link String} representation of a {@link
    * Program}; must not be {@code null}
    *
+   * @return a non-{@code null} {@link Program}
+   *
    * @exception IllegalArgumentException if {@code input} is {@code
    * null}
    *
-   * @exception IOException if the {@link String} could not be read
+   * @exception IOException never thrown by this implementation;
+   * declared for compatibility with earlier versions, which read
+   * {@code input} through a {@link PostfixTokenizer}
+   *
+   * @exception ParseException if {@code input} is malformed
    *
-   * @see #parse(PostfixTokenizer)
+   * @see #parseTree(CharSequence)
    *
-   * @see PostfixTokenizer
+   * @see #compile(Node)
    */
   public <T> Program<T> parse(final String input) throws IOException, ParseException {
     if (input == null) {
       throw new IllegalArgumentException("input", new NullPointerException("input"));
     }
-    final StringReader sr = new StringReader(input);
-    final PushbackReader reader = new PushbackReader(sr) {
-        @Override
-        public String toString() {
-          return sr.toString();
-        }
-      };
-    try {
-      return this.parse(new State<T>(new PostfixTokenizer(reader)));
-    } finally {
-      try {
-        reader.close();
-      } catch (final IOException logMe) {
-        final Logger logger = Logger.getLogger(this.getClass().getName());
-        assert logger != null;
-        if (logger.isLoggable(Level.SEVERE)) {
-          logger.logp(Level.SEVERE, this.getClass().getName(), "parse", "Error closing reader", logMe);
-        }
-      }
-    }
+    final Program<T> program = this.compile(this.parseTree(input));
+    program.setSource(input);
+    return program;
   }
 
   /**
@@ -132,367 +134,653 @@ public class Parser {
    *
    * @exception IllegalArgumentException if {@code tokenizer} is
    * {@code null}
+   *
+   * @see #parseTree(PostfixTokenizer)
+   *
+   * @see #compile(Node)
    */
   public <T> Program<T> parse(final PostfixTokenizer tokenizer) throws ParseException {
     if (tokenizer == null) {
       throw new IllegalArgumentException("tokenizer", new NullPointerException("tokenizer"));
     }
-    return this.parse(new State<T>(tokenizer));
+    final Program<T> program = this.compile(this.parseTree(tokenizer));
+    program.setSource(tokenizer);
+    return program;
   }
 
   /**
-   * Parses the supplied {@link State} into a {@link Program}.
+   * Parses the supplied textual pattern into a tree of {@link Node}s
+   * in a single recursive-descent pass.
    *
-   * @param <T> the type of {@link Object} the returned {@link
-   * Program} will be capable of matching
+   * <p>This method never returns {@code null}.</p>
    *
-   * @param parsingState the {@link State} to parse; really just a
-   * state-holding wrapper around a {@link PostfixTokenizer}; must not
-   * be {@code null}
+   * @param input the textual pattern; must not be {@code null}
    *
-   * @return a non-{@code null} {@link Program}
+   * @return the non-{@code null} root of the tree
    *
-   * @exception IllegalArgumentException if {@code parsingState} is
-   * {@code null}
+   * @exception IllegalArgumentException if {@code input} is {@code
+   * null}
+   *
+   * @exception ParseException if {@code input} is malformed; its
+   * {@linkplain ParseException#getErrorOffset() error offset} will be
+   * the index of the offending character
    */
-  private final <T> Program<T> parse(final Parser.State<T> parsingState) throws ParseException {
-    if (parsingState == null) {
-      throw new IllegalArgumentException("parsingState", new NullPointerException("parsingState"));
+  public Node parseTree(final CharSequence input) throws ParseException {
+    if (input == null) {
+      throw new IllegalArgumentException("input", new NullPointerException("input"));
     }
+    return new NodeParser(input).parse();
+  }
 
-    while (parsingState.hasNext()) {
-      final Token token = parsingState.next();
+  /**
+   * Receives a feed of {@link Token}s from the supplied {@link
+   * PostfixTokenizer} and assembles them into a tree of {@link
+   * Node}s.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param tokenizer the {@link PostfixTokenizer} that provides a
+   * token stream; must not be {@code null}
+   *
+   * @return the non-{@code null} root of the tree
+   *
+   * @exception IllegalArgumentException if {@code tokenizer} is
+   * {@code null}
+   *
+   * @exception ParseException if the token stream contains a {@link
+   * Token} of an unknown type
+   */
+  public Node parseTree(final PostfixTokenizer tokenizer) throws ParseException {
+    if (tokenizer == null) {
+      throw new IllegalArgumentException("tokenizer", new NullPointerException("tokenizer"));
+    }
+    final Deque<Node> stack = new ArrayDeque<Node>();
+    int groupIndex = 1;
+    int index = 0;
+    while (tokenizer.hasNext()) {
+      final Token token = tokenizer.next();
       if (token != null) {
 
         final Token.Type tokenType = token.getType();
         assert tokenType != null;
 
-        switch (tokenType) {          
+        switch (tokenType) {
 
         case ALTERNATION:
-          this.alternate(parsingState);
+          final Node p2 = stack.pop();
+          final Node p1 = stack.pop();
+          final List<Node> alternatives = new ArrayList<Node>();
+          if (p1 instanceof Node.Alternation) {
+            alternatives.addAll(((Node.Alternation)p1).getAlternatives());
+          } else {
+            alternatives.add(p1);
+          }
+          alternatives.add(p2);
+          stack.push(new Node.Alternation(alternatives));
+          break;
+
+        case ATOMIC:
+          stack.push(new Node.Atomic(stack.pop()));
           break;
 
         case BEGIN_ATOM:
-          this.beginInput(parsingState);
+          stack.push(new Node.BeginInput());
           break;
 
         case CATENATION:
-          this.catenate(parsingState);
+          stack.push(catenate(stack.pop(), stack.pop()));
           break;
 
         case END_ATOM:
-          this.endInput(parsingState);
+          stack.push(new Node.EndInput());
           break;
 
         case FILTER:
-          this.filter(parsingState);
+          stack.push(new Node.Atom(token.getFilterType(), token.getValue()));
           break;
 
         case ONE_OR_MORE:
-          this.oneOrMore(parsingState);
+          stack.push(new Node.Repetition(stack.pop(), 1, CountedSplit.UNBOUNDED, false));
           break;
 
         case START_SAVING:
-          this.startSaving(parsingState);
+          stack.push(new GroupBoundary(groupIndex++));
           break;
 
         case ZERO_OR_MORE:
-          this.zeroOrMore(parsingState);
+          // The implicit leading wildcard of an unanchored pattern is
+          // reluctant, so that the leftmost match is found first.
+          stack.push(new Node.Repetition(stack.pop(), 0, CountedSplit.UNBOUNDED, tokenizer.isImplicit(token)));
           break;
 
         case ZERO_OR_ONE:
-          this.zeroOrOne(parsingState);
+          stack.push(new Node.Repetition(stack.pop(), 0, 1, false));
+          break;
+
+        case COUNTED_REPETITION:
+          final String bounds = token.getValue();
+          assert bounds != null;
+          final int comma = bounds.indexOf(',');
+          final int minimum;
+          final int maximum;
+          if (comma < 0) {
+            minimum = Integer.parseInt(bounds);
+            maximum = minimum;
+          } else {
+            minimum = Integer.parseInt(bounds.substring(0, comma));
+            if (comma + 1 < bounds.length()) {
+              maximum = Integer.parseInt(bounds.substring(comma + 1));
+            } else {
+              maximum = CountedSplit.UNBOUNDED;
+            }
+          }
+          stack.push(new Node.Repetition(stack.pop(), minimum, maximum, false));
           break;
 
         case STOP_SAVING:
-          this.stopSaving(parsingState);
+          stack.push(new GroupBoundary(0));
           break;
 
         default:
-          parsingState.setErrorIndex(parsingState.getIndex());
-          throw new ParseException(String.format("Unknown token type: %s", tokenType), parsingState.getErrorIndex());
+          throw new ParseException(String.format("Unknown token type: %s", tokenType), index);
         }
       }
-
+      index++;
     }
-    final Program<T> program;
-    final int stackSize = parsingState.stackSize();
-    switch (stackSize) {
-    case 0:
-      throw new IllegalStateException();
-    case 1:
-      program = new Program<T>();
-      program.add(new Save<T>(0));
-      program.addAll(parsingState.pop());
-      program.add(new Stop<T>(0));
-      break;
-    default:
-      throw new IllegalStateException("Unexpected stack size: " + parsingState);
+    if (stack.size() != 1 || stack.peek() instanceof GroupBoundary) {
+      throw new IllegalStateException("Unexpected stack: " + stack);
     }
-    assert program != null;
-    program.setSource(parsingState.tokenizer);
-    program.add(new Match<T>());
-    return program;
+    return stack.pop();
   }
 
-  private final <T> void beginInput(final State<T> parsingState) {
-    if (parsingState == null) {
-      throw new IllegalArgumentException("parsingState", new NullPointerException("parsingState"));
+  /**
+   * Returns a {@link Node} representing the catenation of the two
+   * supplied {@link Node}s, closing a capture group if the second of
+   * them marks the end of one.
+   *
+   * @param p2 the second {@link Node}; must not be {@code null}
+   *
+   * @param p1 the first {@link Node}; must not be {@code null}
+   *
+   * @return a non-{@code null} {@link Node}
+   */
+  private static final Node catenate(final Node p2, final Node p1) {
+    final List<Node> terms = new ArrayList<Node>();
+    NodeParser.add(terms, p1);
+    if (p2 instanceof GroupBoundary && ((GroupBoundary)p2).index == 0) {
+      // The PostfixTokenizer brackets a capture group's contents with
+      // START_SAVING and STOP_SAVING atoms.  The innermost group
+      // still open is the one that started last.
+      int start = terms.size() - 1;
+      while (!(terms.get(start) instanceof GroupBoundary)) {
+        start--;
+      }
+      final List<Node> contents = terms.subList(start + 1, terms.size());
+      final Node capture = new Node.Capture(((GroupBoundary)terms.get(start)).index, contents.size() == 1 ? contents.get(0) : new Node.Catenation(contents));
+      terms.subList(start, terms.size()).clear();
+      terms.add(capture);
+    } else {
+      NodeParser.add(terms, p2);
     }
-    parsingState.push(Program.singleton(new BeginInput<T>()));
-  }
-
-  private final <T> void endInput(final State<T> parsingState) {
-    if (parsingState == null) {
-      throw new IllegalArgumentException("parsingState", new NullPointerException("parsingState"));
+    if (terms.size() == 1) {
+      return terms.get(0);
     }
-    parsingState.push(Program.singleton(new EndInput<T>()));
+    return new Node.Catenation(terms);
   }
 
-  private final <T> void filter(final State<T> parsingState) {
-    if (parsingState == null) {
-      throw new IllegalArgumentException("parsingState", new NullPointerException("parsingState"));
-    }
-    final Token token = parsingState.getToken();
-    assert token != null;
-    assert Token.Type.FILTER == token.getType();
-
-    boolean exact = false;
-    String filterType = token.getFilterType();
-    if (filterType != null) {
-      final char c = filterType.charAt(0);
-      if (c == '=') {
-        exact = true;        
-      }
+  /**
+   * Compiles the supplied tree of {@link Node}s into a new {@link
+   * Program}.
+   *
+   * <p>The tree is walked twice: once, children first, to work out
+   * how many {@link com.edugility.objexj.engine.Instruction}s each
+   * {@link Node} needs, to allocate registers and to {@linkplain
+   * #newFilter(String, String) create} {@link Filter}s, and then once
+   * more to append each {@link
+   * com.edugility.objexj.engine.Instruction} to the {@link Program}
+   * in order.  No {@link com.edugility.objexj.engine.Instruction} is
+   * ever inserted ahead of another or copied from one fragment to
+   * another.</p>
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param <T> the type of {@link Object} the returned {@link
+   * Program} will be capable of matching
+   *
+   * @param tree the root of the tree to compile; must not be {@code
+   * null}
+   *
+   * @return a new, non-{@code null} {@link Program} whose {@linkplain
+   * Program#setSource(Object) source} has not been set
+   *
+   * @exception IllegalArgumentException if {@code tree} is {@code
+   * null}, or if {@linkplain #newFilter(String, String) a
+   * <code>Filter</code> could not be created} for one of its {@link
+   * Node.Atom}s
+   */
+  public <T> Program<T> compile(final Node tree) {
+    if (tree == null) {
+      throw new IllegalArgumentException("tree", new NullPointerException("tree"));
     }
-
-    parsingState.push(Program.singleton(new InstanceOfMVELFilter<T>(token.getFilterType(), token.getValue())));
+    final Map<Node, Layout> layouts = new IdentityHashMap<Node, Layout>();
+    this.layout(tree, layouts, new int[1]);
+    final Program<T> program = new Program<T>();
+    program.add(new Save<T>(Integer.valueOf(0)));
+    this.emit(tree, layouts, program);
+    program.add(new Stop<T>(Integer.valueOf(0)));
+    program.add(new Match<T>());
+    return program;
   }
 
-  private final <T> void catenate(final State<T> parsingState) {
-    if (parsingState == null) {
-      throw new IllegalArgumentException("parsingState", new NullPointerException("parsingState"));
-    }
-    assert parsingState.stackSize() >= 2;
-
-    final Program<T> p2 = parsingState.pop();
-    assert p2 != null;
-
-    final Program<T> p1 = parsingState.peek();
-    assert p1 != null;
-
-    /*
-     * Catenation program fragment:
-     *
-     * 34: ...
-     * 35: (p1)
-     * 36: (p2)
-     * 37: ...
-     */
-
-    p1.addAll(p2);
+  /**
+   * Returns a new {@link Filter} for an atom of the supplied filter
+   * type and expression.
+   *
+   * <p>This implementation returns a new {@link
+   * InstanceOfMVELFilter}.  Subclasses may override this method to
+   * support atoms of their own devising.  Overrides must never return
+   * {@code null}.</p>
+   *
+   * <p>The implicit atom that makes a pattern match anywhere in its
+   * input, rather than only at its start, is passed to this method
+   * with a filter type of {@code java.lang.Object} and a {@code null}
+   * expression.</p>
+   *
+   * @param <T> the type of {@link Object} the returned {@link Filter}
+   * will work with
+   *
+   * @param filterType the filter type, which is usually the name of a
+   * Java class, possibly preceded by {@code =}; will not be {@code
+   * null}
+   *
+   * @param expression the expression found between parentheses after
+   * the filter type; may be {@code null}
+   *
+   * @return a new, non-{@code null} {@link Filter}
+   *
+   * @exception IllegalArgumentException if a {@link Filter} could not
+   * be created for the supplied filter type and expression
+   */
+  protected <T> Filter<T> newFilter(final String filterType, final String expression) {
+    return new InstanceOfMVELFilter<T>(filterType, expression);
   }
 
-  private final <T> void alternate(final State<T> parsingState) {
-    if (parsingState == null) {
-      throw new IllegalArgumentException("parsingState", new NullPointerException("parsingState"));
+  private final Layout layout(final Node node, final Map<Node, Layout> layouts, final int[] counterIndex) {
+    final Layout layout = new Layout();
+    if (node instanceof Node.Atom) {
+      final Node.Atom atom = (Node.Atom)node;
+      layout.filter = this.newFilter(atom.getFilterType(), atom.getExpression());
+      layout.size = 1;
+    } else if (node instanceof Node.BeginInput || node instanceof Node.EndInput) {
+      layout.size = 1;
+      layout.canMatchEmpty = true;
+    } else if (node instanceof Node.Catenation) {
+      layout.canMatchEmpty = true;
+      for (final Node child : ((Node.Catenation)node).getChildren()) {
+        final Layout childLayout = this.layout(child, layouts, counterIndex);
+        layout.size += childLayout.size;
+        layout.canMatchEmpty = layout.canMatchEmpty && childLayout.canMatchEmpty;
+      }
+    } else if (node instanceof Node.Alternation) {
+      final List<Node> alternatives = ((Node.Alternation)node).getAlternatives();
+      for (final Node alternative : alternatives) {
+        final Layout childLayout = this.layout(alternative, layouts, counterIndex);
+        layout.size += childLayout.size;
+        layout.canMatchEmpty = layout.canMatchEmpty || childLayout.canMatchEmpty;
+      }
+      layout.size += 2 * (alternatives.size() - 1);
+    } else if (node instanceof Node.Capture) {
+      final Layout childLayout = this.layout(((Node.Capture)node).getChild(), layouts, counterIndex);
+      layout.size = childLayout.size + 2;
+      layout.canMatchEmpty = childLayout.canMatchEmpty;
+    } else if (node instanceof Node.Atomic) {
+      final Layout childLayout = this.layout(((Node.Atomic)node).getChild(), layouts, counterIndex);
+      layout.size = childLayout.size + 2;
+      layout.canMatchEmpty = childLayout.canMatchEmpty;
+    } else if (node instanceof Node.Repetition) {
+      final Node.Repetition repetition = (Node.Repetition)node;
+      final Layout childLayout = this.layout(repetition.getChild(), layouts, counterIndex);
+      final int size = childLayout.size;
+      final int minimum = repetition.getMinimum();
+      final int maximum = repetition.getMaximum();
+      // Registers are allocated children first, just as they always
+      // have been, so that a given pattern always compiles to the
+      // same Program.
+      if (repetition.isReluctant()) {
+        layout.size = size + 2;
+        layout.canMatchEmpty = true;
+      } else if (maximum == CountedSplit.UNBOUNDED && minimum == 0) {
+        if (childLayout.canMatchEmpty) {
+          layout.register = counterIndex[0]++;
+          layout.size = size + 4;
+        } else {
+          layout.size = size + 2;
+        }
+        layout.canMatchEmpty = true;
+      } else if (maximum == CountedSplit.UNBOUNDED && minimum == 1) {
+        if (childLayout.canMatchEmpty) {
+          layout.register = counterIndex[0]++;
+          layout.size = size + 4;
+        } else {
+          layout.size = size + 1;
+        }
+        layout.canMatchEmpty = childLayout.canMatchEmpty;
+      } else if (minimum == 0 && maximum == 1) {
+        layout.size = size + 1;
+        layout.canMatchEmpty = true;
+      } else if (minimum == 1 && maximum == 1) {
+        layout.size = size;
+        layout.canMatchEmpty = childLayout.canMatchEmpty;
+      } else if (maximum == CountedSplit.UNBOUNDED && childLayout.canMatchEmpty) {
+        // Expressed as child{n} followed by child*; see emit().
+        layout.register = counterIndex[0]++;
+        layout.secondRegister = counterIndex[0]++;
+        layout.size = 2 * (size + 4);
+        layout.canMatchEmpty = true;
+      } else {
+        // A counted loop can always be left through its exit.
+        layout.register = counterIndex[0]++;
+        layout.size = size + 4;
+        layout.canMatchEmpty = true;
+      }
+    } else {
+      throw new IllegalArgumentException("Unexpected node: " + node);
     }
-    assert parsingState.stackSize() >= 2;
-
-    final Program<T> p2 = parsingState.pop();
-    assert p2 != null;
-    assert !p2.isEmpty();
-
-    final Program<T> p1 = parsingState.pop();
-    assert p1 != null;
-    assert !p1.isEmpty();
-
-    /*
-     * Alternation program fragment:
-     *
-     *  46: ...
-     *  47: split +1, +(p1.size() + 2)
-     *  48: (p1)
-     *  49: jump +(p2.size() + 1)
-     *  50: (p2)
-     *  51: ...
-     */
-
-    final Program<T> p0 = new Program<T>();
-    p0.add(new Split<T>(1, p1.size() + 2, true));
-    p0.addAll(p1);
-    final int target = p2.size() + 1;
-    p0.add(new Jump<T>(target, true)); // dangling jump target
-    p0.addAll(p2);
-
-    parsingState.push(p0);
+    layouts.put(node, layout);
+    return layout;
   }
 
-  private final <T> void zeroOrMore(final State<T> parsingState) {
-    if (parsingState == null) {
-      throw new IllegalArgumentException("parsingState", new NullPointerException("parsingState"));
-    }
-    assert parsingState.stackSize() >= 1;
-
-    final Program<T> p1 = parsingState.pop();
-    assert p1 != null;
+  private final <T> void emit(final Node node, final Map<Node, Layout> layouts, final Program<T> program) {
+    final Layout layout = layouts.get(node);
+    assert layout != null;
+    if (node instanceof Node.Atom) {
+      @SuppressWarnings("unchecked")
+      final Filter<T> filter = (Filter<T>)layout.filter;
+      program.add(filter);
+    } else if (node instanceof Node.BeginInput) {
+      program.add(new BeginInput<T>());
+    } else if (node instanceof Node.EndInput) {
+      program.add(new EndInput<T>());
+    } else if (node instanceof Node.Catenation) {
+
+      /*
+       * Catenation program fragment:
+       *
+       * 34: ...
+       * 35: (p1)
+       * 36: (p2)
+       * 37: ...
+       */
+
+      for (final Node child : ((Node.Catenation)node).getChildren()) {
+        this.emit(child, layouts, program);
+      }
 
-    /*
-     * Zero or more program fragment
-     *
-     * 24 ...
-     * 25 split +1, +(p1.size() + 2)
-     * 26 (p1)
-     * 27 jump -(p1.size() + 1)
-     * 28 ...
-     */
+    } else if (node instanceof Node.Alternation) {
+
+      /*
+       * Alternation program fragment, for two alternatives; three or
+       * more nest to the left, so that (p1|p2|p3) is ((p1|p2)|p3):
+       *
+       *  46: ...
+       *  47: split +1, +(p1.size() + 2)
+       *  48: (p1)
+       *  49: jump +(p2.size() + 1)
+       *  50: (p2)
+       *  51: ...
+       */
+
+      final List<Node> alternatives = ((Node.Alternation)node).getAlternatives();
+      final int count = alternatives.size();
+      final int[] prefixSizes = new int[count];
+      prefixSizes[0] = layouts.get(alternatives.get(0)).size;
+      for (int i = 1; i < count; i++) {
+        prefixSizes[i] = prefixSizes[i - 1] + layouts.get(alternatives.get(i)).size + 2;
+      }
+      for (int i = count - 1; i > 0; i--) {
+        program.add(new Split<T>(1, prefixSizes[i - 1] + 2, true));
+      }
+      this.emit(alternatives.get(0), layouts, program);
+      for (int i = 1; i < count; i++) {
+        final Node alternative = alternatives.get(i);
+        program.add(new Jump<T>(layouts.get(alternative).size + 1, true));
+        this.emit(alternative, layouts, program);
+      }
 
-    final Program<T> p0 = new Program<T>();
-    final int target = p1.size() + 2;
-    p0.add(0, new Split<T>(1, target, true)); // dangling split target
-    p0.addAll(p1);
-    p0.add(new Jump<T>(-(p1.size() + 1), true));
-    
-    parsingState.push(p0);
-  }
+    } else if (node instanceof Node.Capture) {
+      final Node.Capture capture = (Node.Capture)node;
+      final Integer key = Integer.valueOf(capture.getIndex());
+      program.add(new Save<T>(key));
+      this.emit(capture.getChild(), layouts, program);
+      program.add(new Stop<T>(key));
+    } else if (node instanceof Node.Atomic) {
+
+      /*
+       * Atomic program fragment:
+       *
+       * 90: ...
+       * 91: beginAtomic
+       * 92: (p1)
+       * 93: endAtomic
+       * 94: ...
+       */
+
+      program.add(new BeginAtomic<T>());
+      this.emit(((Node.Atomic)node).getChild(), layouts, program);
+      program.add(new EndAtomic<T>());
+
+    } else if (node instanceof Node.Repetition) {
+      final Node.Repetition repetition = (Node.Repetition)node;
+      final Node child = repetition.getChild();
+      final Layout childLayout = layouts.get(child);
+      final int size = childLayout.size;
+      final int minimum = repetition.getMinimum();
+      final int maximum = repetition.getMaximum();
+      if (repetition.isReluctant()) {
+
+        /*
+         * Reluctant zero or more program fragment (the current thread
+         * skips p1; the new one tries it):
+         *
+         * 24 split +(p1.size() + 2), +1
+         * 25 (p1)
+         * 26 jump -(p1.size() + 1)
+         * 27 ...
+         */
+
+        program.add(new Split<T>(size + 2, 1, true));
+        this.emit(child, layouts, program);
+        program.add(new Jump<T>(-(size + 1), true));
+
+      } else if (maximum == CountedSplit.UNBOUNDED && minimum == 0) {
+        this.emitZeroOrMore(child, childLayout.canMatchEmpty, layout.register, layouts, program);
+      } else if (maximum == CountedSplit.UNBOUNDED && minimum == 1) {
+        if (childLayout.canMatchEmpty) {
+
+          /*
+           * One or more program fragment when p1 can match without
+           * consuming input:
+           *
+           * 66: ...
+           * 67: markPosition r
+           * 68: (p1)
+           * 69: split +1, +3
+           * 70: requireProgress r
+           * 71: jump -(p1.size() + 3)
+           * 72: ...
+           */
+
+          program.add(new MarkPosition<T>(layout.register));
+          this.emit(child, layouts, program);
+          program.add(new Split<T>(1, 3, true));
+          program.add(new RequireProgress<T>(layout.register));
+          program.add(new Jump<T>(-(size + 3), true));
+
+        } else {
+
+          /*
+           * One or more program fragment:
+           *
+           * 66: ...
+           * 67: (p1)
+           * 68: split -(p1.size()), +1
+           * 69: ...
+           */
+
+          this.emit(child, layouts, program);
+          program.add(new Split<T>(-size, 1, true));
 
-  private final <T> void zeroOrOne(final State<T> parsingState) {
-    if (parsingState == null) {
-      throw new IllegalArgumentException("parsingState", new NullPointerException("parsingState"));
+        }
+      } else if (minimum == 0 && maximum == 1) {
+
+        /*
+         * Zero or one program fragment:
+         *
+         * 17 ...
+         * 18 split +1, +(p1.size() + 1)
+         * 19 (p1)
+         * 20 ...
+         */
+
+        program.add(new Split<T>(1, size + 1, true));
+        this.emit(child, layouts, program);
+
+      } else if (minimum == 1 && maximum == 1) {
+        this.emit(child, layouts, program);
+      } else if (maximum == CountedSplit.UNBOUNDED && childLayout.canMatchEmpty) {
+        // Once the minimum has been reached, further iterations that
+        // consume no input have to be cut off, which the counted loop
+        // can't do.  So express p1{n,} as p1{n} followed by p1*.
+        this.emitCountedRepetition(child, layout.register, minimum, minimum, layouts, program);
+        this.emitZeroOrMore(child, true, layout.secondRegister, layouts, program);
+      } else {
+        this.emitCountedRepetition(child, layout.register, minimum, maximum, layouts, program);
+      }
+    } else {
+      throw new IllegalArgumentException("Unexpected node: " + node);
     }
-    assert parsingState.stackSize() >= 1;
-
-    final Program<T> p1 = parsingState.peek();
-    assert p1 != null;
-    assert !p1.isEmpty();
+  }
 
-    /*
-     * Zero or one program fragment:
-     *
-     * 17 ...
-     * 18 split +1, +(p1.size() + 1)
-     * 19 (p1)
-     * 20 ...
-     */
+  private final <T> void emitZeroOrMore(final Node child, final boolean canMatchEmpty, final int register, final Map<Node, Layout> layouts, final Program<T> program) {
+    final int size = layouts.get(child).size;
+    if (canMatchEmpty) {
+
+      /*
+       * Zero or more program fragment when p1 can match without
+       * consuming input (an iteration that does so ends the thread
+       * that made it, instead of looping forever):
+       *
+       * 24 ...
+       * 25 split +1, +(p1.size() + 4)
+       * 26 markPosition r
+       * 27 (p1)
+       * 28 requireProgress r
+       * 29 jump -(p1.size() + 3)
+       * 30 ...
+       */
+
+      program.add(new Split<T>(1, size + 4, true));
+      program.add(new MarkPosition<T>(register));
+      this.emit(child, layouts, program);
+      program.add(new RequireProgress<T>(register));
+      program.add(new Jump<T>(-(size + 3), true));
+
+    } else {
+
+      /*
+       * Zero or more program fragment
+       *
+       * 24 ...
+       * 25 split +1, +(p1.size() + 2)
+       * 26 (p1)
+       * 27 jump -(p1.size() + 1)
+       * 28 ...
+       */
+
+      program.add(new Split<T>(1, size + 2, true));
+      this.emit(child, layouts, program);
+      program.add(new Jump<T>(-(size + 1), true));
 
-    final int target = p1.size() + 1;
-    p1.add(0, new Split<T>(1, target, true)); // dangling split target
-    
+    }
   }
 
-  private final <T> void oneOrMore(final State<T> parsingState) {
-    if (parsingState == null) {
-      throw new IllegalArgumentException("parsingState", new NullPointerException("parsingState"));
-    }
-    assert parsingState.stackSize() >= 1;
-    
-    final Program<T> p1 = parsingState.peek();
-    assert p1 != null;
-    assert !p1.isEmpty();
+  private final <T> void emitCountedRepetition(final Node child, final int register, final int minimum, final int maximum, final Map<Node, Layout> layouts, final Program<T> program) {
+    final int size = layouts.get(child).size;
 
     /*
-     * One or more program fragment:
+     * Counted repetition program fragment (the same size no matter
+     * what the bounds are):
      *
-     * 66: ...
-     * 67: (p1)
-     * 68: split -(p1.size()), +1
-     * 69: ...
+     * 80: ...
+     * 81: resetCounter r
+     * 82: countedSplit r, minimum, maximum, +(p1.size() + 3)
+     * 83: (p1)
+     * 84: incrementCounter r
+     * 85: jump -(p1.size() + 2)
+     * 86: ...
      */
 
-    p1.add(new Split<T>(-p1.size(), 1, true));
-  }
-
-  private final <T> void startSaving(final State<T> parsingState) {
-    if (parsingState == null) {
-      throw new IllegalArgumentException("parsingState", new NullPointerException("parsingState"));
-    }
-    parsingState.push(Program.singleton(new Save<T>(Integer.valueOf(parsingState.groupIndex++))));
-  }
-
-  private final <T> void stopSaving(final State<T> parsingState) {
-    if (parsingState == null) {
-      throw new IllegalArgumentException("parsingState", new NullPointerException("parsingState"));
-    }
-    parsingState.push(Program.singleton(new Stop<T>(Integer.valueOf(--parsingState.groupIndex))));
+    program.add(new ResetCounter<T>(register));
+    program.add(new CountedSplit<T>(register, minimum, maximum, size + 3));
+    this.emit(child, layouts, program);
+    program.add(new IncrementCounter<T>(register));
+    program.add(new Jump<T>(-(size + 2), true));
   }
 
 
   /*
-   * Nested and inner classes.
+   * Inner and nested classes.
    */
 
 
-  private static final class State<T> extends ParsePosition implements Iterator<Token> {
-
-    private int groupIndex;
-    
-    private Token token;
+  /**
+   * What the {@link Parser#compile(Node)} method works out about a
+   * {@link Node} before emitting its {@link
+   * com.edugility.objexj.engine.Instruction}s.
+   */
+  private static final class Layout {
 
-    private final Deque<Program<T>> stack;
+    private int size;
 
-    private final PostfixTokenizer tokenizer;
+    private boolean canMatchEmpty;
 
-    private State(final PostfixTokenizer tokenizer) {
-      super(-1);
-      if (tokenizer == null) {
-        throw new IllegalArgumentException("tokenizer", new NullPointerException("tokenizer"));
-      }
-      this.tokenizer = tokenizer;
-      this.stack = new ArrayDeque<Program<T>>();
-      this.groupIndex = 1;
-    }
+    private int register;
 
-    public final Token getToken() {
-      return this.token;
-    }
+    private int secondRegister;
 
-    @Override
-    public final boolean hasNext() {
-      return this.tokenizer.hasNext();
-    }
+    private Filter<?> filter;
 
-    @Override
-    public final Token next() {
-      this.token = this.tokenizer.next();
-      this.setIndex(this.getIndex() + 1);
-      return this.token;
+    private Layout() {
+      super();
     }
 
-    @Override
-    public final void remove() {
-      this.tokenizer.remove();
-    }
+  }
 
-    public final int stackSize() {
-      return this.stack.size();
-    }
+  /**
+   * A placeholder for a {@link Token.Type#START_SAVING} or {@link
+   * Token.Type#STOP_SAVING} atom, used only while {@linkplain
+   * Parser#parseTree(PostfixTokenizer) assembling a tree from a
+   * <code>PostfixTokenizer</code>}.
+   */
+  private static final class GroupBoundary extends Node {
 
-    public void push(final Program<T> programFragment) {
-      if (programFragment == null) {
-        throw new IllegalArgumentException("programFragment", new NullPointerException("programFragment"));
-      }
-      this.stack.push(programFragment);
-    }
+    private final int index;
 
-    public Program<T> peek() {
-      return this.stack.peek();
+    private GroupBoundary(final int index) {
+      super();
+      this.index = index;
     }
 
-    public Program<T> pop() {
-      return this.stack.pop();
+    @Override
+    public final <R> R accept(final Visitor<R> visitor) {
+      throw new UnsupportedOperationException();
     }
 
     @Override
-    public String toString() {
-      final Formatter f = new Formatter(new StringBuilder());
-      f.format("Parsing state:%n");
-      f.format("Current token: %s%n", this.getToken());
-      f.format("Stack size: %d%n", this.stackSize());
-      f.format("Stack: %s%n", this.stack);
-      return f.toString();
+    public final String toString() {
+      return this.index == 0 ? ")" : "(";
     }
-    
+
   }
 
 }
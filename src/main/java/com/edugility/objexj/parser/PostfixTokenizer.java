@@ -159,6 +159,14 @@ public class PostfixTokenizer extends ParsePosition implements Iterator<Token> {
      */
     RIGHT_PAREN, 
 
+    /**
+     * A {@link PostfixTokenizer.State} indicating the {@link
+     * PostfixTokenizer} has just closed a non-capturing or atomic
+     * group, which, unlike a capture group, may be followed by a
+     * repetition operator.
+     */
+    END_OF_GROUP,
+
     /**
      * A {@link PostfixTokenizer.State} indicating the {@link
      * PostfixTokenizer} could forward to several other states.
@@ -185,6 +193,15 @@ public class PostfixTokenizer extends ParsePosition implements Iterator<Token> {
    */
   private final Map<Integer, Token> tokens;
 
+  /**
+   * The {@link Token.Type#ZERO_OR_MORE} operator that is inserted at
+   * the beginning of an unanchored pattern.  This field is never
+   * {@code null}.
+   *
+   * @see #isImplicit(Token)
+   */
+  private final Token implicitZeroOrMore;
+
   /**
    * The {@link Logger} used by this {@link PostfixTokenizer} to log messages.
    *
@@ -268,6 +285,7 @@ public class PostfixTokenizer extends ParsePosition implements Iterator<Token> {
     this.state = State.START;
     this.tokens = new HashMap<Integer, Token>();
     this.setupTokens(this.tokens);
+    this.implicitZeroOrMore = new Token(Token.Type.ZERO_OR_MORE);
     this.prime();
   }
 
@@ -417,6 +435,26 @@ public class PostfixTokenizer extends ParsePosition implements Iterator<Token> {
          * found a concatenation operator right afterwards.
          */
 
+        // See if this is a non-capturing ("(?:") or atomic ("(?>")
+        // group.  Neither of these is an atom, so all we need to do
+        // is record where the group starts.
+        final int question = this.read();
+        if (question == '?') {
+          final int groupKind = this.read();
+          if (groupKind == ':') {
+            this.push(new Token(Token.Type.START_NON_CAPTURING_GROUP));
+          } else if (groupKind == '>') {
+            this.push(new Token(Token.Type.START_ATOMIC_GROUP));
+          } else {
+            this.setErrorIndex(this.getIndex());
+            throw new ParseException(buildExceptionMessage(groupKind), this.getIndex());
+          }
+          this.state = State.START_SAVING_OR_FILTER;
+          break;
+        } else if (question != -1) {
+          this.unread(question);
+        }
+
         // First find a START_SAVING (atom) token.
         final Token token = new Token(Token.Type.START_SAVING);
         
@@ -452,7 +490,7 @@ public class PostfixTokenizer extends ParsePosition implements Iterator<Token> {
          */
 
         final int originalOutputSize = this.output.size();
-        while (!this.stack.isEmpty() && this.stack.peek().getType() != Token.Type.START_GROUP) {
+        while (!this.stack.isEmpty() && !isStartOfGroup(this.stack.peek().getType())) {
           this.output.add(this.stack.pop());
         }
         if (this.stack.isEmpty()) {
@@ -460,8 +498,25 @@ public class PostfixTokenizer extends ParsePosition implements Iterator<Token> {
           throw new ParseException("Mismatched parentheses", this.getIndex());
         }
 
-        assert Token.Type.START_GROUP == this.stack.peek().getType();
-        this.stack.pop();
+        final Token.Type groupType = this.stack.pop().getType();
+        assert groupType != null;
+        if (groupType == Token.Type.START_NON_CAPTURING_GROUP) {
+          // Nothing to save, so the group's contents stand on their
+          // own.
+          this.state = State.END_OF_GROUP;
+          if (this.output.size() > originalOutputSize) {
+            break READ_LOOP;
+          }
+          break;
+        } else if (groupType == Token.Type.START_ATOMIC_GROUP) {
+          // The group's contents are complete in the output queue,
+          // so the (unary, postfix) atomic operator can follow them
+          // directly.
+          this.output.add(new Token(Token.Type.ATOMIC));
+          this.state = State.END_OF_GROUP;
+          break READ_LOOP;
+        }
+        assert Token.Type.START_GROUP == groupType;
 
         // The original shunting-yard algorithm discards the parens
         // because in that algorithm they are used only for grouping.
@@ -479,6 +534,33 @@ public class PostfixTokenizer extends ParsePosition implements Iterator<Token> {
         break READ_LOOP; // only because we added something to the output queue
 
 
+        // END_OF_GROUP
+        //
+        // END_OF_GROUP permits a repetition operator, which applies
+        // to the whole group that was just closed, and otherwise
+        // behaves like STOP_SAVING_OR_END_OF_INPUT_OR_NEXT_IN_SEQUENCE.
+      case END_OF_GROUP:
+        switch (c) {
+
+        case '+':
+        case '*':
+        case '?':
+        case '{':
+          this.unread(c);
+          this.state = State.OPERATOR;
+          break;
+
+        default:
+          if (Character.isWhitespace(c)) {
+            continue READ_LOOP;
+          }
+          this.unread(c);
+          this.state = State.STOP_SAVING_OR_END_OF_INPUT_OR_NEXT_IN_SEQUENCE;
+          break;
+        }
+        break;
+
+
         // START_SAVING_OR_FILTER
       case START_SAVING_OR_FILTER:
         if (Character.isWhitespace(c)) {
@@ -522,6 +604,7 @@ public class PostfixTokenizer extends ParsePosition implements Iterator<Token> {
         case '+':
         case '*':
         case '?':
+        case '{':
         case '|':
         case '/':
         case ',':
@@ -621,6 +704,7 @@ public class PostfixTokenizer extends ParsePosition implements Iterator<Token> {
         case '+':
         case '*':
         case '?':
+        case '{':
         case '|':
         case '/':
         case ',':
@@ -649,7 +733,20 @@ public class PostfixTokenizer extends ParsePosition implements Iterator<Token> {
         sb.setLength(0);
         if (Character.isWhitespace(c)) {
           continue READ_LOOP;
-        } else if (this.handleOperator(this.tokenFor(c))) {
+        }
+        final Token operator = c == '{' ? this.readCountedRepetition() : this.tokenFor(c);
+        boolean added = this.handleOperator(operator);
+        if (isRepetition(operator.getType())) {
+          // A repetition operator immediately followed by a '+' is
+          // possessive, which is to say that it is atomic.
+          final int possessive = this.read();
+          if (possessive == '+') {
+            added = this.handleOperator(new Token(Token.Type.ATOMIC)) || added;
+          } else if (possessive != -1) {
+            this.unread(possessive);
+          }
+        }
+        if (added) {
           break READ_LOOP;
         }
         break;
@@ -740,7 +837,7 @@ public class PostfixTokenizer extends ParsePosition implements Iterator<Token> {
         final Token.Type type = top.getType();
         assert type != null;
 
-        if (type == Token.Type.START_GROUP || type == Token.Type.STOP_GROUP) {
+        if (isStartOfGroup(type) || type == Token.Type.STOP_GROUP) {
           this.setErrorIndex(this.getIndex());
           throw new ParseException("Mismatched parentheses", this.getIndex());
         }
@@ -750,6 +847,59 @@ public class PostfixTokenizer extends ParsePosition implements Iterator<Token> {
 
   }
 
+  /**
+   * Reads the bounds of a counted repetition operator&mdash;{@code
+   * {n}}, {@code {n,}} or {@code {n,m}}&mdash;up to and including
+   * the closing brace, and returns a new {@link Token} whose
+   * {@linkplain Token.Type#COUNTED_REPETITION type} and {@linkplain
+   * Token#getValue() value} represent it.  The opening brace must
+   * already have been read.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a new {@link Token}; never {@code null}
+   *
+   * @exception IOException if a reading error occurs
+   *
+   * @exception ParseException if the bounds are malformed, or if the
+   * maximum is less than the minimum
+   */
+  private final Token readCountedRepetition() throws IOException, ParseException {
+    final StringBuilder sb = new StringBuilder();
+    int comma = -1;
+    int c;
+    while ((c = this.read()) != '}') {
+      if (c >= '0' && c <= '9') {
+        sb.append((char)c);
+      } else if (c == ',' && comma < 0) {
+        comma = sb.length();
+        sb.append(',');
+      } else {
+        this.setErrorIndex(this.getIndex());
+        if (c == -1) {
+          throw new ParseException("Unterminated counted repetition", this.getIndex());
+        }
+        throw new ParseException(buildExceptionMessage(c), this.getIndex());
+      }
+    }
+    final String bounds = sb.toString();
+    if (bounds.isEmpty() || comma == 0) {
+      this.setErrorIndex(this.getIndex());
+      throw new ParseException("Missing minimum in counted repetition", this.getIndex());
+    }
+    try {
+      final int minimum = Integer.parseInt(comma < 0 ? bounds : bounds.substring(0, comma));
+      if (comma >= 0 && comma + 1 < bounds.length() && Integer.parseInt(bounds.substring(comma + 1)) < minimum) {
+        this.setErrorIndex(this.getIndex());
+        throw new ParseException(String.format("Counted repetition maximum is less than its minimum: {%s}", bounds), this.getIndex());
+      }
+    } catch (final NumberFormatException tooBig) {
+      this.setErrorIndex(this.getIndex());
+      throw (ParseException)new ParseException(String.format("Counted repetition bounds are too large: {%s}", bounds), this.getIndex()).initCause(tooBig);
+    }
+    return new Token(Token.Type.COUNTED_REPETITION, bounds);
+  }
+
   /**
    * Inserts a set of {@link Token}s into the {@linkplain #output
    * output <code>List</code>} that logically belong at the beginning
@@ -766,10 +916,33 @@ public class PostfixTokenizer extends ParsePosition implements Iterator<Token> {
    * Insert a sequence of {@link Token]s into the {@linkplain #output
    * output <code>List</code>} representing zero or more occurrences
    * of any Java {@link Object}.
+   *
+   * @see #isImplicit(Token)
    */
   private final void insertZeroOrMoreAnything() {
     this.output.add(new Token(Token.Type.FILTER, "java.lang.Object"));
-    this.handleOperator(this.tokenFor('*'));
+    this.handleOperator(this.implicitZeroOrMore);
+  }
+
+  /**
+   * Returns {@code true} if the supplied {@link Token} is the {@link
+   * Token.Type#ZERO_OR_MORE} operator that this {@link
+   * PostfixTokenizer} inserted at the beginning of an unanchored
+   * pattern, rather than one that was written in the pattern itself.
+   *
+   * <p>A {@link Parser} uses this to make that operator prefer as few
+   * repetitions as possible, so that when threads are run in
+   * backtracking order the leftmost match is still the one that is
+   * found.</p>
+   *
+   * @param token the {@link Token} to test; may be {@code null}
+   *
+   * @return {@code true} if {@code token} is the implicit leading
+   * {@link Token.Type#ZERO_OR_MORE} operator; {@code false}
+   * otherwise
+   */
+  final boolean isImplicit(final Token token) {
+    return token != null && token == this.implicitZeroOrMore;
   }
 
   /**
@@ -852,6 +1025,10 @@ public class PostfixTokenizer extends ParsePosition implements Iterator<Token> {
    *
    * <li>{@link Token.Type#ZERO_OR_ONE}</li>
    *
+   * <li>{@link Token.Type#COUNTED_REPETITION}</li>
+   *
+   * <li>{@link Token.Type#ATOMIC}</li>
+   *
    * <li>{@link Token.Type#ALTERNATION}</li>
    *
    * <li>{@link Token.Type#CATENATION}</li>
@@ -875,6 +1052,8 @@ public class PostfixTokenizer extends ParsePosition implements Iterator<Token> {
     case ONE_OR_MORE:
     case ZERO_OR_MORE:
     case ZERO_OR_ONE:
+    case COUNTED_REPETITION:
+    case ATOMIC:
       return State.STOP_SAVING_OR_END_OF_INPUT_OR_NEXT_IN_SEQUENCE;
     case ALTERNATION:
     case CATENATION:
@@ -884,6 +1063,44 @@ public class PostfixTokenizer extends ParsePosition implements Iterator<Token> {
     }
   }
 
+  /**
+   * Returns {@code true} if the supplied {@link Token.Type} is one of
+   * the repetition operators that may be written in a textual
+   * pattern.
+   *
+   * @param type the {@link Token.Type} to test; may be {@code null}
+   *
+   * @return {@code true} if {@code type} is {@link
+   * Token.Type#ONE_OR_MORE}, {@link Token.Type#ZERO_OR_MORE}, {@link
+   * Token.Type#ZERO_OR_ONE} or {@link Token.Type#COUNTED_REPETITION};
+   * {@code false} otherwise
+   */
+  private static final boolean isRepetition(final Token.Type type) {
+    return
+      type == Token.Type.ONE_OR_MORE ||
+      type == Token.Type.ZERO_OR_MORE ||
+      type == Token.Type.ZERO_OR_ONE ||
+      type == Token.Type.COUNTED_REPETITION;
+  }
+
+  /**
+   * Returns {@code true} if the supplied {@link Token.Type} marks the
+   * start of a group of any kind on the {@linkplain #stack stack}.
+   *
+   * @param type the {@link Token.Type} to test; may be {@code null}
+   *
+   * @return {@code true} if {@code type} is {@link
+   * Token.Type#START_GROUP}, {@link
+   * Token.Type#START_NON_CAPTURING_GROUP} or {@link
+   * Token.Type#START_ATOMIC_GROUP}; {@code false} otherwise
+   */
+  private static final boolean isStartOfGroup(final Token.Type type) {
+    return
+      type == Token.Type.START_GROUP ||
+      type == Token.Type.START_NON_CAPTURING_GROUP ||
+      type == Token.Type.START_ATOMIC_GROUP;
+  }
+
   /**
    * Manipulates the supplied {@link Map} to contain {@link Token}s
    * indexed under the characters (expressed as {@link Integer}s) that
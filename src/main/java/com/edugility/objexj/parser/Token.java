@@ -122,6 +122,24 @@ public class Token implements Comparable<Token>, Serializable {
      */
     START_GROUP(Integer.MIN_VALUE),
 
+    /**
+     * A {@link Token.Type} identifying the start of a non-capturing
+     * group (usually represented as {@code (?:}).  Like {@link
+     * Token.Type#START_GROUP}, this is merely an indicator to
+     * downstream parsers that operator precedence is being explicitly
+     * directed, but no {@link Token.Type#START_SAVING} atom
+     * accompanies it.
+     */
+    START_NON_CAPTURING_GROUP(Integer.MIN_VALUE),
+
+    /**
+     * A {@link Token.Type} identifying the start of an atomic group
+     * (usually represented as {@code (?>}).  When the group is closed
+     * an {@link Token.Type#ATOMIC} operator is applied to its
+     * contents.
+     */
+    START_ATOMIC_GROUP(Integer.MIN_VALUE),
+
     /**
      * A {@link Token.Type} identifying the end of a capture group.
      * This differs from {@link Token.Type#STOP_SAVING} in that
@@ -153,7 +171,31 @@ public class Token implements Comparable<Token>, Serializable {
      * A {@link Token.Type} identifying a {@link Token} as a
      * zero-or-one operator (usually represented as {@code ?}).
      */
-    ZERO_OR_ONE(2);
+    ZERO_OR_ONE(2),
+
+    /**
+     * A {@link Token.Type} identifying a {@link Token} as a counted
+     * repetition operator (usually represented as {@code {n}}, {@code
+     * {n,}} or {@code {n,m}}).  The {@linkplain Token#getValue()
+     * value} of such a {@link Token} is the text between the braces.
+     */
+    COUNTED_REPETITION(true, 2, true),
+
+
+    /*
+     * Atomicity.
+     */
+
+
+    /**
+     * A {@link Token.Type} identifying a {@link Token} as an operator
+     * that makes its operand atomic: once the operand has matched,
+     * any alternative ways of matching it are discarded.  Produced by
+     * the closing of an atomic group (usually represented as {@code
+     * (?>...)}) and by possessive quantifiers (usually represented as
+     * {@code *+}, {@code ++}, {@code ?+} or {@code {n,m}+}).
+     */
+    ATOMIC(2);
 
 
     /**
@@ -28,7 +28,8 @@
 
 /**
  * Contains classes for {@linkplain com.edugility.objexj.parser.PostfixTokenizer tokenizing} and
- * {@linkplain com.edugility.objexj.parser.Parser parsing} objexj expressions. End users of the
+ * {@linkplain com.edugility.objexj.parser.Parser parsing} objexj expressions into
+ * {@linkplain com.edugility.objexj.parser.Node syntax trees} and compiling those trees. End users of the
  * objexj toolkit should focus on the {@code com.edugility.objexj}
  * package instead.
  *
@@ -36,6 +37,8 @@
  *
  * @see com.edugility.objexj.parser.Parser
  *
+ * @see com.edugility.objexj.parser.Node
+ *
  * @see com.edugility.objexj.parser.PostfixTokenizer
  */
 package com.edugility.objexj.parser;
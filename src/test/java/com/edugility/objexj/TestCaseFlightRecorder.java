@@ -0,0 +1,154 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.text.ParseException;
+
+import java.time.Duration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import jdk.jfr.Recording;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.edugility.objexj.engine.MatchLimitExceededException;
+import com.edugility.objexj.engine.MatchOptions;
+
+import static org.junit.Assert.*;
+
+public class TestCaseFlightRecorder {
+
+  private Recording recording;
+
+  private File file;
+
+  public TestCaseFlightRecorder() {
+    super();
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    this.recording = new Recording();
+    this.file = File.createTempFile("objexj", ".jfr");
+  }
+
+  @After
+  public void tearDown() {
+    this.recording.close();
+    assertTrue(this.file.delete());
+  }
+
+  @Test
+  public void testEvents() throws IOException, ParseException {
+    this.recording.enable(CompileEvent.NAME);
+    this.recording.enable(MatchEvent.NAME).withThreshold(Duration.ZERO);
+    this.recording.start();
+    final Pattern<Object> pattern = Pattern.compile("^java.lang.Integer*/java.lang.String$");
+    assertTrue(pattern.matcher(Arrays.<Object>asList(1, 2, "a")).matches());
+    assertFalse(pattern.matcher(Arrays.<Object>asList(1, 2)).matches());
+    final List<RecordedEvent> events = this.stop();
+
+    final List<RecordedEvent> compiles = select(events, CompileEvent.NAME);
+    assertEquals(1, compiles.size());
+    assertEquals("^java.lang.Integer*/java.lang.String$", compiles.get(0).getString("source"));
+    assertEquals(pattern.getProgram().size(), compiles.get(0).getInt("instructionCount"));
+
+    final List<RecordedEvent> matches = select(events, MatchEvent.NAME);
+    assertEquals(2, matches.size());
+    final RecordedEvent first = matches.get(0);
+    final RecordedEvent second = matches.get(1);
+    if (first.getStartTime().isAfter(second.getStartTime())) {
+      matches.set(0, second);
+      matches.set(1, first);
+    }
+    for (final RecordedEvent match : matches) {
+      assertEquals(pattern.toString(), match.getString("pattern"));
+      assertEquals(System.identityHashCode(pattern), match.getInt("patternIdentity"));
+      assertTrue(match.getLong("threadsForked") > 0);
+      assertFalse(match.getDuration().isNegative());
+    }
+    assertEquals(3, matches.get(0).getInt("inputSize"));
+    assertTrue(matches.get(0).getBoolean("matched"));
+    assertEquals(2, matches.get(1).getInt("inputSize"));
+    assertFalse(matches.get(1).getBoolean("matched"));
+  }
+
+  @Test
+  public void testThreshold() throws IOException, ParseException {
+    this.recording.enable(MatchEvent.NAME).withThreshold(Duration.ofHours(1L));
+    this.recording.start();
+    final Pattern<Object> pattern = Pattern.compile("^java.lang.Integer*/java.lang.String$");
+    assertTrue(pattern.matcher(Arrays.<Object>asList(1, 2, "a")).matches());
+    assertTrue(select(this.stop(), MatchEvent.NAME).isEmpty());
+  }
+
+  @Test
+  public void testEventEndsWhenLimitExceeded() throws IOException, ParseException {
+    this.recording.enable(MatchEvent.NAME).withThreshold(Duration.ZERO);
+    this.recording.start();
+    final Pattern<Object> pattern = Pattern.compile("^java.lang.Integer*/java.lang.String$");
+    try {
+      pattern.matcher(Arrays.<Object>asList(1, 2, 3, 4, 5, "a"), MatchOptions.UNLIMITED.withMaxSteps(5L)).matches();
+      fail();
+    } catch (final MatchLimitExceededException expected) {
+
+    }
+    final List<RecordedEvent> matches = select(this.stop(), MatchEvent.NAME);
+    assertEquals(1, matches.size());
+    assertEquals(6, matches.get(0).getInt("inputSize"));
+    assertFalse(matches.get(0).getBoolean("matched"));
+  }
+
+  private final List<RecordedEvent> stop() throws IOException {
+    this.recording.stop();
+    this.recording.dump(this.file.toPath());
+    return RecordingFile.readAllEvents(this.file.toPath());
+  }
+
+  private static final List<RecordedEvent> select(final List<RecordedEvent> events, final String name) {
+    final List<RecordedEvent> returnValue = new ArrayList<RecordedEvent>();
+    for (final RecordedEvent event : events) {
+      if (name.equals(event.getEventType().getName())) {
+        returnValue.add(event);
+      }
+    }
+    return returnValue;
+  }
+
+}
@@ -0,0 +1,104 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj;
+
+import java.io.IOException;
+
+import java.nio.DoubleBuffer;
+
+import java.text.ParseException;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseNumberPatterns {
+
+  public TestCaseNumberPatterns() {
+    super();
+  }
+
+  @Test
+  public void testIntPattern() throws IOException, ParseException {
+    final IntPattern pattern = IntPattern.compile("^int(< 500)*/(int(500..599)+)/int(>= 600)$");
+    assertNotNull(pattern);
+    final Matcher<Integer> matcher = pattern.matcher(new int[] { 200, 204, 503, 500, 700 });
+    assertTrue(matcher.matches());
+    assertEquals(2, matcher.start(1));
+    assertEquals(4, matcher.end(1));
+    assertEquals(Arrays.asList(503, 500), matcher.group(1));
+    assertFalse(pattern.matcher(new int[] { 200, 404, 700 }).lookingAt());
+  }
+
+  @Test
+  public void testUnanchoredIntPattern() throws IOException, ParseException {
+    final IntPattern pattern = IntPattern.compile("int(!= 0)/int(== 0)");
+    final Matcher<Integer> matcher = pattern.matcher(new int[] { 0, 0, 7, 0, 3 });
+    assertTrue(matcher.lookingAt());
+    assertEquals(4, matcher.end());
+  }
+
+  @Test
+  public void testLongPattern() throws IOException, ParseException {
+    final LongPattern pattern = LongPattern.compile("^long(> 4294967296)/long$");
+    assertTrue(pattern.matcher(new long[] { 4294967297L, -1L }).matches());
+    assertFalse(pattern.matcher(new long[] { 4294967296L, -1L }).matches());
+  }
+
+  @Test
+  public void testDoublePattern() throws IOException, ParseException {
+    final DoublePattern pattern = DoublePattern.compile("^double(0.5..1.5)+/double(> 1.5)");
+    final DoubleBuffer buffer = DoubleBuffer.wrap(new double[] { 9.0, 0.5, 1.5, 1.51 });
+    buffer.position(1);
+    assertTrue(pattern.matcher(buffer).matches());
+    assertEquals(1, buffer.position());
+    assertFalse(pattern.matcher(new double[] { 0.49, 1.6 }).lookingAt());
+  }
+
+  @Test(expected = ParseException.class)
+  public void testMVELAtomsAreRejected() throws IOException, ParseException {
+    IntPattern.compile("java.lang.Integer(intValue() > 500)");
+  }
+
+  @Test(expected = ParseException.class)
+  public void testIntBoundOutOfRange() throws IOException, ParseException {
+    IntPattern.compile("int(> 4294967296)");
+  }
+
+  @Test
+  public void testLongBoundsAtTheEdges() throws IOException, ParseException {
+    final long[] extremes = new long[] { Long.MIN_VALUE, Long.MAX_VALUE };
+    assertFalse(LongPattern.compile("long(< -9223372036854775808)").matcher(extremes).lookingAt());
+    assertFalse(LongPattern.compile("long(> 9223372036854775807)").matcher(extremes).lookingAt());
+    assertTrue(LongPattern.compile("^long(<= -9223372036854775808)").matcher(extremes).lookingAt());
+    assertTrue(LongPattern.compile("long(>= 9223372036854775807)$").matcher(extremes).lookingAt());
+  }
+
+}
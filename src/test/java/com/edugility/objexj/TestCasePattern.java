@@ -27,6 +27,10 @@
  */
 package com.edugility.objexj;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 
 import java.text.ParseException;
@@ -36,9 +40,18 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Test;
 
+import com.edugility.objexj.engine.Complexity;
+import com.edugility.objexj.engine.MatchLimitExceededException;
+import com.edugility.objexj.engine.MatchOptions;
+import com.edugility.objexj.engine.MatchStats;
 import com.edugility.objexj.engine.Program;
+import com.edugility.objexj.engine.Strategy;
 
 import static org.junit.Assert.*;
 
@@ -153,4 +166,550 @@ public class TestCasePattern {
     assertEquals(first.getMessage(), matcher.get("msg"));
   }
 
+  @Test
+  public void testCountedRepetition() throws IOException, ParseException {
+    final Pattern<Character> pattern = Pattern.compile("^java.lang.Character(charValue() == 'a'){2,3}$");
+    assertNotNull(pattern);
+    assertFalse(pattern.matcher(Arrays.asList('a')).matches());
+    assertTrue(pattern.matcher(Arrays.asList('a', 'a')).matches());
+    assertTrue(pattern.matcher(Arrays.asList('a', 'a', 'a')).matches());
+    assertFalse(pattern.matcher(Arrays.asList('a', 'a', 'a', 'a')).matches());
+    assertFalse(pattern.matcher(Arrays.asList('a', 'b', 'a')).matches());
+  }
+
+  @Test
+  public void testNonCapturingGroup() throws IOException, ParseException {
+    final Pattern<Object> pattern = Pattern.compile("^(?:java.lang.Character/java.lang.Integer)+$");
+    assertNotNull(pattern);
+    final Matcher<Object> matcher = pattern.matcher(Arrays.<Object>asList('a', 1, 'b', 2));
+    assertTrue(matcher.matches());
+    assertEquals(1, matcher.groupCount());
+    assertFalse(pattern.matcher(Arrays.<Object>asList('a', 1, 'b')).matches());
+  }
+
+  @Test
+  public void testRepeatedGroupThatCanMatchNothing() throws IOException, ParseException {
+    final Pattern<Object> pattern = Pattern.compile("^(?:java.lang.Character*)*/java.lang.Integer$");
+    assertNotNull(pattern);
+    assertTrue(pattern.matcher(Arrays.<Object>asList('a', 'b', 1)).matches());
+    assertFalse(pattern.matcher(Arrays.<Object>asList('a', 'b')).matches());
+  }
+
+  @Test
+  public void testAtomicGroup() throws IOException, ParseException {
+    // Once the atomic group has matched a single Character, the
+    // alternative that would have matched two is gone.
+    final Pattern<Object> atomic = Pattern.compile("^(?>java.lang.Character|java.lang.Character/java.lang.Character)/java.lang.Integer$");
+    assertNotNull(atomic);
+    assertTrue(atomic.matcher(Arrays.<Object>asList('a', 1)).matches());
+    assertFalse(atomic.matcher(Arrays.<Object>asList('a', 'b', 1)).matches());
+    final Pattern<Object> plain = Pattern.compile("^(?:java.lang.Character|java.lang.Character/java.lang.Character)/java.lang.Integer$");
+    assertNotNull(plain);
+    assertTrue(plain.matcher(Arrays.<Object>asList('a', 'b', 1)).matches());
+  }
+
+  @Test
+  public void testPossessiveRepetition() throws IOException, ParseException {
+    final Pattern<Character> greedy = Pattern.compile("^java.lang.Character*/java.lang.Character$");
+    assertNotNull(greedy);
+    assertTrue(greedy.matcher(Arrays.asList('a', 'a', 'a')).matches());
+    final Pattern<Character> possessive = Pattern.compile("^java.lang.Character*+/java.lang.Character$");
+    assertNotNull(possessive);
+    assertFalse(possessive.matcher(Arrays.asList('a', 'a', 'a')).matches());
+    final Pattern<Object> possessiveThenOther = Pattern.compile("^java.lang.Character++/java.lang.Integer$");
+    assertNotNull(possessiveThenOther);
+    assertTrue(possessiveThenOther.matcher(Arrays.<Object>asList('a', 'a', 1)).matches());
+    final Pattern<Character> possessiveCounted = Pattern.compile("^java.lang.Character{1,3}+/java.lang.Character$");
+    assertNotNull(possessiveCounted);
+    assertFalse(possessiveCounted.matcher(Arrays.asList('a', 'a', 'a')).matches());
+    assertTrue(possessiveCounted.matcher(Arrays.asList('a', 'a', 'a', 'a')).matches());
+  }
+
+  @Test
+  public void testRepetitionIsGreedy() throws IOException, ParseException {
+    final Pattern<Character> pattern = Pattern.compile("^(java.lang.Character*)");
+    assertNotNull(pattern);
+    final Matcher<Character> matcher = pattern.matcher(Arrays.asList('a', 'b'));
+    assertTrue(matcher.lookingAt());
+    assertEquals(Arrays.asList('a', 'b'), matcher.group(1));
+  }
+
+  @Test
+  public void testCountedRepetitionProgramSizeIsIndependentOfBounds() throws IOException, ParseException {
+    final Pattern<Character> small = Pattern.compile("^java.lang.Character{2,3}");
+    final Pattern<Character> large = Pattern.compile("^java.lang.Character{200,3000}");
+    assertEquals(small.getProgram().size(), large.getProgram().size());
+  }
+
+  @Test
+  public void testOpenEndedCountedRepetitionWithCapture() throws IOException, ParseException {
+    final Pattern<Object> pattern = Pattern.compile("^(java.lang.Character{2,})/java.lang.Integer$");
+    assertNotNull(pattern);
+    final List<Object> input = new ArrayList<Object>();
+    input.add(Character.valueOf('a'));
+    input.add(Integer.valueOf(1));
+    assertFalse(pattern.matcher(input).matches());
+    input.add(0, Character.valueOf('b'));
+    input.add(0, Character.valueOf('c'));
+    input.add(0, Character.valueOf('d'));
+    final Matcher<Object> matcher = pattern.matcher(input);
+    assertTrue(matcher.matches());
+    assertEquals(Arrays.asList('d', 'c', 'b', 'a'), matcher.group(1));
+  }
+
+  @Test
+  public void testSequentialGroupsAreNumberedInOrder() throws IOException, ParseException {
+    final Pattern<Object> pattern = Pattern.compile("^(java.lang.Character)/(java.lang.Integer)$");
+    assertNotNull(pattern);
+    final Matcher<Object> matcher = pattern.matcher(Arrays.<Object>asList('a', 1));
+    assertTrue(matcher.matches());
+    assertEquals(3, matcher.groupCount());
+    assertEquals(Arrays.asList('a'), matcher.group(1));
+    assertEquals(Arrays.asList(1), matcher.group(2));
+  }
+
+  @Test
+  public void testSelectiveCapture() throws IOException, ParseException {
+    final Pattern<Object> pattern = Pattern.compile("^(java.lang.Character)/(java.lang.Integer)$");
+    assertNotNull(pattern);
+    final List<Object> input = Arrays.<Object>asList('a', 1);
+
+    final Matcher<Object> one = pattern.matcher(input, 1);
+    assertTrue(one.matches());
+    assertEquals(1, one.groupCount());
+    assertEquals(Arrays.asList('a'), one.group(1));
+    assertNull(one.group(0));
+    assertNull(one.group(2));
+
+    final Matcher<Object> none = pattern.matcher(input, new int[0]);
+    assertTrue(none.matches());
+    assertEquals(0, none.groupCount());
+    assertNull(none.group(0));
+    assertFalse(pattern.matcher(Arrays.<Object>asList(1, 'a'), new int[0]).matches());
+
+    final Matcher<Object> all = pattern.matcher(input, (int[])null);
+    assertTrue(all.matches());
+    assertEquals(3, all.groupCount());
+  }
+
+  @Test
+  public void testOffsets() throws IOException, ParseException {
+    final Pattern<Object> pattern = Pattern.compile("(java.lang.Character)/(java.lang.Integer)");
+    assertNotNull(pattern);
+    final Matcher<Object> matcher = pattern.matcher(Arrays.<Object>asList(1, 'a', 2, 'b'));
+    assertTrue(matcher.lookingAt());
+    assertEquals(0, matcher.start());
+    assertEquals(3, matcher.end());
+    assertEquals(1, matcher.start(1));
+    assertEquals(2, matcher.end(1));
+    assertEquals(2, matcher.start(2));
+    assertEquals(3, matcher.end(2));
+    assertEquals(-1, matcher.start(3));
+    assertArrayEquals(new int[] { 0, 3, 1, 2, 2, 3 }, matcher.offsets());
+    matcher.offsets()[2] = 99;
+    assertEquals(1, matcher.start(1));
+    assertEquals(Arrays.<Object>asList('a'), matcher.group(1));
+    assertArrayEquals(new int[] { 0, 3, 1, 2, 2, 3 }, matcher.offsets());
+    final int[] target = new int[] { 7, 7, 7, 7, 7, 7, 7 };
+    assertEquals(6, matcher.offsets(target));
+    assertArrayEquals(new int[] { 0, 3, 1, 2, 2, 3, 7 }, target);
+    final int[] tooShort = new int[2];
+    assertEquals(6, matcher.offsets(tooShort));
+    assertArrayEquals(new int[] { 0, 3 }, tooShort);
+
+    final Matcher<Object> selective = pattern.matcher(Arrays.<Object>asList(1, 'a', 2, 'b'), 2);
+    assertEquals(-1, selective.start());
+    assertArrayEquals(new int[] { -1, -1, -1, -1, 2, 3 }, selective.offsets());
+
+    final Matcher<Object> none = pattern.matcher(Arrays.<Object>asList(1, 2));
+    assertEquals(-1, none.end());
+    assertEquals(0, none.offsets().length);
+    assertEquals(0, none.offsets(target));
+  }
+
+  @Test
+  public void testArrayAndIterableInput() throws IOException, ParseException {
+    final Pattern<Object> pattern = Pattern.compile("^java.lang.Character/(java.lang.Integer)$");
+    assertNotNull(pattern);
+    final Matcher<Object> arrayMatcher = pattern.matcher(new Object[] { 'a', 1 });
+    assertTrue(arrayMatcher.matches());
+    assertEquals(Arrays.asList(1), arrayMatcher.group(1));
+    final Iterable<Object> iterable = Collections.unmodifiableCollection(Arrays.<Object>asList('a', 1));
+    final Matcher<Object> iterableMatcher = pattern.matcher(iterable);
+    assertTrue(iterableMatcher.matches());
+    assertEquals(Arrays.asList(1), iterableMatcher.group(1));
+  }
+
+  @Test
+  public void testWriteAndRead() throws IOException, ParseException {
+    final List<Pattern<Object>> patterns = new ArrayList<Pattern<Object>>();
+    patterns.add(Pattern.<Object>compile("^java.lang.Character/(java.lang.Integer)$"));
+    patterns.add(Pattern.<Object>compile("java.lang.Integer(intValue() > 2)+"));
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final DataOutputStream out = new DataOutputStream(bytes);
+    Pattern.write(patterns, out);
+    out.close();
+    final List<Pattern<Object>> copies = Pattern.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    assertNotNull(copies);
+    assertEquals(2, copies.size());
+    assertEquals("^java.lang.Character/(java.lang.Integer)$", copies.get(0).toString());
+    final Matcher<Object> matcher = copies.get(0).matcher(Arrays.<Object>asList('a', 1));
+    assertTrue(matcher.matches());
+    assertEquals(Arrays.asList(1), matcher.group(1));
+    assertTrue(copies.get(1).matcher(Arrays.<Object>asList(1, 3, 4)).lookingAt());
+  }
+
+  @Test
+  public void testReadAppliesComplexityPolicy() throws IOException, ParseException {
+    final String source = "^(?:java.lang.Integer*)*/" + chain("java.lang.Object", 20).substring(1) + "$";
+    final PatternOptions<Object> route = new PatternOptions<Object>().withComplexityPolicy(ComplexityPolicy.ROUTE);
+    final List<Pattern<Object>> patterns = new ArrayList<Pattern<Object>>();
+    patterns.add(Pattern.compile(source, route));
+    patterns.add(Pattern.<Object>compile("^java.lang.Integer*/java.lang.String$", route));
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final DataOutputStream out = new DataOutputStream(bytes);
+    Pattern.write(patterns, out);
+    out.close();
+
+    // Without options, nothing is routed.
+    assertFalse(Pattern.<Object>read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))).get(0).isRouted());
+
+    final List<Pattern<Object>> copies = Pattern.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), route);
+    assertEquals(2, copies.size());
+    final Pattern<Object> routed = copies.get(0);
+    assertTrue(routed.isRouted());
+    assertFalse(copies.get(1).isRouted());
+    // Still bounded: it answers in time linear in the input.
+    final List<Object> input = new ArrayList<Object>(Collections.nCopies(30, (Object)Integer.valueOf(1)));
+    final long limit = 4L * routed.getProgram().size() * (input.size() + 1);
+    assertTrue(routed.matcher(input, MatchOptions.UNLIMITED.withMaxSteps(limit)).matches());
+    assertNotMatched(Pattern.compile(source).matcher(input, MatchOptions.UNLIMITED.withMaxSteps(limit)), limit);
+
+    try {
+      Pattern.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), route.withComplexityPolicy(ComplexityPolicy.REJECT));
+      fail();
+    } catch (final PatternTooComplexException expected) {
+      assertEquals(source, expected.getSource());
+      assertSame(Complexity.EXPONENTIAL, expected.getComplexity());
+    }
+  }
+
+  @Test
+  public void testMatchOptions() throws IOException, ParseException {
+    final Pattern<Object> pattern = Pattern.compile("^java.lang.Integer*/java.lang.String$");
+    assertNotNull(pattern);
+    assertNull(pattern.getMatchOptions());
+    final List<Object> input = Arrays.<Object>asList(1, 2, 3, 4, 5, "a");
+    assertTrue(pattern.matcher(input).matches());
+
+    final MatchOptions options = MatchOptions.UNLIMITED.withMaxSteps(5L);
+    final Matcher<Object> limited = pattern.matcher(input, options);
+    try {
+      limited.matches();
+      fail();
+    } catch (final MatchLimitExceededException expected) {
+      assertSame(MatchLimitExceededException.Limit.STEPS, expected.getLimit());
+    }
+    try {
+      limited.groupCount();
+      fail();
+    } catch (final MatchLimitExceededException expected) {
+
+    }
+
+    final Pattern<Object> bounded = Pattern.compile("^java.lang.Integer*/java.lang.String$", new PatternOptions<Object>().withMatchOptions(options));
+    assertSame(options, bounded.getMatchOptions());
+    assertNull(pattern.getMatchOptions());
+    try {
+      bounded.matcher(input).lookingAt();
+      fail();
+    } catch (final MatchLimitExceededException expected) {
+
+    }
+    assertTrue(bounded.matcher(input, MatchOptions.UNLIMITED).matches());
+  }
+
+  @Test
+  public void testPatternOptions() throws IOException, ParseException {
+    final PatternOptions<Object> defaults = new PatternOptions<Object>();
+    assertNull(defaults.getListener());
+    assertNull(defaults.getExecutor());
+    assertSame(ComplexityPolicy.IGNORE, defaults.getComplexityPolicy());
+    assertNull(defaults.getStrategy());
+    assertFalse(defaults.isStatsEnabled());
+    assertNull(defaults.getMatchOptions());
+
+    final PatternOptions<Object> lazy = defaults.withStrategy(Strategy.LAZY);
+    assertNotSame(defaults, lazy);
+    assertNull(defaults.getStrategy());
+    assertSame(Strategy.LAZY, lazy.getStrategy());
+
+    final Pattern<Object> pattern = Pattern.compile("^java.lang.Integer*$", lazy);
+    assertSame(lazy, pattern.getOptions());
+    assertSame(Strategy.LAZY, pattern.getStrategy());
+    assertNotNull(Pattern.compile("^java.lang.Integer*$").getOptions());
+  }
+
+  @Test
+  public void testStats() throws IOException, ParseException {
+    final Pattern<Object> pattern = Pattern.compile("^java.lang.Integer(intValue() > 0)*/java.lang.String$");
+    assertNotNull(pattern);
+    assertFalse(pattern.isStatsEnabled());
+    final Matcher<Object> unrecorded = pattern.matcher(Arrays.<Object>asList(1, 2, "a"));
+    assertTrue(unrecorded.matches());
+    assertNull(unrecorded.getStats());
+
+    final Pattern<Object> recorded = Pattern.compile("^java.lang.Integer(intValue() > 0)*/java.lang.String$", new PatternOptions<Object>().withStatsEnabled(true));
+    assertTrue(recorded.isStatsEnabled());
+    final Matcher<Object> first = recorded.matcher(Arrays.<Object>asList(1, 2, "a"));
+    final MatchStats firstStats = first.getStats();
+    assertNotNull(firstStats);
+    assertTrue(first.matches());
+    assertSame(firstStats, first.getStats());
+    assertTrue(firstStats.getThreadsForked() > 0);
+    assertTrue(firstStats.getInstructionsExecuted() > firstStats.getItemsRead());
+    assertTrue(firstStats.getItemsRead() >= 3);
+    assertTrue(firstStats.getClassFilterEvaluations() > 0);
+    assertTrue(firstStats.getMVELFilterEvaluations() >= 2);
+    assertTrue(firstStats.getMVELFilterTime(TimeUnit.NANOSECONDS) > 0);
+    assertTrue(firstStats.getPeakLiveThreads() > 0);
+
+    final Matcher<Object> second = recorded.matcher(Arrays.<Object>asList(1, "a", 3));
+    assertFalse(second.matches());
+    final MatchStats secondStats = second.getStats();
+    assertNotNull(secondStats);
+
+    final MatchStats totals = recorded.getStats();
+    assertNotNull(totals);
+    assertEquals(firstStats.getThreadsForked() + secondStats.getThreadsForked(), totals.getThreadsForked());
+    assertEquals(firstStats.getInstructionsExecuted() + secondStats.getInstructionsExecuted(), totals.getInstructionsExecuted());
+    assertEquals(firstStats.getItemsRead() + secondStats.getItemsRead(), totals.getItemsRead());
+    assertEquals(Math.max(firstStats.getPeakLiveThreads(), secondStats.getPeakLiveThreads()), totals.getPeakLiveThreads());
+    assertNotSame(totals, recorded.getStats());
+  }
+
+  @Test
+  public void testStrategy() throws IOException, ParseException {
+    final List<Object> input = new ArrayList<Object>();
+    for (int i = 0; i < 3000; i++) {
+      input.add(Integer.valueOf(i));
+    }
+    input.add("end");
+    final ExecutorService executorService = Executors.newFixedThreadPool(2);
+    try {
+      final PatternOptions<Object> options = new PatternOptions<Object>().withExecutor(executorService);
+      final Pattern<Object> pattern = Pattern.compile("^java.lang.Integer(intValue() >= 0)*/(java.lang.String)$", options);
+      assertNotNull(pattern);
+      assertTrue(pattern.getAnalysis().isAnchoredAtEnd());
+      assertNull(pattern.getStrategy());
+
+      Matcher<Object> matcher = pattern.matcher(input);
+      assertEquals(Strategy.ATOM_BITMAPS, matcher.getStrategy());
+      assertTrue(matcher.matches());
+      assertEquals(Collections.singletonList("end"), matcher.group(1));
+
+      matcher = pattern.matcher(input.subList(2990, input.size()));
+      assertEquals(Strategy.LAZY, matcher.getStrategy());
+      assertTrue(matcher.matches());
+
+      matcher = pattern.matcher(input, MatchOptions.UNLIMITED.withCompressedAlphabet(true));
+      assertEquals(Strategy.COMPRESSED_ALPHABET, matcher.getStrategy());
+      assertTrue(matcher.matches());
+
+      matcher = Pattern.compile("^java.lang.Integer(intValue() >= 0)*/(java.lang.String)$", options.withStrategy(Strategy.LAZY)).matcher(input);
+      assertEquals(Strategy.LAZY, matcher.getStrategy());
+      assertTrue(matcher.matches());
+      assertEquals(Collections.singletonList("end"), matcher.group(1));
+    } finally {
+      executorService.shutdown();
+    }
+    final Pattern<Object> sequential = Pattern.compile("^java.lang.Integer(intValue() >= 0)*/(java.lang.String)$");
+    assertEquals(Strategy.LAZY, sequential.matcher(input).getStrategy());
+  }
+
+  @Test
+  public void testComplexityPolicy() throws IOException, ParseException {
+    final String source = "^(?:java.lang.Integer|java.lang.Number)*$";
+    try {
+      Pattern.compile(source, new PatternOptions<Object>().withComplexityPolicy(ComplexityPolicy.REJECT));
+      fail();
+    } catch (final PatternTooComplexException expected) {
+      assertEquals(source, expected.getSource());
+      assertSame(Complexity.EXPONENTIAL, expected.getComplexity());
+    }
+    final PatternOptions<Object> options = new PatternOptions<Object>();
+    assertNotNull(Pattern.compile("^java.lang.Integer*/java.lang.String$", options.withComplexityPolicy(ComplexityPolicy.REJECT)));
+    assertFalse(Pattern.compile(source, options.withComplexityPolicy(ComplexityPolicy.WARN)).isRouted());
+    assertFalse(Pattern.compile(source, options.withComplexityPolicy(ComplexityPolicy.IGNORE)).isRouted());
+    assertFalse(Pattern.compile(source, options.withComplexityPolicy(null)).isRouted());
+
+    final PatternOptions<Object> route = options.withComplexityPolicy(ComplexityPolicy.ROUTE);
+    final Pattern<Object> routed = Pattern.compile(source, route);
+    assertTrue(routed.isRouted());
+    assertFalse(Pattern.compile("^java.lang.Integer*/java.lang.String$", route).isRouted());
+    final List<Object> input = new ArrayList<Object>(Collections.nCopies(50, (Object)Integer.valueOf(1)));
+    input.add("x");
+    assertFalse(Pattern.compile(source, route.withMatchOptions(MatchOptions.UNLIMITED.withMaxSteps(10L))).matcher(input).matches());
+    input.remove(input.size() - 1);
+    assertTrue(routed.matcher(input).matches());
+  }
+
+  @Test
+  public void testMatchPriority() throws IOException, ParseException {
+    // The examples in the class documentation of Pattern.
+    final List<Object> input = Arrays.<Object>asList(1, 2, "s");
+    final Matcher<Object> greedy = Pattern.compile("^(java.lang.Integer*)/(java.lang.Integer*)").matcher(input);
+    assertTrue(greedy.lookingAt());
+    assertEquals(Arrays.<Object>asList(1, 2), greedy.group(0));
+    assertEquals(Arrays.<Object>asList(1, 2), greedy.group(1));
+    assertEquals(2, greedy.start(2));
+    assertEquals(2, greedy.end(2));
+    final Matcher<Object> alternation = Pattern.compile("java.lang.String|java.lang.Integer").matcher(input);
+    assertTrue(alternation.lookingAt());
+    assertEquals(input, alternation.group(0));
+  }
+
+  @Test
+  public void testRoutedPatternIsBounded() throws IOException, ParseException {
+    // Nested stars followed by twenty atoms: every way of giving
+    // items back to the atoms is tried before the match is found.
+    final String source = "^(?:java.lang.Integer*)*/" + chain("java.lang.Object", 20).substring(1) + "$";
+    final List<Object> input = new ArrayList<Object>(Collections.nCopies(30, (Object)Integer.valueOf(1)));
+    final Pattern<Object> unrouted = Pattern.compile(source);
+    assertFalse(unrouted.isRouted());
+    assertNotMatched(unrouted.matcher(input, MatchOptions.UNLIMITED.withMaxSteps(1000000L)), 1000000L);
+
+    final Pattern<Object> routed = Pattern.compile(source, new PatternOptions<Object>().withComplexityPolicy(ComplexityPolicy.ROUTE));
+    assertTrue(routed.isRouted());
+    assertTrue(routed.getAnalysis().isMemoizable());
+    // Routing answers, and in time linear in the input.
+    final long limit = 4L * routed.getProgram().size() * (input.size() + 1);
+    Matcher<Object> matcher = routed.matcher(input, MatchOptions.UNLIMITED.withMaxSteps(limit));
+    assertTrue(matcher.matches());
+    assertEquals(input, matcher.group(0));
+    // Too few items for the twenty atoms.
+    assertFalse(routed.matcher(input.subList(0, 19), MatchOptions.UNLIMITED.withMaxSteps(limit)).matches());
+    // Much more input is no trouble either.
+    final List<Object> moreInput = new ArrayList<Object>(Collections.nCopies(10000, (Object)Integer.valueOf(1)));
+    assertTrue(routed.matcher(moreInput).matches());
+    // Matcher options can still lower the limit.
+    assertNotMatched(routed.matcher(input, MatchOptions.UNLIMITED.withMaxSteps(100L)), 100L);
+  }
+
+  @Test
+  public void testRoutedPatternThatCannotBeMemoizedMayGiveUp() throws IOException, ParseException {
+    // The bounded repetition keeps a counter, so Threads at the same
+    // instruction and item may still differ.
+    final String source = "^(?:java.lang.Integer*)*/java.lang.Number{20}$";
+    final List<Object> input = new ArrayList<Object>(Collections.nCopies(30, (Object)Integer.valueOf(1)));
+    final Pattern<Object> routed = Pattern.compile(source, new PatternOptions<Object>().withComplexityPolicy(ComplexityPolicy.ROUTE));
+    assertTrue(routed.isRouted());
+    assertFalse(routed.getAnalysis().isMemoizable());
+    final long limit = Pattern.ROUTED_STEPS_PER_INSTRUCTION * routed.getProgram().size() * (input.size() + 1);
+    // The input matches, as the same pattern with the repetition
+    // written out shows, but finding out takes too long.
+    final String unrolled = "^(?:java.lang.Integer*)*/" + chain("java.lang.Number", 20).substring(1) + "$";
+    assertTrue(Pattern.compile(unrolled, new PatternOptions<Object>().withComplexityPolicy(ComplexityPolicy.ROUTE)).matcher(input).matches());
+    assertNotMatched(routed.matcher(input), limit);
+    // Matcher options cannot raise the limit, but can lower it.
+    assertNotMatched(routed.matcher(input, MatchOptions.UNLIMITED), limit);
+    assertNotMatched(routed.matcher(input, MatchOptions.UNLIMITED.withMaxSteps(100L)), 100L);
+    // Input that cannot match is ruled out without backtracking.
+    input.add("x");
+    assertFalse(routed.matcher(input, MatchOptions.UNLIMITED.withMaxSteps(1L)).matches());
+  }
+
+  @Test
+  public void testCompileTimeIsLinearInChainLength() throws IOException, ParseException {
+    for (final String atom : new String[] { "java.lang.Object?", "java.lang.Object*" }) {
+      final long shortChain = bestCompileNanos(chain(atom, 125));
+      final long longChain = bestCompileNanos(chain(atom, 1000));
+      // Eight times the atoms; quadratic growth would be 64 times.
+      assertTrue(atom + ": " + shortChain + " ns vs. " + longChain + " ns", longChain < 16L * shortChain + TimeUnit.MILLISECONDS.toNanos(50L));
+    }
+  }
+
+  @Test
+  public void testComplexityAnalysisIsBounded() throws IOException, ParseException {
+    for (final String atom : new String[] { "java.lang.Object?", "java.lang.Object*" }) {
+      final String source = chain(atom, 250);
+      final long start = System.nanoTime();
+      try {
+        Pattern.compile(source, new PatternOptions<Object>().withComplexityPolicy(ComplexityPolicy.REJECT));
+      } catch (final PatternTooComplexException tooLongToSearch) {
+        assertSame(Complexity.EXPONENTIAL, tooLongToSearch.getComplexity());
+      }
+      assertTrue(atom, System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2L));
+    }
+  }
+
+  @Test
+  public void testExplain() throws IOException, ParseException {
+    final Pattern<Object> pattern = Pattern.compile("^java.lang.Integer*/java.lang.Integer*/(java.lang.String)$");
+    final Plan plan = pattern.explain();
+    assertNotNull(plan);
+    assertEquals("^java.lang.Integer*/java.lang.Integer*/(java.lang.String)$", plan.getSource());
+    assertEquals(pattern.getProgram().toString(), plan.getListing());
+    assertSame(pattern.getAnalysis(), plan.getAnalysis());
+    assertEquals(Strategy.LAZY, plan.getStrategy(0));
+    assertEquals(Strategy.LAZY, plan.getStrategy(Integer.MAX_VALUE));
+    assertEquals(0, plan.getStrategyThreshold());
+    assertTrue(plan.isAnchoredAtStart());
+    assertTrue(plan.isAnchoredAtEnd());
+    assertEquals(1, plan.getRequiredAtoms().size());
+    assertEquals(3, plan.getMaximumFanOut());
+    assertTrue(plan.risksSuperlinearTime());
+    final String text = plan.toString();
+    assertTrue(text, text.contains("superlinear risk:  yes"));
+    assertEquals(Complexity.POLYNOMIAL, plan.getComplexity());
+    assertFalse(plan.hasEmptyLoop());
+    assertTrue(text, text.contains("complexity:        POLYNOMIAL"));
+    assertTrue(text, text.contains(plan.getListing()));
+
+    final Pattern<Object> compressed = Pattern.compile("^java.lang.Integer*/java.lang.Integer*/(java.lang.String)$", new PatternOptions<Object>().withStrategy(Strategy.COMPRESSED_ALPHABET));
+    assertEquals(Strategy.COMPRESSED_ALPHABET, compressed.explain().getStrategy(10));
+    assertEquals(Strategy.LAZY, plan.getStrategy(10));
+
+    final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    try {
+      final Plan parallel = Pattern.compile("^java.lang.Integer*/(java.lang.String)$", new PatternOptions<Object>().withExecutor(executorService)).explain();
+      assertEquals(1024, parallel.getStrategyThreshold());
+      assertEquals(Strategy.LAZY, parallel.getStrategy(1023));
+      assertEquals(Strategy.ATOM_BITMAPS, parallel.getStrategy(1024));
+      assertFalse(parallel.risksSuperlinearTime());
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
+  private static final void assertNotMatched(final Matcher<?> matcher, final long maxSteps) {
+    try {
+      matcher.matches();
+      fail();
+    } catch (final MatchLimitExceededException expected) {
+      assertTrue(expected.getSteps() <= maxSteps + 1L);
+    }
+  }
+
+  private static final String chain(final String atom, final int length) {
+    final StringBuilder sb = new StringBuilder("^");
+    for (int i = 0; i < length; i++) {
+      if (i > 0) {
+        sb.append('/');
+      }
+      sb.append(atom);
+    }
+    return sb.toString();
+  }
+
+  private static final long bestCompileNanos(final String source) throws IOException, ParseException {
+    long best = Long.MAX_VALUE;
+    for (int i = 0; i < 5; i++) {
+      final long start = System.nanoTime();
+      Pattern.compile(source);
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    return best;
+  }
+
 }
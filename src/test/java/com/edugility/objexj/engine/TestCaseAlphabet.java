@@ -0,0 +1,232 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.io.IOException;
+
+import java.text.ParseException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.edugility.objexj.parser.Parser;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseAlphabet {
+
+  private static final MatchOptions COMPRESSED = MatchOptions.UNLIMITED.withCompressedAlphabet(true);
+
+  private Parser parser;
+
+  public TestCaseAlphabet() {
+    super();
+  }
+
+  @Before
+  public void setUp() {
+    this.parser = new Parser();
+  }
+
+  @Test
+  public void testOf() throws IOException, ParseException {
+    assertNull(Alphabet.of(new Program<Object>(new Match<Object>())));
+    // java.lang.Integer appears twice in the program but is one atom.
+    final Alphabet<Object> alphabet = Alphabet.of(this.parser.<Object>parse("^java.lang.Integer/java.lang.String(length() > 2)*/java.lang.Integer$"));
+    assertNotNull(alphabet);
+    assertEquals(2, alphabet.getAtomCount());
+    assertNull(Alphabet.of(this.parser.<Object>parse("^java.lang.Integer(last = intValue(); true)$")));
+  }
+
+  @Test
+  public void testClassify() throws IOException, ParseException {
+    final Program<Object> program = this.parser.parse("^java.lang.Integer(intValue() > 0)*/java.lang.String$");
+    final Alphabet<Object> alphabet = Alphabet.of(program);
+    assertNotNull(alphabet);
+    final List<Object> input = new ArrayList<Object>();
+    for (int i = 0; i < 1000; i++) {
+      input.add(Integer.valueOf(i % 3 - 1));
+    }
+    input.add("end");
+    input.add(null);
+    final MatchStats stats = new MatchStats();
+    final ClassifiedInput classified = alphabet.classify(input, null, stats, null);
+    assertNotNull(classified);
+    assertEquals(input.size(), classified.size());
+    // Positive Integers, Strings, and everything else (including
+    // null), which no atom accepts.
+    assertEquals(3, classified.getSymbolCount());
+    assertEquals(classified.getSymbol(1), classified.getSymbol(4));
+    assertEquals(classified.getSymbol(0), classified.getSymbol(1001));
+    assertFalse(classified.getSymbol(0) == classified.getSymbol(2));
+    // Only Integers get as far as the MVEL expression.
+    assertEquals(1000L, stats.getMVELFilterEvaluations());
+    final int integerFilter = indexOf(program, InstanceOfMVELFilter.class, 0);
+    final int stringFilter = indexOf(program, InstanceOfMVELFilter.class, integerFilter + 1);
+    assertEquals(FilterMemo.REJECTED, classified.recall(integerFilter, 0));
+    assertEquals(FilterMemo.ACCEPTED, classified.recall(integerFilter, 2));
+    assertEquals(FilterMemo.REJECTED, classified.recall(stringFilter, 2));
+    assertEquals(FilterMemo.ACCEPTED, classified.recall(stringFilter, 1000));
+    assertEquals(FilterMemo.REJECTED, classified.recall(stringFilter, 1001));
+    assertEquals(FilterMemo.UNKNOWN, classified.recall(stringFilter, 1002));
+    assertEquals(FilterMemo.UNKNOWN, classified.recall(0, 0));
+  }
+
+  @Test
+  public void testParallelClassificationAgrees() throws IOException, ParseException {
+    final Alphabet<Object> alphabet = Alphabet.of(this.parser.<Object>parse("^java.lang.Integer(intValue() % 7 == 0)/java.lang.Number(intValue() % 2 == 1)*/java.lang.Long$"));
+    assertNotNull(alphabet);
+    final List<Object> input = new ArrayList<Object>();
+    for (int i = 0; i < 10 * Alphabet.CHUNK_SIZE + 17; i++) {
+      input.add(i % 5 == 0 ? (Object)Long.valueOf(i) : (Object)Integer.valueOf(i));
+    }
+    final ClassifiedInput sequential = alphabet.classify(input, null, null, null);
+    assertNotNull(sequential);
+    final ExecutorService executorService = Executors.newFixedThreadPool(4);
+    try {
+      final AtomicInteger tasks = new AtomicInteger();
+      final Executor executor = new Executor() {
+          @Override
+          public final void execute(final Runnable task) {
+            tasks.incrementAndGet();
+            executorService.execute(task);
+          }
+        };
+      final MatchStats stats = new MatchStats();
+      final ClassifiedInput parallel = alphabet.classify(input, executor, stats, null);
+      assertNotNull(parallel);
+      assertEquals(10, tasks.get());
+      assertEquals(sequential.getSymbolCount(), parallel.getSymbolCount());
+      for (int i = 0; i < input.size(); i++) {
+        assertEquals(sequential.getSymbol(i), parallel.getSymbol(i));
+      }
+      assertTrue(stats.getMVELFilterEvaluations() > 0L);
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
+  @Test
+  public void testBudgetIsCheckedWhileClassifying() throws InterruptedException, IOException, ParseException {
+    final Alphabet<Object> alphabet = Alphabet.of(this.parser.<Object>parse("^java.lang.Integer(intValue() % 7 == 0)*"));
+    final List<Object> input = new ArrayList<Object>();
+    for (int i = 0; i < 4 * Alphabet.CHUNK_SIZE; i++) {
+      input.add(Integer.valueOf(i));
+    }
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      final MatchBudget expired = new MatchBudget(MatchOptions.UNLIMITED.withTimeout(1L, TimeUnit.NANOSECONDS));
+      java.lang.Thread.sleep(1L);
+      try {
+        alphabet.evaluate(input, executor, null, expired);
+        fail();
+      } catch (final MatchLimitExceededException expected) {
+        assertSame(MatchLimitExceededException.Limit.TIMEOUT, expected.getLimit());
+      }
+      final MatchBudget interruptible = new MatchBudget(MatchOptions.UNLIMITED.withInterruptible(true));
+      java.lang.Thread.currentThread().interrupt();
+      try {
+        alphabet.classify(input, null, null, interruptible);
+        fail();
+      } catch (final MatchLimitExceededException expected) {
+        assertSame(MatchLimitExceededException.Limit.INTERRUPT, expected.getLimit());
+      } finally {
+        java.lang.Thread.interrupted();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testMatchesAgree() throws IOException, ParseException {
+    final List<Object> input = new ArrayList<Object>();
+    for (int i = 0; i < 200; i++) {
+      input.add(Integer.valueOf(i));
+    }
+    input.add("end");
+    final List<String> sources = Arrays.asList("^java.lang.Integer(intValue() >= 0)*/java.lang.Integer(intValue() >= 0)*/java.lang.String$",
+                                               "^(?:java.lang.Integer(intValue() % 2 == 0)|java.lang.Integer)*/(java.lang.String)$",
+                                               "java.lang.Integer(intValue() > 150)+",
+                                               "^java.lang.Integer(intValue() < 0)");
+    for (final String source : sources) {
+      final Program<Object> program = this.parser.parse(source);
+      final MatchStats lazyStats = new MatchStats();
+      final MatchResult<?> lazy = new Engine<Object>().run(program, input, null, lazyStats);
+      final MatchStats compressedStats = new MatchStats();
+      final MatchResult<?> compressed = new Engine<Object>().run(program, input, null, compressedStats, COMPRESSED);
+      if (lazy == null) {
+        assertNull(source, compressed);
+      } else {
+        assertNotNull(source, compressed);
+        assertEquals(source, lazy.getEndIndex(), compressed.getEndIndex());
+        assertEquals(source, lazy.getGroupKeySet(), compressed.getGroupKeySet());
+        for (final Object key : lazy.getGroupKeySet()) {
+          assertEquals(source, lazy.getGroup(key), compressed.getGroup(key));
+        }
+      }
+      assertEquals(source, lazyStats.getThreadsForked(), compressedStats.getThreadsForked());
+      assertTrue(source, compressedStats.getMVELFilterEvaluations() <= 2L * input.size());
+    }
+  }
+
+  @Test
+  public void testFailingAtomFallsBack() throws IOException, ParseException {
+    // The second alternative cannot be evaluated (x is not set), but
+    // a lazy run never reaches it.
+    final Program<Object> program = this.parser.parse("^(java.lang.Integer|java.lang.String(length() > x))");
+    final List<Object> input = Arrays.<Object>asList(Integer.valueOf(1), "abc");
+    assertNull(Alphabet.of(program).classify(input, null, null, null));
+    final MatchResult<?> result = new Engine<Object>().run(program, input, null, null, COMPRESSED);
+    assertNotNull(result);
+    assertEquals(1, result.getEndIndex());
+  }
+
+  private static final int indexOf(final Program<?> program, final Class<?> c, final int from) {
+    int i = 0;
+    for (final Instruction<?> instruction : program) {
+      if (i >= from && c.isInstance(instruction)) {
+        return i;
+      }
+      i++;
+    }
+    return -1;
+  }
+
+}
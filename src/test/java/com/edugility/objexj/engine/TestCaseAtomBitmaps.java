@@ -0,0 +1,140 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.io.IOException;
+
+import java.text.ParseException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.edugility.objexj.parser.Parser;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseAtomBitmaps {
+
+  private static final MatchOptions BITMAPS = MatchOptions.UNLIMITED.withAtomBitmaps(true);
+
+  private Parser parser;
+
+  public TestCaseAtomBitmaps() {
+    super();
+  }
+
+  @Before
+  public void setUp() {
+    this.parser = new Parser();
+  }
+
+  @Test
+  public void testEvaluate() throws IOException, ParseException {
+    final Program<Object> program = this.parser.parse("^java.lang.Integer(intValue() % 3 == 0)*/java.lang.Number(intValue() % 2 == 1)*/java.lang.Long$");
+    final Alphabet<Object> alphabet = Alphabet.of(program);
+    assertNotNull(alphabet);
+    assertEquals(3, alphabet.getAtomCount());
+    final List<Object> input = new ArrayList<Object>();
+    for (int i = 0; i < 3 * Alphabet.CHUNK_SIZE + 45; i++) {
+      input.add(i % 10 == 0 ? (Object)Long.valueOf(i) : (Object)Integer.valueOf(i));
+    }
+    final AtomBitmaps sequential = alphabet.evaluate(input, null, null, null);
+    assertNotNull(sequential);
+    assertEquals(input.size(), sequential.size());
+    final ClassifiedInput classified = alphabet.classify(input, null, null, null);
+    assertNotNull(classified);
+    final ExecutorService executorService = Executors.newFixedThreadPool(3);
+    try {
+      final MatchStats stats = new MatchStats();
+      final AtomBitmaps parallel = alphabet.evaluate(input, executorService, stats, null);
+      assertNotNull(parallel);
+      assertTrue(stats.getMVELFilterEvaluations() > 0L);
+      for (int atom = 0; atom < alphabet.getAtomCount(); atom++) {
+        assertEquals(sequential.cardinality(atom), parallel.cardinality(atom));
+      }
+      for (int position = 0; position < program.size(); position++) {
+        for (int i = 0; i < input.size(); i++) {
+          final int expected = classified.recall(position, i);
+          assertEquals(expected, sequential.recall(position, i));
+          assertEquals(expected, parallel.recall(position, i));
+        }
+      }
+    } finally {
+      executorService.shutdown();
+    }
+    assertEquals(FilterMemo.UNKNOWN, sequential.recall(0, input.size()));
+  }
+
+  @Test
+  public void testMatchesAgree() throws IOException, ParseException {
+    final List<Object> input = new ArrayList<Object>();
+    for (int i = 0; i < 130; i++) {
+      input.add(Integer.valueOf(i));
+    }
+    input.add("end");
+    final List<String> sources = Arrays.asList("^java.lang.Integer(intValue() >= 0)*/java.lang.Integer(intValue() >= 0)*/java.lang.String$",
+                                               "^(?:java.lang.Integer(intValue() % 2 == 0)|java.lang.Integer)*/(java.lang.String)$",
+                                               "java.lang.Integer(intValue() > 100)+",
+                                               "^java.lang.Integer(intValue() < 0)");
+    for (final String source : sources) {
+      final Program<Object> program = this.parser.parse(source);
+      final MatchResult<?> lazy = new Engine<Object>().run(program, input);
+      final MatchStats stats = new MatchStats();
+      final MatchResult<?> bitmaps = new Engine<Object>().run(program, input, null, stats, BITMAPS);
+      if (lazy == null) {
+        assertNull(source, bitmaps);
+      } else {
+        assertNotNull(source, bitmaps);
+        assertEquals(source, lazy.getEndIndex(), bitmaps.getEndIndex());
+        assertEquals(source, lazy.getGroupKeySet(), bitmaps.getGroupKeySet());
+        for (final Object key : lazy.getGroupKeySet()) {
+          assertEquals(source, lazy.getGroup(key), bitmaps.getGroup(key));
+        }
+      }
+      assertTrue(source, stats.getMVELFilterEvaluations() <= 2L * input.size());
+    }
+  }
+
+  @Test
+  public void testFailingAtomFallsBack() throws IOException, ParseException {
+    final Program<Object> program = this.parser.parse("^(java.lang.Integer|java.lang.String(length() > x))");
+    final List<Object> input = Arrays.<Object>asList(Integer.valueOf(1), "abc");
+    assertNull(Alphabet.of(program).evaluate(input, null, null, null));
+    final MatchResult<?> result = new Engine<Object>().run(program, input, null, null, BITMAPS);
+    assertNotNull(result);
+    assertEquals(1, result.getEndIndex());
+  }
+
+}
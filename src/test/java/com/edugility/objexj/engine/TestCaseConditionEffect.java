@@ -0,0 +1,115 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.io.IOException;
+
+import java.text.ParseException;
+
+import com.edugility.objexj.parser.Parser;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseConditionEffect {
+
+  public TestCaseConditionEffect() {
+    super();
+  }
+
+  @Test
+  public void testPure() {
+    assertEquals(ConditionEffect.PURE, ConditionAnalyzer.analyze(null));
+    assertEquals(ConditionEffect.PURE, ConditionAnalyzer.analyze("charValue() == 'a'"));
+    assertEquals(ConditionEffect.PURE, ConditionAnalyzer.analyze("intValue() >= 0 && intValue() != 3"));
+    assertEquals(ConditionEffect.PURE, ConditionAnalyzer.analyze("toString() == \"a = b\""));
+    assertEquals(ConditionEffect.PURE, ConditionAnalyzer.analyze("this.intValue() > 0"));
+    assertEquals(ConditionEffect.PURE, ConditionAnalyzer.analyze("!(intValue() < 0)"));
+    assertEquals(ConditionEffect.PURE, ConditionAnalyzer.analyze("true"));
+  }
+
+  @Test
+  public void testReadsVariables() {
+    assertEquals(ConditionEffect.READS_VARIABLES, ConditionAnalyzer.analyze("message == \"third\""));
+    assertEquals(ConditionEffect.READS_VARIABLES, ConditionAnalyzer.analyze("intValue() > x"));
+    assertEquals(ConditionEffect.READS_VARIABLES, ConditionAnalyzer.analyze("list.contains(this)"));
+  }
+
+  @Test
+  public void testWritesVariables() {
+    assertEquals(ConditionEffect.WRITES_VARIABLES, ConditionAnalyzer.analyze("fred = \"bozo\"; return charValue() == 'b'"));
+    assertEquals(ConditionEffect.WRITES_VARIABLES, ConditionAnalyzer.analyze("last = intValue(); true"));
+    assertEquals(ConditionEffect.WRITES_VARIABLES, ConditionAnalyzer.analyze("z += 1; true"));
+    assertEquals(ConditionEffect.WRITES_VARIABLES, ConditionAnalyzer.analyze("z++ > 0"));
+    assertEquals(ConditionEffect.WRITES_VARIABLES, ConditionAnalyzer.analyze("this.foo = 3"));
+    assertEquals(ConditionEffect.WRITES_VARIABLES, ConditionAnalyzer.analyze("if (intValue() > 0) { z = 1 }; true"));
+    assertEquals(ConditionEffect.WRITES_VARIABLES, ConditionAnalyzer.analyze("intValue() >"));
+  }
+
+  @Test
+  public void testHasAssignmentOperator() {
+    assertFalse(ConditionAnalyzer.hasAssignmentOperator("a == b && c != d && e <= f && g >= h && i ~= 'j'"));
+    assertFalse(ConditionAnalyzer.hasAssignmentOperator("a == \"b = c\" || d == 'e++'"));
+    assertFalse(ConditionAnalyzer.hasAssignmentOperator("a == \"\\\" = \""));
+    assertTrue(ConditionAnalyzer.hasAssignmentOperator("a = b"));
+    assertTrue(ConditionAnalyzer.hasAssignmentOperator("a *= b"));
+    assertTrue(ConditionAnalyzer.hasAssignmentOperator("a-- > 0"));
+  }
+
+  @Test
+  public void testProgramConditionEffect() throws IOException, ParseException {
+    final Parser parser = new Parser();
+    Program<Object> program = parser.parse("^java.lang.Integer*$");
+    assertEquals(ConditionEffect.PURE, program.getConditionEffect());
+    assertNull(program.getConditionEffect(0));
+
+    program = parser.parse("^java.lang.Integer(intValue() > 0)*/java.lang.String(length() > x)$");
+    assertEquals(ConditionEffect.READS_VARIABLES, program.getConditionEffect());
+
+    program = parser.parse("^java.lang.Integer(last = intValue(); true)*/java.lang.String(length() > last)$");
+    assertEquals(ConditionEffect.WRITES_VARIABLES, program.getConditionEffect());
+    boolean sawWriter = false;
+    boolean sawReader = false;
+    for (int i = 0; i < program.size(); i++) {
+      final ConditionEffect effect = program.getConditionEffect(i);
+      sawWriter = sawWriter || effect == ConditionEffect.WRITES_VARIABLES;
+      sawReader = sawReader || effect == ConditionEffect.READS_VARIABLES;
+    }
+    assertTrue(sawWriter);
+    assertTrue(sawReader);
+  }
+
+  @Test
+  public void testMax() {
+    assertEquals(ConditionEffect.PURE, ConditionEffect.PURE.max(null));
+    assertEquals(ConditionEffect.READS_VARIABLES, ConditionEffect.PURE.max(ConditionEffect.READS_VARIABLES));
+    assertEquals(ConditionEffect.WRITES_VARIABLES, ConditionEffect.WRITES_VARIABLES.max(ConditionEffect.READS_VARIABLES));
+  }
+
+}
@@ -32,6 +32,7 @@ import java.io.IOException;
 import java.text.ParseException;
 
 import java.util.Arrays;
+import java.util.LinkedList;
 import java.util.List;
 
 import org.junit.Before;
@@ -60,4 +61,95 @@ public class TestCaseEngine {
     assertTrue(match.matches());
   }
 
+  @Test
+  public void testCaptureAfterProbe() throws IOException, ParseException {
+    final Engine<Object> engine = new Engine<Object>();
+    final Parser parser = new Parser();
+    final Program<Object> program = parser.parse("(java.lang.Character*)/java.lang.Character/java.lang.Integer");
+    assertNotNull(program);
+
+    assertNull(engine.run(program, Arrays.<Object>asList(1, 'a', 'b', 'c')));
+
+    // The probe run finds a match ending before the trailing 'd';
+    // the capturing run must arrive at the same match even though it
+    // may not read that far.
+    final MatchResult<?> match = engine.run(program, Arrays.<Object>asList(1, 'a', 'b', 'c', 2, 'd'));
+    assertNotNull(match);
+    assertTrue(match.lookingAt());
+    assertFalse(match.matches());
+    assertEquals(Arrays.asList('a', 'b'), match.getGroup(Integer.valueOf(1)));
+    assertEquals(Arrays.<Object>asList(1, 'a', 'b', 'c', 2), match.getGroup(Integer.valueOf(0)));
+  }
+
+  @Test
+  public void testLinkedListInputIsNotReadByIndex() throws IOException, ParseException {
+    final Engine<Character> engine = new Engine<Character>();
+    final Program<Character> program = new Parser().parse("^java.lang.Character*/java.lang.Character(charValue() == 'z')$");
+    assertNotNull(program);
+    final int[] indexedReads = new int[1];
+    final List<Character> input = new LinkedList<Character>() {
+        private static final long serialVersionUID = 1L;
+        @Override
+        public final Character get(final int index) {
+          indexedReads[0]++;
+          return super.get(index);
+        }
+      };
+    for (int i = 0; i < 1000; i++) {
+      input.add(Character.valueOf('a'));
+    }
+    input.add(Character.valueOf('z'));
+    final MatchResult<? extends Character> match = engine.run(program, input);
+    assertNotNull(match);
+    assertTrue(match.matches());
+    assertEquals(0, indexedReads[0]);
+  }
+
+  @Test
+  public void testUnanchoredMatchIsLeftmost() throws IOException, ParseException {
+    final Engine<Object> engine = new Engine<Object>();
+    final Program<Object> program = new Parser().parse("(java.lang.Integer)");
+    assertNotNull(program);
+    final MatchResult<?> match = engine.run(program, Arrays.<Object>asList('a', 1, 'b', 2));
+    assertNotNull(match);
+    assertEquals(1, match.start(1));
+    assertEquals(2, match.end(1));
+    assertEquals(Arrays.asList(1), match.getGroup(Integer.valueOf(1)));
+  }
+
+  @Test
+  public void testGreedyRepetitionPrefersLongestThenBacktracks() throws IOException, ParseException {
+    final Engine<Object> engine = new Engine<Object>();
+    final Program<Object> program = new Parser().parse("^(java.lang.Character*)/java.lang.Character(charValue() == 'z')");
+    assertNotNull(program);
+    final MatchResult<?> match = engine.run(program, Arrays.<Object>asList('a', 'z', 'b', 'z', 'c'));
+    assertNotNull(match);
+    assertEquals(Arrays.asList('a', 'z', 'b'), match.getGroup(Integer.valueOf(1)));
+    assertEquals(4, match.end());
+  }
+
+  @Test
+  public void testFirstAlternativeIsPreferred() throws IOException, ParseException {
+    final Engine<Object> engine = new Engine<Object>();
+    final Program<Object> program = new Parser().parse("^(java.lang.Object|java.lang.Character)");
+    assertNotNull(program);
+    final MatchResult<?> match = engine.run(program, Arrays.<Object>asList('a'));
+    assertNotNull(match);
+    assertEquals(Arrays.asList('a'), match.getGroup(Integer.valueOf(1)));
+    assertEquals(1, match.end());
+  }
+
+  @Test
+  public void testEmptyCaptureAtEndOfInput() throws IOException, ParseException {
+    final Engine<Object> engine = new Engine<Object>();
+    final Program<Object> program = new Parser().parse("^java.lang.Character/(java.lang.Integer*)$");
+    assertNotNull(program);
+    final MatchResult<?> match = engine.run(program, Arrays.<Object>asList('a'));
+    assertNotNull(match);
+    assertTrue(match.matches());
+    assertEquals(1, match.start(1));
+    assertEquals(1, match.end(1));
+    assertTrue(match.getGroup(Integer.valueOf(1)).isEmpty());
+  }
+
 }
@@ -0,0 +1,197 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.io.IOException;
+
+import java.text.ParseException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.edugility.objexj.parser.Parser;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseFilterMemo {
+
+  private Parser parser;
+
+  public TestCaseFilterMemo() {
+    super();
+  }
+
+  @Before
+  public void setUp() {
+    this.parser = new Parser();
+  }
+
+  @Test
+  public void testIsMemoizable() {
+    final ConditionEffect pure = ConditionEffect.PURE;
+    final ConditionEffect writes = ConditionEffect.WRITES_VARIABLES;
+    assertTrue(FilterMemo.isMemoizable(new InstanceOfMVELFilter<Object>(Character.class, "charValue() == 'a'"), writes));
+    assertTrue(FilterMemo.isMemoizable(new MVELFilter<Object>("intValue() > 0"), writes));
+    assertFalse(FilterMemo.isMemoizable(new InstanceOfMVELFilter<Object>(Character.class, "fred = \"bozo\"; return charValue() == 'b'"), writes));
+    assertTrue(FilterMemo.isMemoizable(new InstanceOfMVELFilter<Object>(Integer.class, "intValue() > x"), ConditionEffect.READS_VARIABLES));
+    assertFalse(FilterMemo.isMemoizable(new InstanceOfMVELFilter<Object>(Integer.class, "intValue() > x"), writes));
+    assertFalse(FilterMemo.isMemoizable(new InstanceOfMVELFilter<Object>(Integer.class), pure));
+    assertFalse(FilterMemo.isMemoizable(new MVELFilter<Object>(null), pure));
+    assertFalse(FilterMemo.isMemoizable(new Match<Object>(), pure));
+  }
+
+  @Test
+  public void testRecallAndRemember() throws IOException, ParseException {
+    final Program<Object> program = this.parser.parse("^java.lang.Integer(intValue() > 0)/java.lang.Integer$");
+    final int filterIndex = indexOfMemoizable(program);
+    assertTrue(filterIndex >= 0);
+    final FilterMemo memo = FilterMemo.of(program, 100);
+    assertNotNull(memo);
+    for (int position = 0; position <= 100; position++) {
+      assertEquals(FilterMemo.UNKNOWN, memo.recall(filterIndex, position));
+    }
+    memo.remember(filterIndex, 0, true);
+    memo.remember(filterIndex, 31, false);
+    memo.remember(filterIndex, 32, true);
+    memo.remember(filterIndex, 100, false);
+    assertEquals(FilterMemo.ACCEPTED, memo.recall(filterIndex, 0));
+    assertEquals(FilterMemo.UNKNOWN, memo.recall(filterIndex, 1));
+    assertEquals(FilterMemo.REJECTED, memo.recall(filterIndex, 31));
+    assertEquals(FilterMemo.ACCEPTED, memo.recall(filterIndex, 32));
+    assertEquals(FilterMemo.REJECTED, memo.recall(filterIndex, 100));
+    assertEquals(FilterMemo.UNKNOWN, memo.recall(filterIndex, 101));
+    assertEquals(FilterMemo.UNKNOWN, memo.recall(filterIndex, -1));
+    assertEquals(FilterMemo.UNKNOWN, memo.recall(filterIndex, Thread.VALID_NO_INPUT_POINTER));
+
+    // Other instructions are never remembered.
+    memo.remember(filterIndex + 1, 0, true);
+    assertEquals(FilterMemo.UNKNOWN, memo.recall(filterIndex + 1, 0));
+
+    assertNotNull(FilterMemo.of(this.parser.parse("^java.lang.Integer*/java.lang.String(length() > x)$"), 10));
+    assertNull(FilterMemo.of(this.parser.parse("^java.lang.Integer(last = intValue(); true)*/java.lang.String(length() > last)$"), 10));
+  }
+
+  @Test
+  public void testEachConditionEvaluatedOncePerItem() throws IOException, ParseException {
+    final String counted = "java.lang.Number";
+    // Two stars over the same items followed by an atom that is
+    // missing: every way of dividing the items between the stars is
+    // tried, but each star's condition need only be evaluated once
+    // per item.
+    final Program<Object> program = this.parser.parse("^" + counted + "(getValue() >= 0)*/" + counted + "(getValue() >= 0)*/java.lang.String$");
+    final int size = 50;
+    final List<Object> input = new ArrayList<Object>();
+    for (int i = 0; i < size; i++) {
+      input.add(new Counted(i));
+    }
+    Counted.calls = 0;
+    final MatchStats stats = new MatchStats();
+    assertNull(new Engine<Object>().run(program, input, null, stats));
+    // Each star's condition is also evaluated once at the end of
+    // the input, where there is no item to call it on.
+    assertTrue(String.valueOf(Counted.calls), Counted.calls <= 2 * size);
+    assertTrue(stats.getMVELFilterEvaluations() <= 2 * (size + 1));
+    assertTrue(stats.getFilterResultsRecalled() > size);
+
+    input.add("end");
+    Counted.calls = 0;
+    final MatchResult<?> result = new Engine<Object>().run(program, input);
+    assertNotNull(result);
+    assertTrue(result.matches());
+    assertTrue(String.valueOf(Counted.calls), Counted.calls <= 2 * size);
+  }
+
+  @Test
+  public void testVariablesAreNotMemoized() throws IOException, ParseException {
+    final Program<Object> program = this.parser.parse("^java.lang.Integer(last = intValue(); true)*/java.lang.String$");
+    assertEquals(-1, indexOfMemoizable(program));
+    final List<Object> input = new ArrayList<Object>();
+    input.add(Integer.valueOf(1));
+    input.add(Integer.valueOf(2));
+    input.add("end");
+    final MatchResult<?> result = new Engine<Object>().run(program, input);
+    assertNotNull(result);
+    assertEquals(Integer.valueOf(2), result.getVariables().get("last"));
+  }
+
+  private static final int indexOfMemoizable(final Program<?> program) {
+    final ConditionEffect programEffect = program.getConditionEffect();
+    int i = 0;
+    for (final Instruction<?> instruction : program) {
+      if (FilterMemo.isMemoizable(instruction, programEffect)) {
+        return i;
+      }
+      i++;
+    }
+    return -1;
+  }
+
+  public static final class Counted extends Number {
+
+    private static final long serialVersionUID = 1L;
+
+    private static int calls;
+
+    private final int value;
+
+    public Counted(final int value) {
+      super();
+      this.value = value;
+    }
+
+    public final int getValue() {
+      calls++;
+      return this.value;
+    }
+
+    @Override
+    public final int intValue() {
+      return this.value;
+    }
+
+    @Override
+    public final long longValue() {
+      return this.value;
+    }
+
+    @Override
+    public final float floatValue() {
+      return this.value;
+    }
+
+    @Override
+    public final double doubleValue() {
+      return this.value;
+    }
+
+  }
+
+}
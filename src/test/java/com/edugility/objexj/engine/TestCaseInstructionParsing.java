@@ -21,4 +21,59 @@ public class TestCaseInstructionParsing {
     assertEquals(8, s.newThreadProgramLocation);
   }
 
+  @Test
+  public void testMnemonicCase() throws Exception {
+    assertTrue(Instruction.valueOf("InstanceOfMVELFilter java.lang.Character") instanceof InstanceOfMVELFilter);
+    assertTrue(Instruction.valueOf("  beginInput  ") instanceof BeginInput);
+    final Instruction<Character> i = Instruction.valueOf("incrementCounter 12");
+    assertTrue(i instanceof IncrementCounter);
+    assertEquals(12, ((IncrementCounter<Character>)i).register);
+  }
+
+  @Test
+  public void testParseInPlace() throws Exception {
+    final String line = "  countedSplit 1, 2, -1, +7  ";
+    final CountedSplit<Character> c = (CountedSplit<Character>)Instruction.<Character>valueOf(line, 0, line.length());
+    assertEquals(1, c.register);
+    assertEquals(2, c.minimum);
+    assertEquals(CountedSplit.UNBOUNDED, c.maximum);
+    assertEquals(7, c.exitLocation);
+    final Split<Character> s = (Split<Character>)Instruction.<Character>valueOf("xxsplit +1, +3yy", 2, 14);
+    assertEquals(1, s.programLocation);
+    assertEquals(3, s.newThreadProgramLocation);
+    assertTrue(s.relative);
+    assertEquals(Integer.MIN_VALUE, Instruction.parseInt("-2147483648", 0, 11));
+    assertEquals(42, Instruction.parseInt("x+42", 1, 4));
+    for (final String bad : new String[] { "", "-", "2147483648", "4a" }) {
+      try {
+        Instruction.parseInt(bad, 0, bad.length());
+        fail(bad);
+      } catch (final NumberFormatException expected) {
+
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeRegister() throws Exception {
+    Instruction.valueOf("resetCounter -1");
+  }
+
+  @Test
+  public void testRegister() throws Exception {
+    final InstructionFactory factory = new InstructionFactory() {
+        @Override
+        public final <T> Instruction<T> newInstruction(final CharSequence line, final int start, final int end) {
+          assertEquals(1, end - start);
+          @SuppressWarnings("unchecked")
+          final Instruction<T> returnValue = (Instruction<T>)new Char(line.charAt(start));
+          return returnValue;
+        }
+      };
+    assertNull(Instruction.register("testCaseInstructionParsingChar", factory));
+    final Instruction<Character> i = Instruction.valueOf("testCaseInstructionParsingChar x");
+    assertEquals(new Char('x').toString(), i.toString());
+    assertSame(factory, Instruction.register("TestCaseInstructionParsingChar", factory));
+  }
+
 }
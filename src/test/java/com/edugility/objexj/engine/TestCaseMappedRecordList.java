@@ -0,0 +1,186 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import java.text.ParseException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.edugility.objexj.parser.Parser;
+
+import static org.junit.Assert.*;
+
+public class TestCaseMappedRecordList {
+
+  private File file;
+
+  private Map<Integer, Integer> decodeCounts;
+
+  private RecordDecoder<Integer> decoder;
+
+  public TestCaseMappedRecordList() {
+    super();
+  }
+
+  @Before
+  public void writeFile() throws IOException {
+    final int[] codes = new int[] { 200, 201, 404, 500, 503, 202, 203 };
+    this.decodeCounts = new HashMap<Integer, Integer>();
+    final ByteBuffer buffer = ByteBuffer.allocate(4 * codes.length + 2).order(ByteOrder.LITTLE_ENDIAN);
+    for (final int code : codes) {
+      buffer.putInt(code);
+    }
+    this.file = File.createTempFile("records", ".bin");
+    this.file.deleteOnExit();
+    final FileOutputStream out = new FileOutputStream(this.file);
+    try {
+      out.write(buffer.array()); // two trailing bytes of garbage
+    } finally {
+      out.close();
+    }
+    this.decoder = new RecordDecoder<Integer>() {
+        @Override
+        public final Integer decode(final ByteBuffer record) {
+          assertEquals(4, record.remaining());
+          final Integer code = Integer.valueOf(record.getInt(0));
+          final Integer count = decodeCounts.get(code);
+          decodeCounts.put(code, Integer.valueOf(count == null ? 1 : count.intValue() + 1));
+          return code;
+        }
+      };
+  }
+
+  @After
+  public void deleteFile() {
+    if (this.file != null) {
+      this.file.delete();
+    }
+  }
+
+  @Test
+  public void testRecordsAreDecodedLazilyAndOnce() throws IOException, ParseException {
+    final RandomAccessFile raf = new RandomAccessFile(this.file, "r");
+    final MappedRecordList<Integer> list;
+    try {
+      list = new MappedRecordList<Integer>(raf.getChannel(), 4, ByteOrder.LITTLE_ENDIAN, this.decoder, MappedRecordList.CACHE_SIZE, 12);
+    } finally {
+      raf.close();
+    }
+    assertEquals(7, list.size());
+    final Program<Integer> program = new Parser().parse("java.lang.Integer(intValue() >= 500)+");
+    final MatchResult<? extends Integer> match = new Engine<Integer>().run(program, list);
+    assertNotNull(match);
+    assertEquals(5, match.end());
+    // Every record up to the first one after the match has been
+    // decoded exactly once; none after it has been.
+    for (final int code : new int[] { 200, 201, 404, 500, 503, 202 }) {
+      assertEquals(Integer.valueOf(1), this.decodeCounts.get(Integer.valueOf(code)));
+    }
+    assertNull(this.decodeCounts.get(Integer.valueOf(203)));
+    assertEquals(Integer.valueOf(203), list.get(6));
+    assertEquals(Integer.valueOf(203), list.get(6));
+    assertEquals(Integer.valueOf(1), this.decodeCounts.get(Integer.valueOf(203)));
+  }
+
+  @Test
+  public void testCacheIsBounded() throws IOException {
+    final int records = MappedRecordList.CACHE_SIZE + 1;
+    final ByteBuffer buffer = ByteBuffer.allocate(4 * records).order(ByteOrder.LITTLE_ENDIAN);
+    for (int i = 0; i < records; i++) {
+      buffer.putInt(i);
+    }
+    final FileOutputStream out = new FileOutputStream(this.file);
+    try {
+      out.write(buffer.array());
+    } finally {
+      out.close();
+    }
+    final MappedRecordList<Integer> list = MappedRecordList.map(this.file, 4, ByteOrder.LITTLE_ENDIAN, this.decoder);
+    assertEquals(records, list.size());
+    assertEquals(Integer.valueOf(0), list.get(0));
+    assertEquals(Integer.valueOf(0), list.get(0));
+    assertEquals(Integer.valueOf(1), this.decodeCounts.get(Integer.valueOf(0)));
+    // The last record shares the first one's slot and evicts it.
+    assertEquals(Integer.valueOf(records - 1), list.get(records - 1));
+    assertEquals(Integer.valueOf(0), list.get(0));
+    assertEquals(Integer.valueOf(2), this.decodeCounts.get(Integer.valueOf(0)));
+  }
+
+  @Test
+  public void testCacheSizedToFileDecodesOnce() throws IOException {
+    final int records = MappedRecordList.CACHE_SIZE + 1;
+    final ByteBuffer buffer = ByteBuffer.allocate(4 * records).order(ByteOrder.LITTLE_ENDIAN);
+    for (int i = 0; i < records; i++) {
+      buffer.putInt(i);
+    }
+    final FileOutputStream out = new FileOutputStream(this.file);
+    try {
+      out.write(buffer.array());
+    } finally {
+      out.close();
+    }
+    final MappedRecordList<Integer> list = MappedRecordList.map(this.file, 4, ByteOrder.LITTLE_ENDIAN, this.decoder, Integer.MAX_VALUE);
+    for (int pass = 0; pass < 2; pass++) {
+      assertEquals(Integer.valueOf(0), list.get(0));
+      assertEquals(Integer.valueOf(records - 1), list.get(records - 1));
+    }
+    assertEquals(Integer.valueOf(1), this.decodeCounts.get(Integer.valueOf(0)));
+    assertEquals(Integer.valueOf(1), this.decodeCounts.get(Integer.valueOf(records - 1)));
+  }
+
+  @Test
+  public void testCacheSlots() {
+    assertEquals(1, MappedRecordList.cacheSlots(1, 100));
+    assertEquals(4, MappedRecordList.cacheSlots(3, 100));
+    assertEquals(8, MappedRecordList.cacheSlots(1024, 7));
+    assertEquals(1, MappedRecordList.cacheSlots(1024, 0));
+    assertEquals(1 << 30, MappedRecordList.cacheSlots(Integer.MAX_VALUE, Integer.MAX_VALUE));
+  }
+
+  @Test
+  public void testMap() throws IOException {
+    final MappedRecordList<Integer> list = MappedRecordList.map(this.file, 4, ByteOrder.LITTLE_ENDIAN, this.decoder);
+    assertEquals(7, list.size());
+    assertEquals(Integer.valueOf(404), list.get(2));
+    assertEquals(Integer.valueOf(203), list.get(6));
+  }
+
+}
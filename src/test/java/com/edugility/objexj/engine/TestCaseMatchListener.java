@@ -0,0 +1,183 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.io.IOException;
+
+import java.text.ParseException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import com.edugility.objexj.parser.Parser;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseMatchListener {
+
+  public TestCaseMatchListener() {
+    super();
+  }
+
+  @Test
+  public void testCallbacksAgreeWithStats() throws IOException, ParseException {
+    final Program<Object> program = new Parser().parse("^java.lang.Integer(intValue() > 0)*/java.lang.String$");
+    final CountingMatchListener listener = new CountingMatchListener();
+    final MatchStats stats = new MatchStats();
+    final MatchResult<?> result = new Engine<Object>(listener).run(program, Arrays.<Object>asList(1, 2, "a"), null, stats);
+    assertNotNull(result);
+    assertTrue(result.matches());
+    assertEquals(stats.getThreadsForked(), listener.forks);
+    assertEquals(stats.getInstructionsExecuted(), listener.steps);
+    assertEquals(stats.getClassFilterEvaluations() + stats.getMVELFilterEvaluations() + stats.getFilterResultsRecalled(), listener.filterEvaluations);
+    assertTrue(listener.matches > 0);
+    assertTrue(listener.deaths > 0);
+    assertTrue(listener.deaths <= listener.forks + 1);
+  }
+
+  @Test
+  public void testNoMatch() throws IOException, ParseException {
+    final Program<Object> program = new Parser().parse("^java.lang.Integer*/java.lang.String$");
+    final CountingMatchListener listener = new CountingMatchListener();
+    assertNull(new Engine<Object>(listener).run(program, Arrays.<Object>asList(1, 2)));
+    assertEquals(0, listener.matches);
+    assertEquals(listener.forks + 1, listener.deaths);
+  }
+
+  @Test
+  public void testLoggingMatchListener() throws IOException, ParseException {
+    final Logger logger = Logger.getLogger(this.getClass().getName());
+    final Level oldLevel = logger.getLevel();
+    final boolean oldUseParentHandlers = logger.getUseParentHandlers();
+    final List<LogRecord> records = new ArrayList<LogRecord>();
+    final Handler handler = new Handler() {
+        @Override
+        public final void publish(final LogRecord record) {
+          records.add(record);
+        }
+
+        @Override
+        public final void flush() {
+
+        }
+
+        @Override
+        public final void close() {
+
+        }
+      };
+    handler.setLevel(Level.ALL);
+    logger.addHandler(handler);
+    logger.setUseParentHandlers(false);
+    try {
+      logger.setLevel(Level.INFO);
+      final Program<Object> program = new Parser().parse("^java.lang.Integer*/java.lang.String$");
+      final Engine<Object> engine = new Engine<Object>(new LoggingMatchListener<Object>(logger, Level.FINE));
+      assertNotNull(engine.run(program, Arrays.<Object>asList(1, "a")));
+      assertTrue(records.isEmpty());
+
+      logger.setLevel(Level.FINE);
+      assertNotNull(engine.run(program, Arrays.<Object>asList(1, "a")));
+      assertFalse(records.isEmpty());
+      boolean matched = false;
+      for (final LogRecord record : records) {
+        assertSame(Level.FINE, record.getLevel());
+        if ("matchFound".equals(record.getSourceMethodName())) {
+          matched = true;
+        }
+      }
+      assertTrue(matched);
+    } finally {
+      logger.removeHandler(handler);
+      logger.setUseParentHandlers(oldUseParentHandlers);
+      logger.setLevel(oldLevel);
+    }
+  }
+
+  private static final class CountingMatchListener extends MatchListener<Object> {
+
+    private int forks;
+
+    private int steps;
+
+    private int filterEvaluations;
+
+    private int matches;
+
+    private int deaths;
+
+    private CountingMatchListener() {
+      super();
+    }
+
+    @Override
+    public final void threadForked(final Thread<?> parent, final Thread<?> child) {
+      assertNotNull(parent);
+      assertNotNull(child);
+      assertNotSame(parent, child);
+      this.forks++;
+    }
+
+    @Override
+    public final void step(final Thread<?> thread, final Instruction<?> instruction, final int programCounter, final int itemPointer) {
+      assertNotNull(thread);
+      assertNotNull(instruction);
+      assertTrue(programCounter >= 0);
+      this.steps++;
+    }
+
+    @Override
+    public final void filterEvaluated(final Thread<?> thread, final Filter<?> filter, final boolean accepted) {
+      assertNotNull(thread);
+      assertNotNull(filter);
+      this.filterEvaluations++;
+    }
+
+    @Override
+    public final void matchFound(final Thread<?> thread) {
+      assertSame(Thread.State.MATCH, thread.getState());
+      this.matches++;
+    }
+
+    @Override
+    public final void threadDied(final Thread<?> thread) {
+      assertSame(Thread.State.DEAD, thread.getState());
+      this.deaths++;
+    }
+
+  }
+
+}
@@ -0,0 +1,242 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.io.IOException;
+
+import java.text.ParseException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import java.util.concurrent.TimeUnit;
+
+import com.edugility.objexj.parser.Parser;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseMatchOptions {
+
+  private Parser parser;
+
+  private Engine<Object> engine;
+
+  public TestCaseMatchOptions() {
+    super();
+  }
+
+  @Before
+  public void setUp() {
+    this.parser = new Parser();
+    this.engine = new Engine<Object>();
+  }
+
+  @Test
+  public void testOptions() {
+    final MatchOptions unlimited = MatchOptions.UNLIMITED;
+    assertFalse(unlimited.isLimited());
+    assertEquals(Long.MAX_VALUE, unlimited.getMaxSteps());
+    assertEquals(Integer.MAX_VALUE, unlimited.getMaxLiveThreads());
+    assertEquals(Long.MAX_VALUE, unlimited.getTimeout(TimeUnit.SECONDS));
+    assertFalse(unlimited.isInterruptible());
+
+    final MatchOptions options = unlimited.withMaxSteps(10L).withMaxLiveThreads(5).withTimeout(2L, TimeUnit.SECONDS).withInterruptible(true);
+    assertTrue(options.isLimited());
+    assertEquals(10L, options.getMaxSteps());
+    assertEquals(5, options.getMaxLiveThreads());
+    assertEquals(2000L, options.getTimeout(TimeUnit.MILLISECONDS));
+    assertTrue(options.isInterruptible());
+    assertEquals(options, MatchOptions.UNLIMITED.withInterruptible(true).withTimeout(2000L, TimeUnit.MILLISECONDS).withMaxLiveThreads(5).withMaxSteps(10L));
+    assertEquals(options.hashCode(), MatchOptions.UNLIMITED.withInterruptible(true).withTimeout(2000L, TimeUnit.MILLISECONDS).withMaxLiveThreads(5).withMaxSteps(10L).hashCode());
+    assertFalse(options.equals(unlimited));
+    assertFalse(unlimited.isLimited());
+
+    try {
+      unlimited.withMaxSteps(0L);
+      fail();
+    } catch (final IllegalArgumentException expected) {
+
+    }
+    try {
+      unlimited.withMaxLiveThreads(-1);
+      fail();
+    } catch (final IllegalArgumentException expected) {
+
+    }
+    try {
+      unlimited.withTimeout(0L, TimeUnit.SECONDS);
+      fail();
+    } catch (final IllegalArgumentException expected) {
+
+    }
+  }
+
+  @Test
+  public void testWithinLimits() throws IOException, ParseException {
+    final Program<Object> program = this.parser.parse("^(java.lang.Integer*)/java.lang.String$");
+    final List<Object> input = integers(100, "x");
+    final MatchOptions options = MatchOptions.UNLIMITED.withMaxSteps(100000L).withMaxLiveThreads(1000).withTimeout(1L, TimeUnit.MINUTES).withInterruptible(true);
+    final MatchResult<?> result = this.engine.run(program, input, null, null, options);
+    assertNotNull(result);
+    assertTrue(result.matches());
+    assertEquals(100, result.getGroup(Integer.valueOf(1)).size());
+    assertNotNull(this.engine.run(program, input, null, null, MatchOptions.UNLIMITED));
+    assertNotNull(this.engine.run(program, input, null, null, null));
+  }
+
+  @Test
+  public void testMaxSteps() throws IOException, ParseException {
+    final Program<Object> program = this.parser.parse("^(?:java.lang.Integer*)*$");
+    final MatchStats stats = new MatchStats();
+    try {
+      this.engine.run(program, integers(30, "x"), null, stats, MatchOptions.UNLIMITED.withMaxSteps(10000L));
+      fail();
+    } catch (final MatchLimitExceededException expected) {
+      assertSame(MatchLimitExceededException.Limit.STEPS, expected.getLimit());
+      assertEquals(10001L, expected.getSteps());
+      assertEquals(10000L, stats.getInstructionsExecuted());
+      assertTrue(expected.getFurthestItemIndex() > 0);
+      assertTrue(expected.getFurthestItemIndex() <= 30);
+      assertTrue(expected.getPeakLiveThreads() > 0);
+      assertNotNull(expected.getMessage());
+    }
+  }
+
+  @Test
+  public void testMaxLiveThreads() throws IOException, ParseException {
+    final Program<Object> program = this.parser.parse("^java.lang.Integer*/java.lang.String$");
+    assertNotNull(this.engine.run(program, integers(1000, "x"), null, null, MatchOptions.UNLIMITED.withMaxLiveThreads(1001)));
+    try {
+      this.engine.run(program, integers(1000, "x"), null, null, MatchOptions.UNLIMITED.withMaxLiveThreads(100));
+      fail();
+    } catch (final MatchLimitExceededException expected) {
+      assertSame(MatchLimitExceededException.Limit.LIVE_THREADS, expected.getLimit());
+      assertEquals(101, expected.getPeakLiveThreads());
+      assertTrue(expected.getFurthestItemIndex() >= 99);
+    }
+  }
+
+  @Test
+  public void testTimeout() throws IOException, ParseException {
+    final Program<Object> program = this.parser.parse("^(?:java.lang.Integer*)*$");
+    try {
+      this.engine.run(program, integers(40, "x"), null, null, MatchOptions.UNLIMITED.withTimeout(50L, TimeUnit.MILLISECONDS));
+      fail();
+    } catch (final MatchLimitExceededException expected) {
+      assertSame(MatchLimitExceededException.Limit.TIMEOUT, expected.getLimit());
+      assertTrue(expected.getElapsedTime(TimeUnit.MILLISECONDS) >= 50L);
+      assertTrue(expected.getSteps() >= MatchOptions.CHECK_INTERVAL);
+    }
+  }
+
+  @Test
+  public void testInterrupt() throws IOException, ParseException {
+    final Program<Object> program = this.parser.parse("^java.lang.Integer*/java.lang.String$");
+    final List<Object> input = integers(10, "x");
+    java.lang.Thread.currentThread().interrupt();
+    try {
+      // Not interruptible, so the interrupt is ignored.
+      assertNotNull(this.engine.run(program, input, null, null, MatchOptions.UNLIMITED.withMaxSteps(1000L)));
+      try {
+        this.engine.run(program, input, null, null, MatchOptions.UNLIMITED.withInterruptible(true));
+        fail();
+      } catch (final MatchLimitExceededException expected) {
+        assertSame(MatchLimitExceededException.Limit.INTERRUPT, expected.getLimit());
+        assertEquals(0L, expected.getSteps());
+      }
+      assertTrue(java.lang.Thread.currentThread().isInterrupted());
+    } finally {
+      java.lang.Thread.interrupted();
+    }
+  }
+
+  @Test
+  public void testLockstepCheck() throws IOException, ParseException {
+    final MatchOptions lockstep = MatchOptions.UNLIMITED.withLockstepCheck(true);
+    assertFalse(MatchOptions.UNLIMITED.isLockstepCheck());
+    assertTrue(lockstep.isLockstepCheck());
+    assertFalse(lockstep.isLimited());
+    assertFalse(lockstep.equals(MatchOptions.UNLIMITED));
+    assertEquals(lockstep, MatchOptions.UNLIMITED.withLockstepCheck(true));
+
+    final Program<Object> program = this.parser.parse("^(?:java.lang.Integer|java.lang.Number)*$");
+    // Ruled out before a single step is taken.
+    assertNull(this.engine.run(program, integers(20, "x"), null, null, lockstep.withMaxSteps(10L)));
+    try {
+      this.engine.run(program, integers(20, "x"), null, null, MatchOptions.UNLIMITED.withMaxSteps(10L));
+      fail();
+    } catch (final MatchLimitExceededException expected) {
+      assertSame(MatchLimitExceededException.Limit.STEPS, expected.getLimit());
+    }
+    final MatchResult<?> result = this.engine.run(program, integers(20, null), null, null, lockstep);
+    assertNotNull(result);
+    assertTrue(result.matches());
+    assertNull(this.engine.run(this.parser.parse("^java.lang.Integer/java.lang.String*$"), Collections.emptyList(), null, null, lockstep));
+    assertNotNull(this.engine.run(this.parser.parse("java.lang.String"), integers(20, "x"), null, null, lockstep));
+  }
+
+  @Test
+  public void testMemoizedStates() throws IOException, ParseException {
+    final MatchOptions memoized = MatchOptions.UNLIMITED.withMemoizedStates(true);
+    assertFalse(MatchOptions.UNLIMITED.isMemoizedStates());
+    assertTrue(memoized.isMemoizedStates());
+    assertFalse(memoized.isLimited());
+    assertFalse(memoized.equals(MatchOptions.UNLIMITED));
+    assertEquals(memoized, MatchOptions.UNLIMITED.withMemoizedStates(true));
+    assertEquals(memoized.hashCode(), MatchOptions.UNLIMITED.withMemoizedStates(true).hashCode());
+    assertTrue(memoized.withMaxSteps(10L).isMemoizedStates());
+
+    final Program<Object> program = this.parser.parse("^(?:java.lang.Integer*)*$");
+    final long limit = 4L * program.size() * 1001L;
+    final MatchStats stats = new MatchStats();
+    assertNull(this.engine.run(program, integers(1000, "x"), null, stats, memoized.withMaxSteps(limit)));
+    assertTrue(stats.getInstructionsExecuted() <= limit);
+    final MatchResult<?> result = this.engine.run(program, integers(1000, null), null, null, memoized.withMaxSteps(limit));
+    assertNotNull(result);
+    assertTrue(result.matches());
+    try {
+      this.engine.run(program, integers(30, "x"), null, null, MatchOptions.UNLIMITED.withMaxSteps(limit));
+      fail();
+    } catch (final MatchLimitExceededException expected) {
+      assertSame(MatchLimitExceededException.Limit.STEPS, expected.getLimit());
+    }
+  }
+
+  private static final List<Object> integers(final int count, final Object last) {
+    final List<Object> input = new ArrayList<Object>(Collections.nCopies(count, (Object)Integer.valueOf(1)));
+    if (last != null) {
+      input.add(last);
+    }
+    return input;
+  }
+
+}
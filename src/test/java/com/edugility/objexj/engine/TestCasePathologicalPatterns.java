@@ -0,0 +1,432 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.io.IOException;
+
+import java.text.ParseException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.edugility.objexj.parser.Parser;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs families of patterns that are known to be hard on backtracking
+ * matchers against inputs of growing size, records how many {@link
+ * Thread}s and how much time each run takes, and fails if the number
+ * of {@link Thread}s grows faster than linearly in the size of the
+ * input.  The exceptions are families that {@link ProgramAnalysis}
+ * calls {@link Complexity#POLYNOMIAL}, which may grow quadratically,
+ * and the one family whose pattern grows with its input, which may
+ * grow with the size of the pattern times the size of the input.
+ *
+ * <p>{@link Thread} counts, unlike timings, are deterministic, so
+ * they are what is asserted on.  Timings are logged at {@link
+ * Level#INFO} only.</p>
+ *
+ * <p>Each family is also held to the {@link Complexity} {@link
+ * ProgramAnalysis} reports for it.  Some families read the same items
+ * in exponentially many ways, and no backtracking run can avoid
+ * trying them all.  For those the suite asserts that they are
+ * classified as {@link Complexity#EXPONENTIAL}, so that a {@code
+ * ComplexityPolicy} catches them, and runs them {@linkplain
+ * MatchOptions#withMemoizedStates(boolean) memoizing states}, as a
+ * routed pattern is run.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+public class TestCasePathologicalPatterns {
+
+  /**
+   * The {@link MatchOptions} every run is made with, which abandon it
+   * after fifty million steps so that a regression fails instead of
+   * hanging the build.
+   */
+  private static final MatchOptions OPTIONS = MatchOptions.UNLIMITED.withMaxSteps(50000000L);
+
+  /**
+   * The {@link MatchOptions} runs of {@linkplain Family#memoized
+   * memoized} {@link Family families} are made with.
+   */
+  private static final MatchOptions MEMOIZED = OPTIONS.withMemoizedStates(true);
+
+  /**
+   * How much faster than its {@link Growth} a {@link Family} may grow
+   * between two sizes before it is considered to have regressed.
+   * This absorbs the constant number of {@link Thread}s every run
+   * needs regardless of size.
+   */
+  private static final double SLACK = 1.25D;
+
+  /**
+   * The {@link Parser} used to compile each {@link Family}'s
+   * patterns.
+   */
+  private Parser parser;
+
+  /**
+   * The {@link Engine} each {@link Family}'s patterns are run with.
+   */
+  private Engine<Object> engine;
+
+  public TestCasePathologicalPatterns() {
+    super();
+  }
+
+  @Before
+  public void setUp() {
+    this.parser = new Parser();
+    this.engine = new Engine<Object>();
+  }
+
+  @Test
+  public void testOptionalPrefix() throws IOException, ParseException {
+    this.assertGrowth(Family.OPTIONAL_PREFIX);
+  }
+
+  @Test
+  public void testNestedStars() throws IOException, ParseException {
+    this.assertGrowth(Family.NESTED_STARS);
+  }
+
+  @Test
+  public void testNestedStarsWithCapture() throws IOException, ParseException {
+    this.assertGrowth(Family.NESTED_STARS_WITH_CAPTURE);
+  }
+
+  @Test
+  public void testPossessiveNestedStars() throws IOException, ParseException {
+    this.assertGrowth(Family.POSSESSIVE_NESTED_STARS);
+  }
+
+  @Test
+  public void testOverlappingAlternation() throws IOException, ParseException {
+    this.assertGrowth(Family.OVERLAPPING_ALTERNATION);
+  }
+
+  @Test
+  public void testLongAlternation() throws IOException, ParseException {
+    this.assertGrowth(Family.LONG_ALTERNATION);
+  }
+
+  @Test
+  public void testAdjacentStars() throws IOException, ParseException {
+    this.assertGrowth(Family.ADJACENT_STARS);
+  }
+
+  @Test
+  public void testUnanchoredStar() throws IOException, ParseException {
+    this.assertGrowth(Family.UNANCHORED_STAR);
+  }
+
+  @Test
+  public void testUnanchoredAtom() throws IOException, ParseException {
+    this.assertGrowth(Family.UNANCHORED_ATOM);
+  }
+
+  private final void assertGrowth(final Family family) throws IOException, ParseException {
+    assertNotNull(family);
+    final Logger logger = Logger.getLogger(this.getClass().getName());
+    final int[] sizes = family.growth.sizes;
+    final int[] counts = new int[sizes.length];
+    for (int i = 0; i < sizes.length; i++) {
+      final int size = sizes[i];
+      final Program<Object> program = this.parser.parse(family.pattern(size));
+      if (family.complexity != null) {
+        final ProgramAnalysis analysis = ProgramAnalysis.of(program);
+        assertSame(family + " at size " + size, family.complexity, analysis.getComplexity());
+        assertTrue(family + " at size " + size, !family.memoized || analysis.isMemoizable());
+      }
+      final List<Object> input = family.input(size);
+      final MatchStats stats = new MatchStats();
+      final long start = System.nanoTime();
+      final boolean match;
+      try {
+        match = this.engine.run(program, input, null, stats, family.memoized ? MEMOIZED : OPTIONS) != null;
+      } catch (final MatchLimitExceededException tooMuchWork) {
+        fail(family + " at size " + size + ": " + tooMuchWork.getMessage());
+        return;
+      }
+      final long elapsed = System.nanoTime() - start;
+      assertEquals(family + " at size " + size, family.matches, match);
+      // Count the Thread each run starts with, too.
+      counts[i] = (int)stats.getThreadsForked() + 1;
+      if (logger.isLoggable(Level.INFO)) {
+        logger.logp(Level.INFO, this.getClass().getName(), "assertGrowth", "{0}: size {1}; {2} threads; {3} steps; {4} microseconds", new Object[] { family, Integer.valueOf(size), Integer.valueOf(counts[i]), Long.valueOf(stats.getInstructionsExecuted()), Long.valueOf(elapsed / 1000L) });
+      }
+      if (i > 0) {
+        final double allowed = family.growth.ratio(sizes[i - 1], size) * SLACK;
+        final double actual = (double)counts[i] / (double)counts[i - 1];
+        assertTrue(String.format("%s grew faster than %s from size %d (%d threads) to size %d (%d threads): %.2f > %.2f",
+                                 family, family.growth, sizes[i - 1], counts[i - 1], size, counts[i], actual, allowed),
+                   actual <= allowed);
+      }
+    }
+  }
+
+  private static final String repeat(final String pattern, final int count) {
+    final StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        sb.append('/');
+      }
+      sb.append(pattern);
+    }
+    return sb.toString();
+  }
+
+  private static final List<Object> integers(final int count, final Object last) {
+    final List<Object> input = new ArrayList<Object>(Collections.nCopies(count, (Object)Integer.valueOf(1)));
+    if (last != null) {
+      input.add(last);
+    }
+    return input;
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * How fast the number of {@link Thread}s needed to run a {@link
+   * Family} may grow with the size of its input.
+   */
+  private static enum Growth {
+
+    /**
+     * Proportional to the size.
+     */
+    LINEAR(1, 64, 128, 256, 512),
+
+    /**
+     * Proportional to the square of the size.
+     */
+    QUADRATIC(2, 64, 128, 256, 512);
+
+    private final int degree;
+
+    private final int[] sizes;
+
+    private Growth(final int degree, final int... sizes) {
+      this.degree = degree;
+      this.sizes = sizes;
+    }
+
+    private final double ratio(final int from, final int to) {
+      return Math.pow((double)to / (double)from, this.degree);
+    }
+
+  }
+
+  /**
+   * A pattern that can be generated at any size, together with the
+   * input it is run against at that size, the {@link Growth} it may
+   * exhibit, and how it is defused if the engine alone cannot.
+   */
+  private static enum Family {
+
+    /**
+     * {@code (java.lang.Object?)}<sup>n</sup>{@code
+     * /java.lang.Object}<sup>n</sup> against n items: every optional
+     * atom that is taken must later be given back.
+     *
+     * <p>Backtracking takes time exponential in the size of the
+     * pattern, not of the input: for any one pattern it is bounded,
+     * and {@link ProgramAnalysis} rightly does not call it {@link
+     * Complexity#EXPONENTIAL}, at least until the pattern is too large
+     * to analyze.  Memoizing states bounds it by the size of the
+     * pattern times the size of the input, which here are both
+     * n.</p>
+     */
+    OPTIONAL_PREFIX(Growth.QUADRATIC, true, null, true) {
+      @Override
+      final String pattern(final int size) {
+        return "^" + repeat("java.lang.Object?", size) + "/" + repeat("java.lang.Object", size) + "$";
+      }
+
+      @Override
+      final List<Object> input(final int size) {
+        return integers(size, null);
+      }
+    },
+
+    /**
+     * A star inside a star, against input that ends in something
+     * neither accepts, so that a backtracking run tries every way of
+     * dividing the input between them.
+     */
+    NESTED_STARS(Growth.LINEAR, false, Complexity.EXPONENTIAL, true) {
+      @Override
+      final String pattern(final int size) {
+        return "^(?:java.lang.Integer*)*$";
+      }
+    },
+
+    /**
+     * {@link #NESTED_STARS} with the inner star captured.
+     */
+    NESTED_STARS_WITH_CAPTURE(Growth.LINEAR, false, Complexity.EXPONENTIAL, true) {
+      @Override
+      final String pattern(final int size) {
+        return "^(?:(java.lang.Integer*))*$";
+      }
+    },
+
+    /**
+     * {@link #NESTED_STARS} with the inner star possessive, which
+     * is how a user is expected to defuse it, and which the engine
+     * alone then runs in linear time.  {@link ProgramAnalysis} does
+     * not see that, so its {@link Complexity} is not checked.
+     */
+    POSSESSIVE_NESTED_STARS(Growth.LINEAR, false, null, false) {
+      @Override
+      final String pattern(final int size) {
+        return "^(?:java.lang.Integer*+)*$";
+      }
+    },
+
+    /**
+     * A starred alternation whose alternatives both accept every
+     * item.
+     */
+    OVERLAPPING_ALTERNATION(Growth.LINEAR, false, Complexity.EXPONENTIAL, true) {
+      @Override
+      final String pattern(final int size) {
+        return "^(?:java.lang.Integer|java.lang.Number)*$";
+      }
+    },
+
+    /**
+     * A starred alternation of many alternatives only the last of
+     * which accepts anything.
+     */
+    LONG_ALTERNATION(Growth.LINEAR, true, Complexity.LINEAR, false) {
+      @Override
+      final String pattern(final int size) {
+        return "^(?:java.lang.String|java.lang.Long|java.lang.Double|java.lang.Short|java.lang.Byte|java.lang.Character|java.lang.Integer)*$";
+      }
+
+      @Override
+      final List<Object> input(final int size) {
+        return integers(size, null);
+      }
+    },
+
+    /**
+     * Two stars over the same items followed by an atom that is
+     * missing, so that every way of dividing the input between the
+     * stars is tried.
+     */
+    ADJACENT_STARS(Growth.QUADRATIC, false, Complexity.POLYNOMIAL, false) {
+      @Override
+      final String pattern(final int size) {
+        return "^java.lang.Integer*/java.lang.Integer*/java.lang.String$";
+      }
+
+      @Override
+      final List<Object> input(final int size) {
+        return integers(size, null);
+      }
+    },
+
+    /**
+     * An unanchored star followed by an atom that is missing, which
+     * is retried from every starting position.
+     */
+    UNANCHORED_STAR(Growth.QUADRATIC, false, Complexity.POLYNOMIAL, false) {
+      @Override
+      final String pattern(final int size) {
+        return "java.lang.Integer*/java.lang.String";
+      }
+
+      @Override
+      final List<Object> input(final int size) {
+        return integers(size, null);
+      }
+    },
+
+    /**
+     * An unanchored atom that is missing.
+     */
+    UNANCHORED_ATOM(Growth.LINEAR, false, Complexity.LINEAR, false) {
+      @Override
+      final String pattern(final int size) {
+        return "java.lang.String";
+      }
+
+      @Override
+      final List<Object> input(final int size) {
+        return integers(size, null);
+      }
+    };
+
+    private final Growth growth;
+
+    private final boolean matches;
+
+    /**
+     * The {@link Complexity} {@link ProgramAnalysis} must report for
+     * this {@link Family}, or {@code null} if it is not checked.
+     */
+    private final Complexity complexity;
+
+    /**
+     * Whether this {@link Family} is run {@linkplain
+     * MatchOptions#withMemoizedStates(boolean) memoizing states}.
+     */
+    private final boolean memoized;
+
+    private Family(final Growth growth, final boolean matches, final Complexity complexity, final boolean memoized) {
+      this.growth = growth;
+      this.matches = matches;
+      this.complexity = complexity;
+      this.memoized = memoized;
+    }
+
+    abstract String pattern(final int size);
+
+    List<Object> input(final int size) {
+      return integers(size, "x");
+    }
+
+  }
+
+}
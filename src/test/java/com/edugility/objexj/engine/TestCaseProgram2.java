@@ -36,6 +36,7 @@ import org.junit.Test;
 import com.edugility.objexj.engine.Thread;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -58,4 +59,18 @@ public class TestCaseProgram2 extends AbstractProgramTestCase<Character> {
     assertEquals(Arrays.asList('b'), submatches.get("SECOND"));
   }
 
+  @Test
+  public void testMatchResultWithNamedGroups() {
+    final Thread<Character> t = this.run(Arrays.asList('a', 'a', 'b', 'c'));
+    assertMatch(t);
+    final MatchResult<Character> result = new MatchResult<Character>(t);
+    assertTrue(result.lookingAt());
+    assertFalse(result.matches());
+    assertEquals(2, result.getGroupCount());
+    assertEquals(2, result.getGroupKeySet().size());
+    assertEquals(Arrays.asList('a', 'a'), result.getGroup("FIRST"));
+    assertEquals(Arrays.asList('b'), result.getGroup("SECOND"));
+    assertEquals(0, result.offsets().length);
+  }
+
 }
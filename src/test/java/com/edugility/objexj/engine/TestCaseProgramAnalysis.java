@@ -0,0 +1,190 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.io.IOException;
+
+import java.text.ParseException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import com.edugility.objexj.parser.Parser;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseProgramAnalysis {
+
+  private Parser parser;
+
+  public TestCaseProgramAnalysis() {
+    super();
+  }
+
+  @Before
+  public void setUp() {
+    this.parser = new Parser();
+  }
+
+  @Test
+  public void testOf() throws IOException, ParseException {
+    final Program<Object> program = this.parser.parse("^java.lang.Integer(intValue() > 0)*/(java.lang.String)$");
+    final ProgramAnalysis analysis = ProgramAnalysis.of(program);
+    assertNotNull(analysis);
+    assertEquals(program.size(), analysis.getSize());
+    assertEquals(new HashSet<Object>(Arrays.asList(Integer.valueOf(0), Integer.valueOf(1))), analysis.getCaptureKeys());
+    assertTrue(analysis.isForking());
+    assertTrue(analysis.isAnchoredAtEnd());
+    assertEquals(ConditionEffect.PURE, analysis.getConditionEffect());
+    assertEquals(2, analysis.getAtomCount());
+    assertTrue(analysis.isProbed(null));
+    assertTrue(analysis.isProbed(Collections.singleton(Integer.valueOf(1))));
+    assertFalse(analysis.isProbed(Collections.emptySet()));
+  }
+
+  @Test
+  public void testAnchoredAtEnd() throws IOException, ParseException {
+    assertFalse(ProgramAnalysis.of(this.parser.parse("^java.lang.Integer*")).isAnchoredAtEnd());
+    assertTrue(ProgramAnalysis.of(this.parser.parse("java.lang.Integer/java.lang.String$")).isForking());
+    assertTrue(ProgramAnalysis.of(this.parser.parse("java.lang.Integer/java.lang.String$")).isAnchoredAtEnd());
+    assertFalse(ProgramAnalysis.of(this.parser.parse("^java.lang.Integer|java.lang.String$")).isAnchoredAtEnd());
+    assertTrue(ProgramAnalysis.of(this.parser.parse("^(?:java.lang.Integer|java.lang.String)$")).isAnchoredAtEnd());
+  }
+
+  @Test
+  public void testAnchoredAtStart() throws IOException, ParseException {
+    assertTrue(ProgramAnalysis.of(this.parser.parse("^java.lang.Integer*")).isAnchoredAtStart());
+    assertFalse(ProgramAnalysis.of(this.parser.parse("java.lang.Integer")).isAnchoredAtStart());
+    assertFalse(ProgramAnalysis.of(this.parser.parse("^java.lang.Object*/java.lang.Integer")).isAnchoredAtStart());
+    assertTrue(ProgramAnalysis.of(this.parser.parse("^java.lang.Object/java.lang.Integer")).isAnchoredAtStart());
+  }
+
+  @Test
+  public void testRequiredAtoms() throws IOException, ParseException {
+    final ProgramAnalysis analysis = ProgramAnalysis.of(this.parser.parse("^java.lang.Integer*/java.lang.String(length() > 2)/(?:java.lang.Long|java.lang.Short)/java.lang.Integer$"));
+    final List<Filter<?>> requiredAtoms = analysis.getRequiredAtoms();
+    assertEquals(2, requiredAtoms.size());
+    assertEquals(new InstanceOfMVELFilter<Object>(String.class, "length() > 2"), requiredAtoms.get(0));
+    assertEquals(new InstanceOfMVELFilter<Object>(Integer.class), requiredAtoms.get(1));
+    assertTrue(ProgramAnalysis.of(this.parser.parse("^java.lang.Object/java.lang.Object?$")).getRequiredAtoms().isEmpty());
+  }
+
+  @Test
+  public void testMaximumFanOut() throws IOException, ParseException {
+    assertEquals(1, ProgramAnalysis.of(this.parser.parse("^java.lang.Integer/java.lang.String$")).getMaximumFanOut());
+    assertEquals(2, ProgramAnalysis.of(this.parser.parse("^java.lang.Integer*/java.lang.String$")).getMaximumFanOut());
+    assertEquals(4, ProgramAnalysis.of(this.parser.parse("^(?:java.lang.Integer|java.lang.Long|java.lang.Short)*$")).getMaximumFanOut());
+  }
+
+  @Test
+  public void testRisksSuperlinearTime() throws IOException, ParseException {
+    final List<String> superlinear = Arrays.asList("^(?:java.lang.Integer*)*$",
+                                                   "^(?:(java.lang.Integer*))*$",
+                                                   "^(?:java.lang.Integer*+)*$",
+                                                   "^(?:java.lang.Integer|java.lang.Number)*$",
+                                                   "^java.lang.Integer*/java.lang.Integer*/java.lang.String$",
+                                                   "java.lang.Integer*/java.lang.String");
+    for (final String source : superlinear) {
+      assertTrue(source, ProgramAnalysis.of(this.parser.parse(source)).risksSuperlinearTime());
+    }
+    final List<String> linear = Arrays.asList("^java.lang.Object?/java.lang.Object?/java.lang.Object/java.lang.Object$",
+                                              "^(?:java.lang.String|java.lang.Long|java.lang.Double|java.lang.Short|java.lang.Byte|java.lang.Character|java.lang.Integer)*$",
+                                              "^java.lang.Integer*/java.lang.String*/java.lang.Integer$",
+                                              "^java.lang.Integer{2,5}/java.lang.String$",
+                                              "java.lang.String");
+    for (final String source : linear) {
+      assertFalse(source, ProgramAnalysis.of(this.parser.parse(source)).risksSuperlinearTime());
+    }
+  }
+
+  @Test
+  public void testComplexity() throws IOException, ParseException {
+    final List<String> exponential = Arrays.asList("^(?:java.lang.Integer*)*$",
+                                                   "^(?:(java.lang.Integer*))*$",
+                                                   "^(?:java.lang.Integer+)+$",
+                                                   "^(?:java.lang.Integer/java.lang.Integer*)*$",
+                                                   "^(?:java.lang.Integer|java.lang.Number)*$",
+                                                   "^(?:java.lang.Integer|java.lang.Integer)*$");
+    for (final String source : exponential) {
+      assertEquals(source, Complexity.EXPONENTIAL, ProgramAnalysis.of(this.parser.parse(source)).getComplexity());
+    }
+    final List<String> polynomial = Arrays.asList("^java.lang.Integer*/java.lang.Integer*/java.lang.String$",
+                                                  "java.lang.Integer*/java.lang.String");
+    for (final String source : polynomial) {
+      assertEquals(source, Complexity.POLYNOMIAL, ProgramAnalysis.of(this.parser.parse(source)).getComplexity());
+    }
+    final List<String> linear = Arrays.asList("^(?:java.lang.Integer|java.lang.String)*$",
+                                              "^java.lang.Integer*/java.lang.String*/java.lang.Integer$",
+                                              "^(?:java.lang.Integer/java.lang.String)*$",
+                                              "java.lang.String");
+    for (final String source : linear) {
+      assertEquals(source, Complexity.LINEAR, ProgramAnalysis.of(this.parser.parse(source)).getComplexity());
+    }
+  }
+
+  @Test
+  public void testEmptyLoop() throws IOException, ParseException {
+    assertTrue(ProgramAnalysis.of(this.parser.parse("^(?:java.lang.Integer*)*$")).hasEmptyLoop());
+    assertTrue(ProgramAnalysis.of(this.parser.parse("^(?:java.lang.Integer?/java.lang.String?)+$")).hasEmptyLoop());
+    assertFalse(ProgramAnalysis.of(this.parser.parse("^(?:java.lang.Integer+)*$")).hasEmptyLoop());
+    assertFalse(ProgramAnalysis.of(this.parser.parse("^(?:java.lang.Integer|java.lang.Number)*$")).hasEmptyLoop());
+  }
+
+  @Test
+  public void testSelectStrategy() throws IOException, ParseException {
+    final ProgramAnalysis anchored = ProgramAnalysis.of(this.parser.parse("^java.lang.Integer(intValue() > 0)*/(java.lang.String)$"));
+    final int large = 2 * Alphabet.CHUNK_SIZE;
+    assertEquals(Strategy.LAZY, anchored.selectStrategy(large, null, false));
+    assertEquals(Strategy.ATOM_BITMAPS, anchored.selectStrategy(large, null, true));
+    assertEquals(Strategy.ATOM_BITMAPS, anchored.selectStrategy(Alphabet.CHUNK_SIZE, null, true));
+    assertEquals(Strategy.LAZY, anchored.selectStrategy(Alphabet.CHUNK_SIZE, Collections.emptySet(), true));
+    assertEquals(Strategy.LAZY, anchored.selectStrategy(10, null, true));
+    final ProgramAnalysis unanchored = ProgramAnalysis.of(this.parser.parse("java.lang.Integer(intValue() > 0)+"));
+    assertEquals(Strategy.LAZY, unanchored.selectStrategy(large, null, true));
+  }
+
+  @Test
+  public void testApplyTo() {
+    final MatchOptions options = MatchOptions.UNLIMITED.withMaxSteps(10L).withCompressedAlphabet(true);
+    assertNull(Strategy.of(null));
+    assertNull(Strategy.of(MatchOptions.UNLIMITED));
+    assertEquals(Strategy.COMPRESSED_ALPHABET, Strategy.of(options));
+    assertEquals(Strategy.ATOM_BITMAPS, Strategy.of(options.withAtomBitmaps(true)));
+    final MatchOptions bitmaps = Strategy.ATOM_BITMAPS.applyTo(options);
+    assertEquals(10L, bitmaps.getMaxSteps());
+    assertFalse(bitmaps.isCompressedAlphabet());
+    assertTrue(bitmaps.isAtomBitmaps());
+    assertEquals(MatchOptions.UNLIMITED, Strategy.LAZY.applyTo(null));
+  }
+
+}
@@ -0,0 +1,135 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.edugility.objexj.parser.Parser;
+
+import static org.junit.Assert.*;
+
+public class TestCaseProgramCodec {
+
+  public TestCaseProgramCodec() {
+    super();
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    final String[] sources = new String[] {
+      "^java.lang.Character(charValue() == 'a')/java.lang.Character(charValue() == 'b')$",
+      "(java.lang.Character*)/java.lang.Character/java.lang.Integer",
+      "(?>java.lang.Character|java.lang.Character/java.lang.Character)/java.lang.Integer",
+      "=java.lang.Integer{2,3}|java.lang.Number?",
+      "(?:java.lang.String/java.lang.Integer)+"
+    };
+    final Parser parser = new Parser();
+    final List<Program<Object>> programs = new ArrayList<Program<Object>>();
+    for (final String source : sources) {
+      final Program<Object> program = parser.parse(source);
+      assertNotNull(program);
+      assertEquals(source, program.getSource().toString());
+      programs.add(program);
+    }
+    final Program<Object> named = Program.valueOf("save FIRST\ninstanceOfMVELFilter java.lang.Character\nstop FIRST\nmatch");
+    named.setName("named");
+    programs.add(named);
+
+    final List<Program<Object>> copies = roundTrip(programs);
+    assertNotNull(copies);
+    assertEquals(programs.size(), copies.size());
+    for (int i = 0; i < programs.size(); i++) {
+      final Program<Object> program = programs.get(i);
+      final Program<Object> copy = copies.get(i);
+      assertEquals(program, copy);
+      assertEquals(program.toString(), copy.toString());
+      assertEquals(program.getName(), copy.getName());
+      if (program.getSource() == null) {
+        assertNull(copy.getSource());
+      } else {
+        assertEquals(program.getSource().toString(), copy.getSource());
+      }
+    }
+
+    final Engine<Object> engine = new Engine<Object>();
+    final List<Object> input = Arrays.<Object>asList('a', 'b', 'c', 1, 2, 3);
+    for (int i = 0; i < programs.size(); i++) {
+      final MatchResult<?> expected = engine.run(programs.get(i), input);
+      final MatchResult<?> actual = engine.run(copies.get(i), input);
+      if (expected == null) {
+        assertNull(actual);
+      } else {
+        assertNotNull(actual);
+        assertEquals(expected.matches(), actual.matches());
+        assertTrue(Arrays.equals(expected.offsets(), actual.offsets()));
+      }
+    }
+  }
+
+  @Test
+  public void testClassResolutionIsDeferred() throws IOException {
+    final Program<Object> program = new Program<Object>();
+    program.add(new InstanceOfMVELFilter<Object>("com.edugility.objexj.NoSuchClass", false, "this == 1"));
+    program.add(new Match<Object>());
+    final List<Program<Object>> copies = roundTrip(Arrays.asList(program));
+    assertNotNull(copies);
+    assertEquals(1, copies.size());
+    final Program<Object> copy = copies.get(0);
+    assertEquals(program, copy);
+    try {
+      new Engine<Object>().run(copy, Arrays.<Object>asList(1));
+      fail();
+    } catch (final IllegalStateException expected) {
+      assertTrue(expected.getCause() instanceof ClassNotFoundException);
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testBadMagicNumber() throws IOException {
+    ProgramCodec.read(new DataInputStream(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 0, 1 })));
+  }
+
+  private static final List<Program<Object>> roundTrip(final List<Program<Object>> programs) throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final DataOutputStream out = new DataOutputStream(bytes);
+    ProgramCodec.write(programs, out);
+    out.close();
+    return ProgramCodec.<Object>read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+  }
+
+}
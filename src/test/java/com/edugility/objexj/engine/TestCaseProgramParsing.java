@@ -2,6 +2,7 @@ package com.edugility.objexj.engine;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
+import java.io.StringReader;
 
 import java.net.URL;
 
@@ -32,4 +33,22 @@ public class TestCaseProgramParsing {
     
   }
 
+  @Test
+  public void testValueOfReader() throws Exception {
+    final StringBuilder filter = new StringBuilder("instanceOfMVELFilter java.lang.Character");
+    while (filter.length() < 300) {
+      filter.append(" ");
+    }
+    filter.append("charValue() == 'a'");
+    final String text = "# A comment\r\n\r\n  beginInput\r\n" + filter + "\n\tsplit +1, +3\rjump +2\nendInput\nmatch";
+    final Program<Character> p = Program.valueOf(new StringReader(text));
+    assertNotNull(p);
+    assertEquals(6, p.size());
+    assertTrue(p.get(0) instanceof BeginInput);
+    assertEquals(new InstanceOfMVELFilter<Character>(Character.class, "charValue() == 'a'"), p.get(1));
+    assertEquals(new Split<Character>(1, 3, true), p.get(2));
+    assertEquals(new Jump<Character>(2, true), p.get(3));
+    assertTrue(p.get(5) instanceof Match);
+  }
+
 }
@@ -0,0 +1,155 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil -*-
+ *
+ * Copyright (c) 2013 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.objexj.engine;
+
+import java.io.IOException;
+
+import java.text.ParseException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.edugility.objexj.parser.Parser;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseStateMemo {
+
+  private Parser parser;
+
+  private Engine<Object> engine;
+
+  public TestCaseStateMemo() {
+    super();
+  }
+
+  @Before
+  public void setUp() {
+    this.parser = new Parser();
+    this.engine = new Engine<Object>();
+  }
+
+  @Test
+  public void testIsMemoizable() throws IOException, ParseException {
+    assertTrue(StateMemo.isMemoizable(this.parser.parse("^(?:java.lang.Integer*)*$")));
+    assertTrue(StateMemo.isMemoizable(this.parser.parse("^(java.lang.Integer|java.lang.Number)/java.lang.String(length() > x)$")));
+    assertFalse(StateMemo.isMemoizable(this.parser.parse("^(?:java.lang.Integer*+)*$")));
+    assertFalse(StateMemo.isMemoizable(this.parser.parse("java.lang.Integer{2,3}")));
+    assertFalse(StateMemo.isMemoizable(this.parser.parse("^java.lang.Integer(last = intValue(); true)*/java.lang.String$")));
+    assertTrue(ProgramAnalysis.of(this.parser.parse("^(?:java.lang.Integer|java.lang.Number)*$")).isMemoizable());
+    assertFalse(ProgramAnalysis.of(this.parser.parse("^(?:java.lang.Integer*+)*$")).isMemoizable());
+
+    assertNull(StateMemo.of(this.parser.parse("^(?:java.lang.Integer*+)*$"), 10));
+    // Nothing branches, so no two Threads can meet.
+    assertNull(StateMemo.of(this.parser.parse("^java.lang.Integer/java.lang.String$"), 10));
+  }
+
+  @Test
+  public void testVisit() throws IOException, ParseException {
+    final Program<Object> program = this.parser.parse("^(?:java.lang.Integer*)*$");
+    final StateMemo memo = StateMemo.of(program, 100);
+    assertNotNull(memo);
+    final int loop = indexOf(program, Split.class);
+    assertTrue(loop >= 0);
+    // The first instruction of a loop body is where Threads meet.
+    final int body = loop + 1;
+    for (final int position : new int[] { 0, 63, 64, 100 }) {
+      assertTrue(memo.visit(body, position));
+      assertFalse(memo.visit(body, position));
+    }
+    assertTrue(memo.visit(body, 1));
+    // States out of range, and instructions no branch leads to, are
+    // never remembered.
+    assertTrue(memo.visit(body, 101));
+    assertTrue(memo.visit(body, 101));
+    assertTrue(memo.visit(body, -1));
+    assertTrue(memo.visit(body, -1));
+    assertTrue(memo.visit(0, 0));
+    assertTrue(memo.visit(0, 0));
+  }
+
+  @Test
+  public void testSameResults() throws IOException, ParseException {
+    final String[] sources = {
+      "^(?:java.lang.Integer*)*$",
+      "^(?:(java.lang.Integer*))*/(java.lang.String)$",
+      "^(java.lang.Integer*)/(java.lang.Number*)",
+      "(?:(java.lang.Integer)|(java.lang.Number))*/java.lang.Long",
+      "(java.lang.Object*)/(java.lang.Integer)/(java.lang.Object*)",
+      "^(java.lang.Object?)/(java.lang.Object?)/(java.lang.Object?)/java.lang.Object/java.lang.Object$",
+      "(?:(java.lang.Integer(intValue() > 1))|(java.lang.Integer))*/(java.lang.Number*)",
+      "java.lang.String|java.lang.Integer"
+    };
+    final List<List<Object>> inputs = new ArrayList<List<Object>>();
+    inputs.add(Collections.emptyList());
+    inputs.add(Arrays.<Object>asList(1, 2, "s"));
+    inputs.add(Arrays.<Object>asList(1, 2L, 3, "s", 4));
+    inputs.add(Arrays.<Object>asList(2, 1, 3L));
+    inputs.add(Arrays.<Object>asList("s", 0, 2, 2.5D, 2));
+    inputs.add(Arrays.<Object>asList(1, 2, 3, 4, 5));
+    for (final String source : sources) {
+      final Program<Object> program = this.parser.parse(source);
+      assertTrue(source, StateMemo.isMemoizable(program));
+      for (final List<Object> input : inputs) {
+        final MatchResult<?> expected = this.engine.run(program, input, null, null, MatchOptions.UNLIMITED);
+        final MatchResult<?> actual = this.engine.run(program, input, null, null, MatchOptions.UNLIMITED.withMemoizedStates(true));
+        if (expected == null) {
+          assertNull(source + " " + input, actual);
+        } else {
+          assertNotNull(source + " " + input, actual);
+          assertArrayEquals(source + " " + input, expected.offsets(), actual.offsets());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testUnmemoizableProgramsRunAsUsual() throws IOException, ParseException {
+    final Program<Object> program = this.parser.parse("^java.lang.Integer(last = intValue(); true)*/java.lang.String$");
+    final MatchResult<?> result = this.engine.run(program, Arrays.<Object>asList(1, 2, "end"), null, null, MatchOptions.UNLIMITED.withMemoizedStates(true));
+    assertNotNull(result);
+    assertEquals(Integer.valueOf(2), result.getVariables().get("last"));
+  }
+
+  private static final int indexOf(final Program<?> program, final Class<?> instructionClass) {
+    int i = 0;
+    for (final Instruction<?> instruction : program) {
+      if (instructionClass.isInstance(instruction)) {
+        return i;
+      }
+      i++;
+    }
+    return -1;
+  }
+
+}
@@ -102,6 +102,29 @@ public class TestCaseThread extends BasicThreadScheduler<Character> {
     
   }
 
+  @Test
+  public void testCountersAreCopiedAndCompared() {
+    final List<Character> items = Arrays.asList('a', 'b');
+    final Thread<Character> t1 = this.newThread("t1", simpleProgramCounter.clone(), items, 0, null, null);
+    final Thread<Character> t2 = t1.clone();
+    assertEquals(t1, t2);
+    assertEquals(0, t1.getCounter(3));
+
+    t1.setCounter(3, 2);
+    assertEquals(2, t1.getCounter(3));
+    assertEquals(0, t2.getCounter(3));
+    assertNotEquals(t1, t2);
+
+    final Thread<Character> t3 = t1.clone();
+    assertEquals(2, t3.getCounter(3));
+    assertEquals(t1, t3);
+
+    final Thread<Character> t4 = t1.newThread("t4", 0, false);
+    assertEquals(2, t4.getCounter(3));
+    t4.setCounter(3, 0);
+    assertEquals(2, t1.getCounter(3));
+  }
+
 
   /*
    * Tests for null input lists.
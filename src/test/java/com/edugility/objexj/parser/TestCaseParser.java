@@ -47,6 +47,7 @@ import org.junit.Test;
 
 import static org.junit.Assert.*;
 
+import com.edugility.objexj.engine.CountedSplit;
 import com.edugility.objexj.engine.Instruction;
 import com.edugility.objexj.engine.Program;
 
@@ -90,7 +91,7 @@ public class TestCaseParser {
     reader.close();
     assertNotNull(p);
     p.setName("Simple catenation");
-    assertContentsAreEqual(p, "SimpleCatenation.txt");
+    assertContentsAreEqual(p, "SimpleCatenationLeftmost.txt");
   }
 
   @Test
@@ -129,7 +130,7 @@ public class TestCaseParser {
     reader.close();
     assertNotNull(p);
     p.setName("Long catenation");
-    assertContentsAreEqual(p, "LongCatenation.txt");
+    assertContentsAreEqual(p, "LongCatenationLeftmost.txt");
   }
 
   @Test
@@ -141,7 +142,7 @@ public class TestCaseParser {
     reader.close();
     assertNotNull(p);
     p.setName("Simple alternation");
-    assertContentsAreEqual(p, "SimpleAlternation.txt");
+    assertContentsAreEqual(p, "SimpleAlternationLeftmost.txt");
   }
 
   @Test
@@ -159,7 +160,7 @@ public class TestCaseParser {
     reader.close();
     assertNotNull(p);
     p.setName("Long Alternation");
-    assertContentsAreEqual(p, "LongAlternation.txt");
+    assertContentsAreEqual(p, "LongAlternationLeftmost.txt");
   }
 
   @Test
@@ -176,7 +177,28 @@ public class TestCaseParser {
     reader.close();
     assertNotNull(p);
     p.setName("Combination Catenation and Alternation");
-    assertContentsAreEqual(p, "CombinationCatenationAndAlternation.txt");
+    assertContentsAreEqual(p, "CombinationCatenationAndAlternationLeftmost.txt");
+  }
+
+  @Test
+  public void testImplicitPrefixIsReluctant() throws IOException {
+    // The baseline fixtures record the greedy implicit prefix
+    // unanchored patterns used to compile to; the Leftmost fixtures
+    // must differ from them in that instruction and nowhere else.
+    for (final String name : new String[] { "SimpleCatenation", "SimpleAlternation", "LongCatenation", "LongAlternation", "CombinationCatenationAndAlternation" }) {
+      final List<String> baseline = readLines(name + ".txt");
+      final List<String> leftmost = readLines(name + "Leftmost.txt");
+      assertEquals(name, baseline.size(), leftmost.size());
+      int differences = 0;
+      for (int i = 0; i < baseline.size(); i++) {
+        if (!baseline.get(i).equals(leftmost.get(i))) {
+          differences++;
+          assertEquals(name, "split +1, +3", baseline.get(i).substring(5));
+          assertEquals(name, "split +3, +1", leftmost.get(i).substring(5));
+        }
+      }
+      assertEquals(name, 1, differences);
+    }
   }
 
   @Test
@@ -269,4 +291,102 @@ public class TestCaseParser {
     assertContentsAreEqual(p, "ZeroOrMoreFilterConcatenated.txt");
   }
 
+  @Test
+  public void testCountedRepetition() throws IOException, ParseException {
+    final StringBuilder sb = new StringBuilder();
+    sb.append("^java.lang.Character(charValue() == 'a'){5,20}/java.lang.Character{3}");
+    final String source = sb.toString();
+    final PushbackReader reader = new PushbackReader(new StringReader(source));
+    final PostfixTokenizer tokenizer = new PostfixTokenizer(reader);
+    final Parser parser = new Parser();
+    final Program<Character> p = parser.parse(tokenizer);
+    reader.close();
+    assertNotNull(p);
+    p.setName("Counted Repetition");
+    assertContentsAreEqual(p, "CountedRepetition.txt");
+  }
+
+  @Test
+  public void testAtomicGroupAndPossessiveRepetition() throws IOException, ParseException {
+    final StringBuilder sb = new StringBuilder();
+    sb.append("^(?>java.lang.Character(charValue() == 'a')|java.lang.Character)/");
+    sb.append("(?:java.lang.Integer?)*/java.lang.Character++");
+    final String source = sb.toString();
+    final PushbackReader reader = new PushbackReader(new StringReader(source));
+    final PostfixTokenizer tokenizer = new PostfixTokenizer(reader);
+    final Parser parser = new Parser();
+    final Program<Object> p = parser.parse(tokenizer);
+    reader.close();
+    assertNotNull(p);
+    p.setName("Atomic Group and Possessive Repetition");
+    assertContentsAreEqual(p, "AtomicGroupAndPossessiveRepetition.txt");
+  }
+
+  @Test
+  public void testFrontEndsAgree() throws IOException, ParseException {
+    final String[] patterns = {
+      "java.lang.Integer",
+      "^java.lang.Integer$",
+      "java.lang.Integer|java.lang.Double|java.lang.Long$",
+      "(java.lang.Integer)/(java.lang.Double(doubleValue() > (1.0)))",
+      "(?:(java.lang.Integer|java.lang.Long)/java.lang.Double)*+/java.lang.Object",
+      "^(?:java.lang.Integer?)+/(?>java.lang.Long{2,}|java.lang.Double)",
+      "(?:java.lang.Integer*/(java.lang.Long?)){3,}/java.lang.Object{0,1}",
+      "java.lang.Number {2,5}+ , =java.lang.Integer ? $"
+    };
+    final Parser parser = new Parser();
+    for (final String pattern : patterns) {
+      final PushbackReader reader = new PushbackReader(new StringReader(pattern));
+      final Node fromTokenizer = parser.parseTree(new PostfixTokenizer(reader));
+      reader.close();
+      final Node tree = parser.parseTree(pattern);
+      assertEquals(pattern, fromTokenizer, tree);
+      assertEquals(pattern, parser.compile(fromTokenizer).toString(), parser.compile(tree).toString());
+    }
+  }
+
+  @Test
+  public void testParseTree() throws ParseException {
+    final Node tree = new Parser().parseTree("^(java.lang.Integer|java.lang.Long)/java.lang.Double(doubleValue() > 0.0)*$");
+    final Node expected =
+      new Node.Catenation(Arrays.asList(new Node.BeginInput(),
+                                        new Node.Capture(1, new Node.Alternation(Arrays.asList(new Node.Atom("java.lang.Integer", null),
+                                                                                               new Node.Atom("java.lang.Long", null)))),
+                                        new Node.Repetition(new Node.Atom("java.lang.Double", "doubleValue() > 0.0"), 0, CountedSplit.UNBOUNDED, false),
+                                        new Node.EndInput()));
+    assertEquals(expected, tree);
+    assertEquals("^/(java.lang.Integer|java.lang.Long)/java.lang.Double(doubleValue() > 0.0)*/$", tree.toString());
+  }
+
+  @Test
+  public void testParseTreeErrorOffsets() {
+    final Parser parser = new Parser();
+    final String[] patterns = { "java.lang.Integer|", "(java.lang.Integer", "java.lang.Integer)", "java.lang.Integer{3,2}", "(java.lang.Integer)*", "java.lang.Integer$/java.lang.Long", "" };
+    final int[] offsets = { 18, 0, 17, 21, 19, 18, 0 };
+    for (int i = 0; i < patterns.length; i++) {
+      try {
+        parser.parseTree(patterns[i]);
+        fail(patterns[i]);
+      } catch (final ParseException expected) {
+        assertEquals(patterns[i], offsets[i], expected.getErrorOffset());
+      }
+    }
+  }
+
+  private static final List<String> readLines(final String resourceName) throws IOException {
+    final InputStream stream = Thread.currentThread().getContextClassLoader().getResourceAsStream(resourceName);
+    assertNotNull(resourceName, stream);
+    final BufferedReader br = new BufferedReader(new InputStreamReader(stream, "UTF-8"));
+    try {
+      final List<String> lines = new ArrayList<String>();
+      String line;
+      while ((line = br.readLine()) != null) {
+        lines.add(line);
+      }
+      return lines;
+    } finally {
+      br.close();
+    }
+  }
+
 }
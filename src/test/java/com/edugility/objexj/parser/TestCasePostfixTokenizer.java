@@ -43,8 +43,11 @@ import org.junit.Test;
 
 import static org.junit.Assert.*;
 
+import static com.edugility.objexj.parser.Token.Type.ALTERNATION;
+import static com.edugility.objexj.parser.Token.Type.ATOMIC;
 import static com.edugility.objexj.parser.Token.Type.BEGIN_ATOM;
 import static com.edugility.objexj.parser.Token.Type.CATENATION;
+import static com.edugility.objexj.parser.Token.Type.COUNTED_REPETITION;
 import static com.edugility.objexj.parser.Token.Type.END_ATOM;
 import static com.edugility.objexj.parser.Token.Type.FILTER;
 import static com.edugility.objexj.parser.Token.Type.ONE_OR_MORE;
@@ -333,6 +336,90 @@ public class TestCasePostfixTokenizer {
     assertNoMoreTokens();
   }
 
+  @Test
+  public void testCountedRepetition() throws IOException, ParseException {
+    build("^fred{2,5}/barney(xyz){3}/wilma{4,}");
+
+    assertNextIs(BEGIN_ATOM);
+    assertNextIsFilter("fred");
+    assertNextIsCountedRepetition("2,5");
+    assertNextIs(CATENATION);
+    assertNextIsFilter("barney", "xyz");
+    assertNextIsCountedRepetition("3");
+    assertNextIs(CATENATION);
+    assertNextIsFilter("wilma");
+    assertNextIsCountedRepetition("4,");
+    assertNextIs(CATENATION);
+
+    assertNoMoreTokens();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testCountedRepetitionWithMaximumLessThanMinimum() throws IOException, ParseException {
+    build("^fred{5,2}");
+    drain(); // will throw IllegalStateException
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testCountedRepetitionWithoutMinimum() throws IOException, ParseException {
+    build("^fred{,2}");
+    drain(); // will throw IllegalStateException
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testUnterminatedCountedRepetition() throws IOException, ParseException {
+    build("^fred{2");
+    drain(); // will throw IllegalStateException
+  }
+
+  @Test
+  public void testNonCapturingAndAtomicGroups() throws IOException, ParseException {
+    build("^(?:fred/barney)*/(?>wilma|betty)/dino*+");
+
+    assertNextIs(BEGIN_ATOM);
+    assertNextIsFilter("fred");
+    assertNextIsFilter("barney");
+    assertNextIs(CATENATION);
+    assertNextIs(ZERO_OR_MORE);
+    assertNextIs(CATENATION);
+    assertNextIsFilter("wilma");
+    assertNextIsFilter("betty");
+    assertNextIs(ALTERNATION);
+    assertNextIs(ATOMIC);
+    assertNextIs(CATENATION);
+    assertNextIsFilter("dino");
+    assertNextIs(ZERO_OR_MORE);
+    assertNextIs(ATOMIC);
+    assertNextIs(CATENATION);
+
+    assertNoMoreTokens();
+  }
+
+  @Test
+  public void testPossessiveCountedRepetition() throws IOException, ParseException {
+    build("^fred{2,5}+");
+
+    assertNextIs(BEGIN_ATOM);
+    assertNextIsFilter("fred");
+    assertNextIsCountedRepetition("2,5");
+    assertNextIs(ATOMIC);
+    assertNextIs(CATENATION);
+
+    assertNoMoreTokens();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testUnknownGroupModifier() throws IOException, ParseException {
+    build("^(?<fred)");
+    drain(); // will throw IllegalStateException
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testRepetitionAfterPossessiveRepetition() throws IOException, ParseException {
+    build("^fred*+*");
+    drain(); // will throw IllegalStateException
+  }
+
 
   /*
    * Build methods.
@@ -383,6 +470,20 @@ public class TestCasePostfixTokenizer {
     assertSame(type, token.getType());
   }
 
+  private final void drain() {
+    while (this.pft.hasNext()) {
+      this.pft.next();
+    }
+  }
+
+  private final void assertNextIsCountedRepetition(final String bounds) {
+    assertTrue(this.pft.hasNext());
+    final Token token = this.pft.next();
+    assertNotNull(token);
+    assertSame(COUNTED_REPETITION, token.getType());
+    assertEquals(bounds, token.getValue());
+  }
+
   private final void assertNextIsFilter(final String filterType, final String mvel) {
     assertNextIsFilter(this.pft, filterType, mvel);
   }